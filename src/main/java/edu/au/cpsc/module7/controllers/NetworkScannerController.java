@@ -1,9 +1,15 @@
 package edu.au.cpsc.module7.controllers;
 
+import edu.au.cpsc.module7.models.InventoryEvent;
 import edu.au.cpsc.module7.models.NetworkHost;
 import edu.au.cpsc.module7.models.ScanConfiguration;
+import edu.au.cpsc.module7.models.ScanDiff;
+import edu.au.cpsc.module7.models.ScanEvent;
 import edu.au.cpsc.module7.services.NetworkScannerService;
 import edu.au.cpsc.module7.services.NetworkVisualizationService;
+import edu.au.cpsc.module7.services.PacketCaptureService;
+import edu.au.cpsc.module7.services.PassiveDiscoveryService;
+import edu.au.cpsc.module7.services.ScanStore;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -20,12 +26,22 @@ import java.util.logging.Level;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
 import com.google.inject.Inject;
 import netscape.javascript.JSObject;
 
@@ -34,22 +50,27 @@ import netscape.javascript.JSObject;
  */
 public class NetworkScannerController {
     private static final Logger logger = Logger.getLogger(NetworkScannerController.class.getName());
+    private static final int MAX_EVENTS_PER_BATCH = 1000;
     
     // Configuration Controls
     @FXML private TextField targetRangeField;
     @FXML private Button autoDetectButton;
     @FXML private ComboBox<ScanConfiguration.ScanType> scanTypeCombo;
     @FXML private ComboBox<ScanConfiguration.PortScanType> portScanTypeCombo;
+    @FXML private ComboBox<ScanConfiguration.ExecutionMode> executionModeCombo;
     @FXML private TextField timeoutField;
     @FXML private TextField threadsField;
     @FXML private CheckBox resolveHostnamesCheck;
     @FXML private CheckBox detectServicesCheck;
     @FXML private CheckBox detectOSCheck;
     @FXML private CheckBox performTracerouteCheck;
+    @FXML private CheckBox randomizeTargetOrderCheck;
     
     // Control Buttons
     @FXML private Button startScanButton;
     @FXML private Button stopScanButton;
+    @FXML private Button resumeScanButton;
+    @FXML private ToggleButton passiveDiscoveryToggle;
     @FXML private ProgressBar scanProgressBar;
     @FXML private Label scanStatusLabel;
     
@@ -81,15 +102,29 @@ public class NetworkScannerController {
     // Services
     private final NetworkScannerService scannerService;
     private final NetworkVisualizationService visualizationService;
+    private final ScanStore scanStore;
+    private final PassiveDiscoveryService passiveDiscoveryService;
+    private final PacketCaptureService packetCaptureService;
+    // Writes scan history off the FX thread, one scan at a time so diffs compare consecutive scans
+    private final ExecutorService historyExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ScanHistory");
+        t.setDaemon(true);
+        return t;
+    });
     
     // Data
     private ObservableList<NetworkHost> scanResults;
     private Task<List<NetworkHost>> currentScanTask;
 
     @Inject
-    public NetworkScannerController(NetworkScannerService scannerService, NetworkVisualizationService visualizationService) {
+    public NetworkScannerController(NetworkScannerService scannerService, NetworkVisualizationService visualizationService,
+                                    ScanStore scanStore, PassiveDiscoveryService passiveDiscoveryService,
+                                    PacketCaptureService packetCaptureService) {
         this.scannerService = scannerService;
         this.visualizationService = visualizationService;
+        this.scanStore = scanStore;
+        this.passiveDiscoveryService = passiveDiscoveryService;
+        this.packetCaptureService = packetCaptureService;
     }
     
     @FXML
@@ -149,6 +184,13 @@ public class NetworkScannerController {
         
         portScanTypeCombo.setItems(FXCollections.observableArrayList(ScanConfiguration.PortScanType.values()));
         portScanTypeCombo.setValue(ScanConfiguration.PortScanType.TCP_CONNECT);
+
+        executionModeCombo.setItems(FXCollections.observableArrayList(ScanConfiguration.ExecutionMode.values()));
+        executionModeCombo.setValue(ScanConfiguration.ExecutionMode.PLATFORM_THREADS);
+        if (!scannerService.isVirtualThreadSupported()) {
+            executionModeCombo.setDisable(true);
+            executionModeCombo.setTooltip(new Tooltip("Virtual threads need Java 21 or later"));
+        }
         
         // Setup results table
         resultsTable.setItems(scanResults);
@@ -164,6 +206,7 @@ public class NetworkScannerController {
         detectServicesCheck.setSelected(true);
         detectOSCheck.setSelected(false);
         performTracerouteCheck.setSelected(false);
+        randomizeTargetOrderCheck.setSelected(false);
 
         // Setup layout choice box
         layoutChoiceBox.setItems(FXCollections.observableArrayList("Ring", "Force"));
@@ -259,6 +302,30 @@ public class NetworkScannerController {
         }
     }
     
+    @FXML
+    private void handleResumeScan() {
+        if (currentScanTask != null && !currentScanTask.isDone()) {
+            return; // Scan already running
+        }
+        
+        try {
+            ScanConfiguration config = scannerService.getResumableScanConfiguration();
+            if (config == null) {
+                addLogEntry("No interrupted scan to resume");
+                return;
+            }
+            // Hosts restored from the checkpoint arrive again as events
+            scanResults.clear();
+            updateResultsSummary();
+            targetRangeField.setText(config.getTargetRange());
+            addLogEntry("=== RESUMING NETWORK SCAN ===");
+            runScanTask(config, scannerService.resumeScan(this::addLogEntry, new ScanEventBatcher()));
+        } catch (Exception e) {
+            addLogEntry("Error resuming scan: " + e.getMessage());
+            updateScanStatus("Error: " + e.getMessage(), false);
+        }
+    }
+    
     @FXML
     private void handleStopScan() {
         if (currentScanTask != null && !currentScanTask.isDone()) {
@@ -269,12 +336,59 @@ public class NetworkScannerController {
         }
     }
     
+    /**
+     * Starts or stops listening for hosts on an interface the user picks; hosts the
+     * listener learns about join the results table as they are heard
+     */
+    @FXML
+    private void handlePassiveDiscovery() {
+        if (!passiveDiscoveryToggle.isSelected()) {
+            passiveDiscoveryService.stop();
+            addLogEntry("Passive discovery stopped");
+            return;
+        }
+        
+        List<String> interfaces = packetCaptureService.getAvailableInterfaces();
+        if (interfaces.isEmpty()) {
+            passiveDiscoveryToggle.setSelected(false);
+            showAlert("Passive Discovery", "No capture interfaces available. Packet capture may need administrator privileges.");
+            return;
+        }
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(interfaces.get(0), interfaces);
+        dialog.setTitle("Passive Discovery");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Listen on interface:");
+        String interfaceName = dialog.showAndWait().orElse(null);
+        if (interfaceName == null) {
+            passiveDiscoveryToggle.setSelected(false);
+            return;
+        }
+        
+        try {
+            passiveDiscoveryService.start(interfaceName, new InventoryEventBatcher());
+            addLogEntry("=== PASSIVE DISCOVERY STARTED on " + interfaceName + " ===");
+            // The inventory outlives stop and start, so show what is already known
+            Set<NetworkHost> shown = new HashSet<>(scanResults);
+            for (NetworkHost host : passiveDiscoveryService.getInventory()) {
+                if (shown.add(host)) {
+                    scanResults.add(host);
+                }
+            }
+            updateResultsSummary();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not start passive discovery", e);
+            passiveDiscoveryToggle.setSelected(false);
+            addLogEntry("Could not start passive discovery: " + e.getMessage());
+        }
+    }
+    
     private ScanConfiguration createScanConfiguration() {
         ScanConfiguration config = new ScanConfiguration();
         
         config.setTargetRange(targetRangeField.getText().trim());
         config.setScanType(scanTypeCombo.getValue());
         config.setPortScanType(portScanTypeCombo.getValue());
+        config.setExecutionMode(executionModeCombo.getValue());
         
         try {
             config.setTimeout(Integer.parseInt(timeoutField.getText()));
@@ -292,6 +406,7 @@ public class NetworkScannerController {
         config.setDetectServices(detectServicesCheck.isSelected());
         config.setDetectOS(detectOSCheck.isSelected());
         config.setPerformTraceroute(performTracerouteCheck.isSelected());
+        config.setRandomizeTargetOrder(randomizeTargetOrderCheck.isSelected());
         
         return config;
     }
@@ -307,7 +422,11 @@ public class NetworkScannerController {
         addLogEntry("Port Scan: " + config.getPortScanType().getDisplayName());
         
         // Create scan task using working NetworkScannerService
-        currentScanTask = scannerService.scanNetwork(config, this::addLogEntry);
+        runScanTask(config, scannerService.scanNetwork(config, this::addLogEntry, new ScanEventBatcher()));
+    }
+    
+    private void runScanTask(ScanConfiguration config, Task<List<NetworkHost>> task) {
+        currentScanTask = task;
         
         // Setup task event handlers with WORKING progress bar binding
         currentScanTask.setOnRunning(e -> {
@@ -318,12 +437,20 @@ public class NetworkScannerController {
         currentScanTask.setOnSucceeded(e -> {
             List<NetworkHost> result = currentScanTask.getValue();
             Platform.runLater(() -> {
-                scanResults.addAll(result);
+                // Most hosts already arrived as events; add any that were not streamed
+                Set<NetworkHost> shown = new HashSet<>(scanResults);
+                for (NetworkHost host : result) {
+                    if (shown.add(host)) {
+                        scanResults.add(host);
+                    }
+                }
+                resultsTable.refresh();
                 updateResultsSummary();
                 
                 updateScanStatus("Scan completed - " + result.size() + " hosts found", false);
                 addLogEntry("=== SCAN COMPLETED ===");
                 addLogEntry("Total hosts discovered: " + result.size());
+                historyExecutor.execute(() -> recordScanHistory(config.getTargetRange(), result));
                 
                 // Update network map
                 updateNetworkMap();
@@ -363,11 +490,37 @@ public class NetworkScannerController {
         scanThread.start();
     }
     
+    /**
+     * Saves the scan to the history store and logs what changed since the last scan of
+     * the same range; runs on the history thread, posting only the log lines to the FX thread
+     */
+    private void recordScanHistory(String target, List<NetworkHost> hosts) {
+        try {
+            int scanId = scanStore.append(target, hosts);
+            int previousId = scanStore.findPreviousScan(target, scanId);
+            if (previousId < 0) {
+                return;
+            }
+            ScanDiff diff = scanStore.diff(previousId, scanId);
+            if (diff.isEmpty()) {
+                addLogEntry("No changes since the previous scan of " + target);
+            } else {
+                addLogEntry("=== CHANGES SINCE PREVIOUS SCAN ===");
+                addLogEntries(diff.describe());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to record scan history", e);
+            addLogEntry("Could not save scan history: " + e.getMessage());
+        }
+    }
+    
     private void updateScanStatus(String message, boolean scanning) {
         Platform.runLater(() -> {
             scanStatusLabel.setText(message);
             startScanButton.setDisable(scanning);
             stopScanButton.setDisable(!scanning);
+            // The checkpoint of a stopped scan is written as its task unwinds, so only check for it on click
+            resumeScanButton.setDisable(scanning);
             scanProgressBar.setVisible(scanning);
             
             // Unbind progress bar when scan is not running
@@ -391,15 +544,133 @@ public class NetworkScannerController {
     }
     
     private void addLogEntry(String message) {
-        Platform.runLater(() -> {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
-            String logEntry = "[" + timestamp + "] " + message + "\n";
-            logTextArea.appendText(logEntry);
+        Platform.runLater(() -> appendLogEntries(List.of(message)));
+    }
+    
+    private void addLogEntries(List<String> messages) {
+        Platform.runLater(() -> appendLogEntries(messages));
+    }
+    
+    /**
+     * Appends several log lines with a single text update; must run on the FX thread
+     */
+    private void appendLogEntries(List<String> messages) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
+        StringBuilder entries = new StringBuilder();
+        for (String message : messages) {
+            entries.append("[").append(timestamp).append("] ").append(message).append("\n");
+        }
+        logTextArea.appendText(entries.toString());
+        
+        if (autoScrollCheck.isSelected()) {
+            logTextArea.setScrollTop(Double.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * Collects events off the FX thread and applies them in batches, so a burst of
+     * findings costs one UI pulse instead of one runLater per finding
+     */
+    private abstract class EventBatcher<T> implements Flow.Subscriber<T> {
+        private final Queue<T> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+        
+        @Override
+        public void onNext(T event) {
+            pending.add(event);
+            if (drainScheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::drain);
+            }
+        }
+        
+        /**
+         * Applies one event on the FX thread, returning true if a host already shown changed
+         */
+        abstract boolean apply(T event);
+        
+        abstract String describe(T event);
+        
+        private void drain() {
+            drainScheduled.set(false);
+            List<String> messages = new ArrayList<>();
+            boolean hostsChanged = false;
             
-            if (autoScrollCheck.isSelected()) {
-                logTextArea.setScrollTop(Double.MAX_VALUE);
+            T event;
+            for (int i = 0; i < MAX_EVENTS_PER_BATCH && (event = pending.poll()) != null; i++) {
+                hostsChanged |= apply(event);
+                messages.add(describe(event));
             }
-        });
+            
+            if (!messages.isEmpty()) {
+                if (hostsChanged) {
+                    resultsTable.refresh();
+                }
+                appendLogEntries(messages);
+                updateResultsSummary();
+            }
+            // Leave the rest for the next pulse so the FX thread stays responsive
+            if (!pending.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::drain);
+            }
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            logger.log(Level.FINE, "Event stream ended with an error", throwable);
+        }
+        
+        @Override
+        public void onComplete() {
+            // Task handlers report completion
+        }
+    }
+    
+    private class ScanEventBatcher extends EventBatcher<ScanEvent> {
+        private final Set<NetworkHost> shownHosts = new HashSet<>();
+        
+        @Override
+        boolean apply(ScanEvent event) {
+            if (event.getType() == ScanEvent.Type.HOST_UP && shownHosts.add(event.getHost())) {
+                scanResults.add(event.getHost());
+                return false;
+            }
+            return true;
+        }
+        
+        @Override
+        String describe(ScanEvent event) {
+            return event.describe();
+        }
+    }
+    
+    /**
+     * Adds hosts heard by passive discovery to the results; expired hosts stay listed
+     * since a scan may still have found them
+     */
+    private class InventoryEventBatcher extends EventBatcher<InventoryEvent> {
+        @Override
+        boolean apply(InventoryEvent event) {
+            if (event.getType() == InventoryEvent.Type.HOST_ADDED && !scanResults.contains(event.getHost())) {
+                scanResults.add(event.getHost());
+                return false;
+            }
+            return true;
+        }
+        
+        @Override
+        String describe(InventoryEvent event) {
+            return event.describe();
+        }
+        
+        @Override
+        public void onComplete() {
+            Platform.runLater(() -> passiveDiscoveryToggle.setSelected(false));
+        }
     }
     
     @FXML
@@ -2,6 +2,7 @@ package edu.au.cpsc.module7.controllers;
 
 import com.google.inject.Inject;
 import edu.au.cpsc.module7.models.CapturedPacket;
+import edu.au.cpsc.module7.services.PcapWriter;
 import edu.au.cpsc.module7.services.TcpdumpPacketCaptureService;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
@@ -633,6 +634,7 @@ public class PacketAnalyzerController {
             format = "PCAP";
             extension = "*.pcap";
             fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PCAP files", extension));
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PCAPNG files", "*.pcapng"));
         } else if (exportCsvRadio.isSelected()) {
             format = "CSV";
             extension = "*.csv";
@@ -984,9 +986,17 @@ public class PacketAnalyzerController {
     }
     
     private void exportToPcap(File file) throws IOException {
-        // Note: This is a simplified PCAP export
-        // For full PCAP support, you'd need to use a proper PCAP library
-        showAlert("PCAP Export", "PCAP export requires additional libraries. Use CSV or JSON for now.");
+        PcapWriter.Format format = PcapWriter.Format.forFile(file.toPath());
+        if (format == PcapWriter.Format.PCAP && captureService.hasCaptureFile()) {
+            // tcpdump already wrote every frame, not just the ones parsed into the table
+            captureService.exportPackets(file);
+            return;
+        }
+        int written = PcapWriter.export(file.toPath(), format, PcapWriter.LINKTYPE_ETHERNET, allPackets);
+        if (written < allPackets.size()) {
+            showAlert("PCAP Export", "Exported " + written + " of " + allPackets.size() +
+                      " packets; the rest have no raw frame data.");
+        }
     }
     
     private void showAlert(String title, String content) {
@@ -30,6 +30,14 @@ public class SettingsDialogController implements Initializable {
     @FXML private ComboBox<String> themeComboBox;
     @FXML private ComboBox<String> fontFamilyComboBox;
     @FXML private Spinner<Integer> fontSizeSpinner;
+    @FXML private Spinner<Integer> ringCapacitySpinner;
+    @FXML private Spinner<Integer> decoderThreadsSpinner;
+    @FXML private CheckBox recordingCheckBox;
+    @FXML private TextField recordingDirectoryField;
+    @FXML private Button browseRecordingDirectoryButton;
+    @FXML private ComboBox<String> recordingFormatComboBox;
+    @FXML private Spinner<Integer> recordingFileSizeSpinner;
+    @FXML private Spinner<Integer> recordingFilesSpinner;
     @FXML private Button browsePathButton;
     @FXML private Button browseMtrPathButton;
     @FXML private Button browseHping3PathButton;
@@ -64,6 +72,20 @@ public class SettingsDialogController implements Initializable {
         // Font size spinner (8-24)
         fontSizeSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(8, 24, 12, 1));
         fontSizeSpinner.setEditable(true);
+
+        // Capture ring slots (1024-1048576)
+        ringCapacitySpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1024, 1048576, 8192, 1024));
+        ringCapacitySpinner.setEditable(true);
+
+        // Decoder threads (1-16)
+        decoderThreadsSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 16, 2, 1));
+        decoderThreadsSpinner.setEditable(true);
+
+        // Recording file size (1-4096 MB) and files kept (1-1000)
+        recordingFileSizeSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 4096, 100, 10));
+        recordingFileSizeSpinner.setEditable(true);
+        recordingFilesSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 1000, 10, 1));
+        recordingFilesSpinner.setEditable(true);
     }
 
     private void setupComboBoxes() {
@@ -77,6 +99,10 @@ public class SettingsDialogController implements Initializable {
                 "Courier New", "Monospace", "System Default"
         );
         fontFamilyComboBox.setValue("JetBrains Mono");
+
+        // Recording file formats
+        recordingFormatComboBox.getItems().addAll("pcapng", "pcap");
+        recordingFormatComboBox.setValue("pcapng");
     }
 
     private void setupEventHandlers() {
@@ -85,6 +111,7 @@ public class SettingsDialogController implements Initializable {
         }
         browseMtrPathButton.setOnAction(e -> browseForExecutable(mtrPathField, "MTR Executable"));
         browseHping3PathButton.setOnAction(e -> browseForExecutable(hping3PathField, "hping3 Executable"));
+        browseRecordingDirectoryButton.setOnAction(e -> browseForDirectory(recordingDirectoryField, "Recording Folder"));
         resetButton.setOnAction(e -> resetToDefaults());
         saveButton.setOnAction(e -> saveSettings());
         cancelButton.setOnAction(e -> handleCancel());
@@ -108,6 +135,13 @@ public class SettingsDialogController implements Initializable {
             themeComboBox.setValue(capitalize(settingsService.getTheme()));
             fontFamilyComboBox.setValue(settingsService.getFontFamily());
             fontSizeSpinner.getValueFactory().setValue(settingsService.getFontSize());
+            ringCapacitySpinner.getValueFactory().setValue(settingsService.getCaptureRingCapacity());
+            decoderThreadsSpinner.getValueFactory().setValue(settingsService.getCaptureDecoderThreads());
+            recordingCheckBox.setSelected(settingsService.isCaptureRecordingEnabled());
+            recordingDirectoryField.setText(settingsService.getCaptureRecordingDirectory().toString());
+            recordingFormatComboBox.setValue(settingsService.getCaptureRecordingFormat().getExtension());
+            recordingFileSizeSpinner.getValueFactory().setValue(settingsService.getCaptureRecordingMaxFileMegabytes());
+            recordingFilesSpinner.getValueFactory().setValue(settingsService.getCaptureRecordingMaxFiles());
 
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Error loading settings", e);
@@ -137,6 +171,21 @@ public class SettingsDialogController implements Initializable {
         }
     }
 
+    private void browseForDirectory(TextField pathField, String title) {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select " + title);
+
+        File current = new File(pathField.getText());
+        if (current.isDirectory()) {
+            directoryChooser.setInitialDirectory(current);
+        }
+
+        File selectedDirectory = directoryChooser.showDialog(pathField.getScene().getWindow());
+        if (selectedDirectory != null) {
+            pathField.setText(selectedDirectory.getAbsolutePath());
+        }
+    }
+
     private void resetToDefaults() {
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("Reset Settings");
@@ -156,6 +205,13 @@ public class SettingsDialogController implements Initializable {
                 themeComboBox.setValue("Dark");
                 fontFamilyComboBox.setValue("JetBrains Mono");
                 fontSizeSpinner.getValueFactory().setValue(12);
+                ringCapacitySpinner.getValueFactory().setValue(8192);
+                decoderThreadsSpinner.getValueFactory().setValue(2);
+                recordingCheckBox.setSelected(false);
+                recordingDirectoryField.setText(settingsService.getSettingsDirectory().resolve("recordings").toString());
+                recordingFormatComboBox.setValue("pcapng");
+                recordingFileSizeSpinner.getValueFactory().setValue(100);
+                recordingFilesSpinner.getValueFactory().setValue(10);
             }
         });
     }
@@ -184,6 +240,13 @@ public class SettingsDialogController implements Initializable {
             settingsService.setSetting("theme", themeComboBox.getValue().toLowerCase());
             settingsService.setSetting("font.family", fontFamilyComboBox.getValue());
             settingsService.setSetting("font.size", fontSizeSpinner.getValue().toString());
+            settingsService.setSetting("capture.ring.capacity", ringCapacitySpinner.getValue().toString());
+            settingsService.setSetting("capture.decoder.threads", decoderThreadsSpinner.getValue().toString());
+            settingsService.setSetting("capture.recording.enabled", String.valueOf(recordingCheckBox.isSelected()));
+            settingsService.setSetting("capture.recording.directory", recordingDirectoryField.getText());
+            settingsService.setSetting("capture.recording.format", recordingFormatComboBox.getValue());
+            settingsService.setSetting("capture.recording.max.file.mb", recordingFileSizeSpinner.getValue().toString());
+            settingsService.setSetting("capture.recording.max.files", recordingFilesSpinner.getValue().toString());
 
             settingsService.saveSettings();
 
@@ -281,8 +344,15 @@ public class SettingsDialogController implements Initializable {
         boolean themeChanged = !themeComboBox.getValue().equalsIgnoreCase(settingsService.getTheme());
         boolean fontChanged = !fontFamilyComboBox.getValue().equals(settingsService.getFontFamily());
         boolean fontSizeChanged = !fontSizeSpinner.getValue().equals(settingsService.getFontSize());
-
-        return pythonChanged || mtrChanged || hping3Changed || timeoutChanged || historyChanged || autoSaveChanged || themeChanged || fontChanged || fontSizeChanged;
+        boolean captureChanged = !ringCapacitySpinner.getValue().equals(settingsService.getCaptureRingCapacity())
+                || !decoderThreadsSpinner.getValue().equals(settingsService.getCaptureDecoderThreads())
+                || recordingCheckBox.isSelected() != settingsService.isCaptureRecordingEnabled()
+                || !recordingDirectoryField.getText().equals(settingsService.getCaptureRecordingDirectory().toString())
+                || !recordingFormatComboBox.getValue().equals(settingsService.getCaptureRecordingFormat().getExtension())
+                || !recordingFileSizeSpinner.getValue().equals(settingsService.getCaptureRecordingMaxFileMegabytes())
+                || !recordingFilesSpinner.getValue().equals(settingsService.getCaptureRecordingMaxFiles());
+
+        return pythonChanged || mtrChanged || hping3Changed || timeoutChanged || historyChanged || autoSaveChanged || themeChanged || fontChanged || fontSizeChanged || captureChanged;
     }
 
     private String capitalize(String str) {
@@ -19,9 +19,14 @@ public class AppModule extends AbstractModule {
         bind(SystemToolsManager.class).in(Singleton.class);
         bind(DNSQueryService.class).in(Singleton.class);
         bind(NetworkScannerService.class).in(Singleton.class);
+        bind(ScanScheduler.class).in(Singleton.class);
+        bind(ScanStore.class).in(Singleton.class);
+        bind(ReverseDnsResolver.class).in(Singleton.class);
         bind(TcpdumpPacketCaptureService.class).in(Singleton.class);
         bind(PacketCaptureService.class).in(Singleton.class);
         bind(ARPScanner.class).in(Singleton.class);
+        bind(OuiDatabase.class).in(Singleton.class);
+        bind(PassiveDiscoveryService.class).in(Singleton.class);
         bind(NetworkVisualizationService.class).in(Singleton.class);
         bind(ProtocolDissectorService.class).in(Singleton.class);
         
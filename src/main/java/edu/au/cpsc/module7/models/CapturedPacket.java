@@ -1,41 +1,66 @@
 package edu.au.cpsc.module7.models;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Represents a captured network packet with detailed information for analysis
+ * Represents a captured network packet with detailed information for analysis.
+ *
+ * Packets from the live capture engine are compact index records: the frame bytes sit
+ * in a {@link PacketArena}, addresses are kept as packed IPv4 ints, and the timestamp as
+ * epoch nanoseconds. IPv6 addresses are only located within the stored frame and read
+ * back from the arena when first asked for. Strings, the timestamp object and protocol
+ * details are only created when asked for.
  */
 public class CapturedPacket {
+    /** Packed address value for packets that have no IPv4 address */
+    public static final long NO_ADDRESS = -1;
     
     private final long id;
-    private final LocalDateTime timestamp;
-    private final String sourceAddress;
-    private final String destinationAddress;
+    private final long timestampNanos;
+    private final long sourceIp;
+    private final long destinationIp;
+    private String sourceAddress;
+    private String destinationAddress;
     private final int sourcePort;
     private final int destinationPort;
     private final String protocol;
     private final int length;
-    private final byte[] rawData;
-    private final String info;
-    private final Map<String, Object> protocolDetails;
-    
-    // Protocol-specific fields
-    private String httpMethod;
-    private String httpUrl;
-    private String httpUserAgent;
-    private String dnsQuery;
-    private String dnsResponse;
-    private String dhcpMessageType;
-    private String arpOperation;
+    private final byte[] rawData;       // Heap copy, or null when the frame is in the arena
+    private final PacketArena arena;
+    private final long arenaHandle;
+    private final int ipV6Offset;       // IPv6 header within the stored frame, or -1
+    private String info;
+    private Details details;            // Allocated by the first dissector that sets anything
+    
+    /**
+     * Protocol-specific fields, which most packets never get
+     */
+    private static final class Details {
+        final Map<String, Object> protocolDetails = new HashMap<>();
+        String httpMethod;
+        String httpUrl;
+        String httpUserAgent;
+        String dnsQuery;
+        String dnsResponse;
+        String dhcpMessageType;
+        String arpOperation;
+    }
     
     public CapturedPacket(long id, LocalDateTime timestamp, String sourceAddress, 
                          String destinationAddress, int sourcePort, int destinationPort,
                          String protocol, int length, byte[] rawData, String info) {
+        Instant instant = timestamp.atZone(ZoneId.systemDefault()).toInstant();
         this.id = id;
-        this.timestamp = timestamp;
+        this.timestampNanos = instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+        this.sourceIp = NO_ADDRESS;
+        this.destinationIp = NO_ADDRESS;
         this.sourceAddress = sourceAddress;
         this.destinationAddress = destinationAddress;
         this.sourcePort = sourcePort;
@@ -43,64 +68,198 @@ public class CapturedPacket {
         this.protocol = protocol;
         this.length = length;
         this.rawData = rawData != null ? Arrays.copyOf(rawData, rawData.length) : new byte[0];
+        this.arena = null;
+        this.arenaHandle = 0;
+        this.ipV6Offset = -1;
         this.info = info;
-        this.protocolDetails = new HashMap<>();
+    }
+    
+    /**
+     * Index record for a frame already stored in an arena
+     *
+     * @param sourceIp packed IPv4 source as an unsigned int, or {@link #NO_ADDRESS}
+     * @param destinationIp packed IPv4 destination as an unsigned int, or {@link #NO_ADDRESS}
+     * @param length bytes of the frame stored at arenaHandle
+     */
+    public CapturedPacket(long id, long timestampNanos, long sourceIp, long destinationIp,
+                          int sourcePort, int destinationPort, String protocol, int length,
+                          PacketArena arena, long arenaHandle) {
+        this(id, timestampNanos, sourceIp, destinationIp, sourcePort, destinationPort, protocol, length,
+             arena, arenaHandle, -1);
+    }
+    
+    /**
+     * Index record for an IPv6 frame already stored in an arena, whose addresses are
+     * read from the frame's IPv6 header when first asked for
+     *
+     * @param ipV6Offset offset of the IPv6 header within the frame, or -1 if it has none
+     */
+    public CapturedPacket(long id, long timestampNanos, long sourceIp, long destinationIp,
+                          int sourcePort, int destinationPort, String protocol, int length,
+                          PacketArena arena, long arenaHandle, int ipV6Offset) {
+        this.id = id;
+        this.timestampNanos = timestampNanos;
+        this.sourceIp = sourceIp;
+        this.destinationIp = destinationIp;
+        this.sourcePort = sourcePort;
+        this.destinationPort = destinationPort;
+        this.protocol = protocol;
+        this.length = length;
+        this.rawData = null;
+        this.arena = arena;
+        this.arenaHandle = arenaHandle;
+        this.ipV6Offset = ipV6Offset;
     }
     
     // Getters
     public long getId() { return id; }
-    public LocalDateTime getTimestamp() { return timestamp; }
-    public String getSourceAddress() { return sourceAddress; }
-    public String getDestinationAddress() { return destinationAddress; }
+    public long getTimestampNanos() { return timestampNanos; }
+    public long getSourceIp() { return sourceIp; }
+    public long getDestinationIp() { return destinationIp; }
     public int getSourcePort() { return sourcePort; }
     public int getDestinationPort() { return destinationPort; }
     public String getProtocol() { return protocol; }
     public int getLength() { return length; }
-    public byte[] getRawData() { return Arrays.copyOf(rawData, rawData.length); }
-    public String getInfo() { return info; }
-    public Map<String, Object> getProtocolDetails() { return new HashMap<>(protocolDetails); }
+    public long getArenaHandle() { return arenaHandle; }
+    
+    public LocalDateTime getTimestamp() {
+        return LocalDateTime.ofInstant(
+            Instant.ofEpochSecond(Math.floorDiv(timestampNanos, 1_000_000_000L), Math.floorMod(timestampNanos, 1_000_000_000L)),
+            ZoneId.systemDefault());
+    }
+    
+    public String getSourceAddress() {
+        if (sourceAddress == null) {
+            sourceAddress = ipV6Offset >= 0 ? readIpV6Address(8) : formatAddress(sourceIp);
+        }
+        return sourceAddress;
+    }
+    
+    public String getDestinationAddress() {
+        if (destinationAddress == null) {
+            destinationAddress = ipV6Offset >= 0 ? readIpV6Address(24) : formatAddress(destinationIp);
+        }
+        return destinationAddress;
+    }
+    
+    /**
+     * Copy of the frame bytes; empty if the frame has been evicted from its arena
+     */
+    public byte[] getRawData() {
+        if (rawData != null) {
+            return Arrays.copyOf(rawData, rawData.length);
+        }
+        byte[] data = new byte[length];
+        return arena.read(arenaHandle, data, 0, length) ? data : new byte[0];
+    }
+    
+    public String getInfo() {
+        if (info == null) {
+            info = describe();
+        }
+        return info;
+    }
+    
+    public Map<String, Object> getProtocolDetails() {
+        return details != null ? new HashMap<>(details.protocolDetails) : new HashMap<>();
+    }
     
     // Protocol-specific getters
-    public String getHttpMethod() { return httpMethod; }
-    public String getHttpUrl() { return httpUrl; }
-    public String getHttpUserAgent() { return httpUserAgent; }
-    public String getDnsQuery() { return dnsQuery; }
-    public String getDnsResponse() { return dnsResponse; }
-    public String getDhcpMessageType() { return dhcpMessageType; }
-    public String getArpOperation() { return arpOperation; }
+    public String getHttpMethod() { return details != null ? details.httpMethod : null; }
+    public String getHttpUrl() { return details != null ? details.httpUrl : null; }
+    public String getHttpUserAgent() { return details != null ? details.httpUserAgent : null; }
+    public String getDnsQuery() { return details != null ? details.dnsQuery : null; }
+    public String getDnsResponse() { return details != null ? details.dnsResponse : null; }
+    public String getDhcpMessageType() { return details != null ? details.dhcpMessageType : null; }
+    public String getArpOperation() { return details != null ? details.arpOperation : null; }
     
     // Protocol-specific setters
-    public void setHttpMethod(String httpMethod) { this.httpMethod = httpMethod; }
-    public void setHttpUrl(String httpUrl) { this.httpUrl = httpUrl; }
-    public void setHttpUserAgent(String httpUserAgent) { this.httpUserAgent = httpUserAgent; }
-    public void setDnsQuery(String dnsQuery) { this.dnsQuery = dnsQuery; }
-    public void setDnsResponse(String dnsResponse) { this.dnsResponse = dnsResponse; }
-    public void setDhcpMessageType(String dhcpMessageType) { this.dhcpMessageType = dhcpMessageType; }
-    public void setArpOperation(String arpOperation) { this.arpOperation = arpOperation; }
+    public void setHttpMethod(String httpMethod) { details().httpMethod = httpMethod; }
+    public void setHttpUrl(String httpUrl) { details().httpUrl = httpUrl; }
+    public void setHttpUserAgent(String httpUserAgent) { details().httpUserAgent = httpUserAgent; }
+    public void setDnsQuery(String dnsQuery) { details().dnsQuery = dnsQuery; }
+    public void setDnsResponse(String dnsResponse) { details().dnsResponse = dnsResponse; }
+    public void setDhcpMessageType(String dhcpMessageType) { details().dhcpMessageType = dhcpMessageType; }
+    public void setArpOperation(String arpOperation) { details().arpOperation = arpOperation; }
     
     // Protocol detail management
     public void addProtocolDetail(String key, Object value) {
-        protocolDetails.put(key, value);
+        details().protocolDetails.put(key, value);
     }
     
     public Object getProtocolDetail(String key) {
-        return protocolDetails.get(key);
+        return details != null ? details.protocolDetails.get(key) : null;
+    }
+    
+    private Details details() {
+        if (details == null) {
+            details = new Details();
+        }
+        return details;
+    }
+    
+    private static String formatAddress(long address) {
+        if (address == NO_ADDRESS) {
+            return "";
+        }
+        return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "." +
+               ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+    
+    /**
+     * Formats the sixteen-byte address at the given offset into the IPv6 header, or
+     * returns "" if the frame has been evicted from its arena
+     */
+    private String readIpV6Address(int fieldOffset) {
+        byte[] header = new byte[ipV6Offset + 40];
+        if (header.length > length || !arena.read(arenaHandle, header, 0, header.length)) {
+            return "";
+        }
+        try {
+            return InetAddress.getByAddress(Arrays.copyOfRange(header, ipV6Offset + fieldOffset,
+                                                               ipV6Offset + fieldOffset + 16)).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e); // Unreachable for sixteen-byte input
+        }
+    }
+    
+    /**
+     * Summary line for packets built without one, matching what the capture engine used to store
+     */
+    private String describe() {
+        switch (protocol) {
+            case "TCP":
+            case "HTTP":
+            case "HTTPS":
+                return "TCP " + sourcePort + " -> " + destinationPort;
+            case "UDP":
+            case "DNS":
+            case "DHCP":
+                return "UDP " + sourcePort + " -> " + destinationPort;
+            case "ICMP":
+                return "ICMP";
+            case "ARP":
+                return "ARP " + getSourceAddress() + " -> " + getDestinationAddress();
+            default:
+                return "";
+        }
     }
     
     // Utility methods
     public String getFormattedTimestamp() {
-        return timestamp.toString().substring(11, 19); // HH:MM:SS format
+        return getTimestamp().toString().substring(11, 19); // HH:MM:SS format
     }
     
     public String getSourceEndpoint() {
-        return sourcePort > 0 ? sourceAddress + ":" + sourcePort : sourceAddress;
+        return sourcePort > 0 ? getSourceAddress() + ":" + sourcePort : getSourceAddress();
     }
     
     public String getDestinationEndpoint() {
-        return destinationPort > 0 ? destinationAddress + ":" + destinationPort : destinationAddress;
+        return destinationPort > 0 ? getDestinationAddress() + ":" + destinationPort : getDestinationAddress();
     }
     
     public String getHexData() {
+        byte[] rawData = getRawData();
         if (rawData.length == 0) return "";
         
         StringBuilder hex = new StringBuilder();
@@ -154,7 +313,7 @@ public class CapturedPacket {
     public String toString() {
         return String.format("[%s] %s -> %s [%s] %d bytes: %s",
                 getFormattedTimestamp(), getSourceEndpoint(), getDestinationEndpoint(),
-                protocol, length, info);
+                protocol, length, getInfo());
     }
     
     @Override
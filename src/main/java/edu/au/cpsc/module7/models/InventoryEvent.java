@@ -0,0 +1,73 @@
+package edu.au.cpsc.module7.models;
+
+/**
+ * A change to the live host inventory built by passive discovery
+ */
+public class InventoryEvent {
+    public enum Type {
+        HOST_ADDED,
+        MAC_CHANGED,
+        HOSTNAME_LEARNED,
+        HOST_EXPIRED
+    }
+
+    private final Type type;
+    private final NetworkHost host;
+    private final String source;
+    private final String previous;
+    private final long timestamp;
+
+    private InventoryEvent(Type type, NetworkHost host, String source, String previous) {
+        this.type = type;
+        this.host = host;
+        this.source = source;
+        this.previous = previous;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public static InventoryEvent hostAdded(NetworkHost host, String source) {
+        return new InventoryEvent(Type.HOST_ADDED, host, source, null);
+    }
+
+    public static InventoryEvent macChanged(NetworkHost host, String previousMac, String source) {
+        return new InventoryEvent(Type.MAC_CHANGED, host, source, previousMac);
+    }
+
+    public static InventoryEvent hostnameLearned(NetworkHost host, String previousHostname, String source) {
+        return new InventoryEvent(Type.HOSTNAME_LEARNED, host, source, previousHostname);
+    }
+
+    public static InventoryEvent hostExpired(NetworkHost host) {
+        return new InventoryEvent(Type.HOST_EXPIRED, host, null, null);
+    }
+
+    public Type getType() { return type; }
+    public NetworkHost getHost() { return host; }
+    /** Protocol the change was learned from: ARP, DHCP, mDNS, LLMNR or NDP */
+    public String getSource() { return source; }
+    /** MAC or hostname before the change, or null */
+    public String getPrevious() { return previous; }
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Human-readable line for the inventory log
+     */
+    public String describe() {
+        String ip = host.getIpAddress();
+        switch (type) {
+            case HOST_ADDED:
+                return "New host: " + ip + " (" + host.getMacAddress() + ") via " + source;
+            case MAC_CHANGED:
+                return "MAC for " + ip + " changed from " + previous + " to " + host.getMacAddress() + " via " + source;
+            case HOSTNAME_LEARNED:
+                return "Hostname for " + ip + ": " + host.getHostname() + " via " + source;
+            default:
+                return "Host no longer seen: " + ip;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryEvent{" + type + ", " + host.getIpAddress() + (source != null ? ", " + source : "") + "}";
+    }
+}
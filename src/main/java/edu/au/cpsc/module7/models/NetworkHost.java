@@ -1,20 +1,42 @@
 package edu.au.cpsc.module7.models;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents a discovered network host with its properties and services
  */
 public class NetworkHost {
+    /**
+     * Outcome of a single port probe
+     */
+    public enum PortState {
+        OPEN,
+        CLOSED,   // Host answered with a reset
+        FILTERED  // No answer before the probe deadline
+    }
+    
+    public enum Protocol {
+        TCP,
+        UDP
+    }
+    
     private String ipAddress;
     private String hostname;
     private String macAddress;
     private String vendor;
     private boolean isAlive;
     private long responseTime;
-    private List<Integer> openPorts;
+    private long responseTimeMicros;
+    // One bitmap per (protocol, state), allocated on first use
+    private final AtomicReferenceArray<PortStateBitmap> portStates =
+        new AtomicReferenceArray<>(Protocol.values().length * PortState.values().length);
+    private final List<Integer> openPorts = new OpenPortsView();
     private List<String> services;
     private String osGuess;
     private double x; // For network map visualization
@@ -26,12 +48,12 @@ public class NetworkHost {
     
     public NetworkHost(String ipAddress) {
         this.ipAddress = ipAddress;
-        this.openPorts = new ArrayList<>();
         this.services = new ArrayList<>();
         this.networkPath = new ArrayList<>();
         this.vulnerabilities = new ArrayList<>();
         this.isAlive = false;
         this.responseTime = -1;
+        this.responseTimeMicros = -1;
         this.x = 0;
         this.y = 0;
         this.riskLevel = "MINIMAL";
@@ -56,8 +78,29 @@ public class NetworkHost {
     public long getResponseTime() { return responseTime; }
     public void setResponseTime(long responseTime) { this.responseTime = responseTime; }
     
+    /**
+     * Discovery round trip in microseconds, or -1 if only whole milliseconds are known
+     */
+    public long getResponseTimeMicros() { return responseTimeMicros; }
+    
+    /**
+     * Records the discovery round trip in microseconds, updating the millisecond value too
+     */
+    public void setResponseTimeMicros(long responseTimeMicros) {
+        this.responseTimeMicros = responseTimeMicros;
+        this.responseTime = responseTimeMicros / 1000;
+    }
+    
     public List<Integer> getOpenPorts() { return openPorts; }
-    public void setOpenPorts(List<Integer> openPorts) { this.openPorts = openPorts; }
+    public void setOpenPorts(List<Integer> openPorts) {
+        PortStateBitmap open = portStates.get(slot(Protocol.TCP, PortState.OPEN));
+        if (open != null) {
+            open.clearAll();
+        }
+        for (int port : openPorts) {
+            addOpenPort(port);
+        }
+    }
     
     public List<String> getServices() { return services; }
     public void setServices(List<String> services) { this.services = services; }
@@ -84,8 +127,120 @@ public class NetworkHost {
     public void setRiskLevel(String riskLevel) { this.riskLevel = riskLevel; }
     
     public void addOpenPort(int port) {
-        if (!openPorts.contains(port)) {
-            openPorts.add(port);
+        setPortState(Protocol.TCP, port, PortState.OPEN);
+    }
+    
+    /**
+     * Records a probe outcome, clearing the port from the protocol's other states.
+     * Returns true if the port was not already in that state.
+     */
+    public boolean setPortState(Protocol protocol, int port, PortState state) {
+        boolean changed = getPortBitmap(protocol, state).set(port);
+        for (PortState other : PortState.values()) {
+            PortStateBitmap bitmap = other != state ? portStates.get(slot(protocol, other)) : null;
+            if (bitmap != null) {
+                bitmap.clear(port);
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Last recorded state of the port, or null if it was never probed
+     */
+    public PortState getPortState(Protocol protocol, int port) {
+        for (PortState state : PortState.values()) {
+            PortStateBitmap bitmap = portStates.get(slot(protocol, state));
+            if (bitmap != null && bitmap.get(port)) {
+                return state;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Live bitmap of the ports in the given state
+     */
+    public PortStateBitmap getPortBitmap(Protocol protocol, PortState state) {
+        int slot = slot(protocol, state);
+        PortStateBitmap bitmap = portStates.get(slot);
+        if (bitmap == null) {
+            portStates.compareAndSet(slot, null, new PortStateBitmap());
+            bitmap = portStates.get(slot);
+        }
+        return bitmap;
+    }
+    
+    /**
+     * True if any port is in the given state, without allocating its bitmap
+     */
+    public boolean hasPorts(Protocol protocol, PortState state) {
+        PortStateBitmap bitmap = portStates.get(slot(protocol, state));
+        return bitmap != null && !bitmap.isEmpty();
+    }
+    
+    private static int slot(Protocol protocol, PortState state) {
+        return protocol.ordinal() * PortState.values().length + state.ordinal();
+    }
+    
+    /**
+     * Sorted read-only view of the open TCP ports backed by the bitmap. Reads never
+     * allocate the bitmap; a host with no open port recorded has none.
+     */
+    private class OpenPortsView extends AbstractList<Integer> {
+        private PortStateBitmap bitmap() {
+            return portStates.get(slot(Protocol.TCP, PortState.OPEN));
+        }
+        
+        @Override
+        public Integer get(int index) {
+            PortStateBitmap bitmap = bitmap();
+            int port = bitmap != null ? bitmap.select(index) : -1;
+            if (port < 0) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return port;
+        }
+        
+        @Override
+        public int size() {
+            PortStateBitmap bitmap = bitmap();
+            return bitmap != null ? bitmap.cardinality() : 0;
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            PortStateBitmap bitmap = bitmap();
+            return bitmap == null || bitmap.isEmpty();
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            PortStateBitmap bitmap = bitmap();
+            return bitmap != null && o instanceof Integer && bitmap.get((Integer) o);
+        }
+        
+        @Override
+        public Iterator<Integer> iterator() {
+            PortStateBitmap bitmap = bitmap();
+            return new Iterator<Integer>() {
+                private int next = bitmap != null ? bitmap.nextSetBit(0) : -1;
+                
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+                
+                @Override
+                public Integer next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    int port = next;
+                    next = bitmap.nextSetBit(port + 1);
+                    return port;
+                }
+            };
         }
     }
     
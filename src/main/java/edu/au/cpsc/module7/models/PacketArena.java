@@ -0,0 +1,92 @@
+package edu.au.cpsc.module7.models;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap storage for raw captured frames. Frames are appended back to back into
+ * direct buffers of a fixed chunk size and addressed by a handle packing the chunk
+ * number and offset, so a capture of millions of frames costs the heap one handle per
+ * frame instead of one array. Memory is returned a whole chunk at a time by releasing
+ * everything before a handle; chunks are never reused, so a handle into released
+ * memory is detected rather than read as another frame's bytes.
+ */
+public final class PacketArena {
+    public static final int DEFAULT_CHUNK_BYTES = 16 * 1024 * 1024; // 16MB
+
+    private final int chunkBytes;
+    private final List<ByteBuffer> chunks = new ArrayList<>(); // chunks.get(i) has id firstChunkId + i
+    private long firstChunkId;
+    private int tailOffset;
+
+    public PacketArena() {
+        this(DEFAULT_CHUNK_BYTES);
+    }
+
+    public PacketArena(int chunkBytes) {
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Copies a frame into the arena and returns its handle
+     */
+    public synchronized long append(byte[] data, int offset, int length) {
+        if (length > chunkBytes) {
+            throw new IllegalArgumentException("Frame of " + length + " bytes exceeds arena chunk size " + chunkBytes);
+        }
+        if (chunks.isEmpty() || tailOffset + length > chunkBytes) {
+            chunks.add(ByteBuffer.allocateDirect(chunkBytes));
+            tailOffset = 0;
+        }
+        int chunkIndex = chunks.size() - 1;
+        chunks.get(chunkIndex).put(tailOffset, data, offset, length);
+        long handle = (firstChunkId + chunkIndex) << 32 | tailOffset;
+        tailOffset += length;
+        return handle;
+    }
+
+    /**
+     * Copies a frame out of the arena, returning false if its chunk has been released
+     */
+    public boolean read(long handle, byte[] destination, int offset, int length) {
+        ByteBuffer chunk;
+        synchronized (this) {
+            long index = (handle >>> 32) - firstChunkId;
+            if (index < 0 || index >= chunks.size()) {
+                return false;
+            }
+            chunk = chunks.get((int) index);
+        }
+        // Absolute reads do not touch the buffer's position, so they need no lock
+        chunk.get((int) handle, destination, offset, length);
+        return true;
+    }
+
+    /**
+     * Frees every chunk holding only frames older than the given handle
+     */
+    public synchronized void releaseBefore(long handle) {
+        long release = Math.min((handle >>> 32) - firstChunkId, chunks.size() - 1);
+        if (release > 0) {
+            chunks.subList(0, (int) release).clear();
+            firstChunkId += release;
+        }
+    }
+
+    /**
+     * Frees all frames; handles issued so far become unreadable
+     */
+    public synchronized void clear() {
+        firstChunkId += chunks.size();
+        chunks.clear();
+        tailOffset = 0;
+    }
+
+    /**
+     * Off-heap bytes currently reserved by the arena
+     */
+    public synchronized long allocatedBytes() {
+        return (long) chunks.size() * chunkBytes;
+    }
+}
@@ -0,0 +1,198 @@
+package edu.au.cpsc.module7.models;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Fixed 65,536-bit set of port numbers (8 KB) with lock-free updates, so concurrent
+ * probes can record results without synchronization and two scans can be compared
+ * word by word
+ */
+public class PortStateBitmap {
+    public static final int PORT_COUNT = 65536;
+    public static final int WORD_COUNT = PORT_COUNT / 64;
+
+    private final AtomicLongArray words;
+
+    public PortStateBitmap() {
+        this.words = new AtomicLongArray(WORD_COUNT);
+    }
+
+    private PortStateBitmap(long[] words) {
+        this.words = new AtomicLongArray(words);
+    }
+
+    /**
+     * Rebuilds a bitmap from the words written by {@link #toLongArray()}
+     */
+    public static PortStateBitmap fromLongArray(long[] words) {
+        if (words.length != WORD_COUNT) {
+            throw new IllegalArgumentException("Expected " + WORD_COUNT + " words, got " + words.length);
+        }
+        return new PortStateBitmap(words);
+    }
+
+    /**
+     * Sets the port's bit, returning true if it was not already set
+     */
+    public boolean set(int port) {
+        long bit = 1L << port;
+        return (words.getAndAccumulate(wordIndex(port), bit, (word, mask) -> word | mask) & bit) == 0;
+    }
+
+    /**
+     * Clears the port's bit, returning true if it was set
+     */
+    public boolean clear(int port) {
+        long bit = 1L << port;
+        return (words.getAndAccumulate(wordIndex(port), bit, (word, mask) -> word & ~mask) & bit) != 0;
+    }
+
+    public boolean get(int port) {
+        return port >= 0 && port < PORT_COUNT && (words.get(port >>> 6) & (1L << port)) != 0;
+    }
+
+    public void clearAll() {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            words.set(i, 0);
+        }
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < WORD_COUNT; i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            if (words.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first set port at or after fromPort, or -1 if there is none
+     */
+    public int nextSetBit(int fromPort) {
+        if (fromPort >= PORT_COUNT) {
+            return -1;
+        }
+        int index = Math.max(0, fromPort) >>> 6;
+        long word = words.get(index) & (-1L << fromPort);
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == WORD_COUNT) {
+                return -1;
+            }
+            word = words.get(index);
+        }
+    }
+
+    /**
+     * Returns the set port of the given rank, counting from 0 in ascending order, or -1
+     * if fewer ports are set; skips whole words by their bit count
+     */
+    public int select(int rank) {
+        if (rank < 0) {
+            return -1;
+        }
+        for (int i = 0; i < WORD_COUNT; i++) {
+            long word = words.get(i);
+            int count = Long.bitCount(word);
+            if (rank < count) {
+                for (int j = 0; j < rank; j++) {
+                    word &= word - 1;
+                }
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            rank -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Visits every set port in ascending order
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            long word = words.get(i);
+            while (word != 0) {
+                action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Ports set here but not in the other bitmap
+     */
+    public PortStateBitmap andNot(PortStateBitmap other) {
+        long[] result = new long[WORD_COUNT];
+        for (int i = 0; i < WORD_COUNT; i++) {
+            result[i] = words.get(i) & ~other.words.get(i);
+        }
+        return new PortStateBitmap(result);
+    }
+
+    /**
+     * Ports set in either bitmap
+     */
+    public PortStateBitmap or(PortStateBitmap other) {
+        long[] result = new long[WORD_COUNT];
+        for (int i = 0; i < WORD_COUNT; i++) {
+            result[i] = words.get(i) | other.words.get(i);
+        }
+        return new PortStateBitmap(result);
+    }
+
+    /**
+     * Raw 64-port word, for callers that compare or serialize bitmaps
+     */
+    public long getWord(int index) {
+        return words.get(index);
+    }
+
+    public long[] toLongArray() {
+        long[] copy = new long[WORD_COUNT];
+        for (int i = 0; i < WORD_COUNT; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    private static int wordIndex(int port) {
+        if (port < 0 || port >= PORT_COUNT) {
+            throw new IllegalArgumentException("Port out of range: " + port);
+        }
+        return port >>> 6;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PortStateBitmap)) return false;
+        PortStateBitmap that = (PortStateBitmap) o;
+        for (int i = 0; i < WORD_COUNT; i++) {
+            if (words.get(i) != that.words.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = 1;
+        for (int i = 0; i < WORD_COUNT; i++) {
+            hash = 31 * hash + words.get(i);
+        }
+        return Long.hashCode(hash);
+    }
+}
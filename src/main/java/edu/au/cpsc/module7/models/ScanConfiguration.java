@@ -26,6 +26,7 @@ public class ScanConfiguration {
     
     public enum PortScanType {
         TCP_CONNECT("TCP Connect"),
+        TCP_CONNECT_ASYNC("TCP Connect (Async NIO)"),
         TCP_SYN_SCAN("TCP SYN Stealth Scan");
 
         private final String displayName;
@@ -44,12 +45,38 @@ public class ScanConfiguration {
         }
     }
     
+    public enum ExecutionMode {
+        PLATFORM_THREADS("Platform Threads"),
+        VIRTUAL_THREADS("Virtual Threads");
+
+        private final String displayName;
+
+        ExecutionMode(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+    
     private String targetRange;
     private ScanType scanType;
     private PortScanType portScanType;
     private List<Integer> ports;
     private int timeout;
     private int threads;
+    private ExecutionMode executionMode;
+    private int maxConcurrentProbes;
+    private int synPacketsPerSecond;
+    private int maxPacketsPerSecond;
+    private boolean adaptiveRate;
+    private boolean randomizeTargetOrder;
     private boolean resolveHostnames;
     private boolean detectServices;
     private boolean detectOS;
@@ -62,6 +89,12 @@ public class ScanConfiguration {
         this.ports = getCommonPorts();
         this.timeout = 3000; // 3 seconds
         this.threads = 50;
+        this.executionMode = ExecutionMode.PLATFORM_THREADS;
+        this.maxConcurrentProbes = 1000;
+        this.synPacketsPerSecond = 5000;
+        this.maxPacketsPerSecond = 10000;
+        this.adaptiveRate = true;
+        this.randomizeTargetOrder = false;
         this.resolveHostnames = true;
         this.detectServices = true;
         this.detectOS = false;
@@ -103,6 +136,24 @@ public class ScanConfiguration {
     public int getThreads() { return threads; }
     public void setThreads(int threads) { this.threads = threads; }
     
+    public ExecutionMode getExecutionMode() { return executionMode; }
+    public void setExecutionMode(ExecutionMode executionMode) { this.executionMode = executionMode; }
+    
+    public int getMaxConcurrentProbes() { return maxConcurrentProbes; }
+    public void setMaxConcurrentProbes(int maxConcurrentProbes) { this.maxConcurrentProbes = maxConcurrentProbes; }
+    
+    public int getSynPacketsPerSecond() { return synPacketsPerSecond; }
+    public void setSynPacketsPerSecond(int synPacketsPerSecond) { this.synPacketsPerSecond = synPacketsPerSecond; }
+    
+    public int getMaxPacketsPerSecond() { return maxPacketsPerSecond; }
+    public void setMaxPacketsPerSecond(int maxPacketsPerSecond) { this.maxPacketsPerSecond = maxPacketsPerSecond; }
+    
+    public boolean isAdaptiveRate() { return adaptiveRate; }
+    public void setAdaptiveRate(boolean adaptiveRate) { this.adaptiveRate = adaptiveRate; }
+    
+    public boolean isRandomizeTargetOrder() { return randomizeTargetOrder; }
+    public void setRandomizeTargetOrder(boolean randomizeTargetOrder) { this.randomizeTargetOrder = randomizeTargetOrder; }
+    
     public boolean isResolveHostnames() { return resolveHostnames; }
     public void setResolveHostnames(boolean resolveHostnames) { this.resolveHostnames = resolveHostnames; }
     
@@ -0,0 +1,91 @@
+package edu.au.cpsc.module7.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Differences between two stored scans: hosts that appeared or disappeared and
+ * ports whose state changed on hosts seen in both
+ */
+public class ScanDiff {
+    private final int fromScanId;
+    private final int toScanId;
+    private final List<String> newHosts = new ArrayList<>();
+    private final List<String> goneHosts = new ArrayList<>();
+    private final List<PortChange> portChanges = new ArrayList<>();
+
+    public ScanDiff(int fromScanId, int toScanId) {
+        this.fromScanId = fromScanId;
+        this.toScanId = toScanId;
+    }
+
+    public int getFromScanId() { return fromScanId; }
+    public int getToScanId() { return toScanId; }
+    public List<String> getNewHosts() { return Collections.unmodifiableList(newHosts); }
+    public List<String> getGoneHosts() { return Collections.unmodifiableList(goneHosts); }
+    public List<PortChange> getPortChanges() { return Collections.unmodifiableList(portChanges); }
+
+    public void addNewHost(String ipAddress) { newHosts.add(ipAddress); }
+    public void addGoneHost(String ipAddress) { goneHosts.add(ipAddress); }
+    public void addPortChange(PortChange change) { portChanges.add(change); }
+
+    public boolean isEmpty() {
+        return newHosts.isEmpty() && goneHosts.isEmpty() && portChanges.isEmpty();
+    }
+
+    /**
+     * One log line per change, hosts first
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (String host : newHosts) {
+            lines.add("New host: " + host);
+        }
+        for (String host : goneHosts) {
+            lines.add("Host gone: " + host);
+        }
+        for (PortChange change : portChanges) {
+            lines.add(change.toString());
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanDiff{" + fromScanId + " -> " + toScanId + ", " + newHosts.size() + " new hosts, " +
+               goneHosts.size() + " gone, " + portChanges.size() + " port changes}";
+    }
+
+    /**
+     * A port that moved between states; a null state means the port was not probed in that scan
+     */
+    public static class PortChange {
+        private final String ipAddress;
+        private final NetworkHost.Protocol protocol;
+        private final int port;
+        private final NetworkHost.PortState before;
+        private final NetworkHost.PortState after;
+
+        public PortChange(String ipAddress, NetworkHost.Protocol protocol, int port,
+                          NetworkHost.PortState before, NetworkHost.PortState after) {
+            this.ipAddress = ipAddress;
+            this.protocol = protocol;
+            this.port = port;
+            this.before = before;
+            this.after = after;
+        }
+
+        public String getIpAddress() { return ipAddress; }
+        public NetworkHost.Protocol getProtocol() { return protocol; }
+        public int getPort() { return port; }
+        public NetworkHost.PortState getBefore() { return before; }
+        public NetworkHost.PortState getAfter() { return after; }
+
+        @Override
+        public String toString() {
+            return ipAddress + ":" + port + "/" + protocol.name().toLowerCase() + " " +
+                   (before != null ? before : "unscanned") + " -> " + (after != null ? after : "unscanned");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package edu.au.cpsc.module7.models;
+
+/**
+ * A single finding published while a network scan is still running
+ */
+public class ScanEvent {
+    public enum Type {
+        HOST_UP,
+        PORT_OPEN,
+        SERVICE,
+        OS
+    }
+
+    private final Type type;
+    private final NetworkHost host;
+    private final int port;
+    private final String detail;
+    private final long timestamp;
+
+    private ScanEvent(Type type, NetworkHost host, int port, String detail) {
+        this.type = type;
+        this.host = host;
+        this.port = port;
+        this.detail = detail;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public static ScanEvent hostUp(NetworkHost host) {
+        return new ScanEvent(Type.HOST_UP, host, -1, null);
+    }
+
+    public static ScanEvent portOpen(NetworkHost host, int port) {
+        return new ScanEvent(Type.PORT_OPEN, host, port, null);
+    }
+
+    public static ScanEvent service(NetworkHost host, int port, String service) {
+        return new ScanEvent(Type.SERVICE, host, port, service);
+    }
+
+    public static ScanEvent os(NetworkHost host, String osGuess) {
+        return new ScanEvent(Type.OS, host, -1, osGuess);
+    }
+
+    public Type getType() { return type; }
+    public NetworkHost getHost() { return host; }
+    public int getPort() { return port; }
+    public String getDetail() { return detail; }
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Human-readable line for the scan log
+     */
+    public String describe() {
+        String ip = host.getIpAddress();
+        switch (type) {
+            case HOST_UP:
+                return "Found host: " + ip + (host.getHostname() != null ? " (" + host.getHostname() + ")" : "");
+            case PORT_OPEN:
+                return "Open port found: " + ip + ":" + port;
+            case SERVICE:
+                return "Service on " + ip + ":" + port + ": " + detail;
+            default:
+                return "OS guess for " + ip + ": " + detail;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScanEvent{" + type + ", " + host.getIpAddress() + (port >= 0 ? ":" + port : "") +
+               (detail != null ? ", " + detail : "") + "}";
+    }
+}
@@ -0,0 +1,164 @@
+package edu.au.cpsc.module7.services;
+
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapNativeException;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Layer-2 ARP sweep. Broadcast who-has requests for every on-link target are written
+ * back to back on the calling thread while a receiver thread reads replies from a
+ * BPF-filtered handle, so MACs come straight off the wire rather than from the OS
+ * neighbor table. Anything still unanswered halfway through the timeout is asked once
+ * more. A sweep takes as long as writing the requests plus one timeout.
+ */
+public class ArpSweeper {
+    private static final Logger logger = Logger.getLogger(ArpSweeper.class.getName());
+
+    private static final int ARP_TARGET_IP_OFFSET = 38;
+    private static final int ARP_SENDER_MAC_OFFSET = 22;
+    private static final int ARP_SENDER_IP_OFFSET = 28;
+
+    private final RawSocketContext context;
+    private final int timeoutMillis;
+    private long requestsSent;
+
+    /**
+     * Receives each answering address once, on the receiver thread
+     */
+    public interface Listener {
+        void onReply(int address, byte[] mac);
+    }
+
+    private ArpSweeper(RawSocketContext context, int timeoutMillis) {
+        this.context = context;
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+
+    /**
+     * Opens the interface whose subnet contains the first target; throws if raw capture
+     * is unavailable, before anything is sent
+     */
+    public static ArpSweeper open(int firstTarget, int timeoutMillis) throws PcapNativeException, IOException {
+        return new ArpSweeper(RawSocketContext.forTarget(PacketBytes.toAddress(firstTarget)), timeoutMillis);
+    }
+
+    /**
+     * Asks every on-link address from the iterator and returns once the timeout after
+     * the last request has passed. Off-link addresses cannot answer ARP and are skipped;
+     * {@link #getRequestsSent()} tells the caller whether any were.
+     */
+    public void run(TargetSpec.TargetIterator addresses, Listener listener, BooleanSupplier cancelled)
+            throws PcapNativeException, NotOpenException, InterruptedException {
+        Set<Integer> unanswered = ConcurrentHashMap.newKeySet();
+        PcapHandle receiveHandle = context.openHandle("arp and arp[6:2] = 2");
+        PcapHandle sendHandle = null;
+        Receiver receiver = new Receiver(receiveHandle, unanswered, listener);
+        Thread receiverThread = new Thread(receiver, "ArpSweep-Receiver");
+        receiverThread.setDaemon(true);
+
+        try {
+            sendHandle = context.openHandle(null);
+            receiverThread.start();
+            byte[] request = context.buildArpRequest();
+            long sent = 0;
+
+            while (addresses.hasNext() && !cancelled.getAsBoolean()) {
+                int address = addresses.nextAddress();
+                if (!context.isOnLink(address)) {
+                    continue;
+                }
+                unanswered.add(address);
+                PacketBytes.writeInt(request, ARP_TARGET_IP_OFFSET, address);
+                sendHandle.sendPacket(request, request.length);
+                sent++;
+            }
+            requestsSent = sent;
+
+            waitFor(unanswered, timeoutMillis / 2, cancelled);
+            for (int address : unanswered) {
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+                PacketBytes.writeInt(request, ARP_TARGET_IP_OFFSET, address);
+                sendHandle.sendPacket(request, request.length);
+            }
+            waitFor(unanswered, timeoutMillis - timeoutMillis / 2, cancelled);
+
+            logger.log(Level.FINE, "ARP sweep: " + (sent - unanswered.size()) + " of " + sent + " addresses answered");
+        } finally {
+            receiver.running = false;
+            receiverThread.join(1000);
+            receiveHandle.close();
+            if (sendHandle != null) {
+                sendHandle.close();
+            }
+        }
+    }
+
+    /**
+     * Whether an address is on the swept interface's subnet, and so can answer ARP
+     */
+    public boolean isOnLink(int address) {
+        return context.isOnLink(address);
+    }
+
+    /**
+     * Addresses asked in the last sweep, not counting second requests
+     */
+    public long getRequestsSent() {
+        return requestsSent;
+    }
+
+    private static void waitFor(Set<Integer> unanswered, long millis, BooleanSupplier cancelled) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        while (!unanswered.isEmpty() && !cancelled.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Reads ARP replies and reports the first one from each address that was asked
+     */
+    private static final class Receiver implements Runnable {
+        private final PcapHandle handle;
+        private final Set<Integer> unanswered;
+        private final Listener listener;
+        volatile boolean running = true;
+
+        Receiver(PcapHandle handle, Set<Integer> unanswered, Listener listener) {
+            this.handle = handle;
+            this.unanswered = unanswered;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    byte[] frame = handle.getNextRawPacket();
+                    if (frame == null || frame.length < 42 || PacketBytes.readShort(frame, 12) != 0x0806) {
+                        continue;
+                    }
+                    int sender = PacketBytes.readInt(frame, ARP_SENDER_IP_OFFSET);
+                    if (!unanswered.remove(sender)) {
+                        continue; // Not asked by this sweep, or a duplicate reply
+                    }
+                    byte[] mac = new byte[6];
+                    System.arraycopy(frame, ARP_SENDER_MAC_OFFSET, mac, 0, 6);
+                    listener.onReply(sender, mac);
+                } catch (NotOpenException e) {
+                    return;
+                } catch (Exception e) {
+                    logger.log(Level.FINE, "Error handling ARP reply", e);
+                }
+            }
+        }
+    }
+}
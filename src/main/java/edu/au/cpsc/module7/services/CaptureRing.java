@@ -0,0 +1,122 @@
+package edu.au.cpsc.module7.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer, multi-consumer ring of preallocated frame slots between the
+ * capture thread and the decoder threads. The producer only copies a frame and its
+ * timestamp into the next free slot; when every slot is still in use the frame is
+ * dropped and counted rather than blocking the capture thread. Each slot carries a
+ * sequence number that says whether it is free, published or being decoded, so
+ * consumers claim slots with a single CAS and decode in place without locks. With a
+ * single consumer, as for the recorder, frames are also handled in capture order.
+ */
+final class CaptureRing {
+    private static final int INITIAL_SLOT_BYTES = 2048; // Full Ethernet frames; slots grow for larger ones
+
+    /**
+     * Decodes one frame in place; the bytes are only valid until the method returns
+     */
+    @FunctionalInterface
+    interface FrameHandler {
+        void onFrame(long sequence, byte[] data, int length, int originalLength, long timestampNanos);
+    }
+
+    private static final class Slot {
+        byte[] data = new byte[INITIAL_SLOT_BYTES];
+        int length;
+        int originalLength;
+        long timestampNanos;
+        // pos: free for the producer at pos; pos + 1: published; pos + capacity: free again
+        volatile long sequence;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private volatile long producerCursor;
+    private final AtomicLong consumerCursor = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    CaptureRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Copies a frame into the next slot, returning false and counting a drop if the
+     * ring is full. Must only be called from the capture thread.
+     */
+    boolean offer(byte[] frame, int length, int originalLength, long timestampNanos) {
+        long pos = producerCursor;
+        Slot slot = slots[(int) pos & mask];
+        if (slot.sequence != pos) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (slot.data.length < length) {
+            slot.data = new byte[length];
+        }
+        System.arraycopy(frame, 0, slot.data, 0, length);
+        slot.length = length;
+        slot.originalLength = originalLength;
+        slot.timestampNanos = timestampNanos;
+        slot.sequence = pos + 1;
+        producerCursor = pos + 1;
+        return true;
+    }
+
+    /**
+     * Claims the oldest published frame and hands it to the handler, returning false
+     * if the ring is empty. Safe to call from any number of threads.
+     */
+    boolean poll(FrameHandler handler) {
+        while (true) {
+            long pos = consumerCursor.get();
+            Slot slot = slots[(int) pos & mask];
+            long sequence = slot.sequence;
+            if (sequence < pos + 1) {
+                return false;
+            }
+            if (sequence == pos + 1 && consumerCursor.compareAndSet(pos, pos + 1)) {
+                try {
+                    handler.onFrame(pos, slot.data, slot.length, slot.originalLength, slot.timestampNanos);
+                } finally {
+                    slot.sequence = pos + slots.length;
+                }
+                return true;
+            }
+            // Another consumer claimed it first
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Frames published but not yet claimed by a decoder
+     */
+    int occupancy() {
+        return (int) Math.max(0, producerCursor - consumerCursor.get());
+    }
+
+    boolean isEmpty() {
+        return occupancy() == 0;
+    }
+
+    long published() {
+        return producerCursor;
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,414 @@
+package edu.au.cpsc.module7.services;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Reusable flyweight over a captured frame. {@link #wrap} walks the link, VLAN,
+ * network and transport headers once, reading fields straight from the frame at their
+ * fixed offsets into primitive fields, so classifying a frame allocates nothing.
+ * Address strings are only built when asked for.
+ *
+ * An instance belongs to one thread and describes the last frame wrapped; the frame
+ * array must not change while its fields are read.
+ */
+final class FrameHeaders {
+    static final int NONE = -1;
+
+    // Link-layer header types as reported by pcap_datalink
+    static final int LINKTYPE_NULL = 0;
+    static final int LINKTYPE_ETHERNET = 1;
+    static final int LINKTYPE_RAW = 101;
+    static final int LINKTYPE_LOOP = 108;
+    static final int LINKTYPE_LINUX_SLL = 113;
+    private static final int DLT_RAW = 12; // Some platforms report raw IP with the DLT value
+    private static final int DLT_RAW_OPENBSD = 14;
+
+    static final int ETHERTYPE_IPV4 = 0x0800;
+    static final int ETHERTYPE_ARP = 0x0806;
+    static final int ETHERTYPE_IPV6 = 0x86DD;
+    private static final int ETHERTYPE_VLAN = 0x8100;
+    private static final int ETHERTYPE_QINQ = 0x88A8;
+    private static final int ETHERTYPE_QINQ_LEGACY = 0x9100;
+    private static final int MAX_VLAN_TAGS = 2;
+
+    static final int PROTOCOL_ICMP = 1;
+    static final int PROTOCOL_TCP = 6;
+    static final int PROTOCOL_UDP = 17;
+    static final int PROTOCOL_ICMPV6 = 58;
+
+    private byte[] data;
+    private int length;
+    private boolean ethernet;
+    private int etherType;
+    private int vlanId;
+    private int networkOffset;
+    private int ipVersion;
+    private int ipProtocol;
+    private int ttl;
+    private int transportOffset;
+    private int sourcePort;
+    private int destinationPort;
+    private int tcpFlags;
+    private int icmpType;
+    private int payloadOffset;
+    private int arpOperation;
+
+    /**
+     * Decodes the headers of a frame of the given link type, replacing whatever was
+     * wrapped before. Truncated or unknown layers leave the fields above them at {@link #NONE}.
+     */
+    void wrap(byte[] data, int length, int linkType) {
+        this.data = data;
+        this.length = Math.min(length, data.length);
+        ethernet = false;
+        etherType = NONE;
+        vlanId = NONE;
+        networkOffset = NONE;
+        ipVersion = NONE;
+        ipProtocol = NONE;
+        ttl = NONE;
+        transportOffset = NONE;
+        sourcePort = NONE;
+        destinationPort = NONE;
+        tcpFlags = NONE;
+        icmpType = NONE;
+        payloadOffset = NONE;
+        arpOperation = NONE;
+
+        switch (linkType) {
+            case LINKTYPE_ETHERNET:
+                decodeEthernet();
+                break;
+            case LINKTYPE_LINUX_SLL:
+                // 16-byte cooked header ending in the protocol type
+                if (this.length >= 16) {
+                    decodeEtherType(PacketBytes.readShort(data, 14), 16);
+                }
+                break;
+            case LINKTYPE_NULL:
+            case LINKTYPE_LOOP:
+                // 4-byte address family in host or network order; only the IP version matters
+                if (this.length >= 4) {
+                    decodeRawIp(4);
+                }
+                break;
+            case LINKTYPE_RAW:
+            case DLT_RAW:
+            case DLT_RAW_OPENBSD:
+                decodeRawIp(0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void decodeEthernet() {
+        if (length < 14) {
+            return;
+        }
+        ethernet = true;
+        int type = PacketBytes.readShort(data, 12);
+        int offset = 14;
+        for (int tags = 0; tags < MAX_VLAN_TAGS
+                && (type == ETHERTYPE_VLAN || type == ETHERTYPE_QINQ || type == ETHERTYPE_QINQ_LEGACY); tags++) {
+            if (length < offset + 4) {
+                return;
+            }
+            if (vlanId == NONE) {
+                vlanId = PacketBytes.readShort(data, offset) & 0x0FFF;
+            }
+            type = PacketBytes.readShort(data, offset + 2);
+            offset += 4;
+        }
+        decodeEtherType(type, offset);
+    }
+
+    private void decodeEtherType(int type, int offset) {
+        etherType = type;
+        switch (type) {
+            case ETHERTYPE_IPV4:
+                decodeIpV4(offset);
+                break;
+            case ETHERTYPE_IPV6:
+                decodeIpV6(offset);
+                break;
+            case ETHERTYPE_ARP:
+                decodeArp(offset);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void decodeRawIp(int offset) {
+        if (length <= offset) {
+            return;
+        }
+        int version = (data[offset] & 0xFF) >>> 4;
+        if (version == 4) {
+            etherType = ETHERTYPE_IPV4;
+            decodeIpV4(offset);
+        } else if (version == 6) {
+            etherType = ETHERTYPE_IPV6;
+            decodeIpV6(offset);
+        }
+    }
+
+    private void decodeIpV4(int offset) {
+        if (length < offset + 20 || (data[offset] & 0xF0) != 0x40) {
+            return;
+        }
+        int headerLength = (data[offset] & 0x0F) * 4;
+        if (headerLength < 20 || length < offset + headerLength) {
+            return;
+        }
+        networkOffset = offset;
+        ipVersion = 4;
+        ttl = data[offset + 8] & 0xFF;
+        ipProtocol = data[offset + 9] & 0xFF;
+        // Later fragments carry no transport header
+        if ((PacketBytes.readShort(data, offset + 6) & 0x1FFF) == 0) {
+            decodeTransport(offset + headerLength);
+        }
+    }
+
+    private void decodeIpV6(int offset) {
+        if (length < offset + 40 || (data[offset] & 0xF0) != 0x60) {
+            return;
+        }
+        networkOffset = offset;
+        ipVersion = 6;
+        ttl = data[offset + 7] & 0xFF;
+        int next = data[offset + 6] & 0xFF;
+        int position = offset + 40;
+        // Skip extension headers up to the transport header
+        while (true) {
+            switch (next) {
+                case 0:   // Hop-by-hop options
+                case 43:  // Routing
+                case 60:  // Destination options
+                    if (length < position + 8) {
+                        ipProtocol = next;
+                        return;
+                    }
+                    next = data[position] & 0xFF;
+                    position += ((data[position + 1] & 0xFF) + 1) * 8;
+                    break;
+                case 44:  // Fragment
+                    if (length < position + 8) {
+                        ipProtocol = next;
+                        return;
+                    }
+                    boolean firstFragment = (PacketBytes.readShort(data, position + 2) & 0xFFF8) == 0;
+                    next = data[position] & 0xFF;
+                    position += 8;
+                    if (!firstFragment) {
+                        ipProtocol = next;
+                        return;
+                    }
+                    break;
+                case 51:  // Authentication header
+                    if (length < position + 8) {
+                        ipProtocol = next;
+                        return;
+                    }
+                    next = data[position] & 0xFF;
+                    position += ((data[position + 1] & 0xFF) + 2) * 4;
+                    break;
+                default:
+                    ipProtocol = next;
+                    decodeTransport(position);
+                    return;
+            }
+        }
+    }
+
+    private void decodeTransport(int offset) {
+        switch (ipProtocol) {
+            case PROTOCOL_TCP:
+                if (length >= offset + 20) {
+                    int headerLength = ((data[offset + 12] & 0xFF) >>> 4) * 4;
+                    transportOffset = offset;
+                    sourcePort = PacketBytes.readShort(data, offset);
+                    destinationPort = PacketBytes.readShort(data, offset + 2);
+                    tcpFlags = data[offset + 13] & 0xFF;
+                    payloadOffset = Math.min(length, offset + Math.max(20, headerLength));
+                }
+                break;
+            case PROTOCOL_UDP:
+                if (length >= offset + 8) {
+                    transportOffset = offset;
+                    sourcePort = PacketBytes.readShort(data, offset);
+                    destinationPort = PacketBytes.readShort(data, offset + 2);
+                    payloadOffset = offset + 8;
+                }
+                break;
+            case PROTOCOL_ICMP:
+            case PROTOCOL_ICMPV6:
+                if (length >= offset + 4) {
+                    transportOffset = offset;
+                    icmpType = data[offset] & 0xFF;
+                    payloadOffset = offset + 4;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void decodeArp(int offset) {
+        // Ethernet/IPv4 ARP only: hardware type 1, protocol 0x0800, lengths 6 and 4
+        if (length < offset + 28 || PacketBytes.readShort(data, offset) != 1
+                || PacketBytes.readShort(data, offset + 2) != ETHERTYPE_IPV4
+                || data[offset + 4] != 6 || data[offset + 5] != 4) {
+            return;
+        }
+        networkOffset = offset;
+        arpOperation = PacketBytes.readShort(data, offset + 6);
+    }
+
+    int etherType() {
+        return etherType;
+    }
+
+    /**
+     * VLAN id of the outermost tag, or {@link #NONE} for untagged frames
+     */
+    int vlanId() {
+        return vlanId;
+    }
+
+    /**
+     * 4 or 6, or {@link #NONE} if the frame carries no decodable IP header
+     */
+    int ipVersion() {
+        return ipVersion;
+    }
+
+    int ipProtocol() {
+        return ipProtocol;
+    }
+
+    /**
+     * IPv4 TTL or IPv6 hop limit
+     */
+    int ttl() {
+        return ttl;
+    }
+
+    boolean isArp() {
+        return arpOperation != NONE;
+    }
+
+    int arpOperation() {
+        return arpOperation;
+    }
+
+    /**
+     * Packed IPv4 source, or the ARP sender address; only meaningful when {@link #hasIpV4Addresses()}
+     */
+    int sourceIpV4() {
+        return PacketBytes.readInt(data, networkOffset + (isArp() ? 14 : 12));
+    }
+
+    /**
+     * Packed IPv4 destination, or the ARP target address
+     */
+    int destinationIpV4() {
+        return PacketBytes.readInt(data, networkOffset + (isArp() ? 24 : 16));
+    }
+
+    /**
+     * Offset of the IPv4, IPv6 or ARP header within the frame, or {@link #NONE}
+     */
+    int networkOffset() {
+        return networkOffset;
+    }
+
+    boolean hasIpV4Addresses() {
+        return ipVersion == 4 || isArp();
+    }
+
+    boolean hasTransport() {
+        return transportOffset != NONE;
+    }
+
+    int sourcePort() {
+        return sourcePort;
+    }
+
+    int destinationPort() {
+        return destinationPort;
+    }
+
+    /**
+     * TCP flag bits (FIN is bit 0), or {@link #NONE} for other protocols
+     */
+    int tcpFlags() {
+        return tcpFlags;
+    }
+
+    int icmpType() {
+        return icmpType;
+    }
+
+    /**
+     * Offset of the transport payload in the frame, or {@link #NONE}
+     */
+    int payloadOffset() {
+        return payloadOffset;
+    }
+
+    int payloadLength() {
+        return payloadOffset == NONE ? 0 : length - payloadOffset;
+    }
+
+    String sourceAddress() {
+        return formatAddress(true);
+    }
+
+    String destinationAddress() {
+        return formatAddress(false);
+    }
+
+    /**
+     * Ethernet source address as colon-separated hex, or null on other link types
+     */
+    String sourceMac() {
+        return ethernet ? formatMac(6) : null;
+    }
+
+    String destinationMac() {
+        return ethernet ? formatMac(0) : null;
+    }
+
+    private String formatAddress(boolean source) {
+        if (hasIpV4Addresses()) {
+            int address = source ? sourceIpV4() : destinationIpV4();
+            return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+        }
+        if (ipVersion == 6) {
+            byte[] address = new byte[16];
+            System.arraycopy(data, networkOffset + (source ? 8 : 24), address, 0, 16);
+            try {
+                return InetAddress.getByAddress(address).getHostAddress();
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException(e); // Unreachable for sixteen-byte input
+            }
+        }
+        return null;
+    }
+
+    private String formatMac(int offset) {
+        StringBuilder mac = new StringBuilder(17);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                mac.append(':');
+            }
+            int b = data[offset + i] & 0xFF;
+            mac.append(Character.forDigit(b >>> 4, 16)).append(Character.forDigit(b & 0x0F, 16));
+        }
+        return mac.toString();
+    }
+}
@@ -0,0 +1,377 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.InventoryEvent;
+import edu.au.cpsc.module7.models.NetworkHost;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Live host inventory fed by frames observed on the wire. ARP senders, DHCP clients
+ * (bound on the server's ACK), mDNS/LLMNR responders and NDP senders are recorded by
+ * address with their MAC; hostnames come from the DHCP hostname option and from A
+ * records a responder publishes for its own address. Frames are decoded in place from
+ * the raw bytes.
+ *
+ * Frames are handled on a single capture thread; the inventory may be read from any thread.
+ */
+final class HostInventory {
+    static final String ARP = "ARP";
+    static final String DHCP = "DHCP";
+    static final String MDNS = "mDNS";
+    static final String LLMNR = "LLMNR";
+    static final String NDP = "NDP";
+
+    private static final int DHCP_MAGIC_COOKIE = 0x63825363;
+    private static final int DHCP_ACK = 5;
+    private static final int MAX_PENDING_HOSTNAMES = 4096;
+    private static final int MAX_NAME_JUMPS = 16;
+
+    private final OuiDatabase ouiDatabase;
+    private final Consumer<InventoryEvent> listener;
+    private final Map<String, Entry> hosts = new ConcurrentHashMap<>();
+    // Hostnames from DHCP client messages, keyed by client MAC, until the ACK binds an address
+    private final Map<Long, String> pendingHostnames = new HashMap<>();
+
+    private static final class Entry {
+        final NetworkHost host;
+        volatile long lastSeen;
+
+        Entry(NetworkHost host, long lastSeen) {
+            this.host = host;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    HostInventory(OuiDatabase ouiDatabase, Consumer<InventoryEvent> listener) {
+        this.ouiDatabase = ouiDatabase;
+        this.listener = listener;
+    }
+
+    Collection<NetworkHost> snapshot() {
+        List<NetworkHost> snapshot = new ArrayList<>(hosts.size());
+        for (Entry entry : hosts.values()) {
+            snapshot.add(entry.host);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drops hosts not seen since nowMillis - maxIdleMillis, returning how many expired
+     */
+    int expire(long nowMillis, long maxIdleMillis) {
+        int expired = 0;
+        Iterator<Entry> entries = hosts.values().iterator();
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (nowMillis - entry.lastSeen > maxIdleMillis) {
+                entries.remove();
+                entry.host.setAlive(false);
+                listener.accept(InventoryEvent.hostExpired(entry.host));
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    void handleFrame(byte[] frame, long nowMillis) {
+        if (frame.length < 14) {
+            return;
+        }
+        int l3 = 14;
+        int etherType = PacketBytes.readShort(frame, 12);
+        if (etherType == 0x8100 && frame.length >= 18) {
+            etherType = PacketBytes.readShort(frame, 16);
+            l3 = 18;
+        }
+        long sourceMac = readMac(frame, 6);
+
+        switch (etherType) {
+            case 0x0806:
+                handleArp(frame, l3, nowMillis);
+                break;
+            case 0x0800:
+                handleIpv4(frame, l3, sourceMac, nowMillis);
+                break;
+            case 0x86DD:
+                handleIpv6(frame, l3, sourceMac, nowMillis);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void handleArp(byte[] frame, int arp, long nowMillis) {
+        if (frame.length < arp + 28 || PacketBytes.readShort(frame, arp) != 1
+                || PacketBytes.readShort(frame, arp + 2) != 0x0800 || frame[arp + 4] != 6 || frame[arp + 5] != 4) {
+            return;
+        }
+        int sender = PacketBytes.readInt(frame, arp + 14);
+        if (sender == 0) {
+            return; // ARP probe from a host that has not claimed an address yet
+        }
+        observe(TargetSpec.format(sender), readMac(frame, arp + 8), ARP, nowMillis);
+    }
+
+    private void handleIpv4(byte[] frame, int ip, long sourceMac, long nowMillis) {
+        if (frame.length < ip + 20 || (frame[ip] & 0xF0) != 0x40 || frame[ip + 9] != 17) {
+            return;
+        }
+        int udp = ip + (frame[ip] & 0x0F) * 4;
+        if (frame.length < udp + 8) {
+            return;
+        }
+        int source = PacketBytes.readInt(frame, ip + 12);
+        int sourcePort = PacketBytes.readShort(frame, udp);
+        int destinationPort = PacketBytes.readShort(frame, udp + 2);
+        int payload = udp + 8;
+        int end = Math.min(frame.length, udp + PacketBytes.readShort(frame, udp + 4));
+
+        if ((sourcePort == 68 && destinationPort == 67) || (sourcePort == 67 && destinationPort == 68)) {
+            handleDhcp(frame, payload, end, nowMillis);
+        } else if (sourcePort == 5353 || sourcePort == 5355) {
+            // Only responses carry records about the sender, and both protocols answer from their well-known port
+            if (source != 0) {
+                String protocol = sourcePort == 5353 ? MDNS : LLMNR;
+                Entry entry = observe(TargetSpec.format(source), sourceMac, protocol, nowMillis);
+                String name = findOwnName(frame, payload, end, source);
+                if (name != null) {
+                    learnHostname(entry, name, protocol);
+                }
+            }
+        }
+    }
+
+    private void handleDhcp(byte[] frame, int bootp, int end, long nowMillis) {
+        if (end < bootp + 240 || frame[bootp + 1] != 1 || frame[bootp + 2] != 6
+                || PacketBytes.readInt(frame, bootp + 236) != DHCP_MAGIC_COOKIE) {
+            return;
+        }
+        int op = frame[bootp];
+        int clientAddress = PacketBytes.readInt(frame, bootp + 12);
+        int yourAddress = PacketBytes.readInt(frame, bootp + 16);
+        long clientMac = readMac(frame, bootp + 28);
+
+        int messageType = 0;
+        String hostname = null;
+        int pos = bootp + 240;
+        while (pos < end) {
+            int code = frame[pos] & 0xFF;
+            if (code == 255) {
+                break;
+            }
+            if (code == 0) {
+                pos++;
+                continue;
+            }
+            if (pos + 2 > end) {
+                return;
+            }
+            int length = frame[pos + 1] & 0xFF;
+            int value = pos + 2;
+            if (value + length > end) {
+                return;
+            }
+            if (code == 53 && length == 1) {
+                messageType = frame[value];
+            } else if (code == 12 && length > 0) {
+                hostname = new String(frame, value, length, StandardCharsets.US_ASCII).trim();
+            }
+            pos = value + length;
+        }
+
+        if (op == 1) {
+            if (hostname != null && !hostname.isEmpty()) {
+                if (pendingHostnames.size() >= MAX_PENDING_HOSTNAMES) {
+                    pendingHostnames.clear();
+                }
+                pendingHostnames.put(clientMac, hostname);
+            }
+            if (clientAddress != 0) {
+                // Renewing client that already holds its address
+                Entry entry = observe(TargetSpec.format(clientAddress), clientMac, DHCP, nowMillis);
+                if (hostname != null && !hostname.isEmpty()) {
+                    learnHostname(entry, hostname, DHCP);
+                }
+            }
+        } else if (op == 2 && messageType == DHCP_ACK && yourAddress != 0) {
+            Entry entry = observe(TargetSpec.format(yourAddress), clientMac, DHCP, nowMillis);
+            String requested = pendingHostnames.remove(clientMac);
+            if (requested != null) {
+                learnHostname(entry, requested, DHCP);
+            }
+        }
+    }
+
+    private void handleIpv6(byte[] frame, int ip, long sourceMac, long nowMillis) {
+        if (frame.length < ip + 48 || (frame[ip] & 0xF0) != 0x60 || frame[ip + 6] != 58) {
+            return;
+        }
+        int icmp = ip + 40;
+        int type = frame[icmp] & 0xFF;
+        if (type < 133 || type > 136) {
+            return;
+        }
+        // An advertisement names the advertiser's address as its target; other messages use the source
+        int address = type == 136 ? icmp + 8 : ip + 8;
+        if (address + 16 > frame.length || isUnspecified(frame, address)) {
+            return; // Duplicate address detection solicitations come from ::
+        }
+        observe(formatIpv6(frame, address), sourceMac, NDP, nowMillis);
+    }
+
+    /**
+     * Returns the name of the first A record in a DNS response whose address is the
+     * responder's own, or null
+     */
+    private static String findOwnName(byte[] frame, int message, int end, int responder) {
+        if (end < message + 12 || (frame[message + 2] & 0x80) == 0) {
+            return null;
+        }
+        int questions = PacketBytes.readShort(frame, message + 4);
+        int answers = PacketBytes.readShort(frame, message + 6);
+        int pos = message + 12;
+        for (int i = 0; i < questions; i++) {
+            pos = skipName(frame, pos, end);
+            if (pos < 0 || (pos += 4) > end) {
+                return null;
+            }
+        }
+        for (int i = 0; i < answers; i++) {
+            int name = pos;
+            pos = skipName(frame, pos, end);
+            if (pos < 0 || pos + 10 > end) {
+                return null;
+            }
+            int type = PacketBytes.readShort(frame, pos);
+            int dataLength = PacketBytes.readShort(frame, pos + 8);
+            int data = pos + 10;
+            if (data + dataLength > end) {
+                return null;
+            }
+            if (type == 1 && dataLength == 4 && PacketBytes.readInt(frame, data) == responder) {
+                return readName(frame, message, name, end);
+            }
+            pos = data + dataLength;
+        }
+        return null;
+    }
+
+    private static int skipName(byte[] frame, int pos, int end) {
+        while (pos < end) {
+            int length = frame[pos] & 0xFF;
+            if (length == 0) {
+                return pos + 1;
+            }
+            if ((length & 0xC0) == 0xC0) {
+                return pos + 2 <= end ? pos + 2 : -1;
+            }
+            pos += 1 + length;
+        }
+        return -1;
+    }
+
+    private static String readName(byte[] frame, int message, int pos, int end) {
+        StringBuilder name = new StringBuilder();
+        int jumps = 0;
+        while (pos < end) {
+            int length = frame[pos] & 0xFF;
+            if (length == 0) {
+                return name.length() > 0 ? name.toString() : null;
+            }
+            if ((length & 0xC0) == 0xC0) {
+                if (pos + 1 >= end || ++jumps > MAX_NAME_JUMPS) {
+                    return null;
+                }
+                pos = message + (((length & 0x3F) << 8) | (frame[pos + 1] & 0xFF));
+                continue;
+            }
+            if (pos + 1 + length > end) {
+                return null;
+            }
+            if (name.length() > 0) {
+                name.append('.');
+            }
+            name.append(new String(frame, pos + 1, length, StandardCharsets.UTF_8));
+            pos += 1 + length;
+        }
+        return null;
+    }
+
+    private Entry observe(String ip, long mac, String source, long nowMillis) {
+        String macAddress = formatMac(mac);
+        Entry entry = hosts.get(ip);
+        if (entry == null) {
+            NetworkHost host = new NetworkHost(ip);
+            host.setAlive(true);
+            host.setMacAddress(macAddress);
+            host.setVendor(vendorOf(mac));
+            entry = new Entry(host, nowMillis);
+            hosts.put(ip, entry);
+            listener.accept(InventoryEvent.hostAdded(host, source));
+            return entry;
+        }
+
+        entry.lastSeen = nowMillis;
+        NetworkHost host = entry.host;
+        String previous = host.getMacAddress();
+        if (!macAddress.equals(previous)) {
+            host.setMacAddress(macAddress);
+            host.setVendor(vendorOf(mac));
+            listener.accept(InventoryEvent.macChanged(host, previous, source));
+        }
+        return entry;
+    }
+
+    private void learnHostname(Entry entry, String hostname, String source) {
+        NetworkHost host = entry.host;
+        String previous = host.getHostname();
+        if (!hostname.equals(previous)) {
+            host.setHostname(hostname);
+            listener.accept(InventoryEvent.hostnameLearned(host, previous, source));
+        }
+    }
+
+    private String vendorOf(long mac) {
+        String vendor = ouiDatabase.lookup(mac);
+        return vendor != null ? vendor : "Unknown";
+    }
+
+    private static long readMac(byte[] frame, int offset) {
+        return ((long) PacketBytes.readShort(frame, offset) << 32) | (PacketBytes.readInt(frame, offset + 2) & 0xFFFFFFFFL);
+    }
+
+    private static String formatMac(long mac) {
+        return String.format("%02x:%02x:%02x:%02x:%02x:%02x",
+            (mac >>> 40) & 0xFF, (mac >>> 32) & 0xFF, (mac >>> 24) & 0xFF,
+            (mac >>> 16) & 0xFF, (mac >>> 8) & 0xFF, mac & 0xFF);
+    }
+
+    private static boolean isUnspecified(byte[] frame, int offset) {
+        for (int i = 0; i < 16; i++) {
+            if (frame[offset + i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String formatIpv6(byte[] frame, int offset) {
+        byte[] address = new byte[16];
+        System.arraycopy(frame, offset, address, 0, 16);
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e); // Unreachable for sixteen-byte input
+        }
+    }
+}
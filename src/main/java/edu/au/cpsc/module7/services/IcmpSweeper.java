@@ -0,0 +1,334 @@
+package edu.au.cpsc.module7.services;
+
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.IcmpV4CommonPacket;
+import org.pcap4j.packet.IcmpV4EchoPacket;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.IpV4Rfc791Tos;
+import org.pcap4j.packet.UnknownPacket;
+import org.pcap4j.packet.namednumber.EtherType;
+import org.pcap4j.packet.namednumber.IcmpV4Code;
+import org.pcap4j.packet.namednumber.IcmpV4Type;
+import org.pcap4j.packet.namednumber.IpNumber;
+import org.pcap4j.packet.namednumber.IpVersion;
+import org.pcap4j.util.MacAddress;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Raw ICMP echo sweep. Echo requests are written at the scan rate on the calling thread
+ * while a receiver thread reads echo replies from a BPF-filtered handle. Each request
+ * carries the sweep's identifier and a keyed cookie of the target address in its payload,
+ * so replies are validated without per-probe state beyond the set of unanswered targets.
+ * A sweep takes as long as sending at the configured rate plus one timeout.
+ *
+ * On-link targets need their own MAC, so they are ARP-resolved in chunks ahead of
+ * sending; anything else goes to the default gateway.
+ */
+public class IcmpSweeper {
+    private static final Logger logger = Logger.getLogger(IcmpSweeper.class.getName());
+
+    private static final int ARP_TIMEOUT_MILLIS = 300;
+    private static final int ARP_CHUNK = 4096;
+    private static final int PAYLOAD_LENGTH = 8; // Cookie, then the low 32 bits of the send time in micros
+    private static final int OUTSTANDING_CAPACITY = 1 << 16; // Must be a power of two
+
+    private final ScanRateController rateController;
+    private final int timeoutMillis;
+    private final long secret = new SecureRandom().nextLong();
+
+    /**
+     * Sweep outcomes. onSent runs on the sweeping thread as each address is taken from
+     * the iterator, ahead of the actual send; onTimeout also runs on the sweeping thread
+     * and onReply on the receiver thread. Every sent address gets exactly one onReply or
+     * onTimeout unless the sweep is cancelled first.
+     */
+    public interface Listener {
+        void onSent(int address);
+        void onReply(int address, long rttMicros);
+        void onTimeout(int address);
+    }
+
+    public IcmpSweeper(ScanRateController rateController, int timeoutMillis) {
+        this.rateController = rateController;
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+
+    /**
+     * Opens the capture handles for the interface routing to the first target; throws if
+     * raw capture is unavailable, before anything is consumed from the targets
+     */
+    public Sweep open(int firstTarget) throws PcapNativeException, NotOpenException, IOException {
+        return new Sweep(RawSocketContext.forTarget(PacketBytes.toAddress(firstTarget)));
+    }
+
+    /**
+     * Low 32 bits of a monotonic microsecond clock, stamped into requests and read back from replies
+     */
+    private static int monotonicMicros() {
+        return (int) (System.nanoTime() / 1000L);
+    }
+
+    /**
+     * Keyed cookie echoed back in the reply payload
+     */
+    private int cookie(int address) {
+        long z = secret ^ (address & 0xFFFFFFFFL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+
+    /**
+     * One sweep over an open interface
+     */
+    public final class Sweep {
+        private final RawSocketContext context;
+        private final byte[] gatewayMac;
+        private final int identifier = new SecureRandom().nextInt(65536);
+        private final Set<Integer> outstanding = ConcurrentHashMap.newKeySet();
+        private final int[] ringAddresses = new int[OUTSTANDING_CAPACITY];
+        private final long[] ringDeadlines = new long[OUTSTANDING_CAPACITY];
+        private int ringHead;
+        private int ringTail;
+
+        private Sweep(RawSocketContext context) throws PcapNativeException, NotOpenException {
+            this.context = context;
+            Inet4Address gateway = context.getGateway();
+            if (gateway != null) {
+                int gatewayAddress = PacketBytes.toInt(gateway);
+                this.gatewayMac = context.resolveNextHops(new int[] { gatewayAddress }, ARP_TIMEOUT_MILLIS * 3).get(gatewayAddress);
+            } else {
+                this.gatewayMac = null;
+            }
+        }
+
+        /**
+         * Sends an echo request to every address from the iterator and returns once the
+         * last one has been answered or timed out
+         */
+        public void run(PrimitiveIterator.OfInt addresses, Listener listener, BooleanSupplier cancelled)
+                throws PcapNativeException, NotOpenException, InterruptedException {
+            Inet4Address source = context.getSourceAddress();
+            String filter = "icmp and icmp[icmptype] = icmp-echoreply and dst host " + source.getHostAddress();
+            PcapHandle receiveHandle = context.openHandle(filter);
+            PcapHandle sendHandle = null;
+            Receiver receiver = new Receiver(receiveHandle, listener);
+            Thread receiverThread = new Thread(receiver, "IcmpSweep-Receiver");
+            receiverThread.setDaemon(true);
+
+            try {
+                sendHandle = context.openHandle(null);
+                receiverThread.start();
+                send(sendHandle, buildTemplate(), addresses, listener, cancelled);
+
+                while (ringHead != ringTail && !cancelled.getAsBoolean()) {
+                    expire(System.currentTimeMillis(), listener);
+                    Thread.sleep(10);
+                }
+            } finally {
+                receiver.running = false;
+                receiverThread.join(1000);
+                receiveHandle.close();
+                if (sendHandle != null) {
+                    sendHandle.close();
+                }
+            }
+        }
+
+        private void send(PcapHandle handle, byte[] template, PrimitiveIterator.OfInt addresses, Listener listener,
+                          BooleanSupplier cancelled) throws PcapNativeException, NotOpenException, InterruptedException {
+            byte[] frame = template.clone();
+            int ip = 14;
+            int icmp = ip + 20;
+            int icmpLength = 8 + PAYLOAD_LENGTH;
+            int ipId = new SecureRandom().nextInt();
+            int sequence = 0;
+            int[] chunk = new int[ARP_CHUNK];
+
+            while (addresses.hasNext() && !cancelled.getAsBoolean()) {
+                int count = 0;
+                while (count < ARP_CHUNK && addresses.hasNext()) {
+                    int address = addresses.nextInt();
+                    chunk[count++] = address;
+                    listener.onSent(address);
+                }
+                Map<Integer, byte[]> onLink = resolveOnLink(chunk, count);
+
+                for (int i = 0; i < count; i++) {
+                    int address = chunk[i];
+                    if (cancelled.getAsBoolean()) {
+                        continue; // Already taken from the iterator; left unanswered so a resume retries it
+                    }
+                    byte[] mac = context.isOnLink(address) ? onLink.get(address) : gatewayMac;
+                    if (mac == null) {
+                        // No next hop answered ARP, so an echo could not be delivered
+                        listener.onTimeout(address);
+                        continue;
+                    }
+                    expire(System.currentTimeMillis(), listener);
+                    rateController.acquire();
+
+                    System.arraycopy(mac, 0, frame, 0, 6);
+                    PacketBytes.writeShort(frame, ip + 4, ipId++);
+                    PacketBytes.writeInt(frame, ip + 16, address);
+                    PacketBytes.writeShort(frame, ip + 10, 0);
+                    PacketBytes.writeShort(frame, ip + 10, PacketBytes.checksumFinish(PacketBytes.checksumAdd(0, frame, ip, 20)));
+
+                    PacketBytes.writeShort(frame, icmp + 6, sequence++);
+                    PacketBytes.writeInt(frame, icmp + 8, cookie(address));
+                    PacketBytes.writeInt(frame, icmp + 12, monotonicMicros());
+                    PacketBytes.writeShort(frame, icmp + 2, 0);
+                    PacketBytes.writeShort(frame, icmp + 2, PacketBytes.checksumFinish(PacketBytes.checksumAdd(0, frame, icmp, icmpLength)));
+
+                    track(address, listener);
+                    handle.sendPacket(frame, frame.length);
+                }
+            }
+        }
+
+        private Map<Integer, byte[]> resolveOnLink(int[] chunk, int count) throws PcapNativeException, NotOpenException {
+            int[] onLink = new int[count];
+            int onLinkCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (context.isOnLink(chunk[i])) {
+                    onLink[onLinkCount++] = chunk[i];
+                }
+            }
+            return context.resolveNextHops(Arrays.copyOf(onLink, onLinkCount), ARP_TIMEOUT_MILLIS);
+        }
+
+        private void track(int address, Listener listener) throws InterruptedException {
+            // A full ring means the rate outpaces the timeout window; wait for the oldest to expire
+            while (ringTail - ringHead == OUTSTANDING_CAPACITY) {
+                Thread.sleep(1);
+                expire(System.currentTimeMillis(), listener);
+            }
+            int index = ringTail++ & (OUTSTANDING_CAPACITY - 1);
+            ringAddresses[index] = address;
+            ringDeadlines[index] = System.currentTimeMillis() + timeoutMillis;
+            outstanding.add(address);
+        }
+
+        private void expire(long nowMillis, Listener listener) {
+            while (ringHead != ringTail && nowMillis >= ringDeadlines[ringHead & (OUTSTANDING_CAPACITY - 1)]) {
+                int address = ringAddresses[ringHead++ & (OUTSTANDING_CAPACITY - 1)];
+                if (outstanding.remove(address)) {
+                    rateController.onTimeout();
+                    listener.onTimeout(address);
+                }
+            }
+        }
+
+        /**
+         * Builds one echo request with pcap4j; per-probe fields are patched into copies of it
+         */
+        private byte[] buildTemplate() {
+            Inet4Address source = context.getSourceAddress();
+            IcmpV4EchoPacket.Builder echo = new IcmpV4EchoPacket.Builder()
+                .identifier((short) identifier)
+                .sequenceNumber((short) 0)
+                .payloadBuilder(new UnknownPacket.Builder().rawData(new byte[PAYLOAD_LENGTH]));
+
+            IcmpV4CommonPacket.Builder icmp = new IcmpV4CommonPacket.Builder()
+                .type(IcmpV4Type.ECHO)
+                .code(IcmpV4Code.NO_CODE)
+                .payloadBuilder(echo)
+                .correctChecksumAtBuild(true);
+
+            IpV4Packet.Builder ip = new IpV4Packet.Builder()
+                .version(IpVersion.IPV4)
+                .tos(IpV4Rfc791Tos.newInstance((byte) 0))
+                .ttl((byte) 64)
+                .protocol(IpNumber.ICMPV4)
+                .srcAddr(source)
+                .dstAddr(source)
+                .payloadBuilder(icmp)
+                .correctLengthAtBuild(true)
+                .correctChecksumAtBuild(true);
+
+            MacAddress sourceMac = MacAddress.getByAddress(context.getSourceMac());
+            EthernetPacket.Builder ethernet = new EthernetPacket.Builder()
+                .srcAddr(sourceMac)
+                .dstAddr(sourceMac)
+                .type(EtherType.IPV4)
+                .payloadBuilder(ip)
+                .paddingAtBuild(true);
+
+            return ethernet.build().getRawData();
+        }
+
+        /**
+         * Reads echo replies and validates each against the identifier and cookie
+         */
+        private final class Receiver implements Runnable {
+            private final PcapHandle handle;
+            private final Listener listener;
+            volatile boolean running = true;
+
+            Receiver(PcapHandle handle, Listener listener) {
+                this.handle = handle;
+                this.listener = listener;
+            }
+
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        byte[] frame = handle.getNextRawPacket();
+                        if (frame != null) {
+                            handleFrame(frame);
+                        }
+                    } catch (NotOpenException e) {
+                        return;
+                    } catch (Exception e) {
+                        logger.log(Level.FINE, "Error handling ICMP echo reply", e);
+                    }
+                }
+            }
+
+            private void handleFrame(byte[] frame) {
+                int ip = 14;
+                int etherType = PacketBytes.readShort(frame, 12);
+                if (etherType == 0x8100 && frame.length > 18) {
+                    etherType = PacketBytes.readShort(frame, 16);
+                    ip = 18;
+                }
+                if (etherType != 0x0800 || frame.length < ip + 20 || frame[ip + 9] != 1) {
+                    return;
+                }
+                int icmp = ip + (frame[ip] & 0x0F) * 4;
+                if (frame.length < icmp + 8 + PAYLOAD_LENGTH || frame[icmp] != 0
+                        || PacketBytes.readShort(frame, icmp + 4) != identifier) {
+                    return;
+                }
+                int address = PacketBytes.readInt(frame, ip + 12);
+                if (PacketBytes.readInt(frame, icmp + 8) != cookie(address) || !outstanding.remove(address)) {
+                    return; // Not ours, or a duplicate reply
+                }
+
+                // Subtracting in 32 bits stays correct across wraparound for any round trip under half an hour
+                long rttMicros = Math.max(0, monotonicMicros() - PacketBytes.readInt(frame, icmp + 12));
+                rateController.onResponse(rttMicros);
+                try {
+                    listener.onReply(address, rttMicros);
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "ICMP sweep listener failed", e);
+                }
+            }
+        }
+    }
+}
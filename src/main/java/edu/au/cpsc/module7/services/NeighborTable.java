@@ -0,0 +1,136 @@
+package edu.au.cpsc.module7.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the kernel's IPv4 neighbor table from /proc/net/arp. The file is parsed a byte
+ * at a time without regexes or per-line strings, so polling it is cheap enough to do
+ * continuously. Only Linux has the file; elsewhere callers fall back to running arp.
+ */
+public final class NeighborTable {
+    private static final Path PROC_NET_ARP = Paths.get("/proc/net/arp");
+    private static final int ATF_COM = 0x02; // Entry resolved
+
+    private NeighborTable() {
+    }
+
+    public static boolean isAvailable() {
+        return Files.isReadable(PROC_NET_ARP);
+    }
+
+    /**
+     * Returns every resolved entry as packed IPv4 address to MAC, in kernel order
+     */
+    public static Map<Integer, byte[]> read() throws IOException {
+        return parse(Files.readAllBytes(PROC_NET_ARP));
+    }
+
+    /**
+     * Parses /proc/net/arp content, skipping the header line and any incomplete or
+     * malformed entries. Columns are IP address, HW type, flags, HW address, mask
+     * and device, separated by spaces.
+     */
+    static Map<Integer, byte[]> parse(byte[] data) {
+        Map<Integer, byte[]> entries = new LinkedHashMap<>();
+        int pos = skipLine(data, 0);
+
+        while (pos < data.length) {
+            int lineEnd = pos;
+            while (lineEnd < data.length && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            parseEntry(data, pos, lineEnd, entries);
+            pos = lineEnd + 1;
+        }
+        return entries;
+    }
+
+    private static void parseEntry(byte[] data, int pos, int end, Map<Integer, byte[]> entries) {
+        // IP address
+        int address = 0;
+        for (int octet = 0; octet < 4; octet++) {
+            int value = 0;
+            int digits = 0;
+            while (pos < end && data[pos] >= '0' && data[pos] <= '9') {
+                value = value * 10 + (data[pos++] - '0');
+                digits++;
+            }
+            if (digits == 0 || digits > 3 || value > 255 || (octet < 3 && (pos >= end || data[pos++] != '.'))) {
+                return;
+            }
+            address = (address << 8) | value;
+        }
+
+        // HW type, then flags
+        pos = skipField(data, skipSpaces(data, pos, end), end);
+        pos = skipSpaces(data, pos, end);
+        if (pos + 2 > end || data[pos] != '0' || (data[pos + 1] | 0x20) != 'x') {
+            return;
+        }
+        pos += 2;
+        int flags = 0;
+        int digit;
+        while (pos < end && (digit = hexValue(data[pos])) >= 0) {
+            flags = (flags << 4) | digit;
+            pos++;
+        }
+        if ((flags & ATF_COM) == 0) {
+            return;
+        }
+
+        // HW address
+        pos = skipSpaces(data, pos, end);
+        if (pos + 17 > end) {
+            return;
+        }
+        byte[] mac = new byte[6];
+        int nonZero = 0;
+        for (int i = 0; i < 6; i++) {
+            int high = hexValue(data[pos]);
+            int low = hexValue(data[pos + 1]);
+            if (high < 0 || low < 0 || (i < 5 && data[pos + 2] != ':')) {
+                return;
+            }
+            mac[i] = (byte) ((high << 4) | low);
+            nonZero |= mac[i];
+            pos += 3;
+        }
+        if (nonZero != 0) {
+            entries.put(address, mac);
+        }
+    }
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        int lower = b | 0x20;
+        return lower >= 'a' && lower <= 'f' ? lower - 'a' + 10 : -1;
+    }
+
+    private static int skipSpaces(byte[] data, int pos, int end) {
+        while (pos < end && (data[pos] == ' ' || data[pos] == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipField(byte[] data, int pos, int end) {
+        while (pos < end && data[pos] != ' ' && data[pos] != '\t') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipLine(byte[] data, int pos) {
+        while (pos < data.length && data[pos] != '\n') {
+            pos++;
+        }
+        return pos + 1;
+    }
+}
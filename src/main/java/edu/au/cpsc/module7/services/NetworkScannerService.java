@@ -2,6 +2,7 @@ package edu.au.cpsc.module7.services;
 
 import edu.au.cpsc.module7.models.NetworkHost;
 import edu.au.cpsc.module7.models.ScanConfiguration;
+import edu.au.cpsc.module7.models.ScanEvent;
 import javafx.concurrent.Task;
 import javafx.application.Platform;
 import java.util.logging.Logger;
@@ -9,13 +10,15 @@ import java.util.logging.Level;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import com.google.inject.Inject;
-import org.pcap4j.core.PcapNetworkInterface;
-import org.pcap4j.core.Pcaps;
 
 /**
  * Service for network scanning operations including host discovery and port scanning
@@ -47,15 +50,31 @@ public class NetworkScannerService {
         COMMON_SERVICES.put(8080, "HTTP-Alt");
     }
     
-    private ExecutorService executorService;
+    private static final int PORTS_PER_TASK = 16;
+    private static final String CHECKPOINT_FILE = "scan-checkpoint.dat";
+    private static final long CHECKPOINT_POLL_MILLIS = 1000;
+    private static final long HOSTNAME_WAIT_MILLIS = 10_000;
+    
     private volatile boolean scanRunning = false;
+    private volatile ScanRateController rateController;
+    private volatile SubmissionPublisher<ScanEvent> eventPublisher;
+    private volatile ScanCheckpoint checkpoint;
+    private volatile ServiceFingerprinter fingerprinter;
+    private volatile OsFingerprinter osFingerprinter;
+    private volatile Queue<CompletableFuture<Void>> hostnameLookups;
     private final ARPScanner arpScanner;
+    private final ScanScheduler scheduler;
+    private final SettingsService settingsService;
+    private final ReverseDnsResolver reverseDns;
     // private final AdvancedPortScannerService advancedPortScannerService;
     
     @Inject
-    public NetworkScannerService(ARPScanner arpScanner) { //, AdvancedPortScannerService advancedPortScannerService) {
-        this.executorService = Executors.newCachedThreadPool();
+    public NetworkScannerService(ARPScanner arpScanner, ScanScheduler scheduler, SettingsService settingsService,
+                                 ReverseDnsResolver reverseDns) { //, AdvancedPortScannerService advancedPortScannerService) {
         this.arpScanner = arpScanner;
+        this.scheduler = scheduler;
+        this.settingsService = settingsService;
+        this.reverseDns = reverseDns;
         // this.advancedPortScannerService = advancedPortScannerService;
     }
     
@@ -63,429 +82,742 @@ public class NetworkScannerService {
      * Performs a network scan based on the configuration
      */
     public Task<List<NetworkHost>> scanNetwork(ScanConfiguration config, Consumer<String> progressCallback) {
+        return scanNetwork(config, progressCallback, null);
+    }
+    
+    /**
+     * Performs a network scan, streaming each finding to the subscriber as it happens.
+     * The subscriber is completed when the scan ends, or errored if it fails.
+     */
+    public Task<List<NetworkHost>> scanNetwork(ScanConfiguration config, Consumer<String> progressCallback,
+                                               Flow.Subscriber<? super ScanEvent> events) {
+        return createScanTask(ScanCheckpoint.start(getCheckpointPath(), config), progressCallback, events);
+    }
+    
+    /**
+     * True if a stopped or interrupted scan left a checkpoint that {@link #resumeScan} can continue
+     */
+    public boolean hasResumableScan() {
+        return Files.exists(getCheckpointPath());
+    }
+    
+    /**
+     * Configuration of the scan saved in the last checkpoint, or null if there is none
+     */
+    public ScanConfiguration getResumableScanConfiguration() throws IOException {
+        ScanCheckpoint checkpoint = ScanCheckpoint.load(getCheckpointPath());
+        return checkpoint != null ? checkpoint.getConfiguration() : null;
+    }
+    
+    /**
+     * Continues the scan saved in the last checkpoint: the target sweep picks up at its
+     * saved position, finished hosts are reported without being scanned again, and
+     * unfinished hosts only have their unprobed ports scanned
+     */
+    public Task<List<NetworkHost>> resumeScan(Consumer<String> progressCallback,
+                                              Flow.Subscriber<? super ScanEvent> events) throws IOException {
+        ScanCheckpoint checkpoint = ScanCheckpoint.load(getCheckpointPath());
+        if (checkpoint == null) {
+            throw new IllegalStateException("No scan checkpoint to resume");
+        }
+        return createScanTask(checkpoint, progressCallback, events);
+    }
+    
+    private Path getCheckpointPath() {
+        return settingsService.getSettingsDirectory().resolve(CHECKPOINT_FILE);
+    }
+    
+    private Task<List<NetworkHost>> createScanTask(ScanCheckpoint checkpoint, Consumer<String> progressCallback,
+                                                   Flow.Subscriber<? super ScanEvent> events) {
+        ScanConfiguration config = checkpoint.getConfiguration();
         return new Task<List<NetworkHost>>() {
             @Override
             protected List<NetworkHost> call() throws Exception {
                 scanRunning = true;
-                List<NetworkHost> discoveredHosts = new ArrayList<>();
+                rateController = createRateController(config);
+                ScanScheduler.Session session = scheduler.openSession(config.getThreads(), config.getExecutionMode());
+                if (config.getExecutionMode() == ScanConfiguration.ExecutionMode.VIRTUAL_THREADS && !session.isVirtual()) {
+                    postProgress(progressCallback, "Virtual threads need Java 21 or later, using the platform thread pool");
+                }
+                SubmissionPublisher<ScanEvent> publisher = new SubmissionPublisher<>();
+                if (events != null) {
+                    publisher.subscribe(events);
+                }
+                eventPublisher = publisher;
+                NetworkScannerService.this.checkpoint = checkpoint;
+                ServiceFingerprinter serviceFingerprinter = config.isDetectServices()
+                    ? new ServiceFingerprinter(session, rateController, config.getTimeout())
+                    : null;
+                fingerprinter = serviceFingerprinter;
+                osFingerprinter = config.isDetectOS() ? new OsFingerprinter() : null;
+                Queue<CompletableFuture<Void>> lookups = new ConcurrentLinkedQueue<>();
+                hostnameLookups = lookups;
+                boolean completed = false;
+                
+                Queue<NetworkHost> discoveredHosts = new ConcurrentLinkedQueue<>();
+                boolean scanPorts = config.getScanType() == ScanConfiguration.ScanType.PORT_SCAN ||
+                                    config.getScanType() == ScanConfiguration.ScanType.FULL_SCAN;
+                // Connect scans start on each host as soon as it is up; the batch engines need the full host list
+                boolean pipelinePorts = scanPorts && config.getPortScanType() == ScanConfiguration.PortScanType.TCP_CONNECT;
+                // The callback runs once the host's pipelined work is done, or at once if it has none
+                BiConsumer<NetworkHost, Runnable> startHost = (host, done) -> {
+                    discoveredHosts.add(host);
+                    checkpoint.hostDiscovered(host);
+                    emit(ScanEvent.hostUp(host));
+                    if (pipelinePorts) {
+                        scheduleConnectScan(session, host, config, done);
+                    } else if (!scanPorts) {
+                        session.fork(() -> {
+                            try {
+                                finishHost(host, config);
+                            } finally {
+                                done.run();
+                            }
+                        });
+                    } else {
+                        done.run();
+                    }
+                };
+                Consumer<NetworkHost> onHostUp = host -> startHost.accept(host, () -> { });
                 
                 try {
                     updateMessage("Parsing target range...");
-                    List<String> targetIPs = parseTargetRange(config.getTargetRange());
+                    TargetSpec targets = TargetSpec.parse(config.getTargetRange());
                     
-                    if (targetIPs.isEmpty()) {
+                    if (targets.isEmpty()) {
                         throw new IllegalArgumentException("No valid IP addresses found in target range");
                     }
                     
                     updateMessage("Starting network scan...");
-                    updateProgress(0, targetIPs.size());
+                    updateProgress(0, targets.size());
+                    
+                    // Hosts from a resumed checkpoint: finished ones are only reported, the rest carry on
+                    int restored = 0;
+                    for (NetworkHost host : checkpoint.getHosts()) {
+                        if (checkpoint.isFinished(host)) {
+                            discoveredHosts.add(host);
+                            emit(ScanEvent.hostUp(host));
+                        } else {
+                            onHostUp.accept(host);
+                        }
+                        restored++;
+                    }
+                    if (restored > 0) {
+                        postProgress(progressCallback, "Resuming scan with " + restored + " hosts from the checkpoint");
+                    }
                     
-                    // Phase 1: Host Discovery
+                    // Phase 1: Host Discovery - later phases start per host from onHostUp
                     if (config.getScanType() != ScanConfiguration.ScanType.PORT_SCAN) {
-                        discoveredHosts = performHostDiscovery(targetIPs, config, progressCallback);
-                    } else {
+                        performHostDiscovery(targets, config, progressCallback, session, checkpoint, onHostUp);
+                    } else if (checkpoint.getPhase() == ScanCheckpoint.Phase.TARGET_SWEEP) {
                         // For port-only scans, assume all IPs are targets
-                        for (String ip : targetIPs) {
-                            NetworkHost host = new NetworkHost(ip);
+                        TargetSpec.TargetIterator iterator = checkpoint.iterator(targets);
+                        // Bound hosts in flight so large ranges stream through instead of piling up as tasks
+                        int window = config.getThreads() * 2;
+                        Semaphore permits = new Semaphore(window);
+                        while (iterator.hasNext() && scanRunning) {
+                            permits.acquire();
+                            int address = iterator.nextAddress();
+                            NetworkHost host = new NetworkHost(TargetSpec.format(address));
+                            host.setHostname(targets.hostnameFor(address));
                             host.setAlive(true);
-                            discoveredHosts.add(host);
+                            startHost.accept(host, permits::release);
+                            checkpoint.saveIfDue();
                         }
                     }
-                    
-                    // Phase 2: Port Scanning
-                    if (config.getScanType() == ScanConfiguration.ScanType.PORT_SCAN || 
-                        config.getScanType() == ScanConfiguration.ScanType.FULL_SCAN) {
-                        updateMessage("Scanning ports...");
-                        performPortScanning(discoveredHosts, config, progressCallback);
+                    if (scanRunning) {
+                        checkpoint.setPhase(ScanCheckpoint.Phase.HOST_SCANS);
                     }
                     
-                    // Phase 3: Service Detection
-                    if (config.isDetectServices()) {
-                        updateMessage("Detecting services...");
-                        performServiceDetection(discoveredHosts, config);
+                    // Phase 2: Port Scanning with the batch engines, then per-host detection
+                    if (scanPorts && !pipelinePorts) {
+                        awaitIdle(session, checkpoint);
+                        updateMessage("Scanning ports...");
+                        List<NetworkHost> hosts = new ArrayList<>();
+                        for (NetworkHost host : discoveredHosts) {
+                            if (!checkpoint.isFinished(host)) {
+                                hosts.add(host);
+                            }
+                        }
+                        performPortScanning(hosts, config, progressCallback);
+                        for (NetworkHost host : hosts) {
+                            session.fork(() -> finishHost(host, config));
+                        }
                     }
                     
-                    // Phase 4: OS Detection (basic)
-                    if (config.isDetectOS()) {
-                        updateMessage("Detecting operating systems...");
-                        performOSDetection(discoveredHosts, config);
+                    updateMessage("Waiting for remaining hosts...");
+                    awaitIdle(session, checkpoint);
+                    if (scanRunning && !lookups.isEmpty()) {
+                        updateMessage("Waiting for hostname lookups...");
+                        // Bounded, so a resolver that stops answering cannot hold the scan open
+                        CompletableFuture<Void> all = CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]));
+                        session.await(all.completeOnTimeout(null, HOSTNAME_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+                        if (lookups.stream().anyMatch(lookup -> !lookup.isDone())) {
+                            postProgress(progressCallback, "Some hostname lookups did not answer in time");
+                        }
                     }
                     
                     updateMessage("Scan completed successfully");
                     updateProgress(1, 1);
+                    completed = true;
                     
-                    return discoveredHosts;
+                    return new ArrayList<>(discoveredHosts);
                     
                 } catch (Exception e) {
                     logger.log(Level.SEVERE, "Network scan failed", e);
                     updateMessage("Scan failed: " + e.getMessage());
+                    publisher.closeExceptionally(e);
                     throw e;
                 } finally {
+                    // A stopped or failed scan keeps its checkpoint so it can be resumed
+                    if (completed && scanRunning) {
+                        checkpoint.delete();
+                    } else {
+                        checkpoint.save();
+                    }
+                    if (serviceFingerprinter != null) {
+                        serviceFingerprinter.close();
+                    }
                     scanRunning = false;
+                    publisher.close();
                 }
             }
         };
     }
     
     /**
-     * Parses target range (IP, CIDR, range) into list of IP addresses
+     * Waits for the session's tasks to finish, checkpointing periodically while they run
      */
-    private List<String> parseTargetRange(String targetRange) {
-        List<String> ips = new ArrayList<>();
-        
-        if (targetRange == null || targetRange.trim().isEmpty()) {
-            return ips;
-        }
-        
-        targetRange = targetRange.trim();
-        
-        // Handle CIDR notation (e.g., 192.168.1.0/24)
-        if (targetRange.contains("/")) {
-            ips.addAll(parseCIDR(targetRange));
-        }
-        // Handle IP range (e.g., 192.168.1.1-192.168.1.10)
-        else if (targetRange.contains("-")) {
-            ips.addAll(parseIPRange(targetRange));
+    private void awaitIdle(ScanScheduler.Session session, ScanCheckpoint checkpoint) throws InterruptedException {
+        while (!session.awaitIdle(CHECKPOINT_POLL_MILLIS)) {
+            checkpoint.saveIfDue();
         }
-        // Handle single IP or hostname
-        else {
-            ips.add(targetRange);
+    }
+    
+    /**
+     * One controller paces every probe of a scan; SYN scans are additionally held to their own ceiling
+     */
+    private ScanRateController createRateController(ScanConfiguration config) {
+        int ceiling = config.getMaxPacketsPerSecond();
+        if (config.getPortScanType() == ScanConfiguration.PortScanType.TCP_SYN_SCAN) {
+            ceiling = Math.min(ceiling, config.getSynPacketsPerSecond());
         }
-        
-        return ips;
+        return new ScanRateController(ceiling, config.isAdaptiveRate());
     }
     
-    private List<String> parseCIDR(String cidr) {
-        List<String> ips = new ArrayList<>();
-        try {
-            String[] parts = cidr.split("/");
-            String baseIP = parts[0];
-            int prefixLength = Integer.parseInt(parts[1]);
-            
-            if (prefixLength < 16 || prefixLength > 30) {
-                throw new IllegalArgumentException("CIDR prefix must be between 16 and 30");
-            }
+    private void performHostDiscovery(TargetSpec targets, ScanConfiguration config, Consumer<String> progressCallback,
+                                      ScanScheduler.Session session, ScanCheckpoint checkpoint,
+                                      Consumer<NetworkHost> onHostUp) throws InterruptedException {
+        if (checkpoint.getPhase() == ScanCheckpoint.Phase.ARP_SWEEP) {
+            Map<String, NetworkHost> arpDevices;
             
-            String[] octets = baseIP.split("\\.");
-            if (octets.length != 4) {
-                throw new IllegalArgumentException("Invalid IP address format");
+            try {
+                // Use ARP scanning for much better device discovery
+                String networkRange = config.getTargetRange();
+                
+                postProgress(progressCallback, "Starting ARP scan - this finds devices that don't respond to ping...");
+                
+                // Get devices from ARP scan
+                arpDevices = arpScanner.performARPScan(networkRange, progressCallback, session);
+                
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "ARP scan failed, falling back to ping scan", e);
+                postProgress(progressCallback, "ARP scan failed, using ping scan fallback...");
+                
+                // Fallback to ping scan if ARP scan fails
+                checkpoint.setPhase(ScanCheckpoint.Phase.TARGET_SWEEP);
+                performPingDiscovery(targets, config, progressCallback, session, checkpoint, onHostUp);
+                return;
             }
             
-            int baseAddr = (Integer.parseInt(octets[0]) << 24) |
-                          (Integer.parseInt(octets[1]) << 16) |
-                          (Integer.parseInt(octets[2]) << 8) |
-                          Integer.parseInt(octets[3]);
-            
-            int mask = 0xFFFFFFFF << (32 - prefixLength);
-            int networkAddr = baseAddr & mask;
-            int hostBits = 32 - prefixLength;
-            int numHosts = (1 << hostBits) - 2; // Exclude network and broadcast
-            
-            // Limit to reasonable number of hosts
-            if (numHosts > 1000) {
-                numHosts = 1000;
+            for (NetworkHost host : arpDevices.values()) {
+                // A resumed scan may already know the host
+                if (!checkpoint.isKnownAddress(host.getIpAddress())) {
+                    onHostUp.accept(host);
+                }
             }
+            postProgress(progressCallback, "ARP scan found " + arpDevices.size() + " devices");
             
-            for (int i = 1; i <= numHosts; i++) {
-                int hostAddr = networkAddr + i;
-                String ip = String.format("%d.%d.%d.%d",
-                    (hostAddr >> 24) & 0xFF,
-                    (hostAddr >> 16) & 0xFF,
-                    (hostAddr >> 8) & 0xFF,
-                    hostAddr & 0xFF);
-                ips.add(ip);
+            // Also try ping scan for any devices ARP missed (if configured)
+            if (config.getScanType() != ScanConfiguration.ScanType.FULL_SCAN) {
+                return;
             }
-            
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error parsing CIDR: " + cidr, e);
+            checkpoint.setPhase(ScanCheckpoint.Phase.TARGET_SWEEP);
+            postProgress(progressCallback, "Performing supplementary ping scan...");
         }
         
-        return ips;
+        if (checkpoint.getPhase() == ScanCheckpoint.Phase.TARGET_SWEEP) {
+            // Hosts ARP already found are not pinged again
+            performPingDiscovery(targets, config, progressCallback, session, checkpoint, onHostUp);
+            postProgress(progressCallback, "Total devices found: " + checkpoint.getHosts().size());
+        }
     }
     
-    private List<String> parseIPRange(String range) {
-        List<String> ips = new ArrayList<>();
-        try {
-            String[] parts = range.split("-");
-            if (parts.length != 2) {
-                throw new IllegalArgumentException("Invalid IP range format");
-            }
-            
-            String startIP = parts[0].trim();
-            String endIP = parts[1].trim();
-            
-            // Simple range parsing for last octet
-            String[] startOctets = startIP.split("\\.");
-            String[] endOctets = endIP.split("\\.");
-            
-            if (startOctets.length != 4 || endOctets.length != 4) {
-                throw new IllegalArgumentException("Invalid IP address format in range");
-            }
-            
-            String baseIP = startOctets[0] + "." + startOctets[1] + "." + startOctets[2] + ".";
-            int startHost = Integer.parseInt(startOctets[3]);
-            int endHost = Integer.parseInt(endOctets[3]);
-            
-            for (int i = startHost; i <= endHost; i++) {
-                ips.add(baseIP + i);
-            }
-            
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error parsing IP range: " + range, e);
+    /**
+     * Sweeps the targets, handing each live host to onHostUp as soon as it answers.
+     * Addresses left in flight by a previous run are retried first. A raw ICMP echo sweep
+     * is used where capture is available; otherwise each address is pinged with
+     * isReachable on the shared pool. Returns once every ping has completed.
+     */
+    private void performPingDiscovery(TargetSpec targets, ScanConfiguration config, Consumer<String> progressCallback,
+                                      ScanScheduler.Session session, ScanCheckpoint checkpoint,
+                                      Consumer<NetworkHost> onHostUp) throws InterruptedException {
+        TargetSpec.TargetIterator iterator = checkpoint.iterator(targets);
+        SweepTargets addresses = new SweepTargets(checkpoint.getPendingAddresses(), iterator, checkpoint);
+        if (!addresses.hasNext() || performIcmpSweep(addresses, targets, config, progressCallback, checkpoint, onHostUp)) {
+            return;
         }
+        // Whatever the raw sweep left in flight is pending again, as is the address it peeked at
+        addresses = addresses.restart(checkpoint.getPendingAddresses());
         
-        return ips;
+        // Bound queued probes so large ranges stream through instead of piling up as tasks
+        int window = config.getThreads() * 2;
+        Semaphore permits = new Semaphore(window);
+        
+        while (scanRunning && addresses.hasNext()) {
+            int address = addresses.nextInt();
+            // Pending before blocking, so a stop that interrupts the wait still saves it for the resume
+            checkpoint.addressDispatched(address);
+            permits.acquire();
+            rateController.acquire();
+            session.fork(() -> {
+                try {
+                    NetworkHost host = pingHost(address, targets, config, session);
+                    if (host != null) {
+                        onHostUp.accept(host);
+                    }
+                } finally {
+                    checkpoint.addressCompleted(address);
+                    permits.release();
+                }
+            });
+            checkpoint.saveIfDue();
+        }
+        // Wait for the probes still in flight
+        permits.acquire(window);
+        
+        postProgress(progressCallback, "Ping sweep finished: " + rateController.getMetrics());
     }
     
-    private List<NetworkHost> performHostDiscovery(List<String> targetIPs, ScanConfiguration config, Consumer<String> progressCallback) {
-        List<NetworkHost> aliveHosts = new ArrayList<>();
+    /**
+     * Runs the raw ICMP echo sweep, returning false if raw capture is unavailable or the
+     * sweep failed so the caller can carry on with isReachable
+     */
+    private boolean performIcmpSweep(SweepTargets addresses, TargetSpec targets, ScanConfiguration config,
+                                     Consumer<String> progressCallback, ScanCheckpoint checkpoint,
+                                     Consumer<NetworkHost> onHostUp) throws InterruptedException {
+        IcmpSweeper.Sweep sweep;
+        try {
+            sweep = new IcmpSweeper(rateController, config.getTimeout()).open(addresses.peek());
+        } catch (Exception e) {
+            // Raw capture needs libpcap and root/administrator privileges
+            logger.log(Level.FINE, "ICMP sweep unavailable, falling back to isReachable", e);
+            return false;
+        }
         
+        postProgress(progressCallback, "Sending ICMP echo requests...");
         try {
-            // Use ARP scanning for much better device discovery
-            String networkRange = config.getTargetRange();
-            
-            Platform.runLater(() -> {
-                if (progressCallback != null) {
-                    progressCallback.accept("Starting ARP scan - this finds devices that don't respond to ping...");
+            sweep.run(addresses, new IcmpSweeper.Listener() {
+                @Override
+                public void onSent(int address) {
+                    checkpoint.addressDispatched(address);
                 }
-            });
-            
-            // Get devices from ARP scan
-            Map<String, NetworkHost> arpDevices = arpScanner.performARPScan(networkRange, progressCallback);
-            aliveHosts.addAll(arpDevices.values());
-            
-            int arpFoundCount = aliveHosts.size();
-            Platform.runLater(() -> {
-                if (progressCallback != null) {
-                    progressCallback.accept("ARP scan found " + arpFoundCount + " devices");
-                }
-            });
-            
-            // Also try ping scan for any devices ARP missed (if configured)
-            if (config.getScanType() == ScanConfiguration.ScanType.FULL_SCAN) {
-                Platform.runLater(() -> {
-                    if (progressCallback != null) {
-                        progressCallback.accept("Performing supplementary ping scan...");
-                    }
-                });
-                
-                List<NetworkHost> pingHosts = performPingDiscovery(targetIPs, config, progressCallback);
                 
-                // Merge ping results with ARP results (avoid duplicates)
-                for (NetworkHost pingHost : pingHosts) {
-                    boolean exists = aliveHosts.stream()
-                        .anyMatch(host -> host.getIpAddress().equals(pingHost.getIpAddress()));
-                    if (!exists) {
-                        aliveHosts.add(pingHost);
-                    }
+                @Override
+                public void onReply(int address, long rttMicros) {
+                    onHostUp.accept(hostUp(address, targets, config, rttMicros));
+                    checkpoint.addressCompleted(address);
                 }
                 
-                int totalFoundCount = aliveHosts.size();
-                Platform.runLater(() -> {
-                    if (progressCallback != null) {
-                        progressCallback.accept("Total devices found: " + totalFoundCount);
-                    }
-                });
-            }
-            
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "ARP scan failed, falling back to ping scan", e);
-            
-            Platform.runLater(() -> {
-                if (progressCallback != null) {
-                    progressCallback.accept("ARP scan failed, using ping scan fallback...");
+                @Override
+                public void onTimeout(int address) {
+                    checkpoint.addressCompleted(address);
+                    checkpoint.saveIfDue();
                 }
-            });
-            
-            // Fallback to ping scan if ARP scan fails
-            aliveHosts = performPingDiscovery(targetIPs, config, progressCallback);
+            }, () -> !scanRunning);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "ICMP sweep failed, falling back to isReachable", e);
+            postProgress(progressCallback, "ICMP sweep failed (" + e.getMessage() + "), continuing with ping...");
+            return false;
         }
         
-        return aliveHosts;
+        postProgress(progressCallback, "ICMP sweep finished: " + rateController.getMetrics());
+        return true;
     }
     
-    private List<NetworkHost> performPingDiscovery(List<String> targetIPs, ScanConfiguration config, Consumer<String> progressCallback) {
-        List<NetworkHost> aliveHosts = new ArrayList<>();
-        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
-        List<Future<NetworkHost>> futures = new ArrayList<>();
+    private NetworkHost pingHost(int address, TargetSpec targets, ScanConfiguration config, ScanScheduler.Session session) {
+        String ip = TargetSpec.format(address);
         
-        for (String ip : targetIPs) {
-            Future<NetworkHost> future = executor.submit(() -> {
-                NetworkHost host = new NetworkHost(ip);
-                
-                try {
-                    long startTime = System.currentTimeMillis();
-                    
-                    // Try ping first
-                    InetAddress address = InetAddress.getByName(ip);
-                    boolean reachable = address.isReachable(config.getTimeout());
-                    
-                    if (reachable) {
-                        host.setAlive(true);
-                        host.setResponseTime(System.currentTimeMillis() - startTime);
-                        
-                        if (config.isResolveHostnames()) {
-                            try {
-                                String hostname = address.getCanonicalHostName();
-                                if (!hostname.equals(ip)) {
-                                    host.setHostname(hostname);
-                                }
-                            } catch (Exception e) {
-                                // Hostname resolution failed, ignore
-                            }
-                        }
-                        
-                        Platform.runLater(() -> {
-                            if (progressCallback != null) {
-                                progressCallback.accept("Found host: " + ip + 
-                                    (host.getHostname() != null ? " (" + host.getHostname() + ")" : ""));
-                            }
-                        });
-                    }
-                    
-                } catch (Exception e) {
-                    logger.log(Level.FINE, "Host discovery failed for " + ip + ": " + e.getMessage());
-                }
-                
-                return host;
-            });
+        try {
+            long startNanos = System.nanoTime();
             
-            futures.add(future);
+            InetAddress inetAddress = PacketBytes.toAddress(address);
+            if (!session.probe(() -> inetAddress.isReachable(config.getTimeout()))) {
+                rateController.onTimeout();
+                return null;
+            }
+            
+            long responseMicros = (System.nanoTime() - startNanos) / 1000;
+            rateController.onResponse(responseMicros);
+            return hostUp(address, targets, config, responseMicros);
+            
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Host discovery failed for " + ip + ": " + e.getMessage());
+            return null;
         }
+    }
+    
+    /**
+     * Builds the record for a host that answered discovery and starts its reverse lookup
+     */
+    private NetworkHost hostUp(int address, TargetSpec targets, ScanConfiguration config, long responseMicros) {
+        NetworkHost host = new NetworkHost(TargetSpec.format(address));
+        host.setAlive(true);
+        host.setResponseTimeMicros(responseMicros);
+        host.setHostname(targets.hostnameFor(address));
         
-        // Collect results
-        for (Future<NetworkHost> future : futures) {
-            try {
-                NetworkHost host = future.get();
-                if (host.isAlive()) {
-                    aliveHosts.add(host);
-                }
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error collecting host discovery result", e);
+        Queue<CompletableFuture<Void>> lookups = hostnameLookups;
+        if (config.isResolveHostnames() && host.getHostname() == null && lookups != null) {
+            // Answers arrive in the background; the scan waits for them before it completes
+            lookups.add(reverseDns.resolveInto(host));
+        }
+        return host;
+    }
+    
+    /**
+     * Runs the batch engine once per distinct set of unprobed ports; a fresh scan has a
+     * single set, while hosts restored from a checkpoint may each have probed a different share
+     */
+    private void performPortScanning(List<NetworkHost> hosts, ScanConfiguration config, Consumer<String> progressCallback) {
+        Map<List<Integer>, List<NetworkHost>> batches = new LinkedHashMap<>();
+        for (NetworkHost host : hosts) {
+            List<Integer> ports = remainingPorts(host, config);
+            if (!ports.isEmpty()) {
+                batches.computeIfAbsent(ports, p -> new ArrayList<>()).add(host);
             }
         }
         
-        executor.shutdown();
-        return aliveHosts;
+        for (Map.Entry<List<Integer>, List<NetworkHost>> batch : batches.entrySet()) {
+            if (!scanRunning) {
+                break;
+            }
+            switch (config.getPortScanType()) {
+                case TCP_SYN_SCAN:
+                    performSynScan(batch.getValue(), batch.getKey(), config, progressCallback);
+                    break;
+                case TCP_CONNECT_ASYNC:
+                    performAsyncConnectScan(batch.getValue(), batch.getKey(), config, progressCallback);
+                    break;
+                default:
+                    throw new IllegalStateException("Connect scans run per host: " + config.getPortScanType());
+            }
+        }
     }
     
-    private void performPortScanning(List<NetworkHost> hosts, ScanConfiguration config, Consumer<String> progressCallback) {
-        if (config.getPortScanType() == ScanConfiguration.PortScanType.TCP_SYN_SCAN) {
-            performSynScan(hosts, config, progressCallback);
-        } else {
-            performConnectScan(hosts, config, progressCallback);
+    /**
+     * Configured ports the host has no state for yet; all of them unless it was restored from a checkpoint
+     */
+    private static List<Integer> remainingPorts(NetworkHost host, ScanConfiguration config) {
+        List<Integer> ports = new ArrayList<>();
+        for (int port : config.getPorts()) {
+            if (host.getPortState(NetworkHost.Protocol.TCP, port) == null) {
+                ports.add(port);
+            }
         }
+        return ports;
     }
 
-    private void performConnectScan(List<NetworkHost> hosts, ScanConfiguration config, Consumer<String> progressCallback) {
-        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
-        List<Future<Void>> futures = new ArrayList<>();
+    /**
+     * Splits a host's ports into slices on the shared pool so idle workers can steal them;
+     * whichever slice finishes last runs the host's detection phases and then done
+     */
+    private void scheduleConnectScan(ScanScheduler.Session session, NetworkHost host, ScanConfiguration config,
+                                     Runnable done) {
+        // A host restored from a checkpoint only needs the ports it had not probed yet
+        List<Integer> ports = remainingPorts(host, config);
+        if (ports.isEmpty()) {
+            session.fork(() -> {
+                try {
+                    finishHost(host, config);
+                } finally {
+                    done.run();
+                }
+            });
+            return;
+        }
         
-        for (NetworkHost host : hosts) {
-            Future<Void> future = executor.submit(() -> {
-                for (int port : config.getPorts()) {
-                    try {
-                        if (isPortOpen(host.getIpAddress(), port, config.getTimeout())) {
-                            host.addOpenPort(port);
-                            
-                            Platform.runLater(() -> {
-                                if (progressCallback != null) {
-                                    progressCallback.accept("Open port found: " + host.getIpAddress() + ":" + port);
-                                }
-                            });
+        RttEstimator rtt = RttEstimator.forHost(host, config.getTimeout());
+        AtomicInteger remaining = new AtomicInteger((ports.size() + PORTS_PER_TASK - 1) / PORTS_PER_TASK);
+        
+        for (int start = 0; start < ports.size(); start += PORTS_PER_TASK) {
+            List<Integer> slice = ports.subList(start, Math.min(ports.size(), start + PORTS_PER_TASK));
+            session.fork(() -> {
+                try {
+                    for (int port : slice) {
+                        if (!scanRunning) {
+                            break;
+                        }
+                        NetworkHost.PortState state = probePort(session, host.getIpAddress(), port, rtt);
+                        if (host.setPortState(NetworkHost.Protocol.TCP, port, state) && state == NetworkHost.PortState.OPEN) {
+                            emit(ScanEvent.portOpen(host, port));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        try {
+                            finishHost(host, config);
+                        } finally {
+                            done.run();
                         }
-                    } catch (Exception e) {
-                        logger.log(Level.FINE, "Port scan failed for " + host.getIpAddress() + ":" + port + ": " + e.getMessage());
                     }
                 }
-                return null;
             });
+        }
+    }
+
+    private void performAsyncConnectScan(List<NetworkHost> hosts, List<Integer> ports, ScanConfiguration config,
+                                         Consumer<String> progressCallback) {
+        NioConnectScanner scanner = new NioConnectScanner(config.getMaxConcurrentProbes(), config.getTimeout(), rateController);
+        PortTally tally = new PortTally(progressCallback);
+        
+        try {
+            scanner.scan(hosts, ports, tally, () -> !scanRunning);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error in async connect scanning", e);
+        }
+        
+        tally.report("Async connect scan");
+    }
+
+    private void performSynScan(List<NetworkHost> hosts, List<Integer> ports, ScanConfiguration config,
+                                Consumer<String> progressCallback) {
+        SynScanner scanner = new SynScanner(rateController, config.getTimeout());
+        OsFingerprinter os = osFingerprinter;
+        if (os != null) {
+            scanner.setSynAckObserver(os::observe);
+        }
+        PortTally tally = new PortTally(progressCallback);
+        
+        try {
+            List<NetworkHost> unsupported = scanner.scan(hosts, ports, tally, () -> !scanRunning);
+            tally.report("SYN scan");
             
-            futures.add(future);
+            if (!unsupported.isEmpty()) {
+                postProgress(progressCallback, unsupported.size() + " hosts cannot be SYN scanned, using connect scan for them...");
+                performAsyncConnectScan(unsupported, ports, config, progressCallback);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Raw capture needs libpcap and root/administrator privileges
+            logger.log(Level.WARNING, "SYN scan unavailable, falling back to async connect scan", e);
+            postProgress(progressCallback, "SYN scan unavailable (" + e.getMessage() + "), falling back to connect scan...");
+            performAsyncConnectScan(hosts, ports, config, progressCallback);
+        }
+    }
+    
+    /**
+     * Publishes a finding to the current scan's subscriber, if there is one
+     */
+    private void emit(ScanEvent event) {
+        SubmissionPublisher<ScanEvent> publisher = eventPublisher;
+        if (publisher != null && publisher.hasSubscribers()) {
+            publisher.submit(event);
         }
+    }
+    
+    private void postProgress(Consumer<String> progressCallback, String message) {
+        Platform.runLater(() -> {
+            if (progressCallback != null) {
+                progressCallback.accept(message);
+            }
+        });
+    }
+    
+    /**
+     * Discovery targets: checkpointed retries first, then the rest of the iterator,
+     * skipping addresses whose host is already known
+     */
+    private static final class SweepTargets implements PrimitiveIterator.OfInt {
+        private final List<Integer> retries;
+        private final TargetSpec.TargetIterator iterator;
+        private final ScanCheckpoint checkpoint;
+        private int retryIndex;
+        private boolean hasNext;
+        private int next;
         
-        // Wait for all port scans to complete
-        for (Future<Void> future : futures) {
-            try {
-                future.get();
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error in port scanning", e);
+        SweepTargets(List<Integer> retries, TargetSpec.TargetIterator iterator, ScanCheckpoint checkpoint) {
+            this.retries = retries;
+            this.iterator = iterator;
+            this.checkpoint = checkpoint;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (!hasNext && (retryIndex < retries.size() || iterator.hasNext())) {
+                int address = retryIndex < retries.size() ? retries.get(retryIndex++) : iterator.nextAddress();
+                if (checkpoint.isKnownAddress(TargetSpec.format(address))) {
+                    checkpoint.addressCompleted(address);
+                } else {
+                    next = address;
+                    hasNext = true;
+                }
             }
+            return hasNext;
         }
         
-        executor.shutdown();
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            hasNext = false;
+            return next;
+        }
+        
+        int peek() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return next;
+        }
+        
+        /**
+         * Sweeps the same targets again from the given retries, keeping the address this
+         * sweep has taken from the iterator but not yet handed out
+         */
+        SweepTargets restart(List<Integer> retries) {
+            List<Integer> carried = new ArrayList<>(retries);
+            if (hasNext && !carried.contains(next)) {
+                carried.add(next);
+            }
+            return new SweepTargets(carried, iterator, checkpoint);
+        }
     }
-
-    private void performSynScan(List<NetworkHost> hosts, ScanConfiguration config, Consumer<String> progressCallback) {
-        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
-        List<Future<Void>> futures = new ArrayList<>();
-
-        for (NetworkHost host : hosts) {
-            Future<Void> future = executor.submit(() -> {
-                try {
-                    InetAddress targetIp = InetAddress.getByName(host.getIpAddress());
-                    PcapNetworkInterface nif = Pcaps.getDevByAddress(targetIp);
-
-                    if (nif == null) {
-                        Platform.runLater(() -> progressCallback.accept("Warning: Could not find network interface for " + host.getIpAddress()));
-                        return null;
-                    }
-
-                    for (int port : config.getPorts()) {
-                        // This requires pcap and root privileges, handle gracefully
-                        // Example of how it might be called:
-                        // if (advancedPortScannerService.isPortOpen(nif, targetIp, port, config.getTimeout())) {
-                        //     host.addOpenPort(port);
-                        //     Platform.runLater(() -> progressCallback.accept("Open port (SYN): " + host.getIpAddress() + ":" + port));
-                        // }
+    
+    /**
+     * Records open ports on their hosts and counts closed/filtered outcomes for the scan summary
+     */
+    private class PortTally implements PortScanListener {
+        private final Consumer<String> progressCallback;
+        private final AtomicInteger closed = new AtomicInteger();
+        private final AtomicInteger filtered = new AtomicInteger();
+        
+        PortTally(Consumer<String> progressCallback) {
+            this.progressCallback = progressCallback;
+        }
+        
+        @Override
+        public void onResult(NetworkHost host, int port, NetworkHost.PortState state, long rttMillis) {
+            boolean changed = host.setPortState(NetworkHost.Protocol.TCP, port, state);
+            switch (state) {
+                case OPEN:
+                    if (changed) {
+                        emit(ScanEvent.portOpen(host, port));
                     }
-                } catch (Exception e) {
-                    logger.log(Level.WARNING, "SYN scan failed for " + host.getIpAddress(), e);
+                    break;
+                case CLOSED:
+                    closed.incrementAndGet();
+                    break;
+                default:
+                    filtered.incrementAndGet();
+                    break;
+            }
+        }
+        
+        void report(String engine) {
+            postProgress(progressCallback, engine + " finished: " + closed.get() + " closed, " + filtered.get() + " filtered (" +
+                rateController.getMetrics() + ")");
+        }
+    }
+    
+    private NetworkHost.PortState probePort(ScanScheduler.Session session, String host, int port, RttEstimator rtt)
+            throws InterruptedException {
+        rateController.acquire();
+        long startTime = System.nanoTime();
+        try {
+            session.probe(() -> {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(host, port), rtt.getTimeoutMillis());
                 }
                 return null;
             });
-            futures.add(future);
-        }
-
-        // Wait for all scans to complete
-        for (Future<Void> future : futures) {
-            try {
-                future.get();
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error in SYN scanning", e);
-            }
+            long rttMicros = (System.nanoTime() - startTime) / 1000;
+            rateController.onResponse(rttMicros);
+            rtt.addSample(rttMicros);
+            return NetworkHost.PortState.OPEN;
+        } catch (SocketTimeoutException e) {
+            rateController.onTimeout(rtt.hasSamples());
+            return NetworkHost.PortState.FILTERED;
+        } catch (ConnectException e) {
+            // Refused connections still prove the path is delivering packets
+            long rttMicros = (System.nanoTime() - startTime) / 1000;
+            rateController.onResponse(rttMicros);
+            rtt.addSample(rttMicros);
+            return NetworkHost.PortState.CLOSED;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            // Unreachable and similar errors mean no answer from the port itself
+            return NetworkHost.PortState.FILTERED;
         }
-
-        executor.shutdown();
     }
     
-    private boolean isPortOpen(String host, int port, int timeout) {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(host, port), timeout);
-            return true;
-        } catch (IOException e) {
-            return false;
+    /**
+     * Runs the detection phases for one host once its ports are known
+     */
+    private void finishHost(NetworkHost host, ScanConfiguration config) {
+        if (config.isDetectServices()) {
+            detectServices(host);
+        }
+        if (config.isDetectOS()) {
+            detectOS(host);
+        }
+        // Hosts cut short by a stop are left unfinished so a resume scans them again
+        ScanCheckpoint current = checkpoint;
+        if (current != null && scanRunning) {
+            current.hostFinished(host);
         }
     }
     
-    private void performServiceDetection(List<NetworkHost> hosts, ScanConfiguration config) {
-        for (NetworkHost host : hosts) {
-            for (int port : host.getOpenPorts()) {
-                String service = COMMON_SERVICES.get(port);
-                if (service != null) {
-                    host.addService(service);
-                } else {
-                    host.addService("Unknown");
-                }
+    /**
+     * Names each open port from its banner, falling back to the well-known port table
+     * for ports that gave nothing recognisable
+     */
+    private void detectServices(NetworkHost host) {
+        List<Integer> openPorts = new ArrayList<>(host.getOpenPorts());
+        Map<Integer, String> fingerprints = Collections.emptyMap();
+        ServiceFingerprinter current = fingerprinter;
+        if (current != null && scanRunning) {
+            try {
+                fingerprints = current.fingerprint(host, openPorts);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Service fingerprinting failed for " + host.getIpAddress(), e);
             }
         }
+        for (int port : openPorts) {
+            String service = fingerprints.getOrDefault(port, COMMON_SERVICES.getOrDefault(port, "Unknown"));
+            host.addService(service);
+            emit(ScanEvent.service(host, port, service));
+        }
     }
     
-    private void performOSDetection(List<NetworkHost> hosts, ScanConfiguration config) {
-        // Basic OS detection based on open ports and patterns
-        for (NetworkHost host : hosts) {
-            String osGuess = "Unknown";
-            
+    /**
+     * Guesses the OS from the host's SYN/ACKs when a SYN scan saw any, otherwise from
+     * which well-known ports are open
+     */
+    private void detectOS(NetworkHost host) {
+        OsFingerprinter os = osFingerprinter;
+        String osGuess = os != null ? os.guess(host) : null;
+        
+        if (osGuess == null) {
+            osGuess = "Unknown";
             if (host.getOpenPorts().contains(135) || host.getOpenPorts().contains(139) || host.getOpenPorts().contains(3389)) {
                 osGuess = "Windows";
             } else if (host.getOpenPorts().contains(22)) {
@@ -493,26 +825,28 @@ public class NetworkScannerService {
             } else if (host.getOpenPorts().contains(548)) {
                 osGuess = "macOS";
             }
-            
-            host.setOsGuess(osGuess);
         }
+        
+        host.setOsGuess(osGuess);
+        emit(ScanEvent.os(host, osGuess));
     }
     
     public void stopScan() {
         scanRunning = false;
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdownNow();
-            executorService = Executors.newCachedThreadPool();
-        }
     }
     
     public boolean isScanRunning() {
         return scanRunning;
     }
     
+    /**
+     * True when scans can run in {@link ScanConfiguration.ExecutionMode#VIRTUAL_THREADS} mode
+     */
+    public boolean isVirtualThreadSupported() {
+        return scheduler.isVirtualThreadSupported();
+    }
+    
     public void shutdown() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
+        scheduler.shutdown();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,342 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import edu.au.cpsc.module7.models.NetworkHost.PortState;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking TCP connect scanner that keeps thousands of connection attempts
+ * in flight on a single Selector thread. Probe deadlines are tracked in a hashed
+ * timer wheel so expiring a probe never requires scanning the whole in-flight set.
+ * New connections are paced by the shared rate controller, which is fed every outcome,
+ * and each probe's deadline comes from its host's RTT estimate.
+ */
+public class NioConnectScanner {
+    private static final Logger logger = Logger.getLogger(NioConnectScanner.class.getName());
+
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 512; // Must be a power of two
+
+    private final int maxInFlight;
+    private final int timeoutMillis;
+    private final ScanRateController rateController;
+
+    public NioConnectScanner(int maxInFlight, int timeoutMillis, ScanRateController rateController) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+        this.rateController = rateController;
+    }
+
+    /**
+     * Probes every port on every host, returning once all probes have completed
+     * or the cancellation check reports true. Results are delivered on the calling thread.
+     */
+    public void scan(List<NetworkHost> hosts, List<Integer> ports, PortScanListener listener,
+                     BooleanSupplier cancelled) throws IOException {
+        ProbeSource source = new ProbeSource(resolveTargets(hosts), ports);
+        TimerWheel wheel = new TimerWheel(System.nanoTime());
+        int window = maxInFlight;
+        int inFlight = 0;
+        Probe deferred = null;
+
+        try (Selector selector = Selector.open()) {
+            try {
+                while (!cancelled.getAsBoolean()) {
+                    // Top up the in-flight window
+                    while (inFlight < window && (deferred != null || source.hasNext()) && rateController.tryAcquire()) {
+                        Probe probe = deferred != null ? deferred : source.next();
+                        deferred = null;
+
+                        try {
+                            if (startProbe(probe, selector, wheel)) {
+                                inFlight++;
+                            } else {
+                                complete(probe, PortState.OPEN, wheel, listener);
+                            }
+                        } catch (ConnectException e) {
+                            complete(probe, PortState.CLOSED, wheel, listener);
+                        } catch (IOException e) {
+                            if (inFlight > 0 && isResourceExhausted(e)) {
+                                // Out of file descriptors - shrink the window and retry later
+                                window = Math.max(1, inFlight);
+                                probe.close();
+                                probe.channel = null;
+                                probe.key = null;
+                                deferred = probe;
+                                logger.log(Level.WARNING, "Reducing connect window to " + window + ": " + e.getMessage());
+                                break;
+                            }
+                            complete(probe, PortState.FILTERED, wheel, listener);
+                        }
+                    }
+
+                    if (inFlight == 0 && deferred == null && !source.hasNext()) {
+                        break;
+                    }
+
+                    selector.select(TICK_MILLIS);
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        Probe probe = (Probe) key.attachment();
+                        PortState state;
+                        try {
+                            if (!key.isValid() || !probe.channel.finishConnect()) {
+                                continue;
+                            }
+                            state = PortState.OPEN;
+                        } catch (ConnectException e) {
+                            state = PortState.CLOSED;
+                        } catch (IOException e) {
+                            state = PortState.FILTERED;
+                        }
+
+                        complete(probe, state, wheel, listener);
+                        inFlight--;
+                    }
+
+                    inFlight -= wheel.expire(System.nanoTime(),
+                        probe -> complete(probe, PortState.FILTERED, wheel, listener));
+                }
+            } finally {
+                wheel.closeAll();
+            }
+        }
+    }
+
+    private List<Target> resolveTargets(List<NetworkHost> hosts) {
+        List<Target> targets = new ArrayList<>(hosts.size());
+        for (NetworkHost host : hosts) {
+            try {
+                targets.add(new Target(host, InetAddress.getByName(host.getIpAddress()),
+                    RttEstimator.forHost(host, timeoutMillis)));
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Skipping unresolvable host " + host.getIpAddress() + ": " + e.getMessage());
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Opens a non-blocking channel for the probe. Returns false if the connection
+     * completed immediately, which happens for loopback targets.
+     */
+    private boolean startProbe(Probe probe, Selector selector, TimerWheel wheel) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        probe.channel = channel;
+        probe.startNanos = System.nanoTime();
+
+        channel.configureBlocking(false);
+        // Abortive close sends RST and keeps closed probes out of TIME_WAIT
+        channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+
+        if (channel.connect(new InetSocketAddress(probe.target.address, probe.port))) {
+            return false;
+        }
+
+        probe.key = channel.register(selector, SelectionKey.OP_CONNECT, probe);
+        wheel.schedule(probe, probe.startNanos + probe.target.rtt.getTimeoutNanos());
+        return true;
+    }
+
+    private void complete(Probe probe, PortState state, TimerWheel wheel, PortScanListener listener) {
+        wheel.remove(probe);
+        probe.close();
+
+        long rttNanos = System.nanoTime() - probe.startNanos;
+        if (state == PortState.FILTERED) {
+            rateController.onTimeout(probe.target.rtt.hasSamples());
+        } else {
+            rateController.onResponse(rttNanos / 1000L);
+            probe.target.rtt.addSample(rttNanos / 1000L);
+        }
+
+        long rttMillis = rttNanos / 1_000_000L;
+        try {
+            listener.onResult(probe.target.host, probe.port, state, rttMillis);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Scan result listener failed", e);
+        }
+    }
+
+    private static boolean isResourceExhausted(IOException e) {
+        String message = e.getMessage();
+        return message != null && (message.contains("Too many open files") || message.contains("No buffer space"));
+    }
+
+    private static final class Target {
+        final NetworkHost host;
+        final InetAddress address;
+        final RttEstimator rtt;
+
+        Target(NetworkHost host, InetAddress address, RttEstimator rtt) {
+            this.host = host;
+            this.address = address;
+            this.rtt = rtt;
+        }
+    }
+
+    /**
+     * A single in-flight connection attempt, linked into a timer wheel slot
+     */
+    private static final class Probe {
+        final Target target;
+        final int port;
+        SocketChannel channel;
+        SelectionKey key;
+        long startNanos;
+
+        // Timer wheel bookkeeping
+        long deadlineTick;
+        int slot = -1;
+        Probe prev;
+        Probe next;
+
+        Probe(Target target, int port) {
+            this.target = target;
+            this.port = port;
+        }
+
+        void close() {
+            if (key != null) {
+                key.cancel();
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Ignore close failures
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks ports in the outer loop and hosts in the inner loop so consecutive
+     * probes are spread across hosts instead of hammering one target
+     */
+    private static final class ProbeSource {
+        private final List<Target> targets;
+        private final List<Integer> ports;
+        private int hostIndex;
+        private int portIndex;
+
+        ProbeSource(List<Target> targets, List<Integer> ports) {
+            this.targets = targets;
+            this.ports = ports;
+        }
+
+        boolean hasNext() {
+            return !targets.isEmpty() && portIndex < ports.size();
+        }
+
+        Probe next() {
+            Probe probe = new Probe(targets.get(hostIndex), ports.get(portIndex));
+            if (++hostIndex == targets.size()) {
+                hostIndex = 0;
+                portIndex++;
+            }
+            return probe;
+        }
+    }
+
+    /**
+     * Hashed timer wheel with intrusive doubly linked slots, giving O(1)
+     * schedule and cancel and expiry work proportional to elapsed ticks
+     */
+    private static final class TimerWheel {
+        private final Probe[] slots = new Probe[WHEEL_SIZE];
+        private final long originNanos;
+        private long currentTick;
+
+        TimerWheel(long originNanos) {
+            this.originNanos = originNanos;
+        }
+
+        private long tickOf(long nanos) {
+            return (nanos - originNanos) / (TICK_MILLIS * 1_000_000L);
+        }
+
+        void schedule(Probe probe, long deadlineNanos) {
+            probe.deadlineTick = Math.max(tickOf(deadlineNanos), currentTick);
+            probe.slot = (int) (probe.deadlineTick & (WHEEL_SIZE - 1));
+            probe.prev = null;
+            probe.next = slots[probe.slot];
+            if (probe.next != null) {
+                probe.next.prev = probe;
+            }
+            slots[probe.slot] = probe;
+        }
+
+        void remove(Probe probe) {
+            if (probe.slot < 0) {
+                return;
+            }
+            if (probe.prev != null) {
+                probe.prev.next = probe.next;
+            } else {
+                slots[probe.slot] = probe.next;
+            }
+            if (probe.next != null) {
+                probe.next.prev = probe.prev;
+            }
+            probe.prev = null;
+            probe.next = null;
+            probe.slot = -1;
+        }
+
+        /**
+         * Expires every probe whose deadline has passed and returns how many expired
+         */
+        int expire(long nowNanos, Consumer<Probe> onExpired) {
+            long nowTick = tickOf(nowNanos);
+            int expired = 0;
+
+            while (currentTick <= nowTick) {
+                Probe probe = slots[(int) (currentTick & (WHEEL_SIZE - 1))];
+                while (probe != null) {
+                    Probe next = probe.next;
+                    // Probes further than one revolution away stay in the slot
+                    if (probe.deadlineTick <= nowTick) {
+                        onExpired.accept(probe);
+                        expired++;
+                    }
+                    probe = next;
+                }
+                currentTick++;
+            }
+            // Leave the cursor on the current tick so it is revisited next time
+            currentTick = nowTick;
+            return expired;
+        }
+
+        void closeAll() {
+            for (int i = 0; i < slots.length; i++) {
+                Probe probe = slots[i];
+                while (probe != null) {
+                    probe.close();
+                    probe = probe.next;
+                }
+                slots[i] = null;
+            }
+        }
+    }
+}
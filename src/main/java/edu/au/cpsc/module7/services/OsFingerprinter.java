@@ -0,0 +1,302 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passive OS fingerprinting from the SYN/ACK replies a SYN scan already receives. The
+ * first reply from each host is reduced to its initial TTL, DF bit, window size, MSS,
+ * window scale and TCP option order, which differ between network stacks, and matched
+ * against a small signature table. No extra packets are sent.
+ *
+ * Signatures are indexed by (option layout, initial TTL, DF) so a lookup is one hash
+ * probe plus a scan of the few window rules under that key. Replies that match no exact
+ * key fall back to the option layout and TTL alone, then to the TTL family.
+ */
+public class OsFingerprinter {
+
+    private static final int OPTION_EOL = 0;
+    private static final int OPTION_NOP = 1;
+    private static final int OPTION_MSS = 2;
+    private static final int OPTION_WSCALE = 3;
+    private static final int OPTION_SACK_PERMITTED = 4;
+    private static final int OPTION_TIMESTAMPS = 8;
+    private static final int MAX_LAYOUT_OPTIONS = 13; // 4 bits each, leaving 9 bits of the key for TTL and DF
+
+    /**
+     * Window rule: ANY, an exact size, or a multiple of the advertised MSS
+     */
+    private static final int WINDOW_ANY = 0;
+    private static final int WINDOW_EXACT = 1;
+    private static final int WINDOW_MSS_MULTIPLE = 2;
+
+    private static final class Signature {
+        final String os;
+        final long layout;
+        final int initialTtl;
+        final boolean df;
+        final int windowRule;
+        final int window;
+
+        Signature(String os, String layout, int initialTtl, boolean df, String window) {
+            this.os = os;
+            this.layout = encodeLayout(layout);
+            this.initialTtl = initialTtl;
+            this.df = df;
+            if (window.equals("*")) {
+                this.windowRule = WINDOW_ANY;
+                this.window = 0;
+            } else if (window.startsWith("mss*")) {
+                this.windowRule = WINDOW_MSS_MULTIPLE;
+                this.window = Integer.parseInt(window.substring(4));
+            } else {
+                this.windowRule = WINDOW_EXACT;
+                this.window = Integer.parseInt(window);
+            }
+        }
+
+        boolean matchesWindow(Observation observation) {
+            switch (windowRule) {
+                case WINDOW_EXACT:
+                    return observation.window == window;
+                case WINDOW_MSS_MULTIPLE:
+                    return observation.mss > 0 && observation.window == observation.mss * window;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    // SYN/ACK layouts in reply to a SYN offering mss,sok,ts,nop,ws; more specific window rules first
+    private static final Signature[] SIGNATURES = {
+        new Signature("Linux 4.x-6.x", "mss,sok,ts,nop,ws", 64, true, "65160"),
+        new Signature("Linux 3.x-6.x", "mss,sok,ts,nop,ws", 64, true, "28960"),
+        new Signature("Linux 3.x-6.x", "mss,sok,ts,nop,ws", 64, true, "14480"),
+        new Signature("Linux 3.x-6.x", "mss,sok,ts,nop,ws", 64, true, "mss*20"),
+        new Signature("Linux 2.6", "mss,sok,ts,nop,ws", 64, true, "5792"),
+        new Signature("Android", "mss,sok,ts,nop,ws", 64, true, "65535"),
+        new Signature("Linux", "mss,sok,ts,nop,ws", 64, true, "*"),
+        new Signature("Linux (no timestamps)", "mss,nop,nop,sok,nop,ws", 64, true, "mss*20"),
+        new Signature("Linux (no timestamps)", "mss,nop,nop,sok,nop,ws", 64, true, "*"),
+        new Signature("Windows 10/11", "mss,nop,ws,sok,ts", 128, true, "65535"),
+        new Signature("Windows 10/11", "mss,nop,ws,sok,ts", 128, true, "64240"),
+        new Signature("Windows 10/11", "mss,nop,ws,nop,nop,sok", 128, true, "65535"),
+        new Signature("Windows 10/11", "mss,nop,ws,nop,nop,sok", 128, true, "64240"),
+        new Signature("Windows 7/Server 2008", "mss,nop,ws,nop,nop,sok", 128, true, "8192"),
+        new Signature("Windows", "mss,nop,ws,nop,nop,sok", 128, true, "*"),
+        new Signature("Windows", "mss,nop,ws,sok,ts", 128, true, "*"),
+        new Signature("Windows XP", "mss,nop,nop,sok", 128, true, "*"),
+        new Signature("macOS/iOS", "mss,nop,ws,nop,nop,ts,sok,eol", 64, true, "65535"),
+        new Signature("macOS/iOS", "mss,nop,ws,nop,nop,ts,sok,eol", 64, true, "*"),
+        new Signature("FreeBSD", "mss,nop,ws,sok,ts", 64, true, "65535"),
+        new Signature("FreeBSD", "mss,nop,ws,sok,ts", 64, true, "*"),
+        new Signature("OpenBSD", "mss,nop,nop,sok,nop,ws,nop,nop,ts", 64, true, "16384"),
+        new Signature("OpenBSD", "mss,nop,nop,sok,nop,ws,nop,nop,ts", 64, true, "*"),
+        new Signature("Solaris", "nop,nop,ts,mss,nop,ws,nop,nop,sok", 64, true, "*"),
+        new Signature("Solaris", "mss,nop,ws,nop,nop,sok", 64, true, "*"),
+        new Signature("Cisco IOS", "mss", 255, false, "4128"),
+        new Signature("Cisco IOS", "mss", 255, false, "*"),
+        new Signature("Embedded device (lwIP)", "mss", 64, false, "*"),
+        new Signature("Embedded device", "mss", 255, true, "*"),
+        new Signature("Printer/embedded device", "mss", 64, true, "*")
+    };
+
+    private static final Map<Long, Signature[]> EXACT_INDEX = new HashMap<>();
+    private static final Map<Long, Signature[]> LAYOUT_INDEX = new HashMap<>();
+    static {
+        Map<Long, List<Signature>> exact = new HashMap<>();
+        Map<Long, List<Signature>> layout = new HashMap<>();
+        for (Signature signature : SIGNATURES) {
+            exact.computeIfAbsent(exactKey(signature.layout, signature.initialTtl, signature.df), k -> new ArrayList<>()).add(signature);
+            layout.computeIfAbsent(layoutKey(signature.layout, signature.initialTtl), k -> new ArrayList<>()).add(signature);
+        }
+        exact.forEach((key, list) -> EXACT_INDEX.put(key, list.toArray(new Signature[0])));
+        layout.forEach((key, list) -> LAYOUT_INDEX.put(key, list.toArray(new Signature[0])));
+    }
+
+    private final Map<String, Observation> observations = new ConcurrentHashMap<>();
+
+    /**
+     * Records the TCP/IP features of a host's first SYN/ACK; later replies are ignored.
+     * Offsets point at the IPv4 and TCP headers within the captured frame.
+     */
+    public void observe(NetworkHost host, byte[] frame, int ipOffset, int tcpOffset) {
+        if (!observations.containsKey(host.getIpAddress())) {
+            Observation observation = Observation.parse(frame, ipOffset, tcpOffset);
+            if (observation != null) {
+                observations.putIfAbsent(host.getIpAddress(), observation);
+            }
+        }
+    }
+
+    /**
+     * Best OS guess for a host, or null when no SYN/ACK was seen from it
+     */
+    public String guess(NetworkHost host) {
+        Observation observation = observations.get(host.getIpAddress());
+        return observation != null ? match(observation) : null;
+    }
+
+    static String match(Observation observation) {
+        Signature signature = find(EXACT_INDEX.get(exactKey(observation.layout, observation.initialTtl, observation.df)), observation);
+        if (signature != null) {
+            return signature.os;
+        }
+        // Middleboxes often clear DF or rewrite the window; the option order survives them
+        signature = find(LAYOUT_INDEX.get(layoutKey(observation.layout, observation.initialTtl)), observation);
+        if (signature != null) {
+            return signature.os + " (approximate)";
+        }
+        switch (observation.initialTtl) {
+            case 64:
+                return "Linux/Unix (TTL 64)";
+            case 128:
+                return "Windows (TTL 128)";
+            case 255:
+                return "Network device (TTL 255)";
+            default:
+                return "Unknown (TTL " + observation.initialTtl + ")";
+        }
+    }
+
+    private static Signature find(Signature[] candidates, Observation observation) {
+        if (candidates != null) {
+            for (Signature signature : candidates) {
+                if (signature.matchesWindow(observation)) {
+                    return signature;
+                }
+            }
+        }
+        return null;
+    }
+
+    static long exactKey(long layout, int initialTtl, boolean df) {
+        return (layout << 9) | (df ? 0x100 : 0) | initialTtl;
+    }
+
+    static long layoutKey(long layout, int initialTtl) {
+        return (layout << 9) | initialTtl;
+    }
+
+    /**
+     * Packs an option order into 4 bits per option, first option in the highest bits
+     */
+    private static long encodeLayout(String layout) {
+        String[] options = layout.split(",");
+        if (options.length > MAX_LAYOUT_OPTIONS) {
+            throw new IllegalArgumentException("More than " + MAX_LAYOUT_OPTIONS + " options in layout: " + layout);
+        }
+        long code = 0;
+        for (String option : options) {
+            int kind;
+            switch (option) {
+                case "eol": kind = OPTION_EOL; break;
+                case "nop": kind = OPTION_NOP; break;
+                case "mss": kind = OPTION_MSS; break;
+                case "ws": kind = OPTION_WSCALE; break;
+                case "sok": kind = OPTION_SACK_PERMITTED; break;
+                case "ts": kind = OPTION_TIMESTAMPS; break;
+                default: throw new IllegalArgumentException("Unknown TCP option: " + option);
+            }
+            code = (code << 4) | layoutSymbol(kind);
+        }
+        return code;
+    }
+
+    /**
+     * Non-zero 4-bit symbol per option kind so that leading options are never lost
+     */
+    private static int layoutSymbol(int kind) {
+        switch (kind) {
+            case OPTION_EOL: return 1;
+            case OPTION_NOP: return 2;
+            case OPTION_MSS: return 3;
+            case OPTION_WSCALE: return 4;
+            case OPTION_SACK_PERMITTED: return 5;
+            case OPTION_TIMESTAMPS: return 6;
+            default: return 7;
+        }
+    }
+
+    /**
+     * Stack-specific fields of one SYN/ACK
+     */
+    static final class Observation {
+        final int ttl;
+        final int initialTtl;
+        final boolean df;
+        final int window;
+        final int mss;
+        final int windowScale;
+        final long layout;
+
+        private Observation(int ttl, boolean df, int window, int mss, int windowScale, long layout) {
+            this.ttl = ttl;
+            this.initialTtl = ttl <= 32 ? 32 : ttl <= 64 ? 64 : ttl <= 128 ? 128 : 255;
+            this.df = df;
+            this.window = window;
+            this.mss = mss;
+            this.windowScale = windowScale;
+            this.layout = layout;
+        }
+
+        /**
+         * Reads the fields straight from the frame, or returns null if the headers are truncated
+         */
+        static Observation parse(byte[] frame, int ip, int tcp) {
+            if (frame.length < tcp + 20) {
+                return null;
+            }
+            int ttl = frame[ip + 8] & 0xFF;
+            boolean df = (frame[ip + 6] & 0x40) != 0;
+            int window = PacketBytes.readShort(frame, tcp + 14);
+            int end = Math.min(frame.length, tcp + ((frame[tcp + 12] & 0xF0) >>> 4) * 4);
+
+            int mss = -1;
+            int windowScale = -1;
+            long layout = 0;
+            int count = 0;
+            int i = tcp + 20;
+            while (i < end) {
+                int kind = frame[i] & 0xFF;
+                // Only the leading options make up the layout; the rest are still read for MSS and window scale
+                if (count < MAX_LAYOUT_OPTIONS) {
+                    layout = (layout << 4) | layoutSymbol(kind);
+                    count++;
+                }
+                if (kind == OPTION_EOL) {
+                    break;
+                }
+                if (kind == OPTION_NOP) {
+                    i++;
+                    continue;
+                }
+                if (i + 1 >= end) {
+                    break;
+                }
+                int length = frame[i + 1] & 0xFF;
+                if (length < 2 || i + length > end) {
+                    break;
+                }
+                if (kind == OPTION_MSS && length == 4) {
+                    mss = PacketBytes.readShort(frame, i + 2);
+                } else if (kind == OPTION_WSCALE && length == 3) {
+                    windowScale = frame[i + 2] & 0xFF;
+                }
+                i += length;
+            }
+            return new Observation(ttl, df, window, mss, windowScale, layout);
+        }
+
+        @Override
+        public String toString() {
+            return "ttl=" + ttl + "/" + initialTtl + " df=" + df + " win=" + window + " mss=" + mss +
+                " ws=" + windowScale + " layout=" + Long.toHexString(layout);
+        }
+    }
+}
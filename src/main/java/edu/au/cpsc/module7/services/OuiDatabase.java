@@ -0,0 +1,323 @@
+package edu.au.cpsc.module7.services;
+
+import com.google.inject.Inject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MAC vendor lookup over the IEEE registries. MA-L (24-bit), MA-M (28-bit) and MA-S
+ * (36-bit) assignments are kept as sorted primitive key arrays with parallel vendor
+ * names, and a lookup binary-searches the most specific registry first, so it allocates
+ * nothing. The registry is loaded on first use from the file named by the
+ * ouiDatabasePath setting, else oui.csv in the settings directory, else the copy
+ * bundled with the application.
+ *
+ * Both the IEEE CSV exports (oui.csv, mam.csv, oui36.csv, which may be concatenated)
+ * and the "XX-XX-XX   (hex)   Vendor" lines of oui.txt are understood.
+ */
+public class OuiDatabase {
+    private static final Logger logger = Logger.getLogger(OuiDatabase.class.getName());
+
+    static final String PATH_SETTING = "ouiDatabasePath";
+    private static final String USER_FILE = "oui.csv";
+    private static final String BUNDLED_RESOURCE = "/edu/au/cpsc/module7/oui.csv";
+
+    private final Path file;
+    private volatile Index index;
+
+    @Inject
+    public OuiDatabase(SettingsService settingsService) {
+        this(userFile(settingsService));
+    }
+
+    /**
+     * Loads from the given file, or the bundled registry when it is null or unreadable
+     */
+    OuiDatabase(Path file) {
+        this.file = file;
+    }
+
+    private static Path userFile(SettingsService settingsService) {
+        String configured = settingsService.getSetting(PATH_SETTING);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured.trim());
+        }
+        return settingsService.getSettingsDirectory().resolve(USER_FILE);
+    }
+
+    /**
+     * Returns the vendor for a MAC in any common notation (colons, dashes, dots or bare
+     * hex), or null if it is malformed or not registered
+     */
+    public String lookup(String macAddress) {
+        if (macAddress == null) {
+            return null;
+        }
+        long mac = 0;
+        int digits = 0;
+        for (int i = 0; i < macAddress.length() && digits < 12; i++) {
+            char c = macAddress.charAt(i);
+            int value = Character.digit(c, 16);
+            if (value >= 0) {
+                mac = (mac << 4) | value;
+                digits++;
+            } else if (c != ':' && c != '-' && c != '.') {
+                return null;
+            }
+        }
+        // A bare OUI prefix still matches its MA-L assignment
+        if (digits < 6) {
+            return null;
+        }
+        return lookup(mac << (4 * (12 - digits)));
+    }
+
+    /**
+     * Returns the vendor for a 6-byte MAC, or null if it is not registered
+     */
+    public String lookup(byte[] macAddress) {
+        if (macAddress == null || macAddress.length < 6) {
+            return null;
+        }
+        long mac = 0;
+        for (int i = 0; i < 6; i++) {
+            mac = (mac << 8) | (macAddress[i] & 0xFF);
+        }
+        return lookup(mac);
+    }
+
+    /**
+     * Returns the vendor for a MAC packed into the low 48 bits, or null if it is not registered
+     */
+    public String lookup(long mac48) {
+        return index().lookup(mac48);
+    }
+
+    private Index index() {
+        Index loaded = index;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = index;
+                if (loaded == null) {
+                    loaded = load();
+                    index = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Index load() {
+        if (file != null && Files.isReadable(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                Index loaded = parse(reader);
+                logger.info("Loaded " + loaded.size() + " vendor assignments from " + file);
+                return loaded;
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.WARNING, "Could not read vendor registry " + file + ", using bundled copy", e);
+            }
+        }
+        try (InputStream in = OuiDatabase.class.getResourceAsStream(BUNDLED_RESOURCE)) {
+            if (in != null) {
+                return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+            logger.warning("Bundled vendor registry is missing");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read bundled vendor registry", e);
+        }
+        return new Index(new Builder());
+    }
+
+    /**
+     * Parses registry lines; header, address continuation and unrecognised lines are skipped
+     */
+    static Index parse(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        Builder builder = new Builder();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.startsWith("MA-")) {
+                parseCsvLine(line, builder);
+            } else if (line.contains("(hex)")) {
+                parseTextLine(line, builder);
+            }
+        }
+        return new Index(builder);
+    }
+
+    /**
+     * Registry,Assignment,"Organization Name",Organization Address
+     */
+    private static void parseCsvLine(String line, Builder builder) {
+        int registryEnd = line.indexOf(',');
+        int assignmentEnd = registryEnd < 0 ? -1 : line.indexOf(',', registryEnd + 1);
+        if (assignmentEnd < 0) {
+            return;
+        }
+        String registry = line.substring(0, registryEnd);
+        String assignment = line.substring(registryEnd + 1, assignmentEnd).trim();
+        String name = readCsvField(line, assignmentEnd + 1);
+
+        int bits;
+        switch (registry) {
+            case "MA-L": bits = 24; break;
+            case "MA-M": bits = 28; break;
+            case "MA-S": bits = 36; break;
+            default: return;
+        }
+        if (assignment.length() * 4 != bits || name.isEmpty()) {
+            return;
+        }
+        try {
+            builder.add(bits, Long.parseLong(assignment, 16), name);
+        } catch (NumberFormatException e) {
+            // Malformed assignment
+        }
+    }
+
+    private static String readCsvField(String line, int start) {
+        if (start < line.length() && line.charAt(start) == '"') {
+            StringBuilder field = new StringBuilder();
+            int i = start + 1;
+            while (i < line.length()) {
+                char c = line.charAt(i++);
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                } else {
+                    field.append(c);
+                }
+            }
+            return field.toString().trim();
+        }
+        int end = line.indexOf(',', start);
+        return line.substring(start, end < 0 ? line.length() : end).trim();
+    }
+
+    /**
+     * XX-XX-XX   (hex)		Organization Name
+     */
+    private static void parseTextLine(String line, Builder builder) {
+        String[] parts = line.split("\\(hex\\)", 2);
+        String prefix = parts[0].trim().replace("-", "");
+        String name = parts[1].trim();
+        if (prefix.length() != 6 || name.isEmpty()) {
+            return;
+        }
+        try {
+            builder.add(24, Long.parseLong(prefix, 16), name);
+        } catch (NumberFormatException e) {
+            // Malformed prefix
+        }
+    }
+
+    /**
+     * Collects assignments per registry, sharing one String per distinct vendor name
+     */
+    private static final class Builder {
+        private final Map<String, String> names = new HashMap<>();
+        private long[][] keys = { new long[1024], new long[256], new long[256] };
+        private String[][] vendors = { new String[1024], new String[256], new String[256] };
+        private final int[] counts = new int[3];
+
+        void add(int bits, long key, String name) {
+            int registry = bits == 24 ? 0 : bits == 28 ? 1 : 2;
+            int count = counts[registry];
+            if (count == keys[registry].length) {
+                keys[registry] = Arrays.copyOf(keys[registry], count * 2);
+                vendors[registry] = Arrays.copyOf(vendors[registry], count * 2);
+            }
+            keys[registry][count] = key;
+            vendors[registry][count] = names.computeIfAbsent(name, n -> n);
+            counts[registry] = count + 1;
+        }
+    }
+
+    /**
+     * Immutable sorted registries; the first assignment of a duplicated key wins
+     */
+    static final class Index {
+        private final int[] large;   // MA-L, 24-bit
+        private final String[] largeVendors;
+        private final int[] medium;  // MA-M, 28-bit
+        private final String[] mediumVendors;
+        private final long[] small;  // MA-S, 36-bit
+        private final String[] smallVendors;
+
+        private Index(Builder builder) {
+            largeVendors = sortedVendors(builder, 0);
+            large = toInts(builder.keys[0], largeVendors.length);
+            mediumVendors = sortedVendors(builder, 1);
+            medium = toInts(builder.keys[1], mediumVendors.length);
+            smallVendors = sortedVendors(builder, 2);
+            small = Arrays.copyOf(builder.keys[2], smallVendors.length);
+        }
+
+        /**
+         * Sorts a registry in place by packing each key with its insertion index into one
+         * long, so the sort is primitive and stable, then drops repeated keys. Returns the
+         * vendors in key order; the registry's first that many keys are the sorted keys.
+         */
+        private static String[] sortedVendors(Builder builder, int registry) {
+            int count = builder.counts[registry];
+            long[] keys = builder.keys[registry];
+            String[] inserted = builder.vendors[registry];
+            for (int i = 0; i < count; i++) {
+                keys[i] = keys[i] << 24 | i;
+            }
+            Arrays.sort(keys, 0, count);
+
+            String[] vendors = new String[count];
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                long key = keys[i] >>> 24;
+                if (unique == 0 || keys[unique - 1] != key) {
+                    vendors[unique] = inserted[(int) (keys[i] & 0xFFFFFF)];
+                    keys[unique++] = key;
+                }
+            }
+            return Arrays.copyOf(vendors, unique);
+        }
+
+        private static int[] toInts(long[] keys, int count) {
+            int[] ints = new int[count];
+            for (int i = 0; i < count; i++) {
+                ints[i] = (int) keys[i];
+            }
+            return ints;
+        }
+
+        int size() {
+            return large.length + medium.length + small.length;
+        }
+
+        String lookup(long mac48) {
+            int i = Arrays.binarySearch(small, mac48 >>> 12);
+            if (i >= 0) {
+                return smallVendors[i];
+            }
+            i = Arrays.binarySearch(medium, (int) (mac48 >>> 20));
+            if (i >= 0) {
+                return mediumVendors[i];
+            }
+            i = Arrays.binarySearch(large, (int) (mac48 >>> 24));
+            return i >= 0 ? largeVendors[i] : null;
+        }
+    }
+}
@@ -1,24 +1,47 @@
 package edu.au.cpsc.module7.services;
 
+import com.google.inject.Inject;
 import edu.au.cpsc.module7.models.CapturedPacket;
+import edu.au.cpsc.module7.models.PacketArena;
 import org.pcap4j.core.*;
 import org.pcap4j.packet.*;
-import org.pcap4j.packet.namednumber.EtherType;
-import org.pcap4j.packet.namednumber.IpNumber;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.packet.namednumber.ArpOperation;
 import org.pcap4j.util.NifSelector;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 /**
- * Service for capturing and analyzing network packets using pcap4j
+ * Service for capturing and analyzing network packets using pcap4j. The capture thread
+ * only copies raw frames into a {@link CaptureRing}; a pool of decoder threads drains
+ * it, so slow decoding shows up as ring drops rather than kernel drops. Decoders read
+ * headers in place with a {@link FrameHeaders} flyweight; full pcap4j dissection only
+ * happens on request through {@link #dissectPacket(CapturedPacket)}. Decoded packets
+ * pass through a {@link ReorderBuffer}, so they reach the store and the packet listener
+ * in capture order even though decoders finish them out of order. Recording to disk has
+ * a ring of its own with a single writer thread, so file writes, flushes and rotation
+ * never stall the capture thread, and frames reach the file in capture order.
+ *
+ * Ring size, decoder count and recording are taken from the application settings each
+ * time a capture starts.
  */
 public class PacketCaptureService {
     
@@ -27,20 +50,62 @@ public class PacketCaptureService {
     private static final int SNAPSHOT_LENGTH = 65536; // 64KB
     private static final int READ_TIMEOUT = 10; // 10ms
     private static final int BUFFER_SIZE = 1024 * 1024; // 1MB
+    private static final int DEFAULT_RING_CAPACITY = 8192;
+    private static final int DEFAULT_DECODER_THREADS = 2;
+    private static final long DECODER_IDLE_NANOS = 100_000; // 100us
+    private static final long RECORDER_IDLE_NANOS = 1_000_000; // 1ms
+    private static final String RECORDING_PREFIX = "capture";
+    private static final long DEFAULT_MAX_STORED_PACKETS = 1_000_000;
+    private static final long DEFAULT_MAX_STORED_BYTES = 512L * 1024 * 1024; // 512MB
     
     private final AtomicBoolean capturing = new AtomicBoolean(false);
-    private final AtomicLong packetIdCounter = new AtomicLong(0);
-    private final List<CapturedPacket> capturedPackets = new CopyOnWriteArrayList<>();
+    private final PacketArena frameArena = new PacketArena();
+    private final PacketStore capturedPackets = new PacketStore(DEFAULT_MAX_STORED_PACKETS, DEFAULT_MAX_STORED_BYTES, frameArena);
     private final Map<String, AtomicLong> protocolCounters = new ConcurrentHashMap<>();
     
-    private PcapHandle pcapHandle;
+    private volatile PcapHandle pcapHandle;
     private ExecutorService captureExecutor;
-    private Consumer<CapturedPacket> packetListener;
+    private ExecutorService decoderExecutor;
+    private ExecutorService recorderExecutor;
+    private volatile CaptureRing ring;
+    private volatile CaptureRing recordingRing;
+    private volatile int ringCapacity = DEFAULT_RING_CAPACITY;
+    private volatile int decoderThreads = DEFAULT_DECODER_THREADS;
+    private volatile DataLinkType dataLinkType;
+    private volatile int linkType = FrameHeaders.LINKTYPE_ETHERNET;
+    private volatile RecordingOptions recordingOptions;
+    private volatile RollingPcapWriter recorder;
+    private volatile Consumer<CapturedPacket> packetListener;
     private String captureFilter = "";
     private LocalDateTime captureStartTime;
     private ProtocolDissectorService protocolDissector;
+    private final SettingsService settingsService;
     
-    public PacketCaptureService() {
+    /**
+     * Where and how continuous recording writes its ring of capture files
+     */
+    private static final class RecordingOptions {
+        final Path directory;
+        final String prefix;
+        final PcapWriter.Format format;
+        final long maxFileBytes;
+        final long maxFileNanos;
+        final int maxFiles;
+        
+        RecordingOptions(Path directory, String prefix, PcapWriter.Format format,
+                         long maxFileBytes, long maxFileNanos, int maxFiles) {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.format = format;
+            this.maxFileBytes = maxFileBytes;
+            this.maxFileNanos = maxFileNanos;
+            this.maxFiles = maxFiles;
+        }
+    }
+    
+    @Inject
+    public PacketCaptureService(SettingsService settingsService) {
+        this.settingsService = settingsService;
         initializeProtocolCounters();
         this.protocolDissector = new ProtocolDissectorService();
     }
@@ -89,6 +154,8 @@ public class PacketCaptureService {
         }
         
         try {
+            applySettings();
+            
             // Extract interface name from display string
             String actualInterfaceName = interfaceName.split(" \\(")[0];
             
@@ -125,8 +192,14 @@ public class PacketCaptureService {
             // Clear previous capture data
             capturedPackets.clear();
             protocolCounters.values().forEach(counter -> counter.set(0));
-            packetIdCounter.set(0);
             captureStartTime = LocalDateTime.now();
+            dataLinkType = pcapHandle.getDlt();
+            linkType = dataLinkType.value();
+            recorder = openRecorder(actualInterfaceName);
+            CaptureRing captureRing = new CaptureRing(ringCapacity);
+            ring = captureRing;
+            CaptureRing recordRing = recorder != null ? new CaptureRing(ringCapacity) : null;
+            recordingRing = recordRing;
             
             // Start capture thread
             captureExecutor = Executors.newSingleThreadExecutor(r -> {
@@ -135,17 +208,50 @@ public class PacketCaptureService {
                 return t;
             });
             
+            int decoders = Math.max(1, decoderThreads);
+            decoderExecutor = Executors.newFixedThreadPool(decoders, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "PacketDecoder-" + actualInterfaceName + "-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            
             capturing.set(true);
             
+            ReorderBuffer<CapturedPacket> ordered = new ReorderBuffer<>(captureRing.capacity(), 0, this::publish);
+            for (int i = 0; i < decoders; i++) {
+                decoderExecutor.submit(() -> drainRing(captureRing, ordered));
+            }
+            
+            if (recordRing != null) {
+                recorderExecutor = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "PacketRecorder-" + actualInterfaceName);
+                    t.setDaemon(true);
+                    return t;
+                });
+                recorderExecutor.submit(() -> drainRecording(recordRing));
+            }
+            
+            PcapHandle handle = pcapHandle;
             captureExecutor.submit(() -> {
                 logger.info("Starting packet capture on interface: " + actualInterfaceName);
                 
                 try {
                     while (capturing.get()) {
                         try {
-                            Packet packet = pcapHandle.getNextPacket();
-                            if (packet != null) {
-                                processPacket(packet);
+                            byte[] frame = handle.getNextRawPacket();
+                            if (frame != null) {
+                                int originalLength = originalLength(handle, frame.length);
+                                long timestampNanos = timestampNanos(handle.getTimestamp());
+                                captureRing.offer(frame, frame.length, originalLength, timestampNanos);
+                                // A separate ring, so a decoder backlog does not cost the recording frames
+                                if (recordRing != null) {
+                                    recordRing.offer(frame, frame.length, originalLength, timestampNanos);
+                                }
                             }
                         } catch (Exception e) {
                             if (capturing.get()) {
@@ -192,147 +298,280 @@ public class PacketCaptureService {
                 captureExecutor = null;
             }
             
+            // Decoders and the recorder finish what is already in their rings, then exit
+            if (decoderExecutor != null) {
+                decoderExecutor.shutdown();
+                if (!decoderExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    decoderExecutor.shutdownNow();
+                }
+                decoderExecutor = null;
+            }
+            if (recorderExecutor != null) {
+                recorderExecutor.shutdown();
+                if (!recorderExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    recorderExecutor.shutdownNow();
+                }
+                recorderExecutor = null;
+            }
+            
+            closeRecorder();
+            
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Error stopping packet capture: " + e.getMessage());
         }
         
-        logger.info("Packet capture stopped. Total packets captured: " + capturedPackets.size());
+        logger.info("Packet capture stopped. Total packets captured: " + getTotalPacketCount());
+    }
+    
+    /**
+     * Decoder loop: takes frames from the ring until capture has stopped and the ring is empty
+     */
+    private void drainRing(CaptureRing captureRing, ReorderBuffer<CapturedPacket> ordered) {
+        // One flyweight per decoder thread, reused for every frame it takes
+        FrameHeaders headers = new FrameHeaders();
+        CaptureRing.FrameHandler handler = (sequence, data, length, originalLength, timestampNanos) ->
+            ordered.complete(sequence, decodeFrame(headers, sequence, data, length, timestampNanos));
+        while (capturing.get() || !captureRing.isEmpty()) {
+            if (!captureRing.poll(handler)) {
+                LockSupport.parkNanos(DECODER_IDLE_NANOS);
+            }
+        }
+    }
+    
+    /**
+     * Recorder loop: the only consumer of its ring, so frames are written in capture order.
+     * Runs until capture has stopped and the ring is empty.
+     */
+    private void drainRecording(CaptureRing recordRing) {
+        CaptureRing.FrameHandler handler = (sequence, data, length, originalLength, timestampNanos) -> {
+            RollingPcapWriter writer = recorder;
+            if (writer != null) {
+                record(writer, timestampNanos, data, length, originalLength);
+            }
+        };
+        while (capturing.get() || !recordRing.isEmpty()) {
+            if (!recordRing.poll(handler)) {
+                // Quiet link: don't leave records sitting in the buffer
+                RollingPcapWriter writer = recorder;
+                if (writer != null) {
+                    flushRecording(writer);
+                }
+                LockSupport.parkNanos(RECORDER_IDLE_NANOS);
+            }
+        }
+    }
+    
+    /**
+     * Decodes one frame into an index record, or returns null if it could not be decoded
+     */
+    private CapturedPacket decodeFrame(FrameHeaders headers, long sequence, byte[] data, int length,
+                                       long timestampNanos) {
+        try {
+            headers.wrap(data, length, linkType);
+            // Straight from the ring slot into off-heap storage
+            long arenaHandle = frameArena.append(data, 0, length);
+            return processPacket(headers, data, sequence + 1, timestampNanos, length, arenaHandle);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error decoding packet", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Stores a decoded packet and notifies the listener; called in capture order, one packet at a time
+     */
+    private void publish(CapturedPacket capturedPacket) {
+        capturedPackets.add(capturedPacket);
+        Consumer<CapturedPacket> listener = packetListener;
+        if (listener != null) {
+            try {
+                listener.accept(capturedPacket);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Packet listener failed", e);
+            }
+        }
+    }
+    
+    private void record(RollingPcapWriter writer, long timestampNanos, byte[] data, int length, int originalLength) {
+        try {
+            writer.write(timestampNanos, data, 0, length, originalLength);
+        } catch (IOException e) {
+            abandonRecording(writer, e);
+        }
+    }
+    
+    private void flushRecording(RollingPcapWriter writer) {
+        try {
+            writer.flushIfDue(System.nanoTime());
+        } catch (IOException e) {
+            abandonRecording(writer, e);
+        }
+    }
+    
+    /**
+     * A full or missing disk would fail every frame, so give up on recording rather than on capture
+     */
+    private void abandonRecording(RollingPcapWriter writer, IOException cause) {
+        logger.log(Level.SEVERE, "Error writing capture file, recording stopped", cause);
+        if (recorder == writer) {
+            recorder = null;
+        }
+        try {
+            writer.close();
+        } catch (IOException closeError) {
+            logger.log(Level.FINE, "Error closing capture file", closeError);
+        }
+    }
+    
+    /**
+     * Reads the capture settings; they apply to the capture being started
+     */
+    private void applySettings() {
+        setRingCapacity(settingsService.getCaptureRingCapacity());
+        setDecoderThreads(settingsService.getCaptureDecoderThreads());
+        if (settingsService.isCaptureRecordingEnabled()) {
+            setRecording(settingsService.getCaptureRecordingDirectory(), RECORDING_PREFIX,
+                         settingsService.getCaptureRecordingFormat(),
+                         settingsService.getCaptureRecordingMaxFileMegabytes() * 1024L * 1024L, null,
+                         settingsService.getCaptureRecordingMaxFiles());
+        } else {
+            disableRecording();
+        }
+    }
+    
+    private RollingPcapWriter openRecorder(String interfaceName) throws IOException {
+        RecordingOptions options = recordingOptions;
+        if (options == null) {
+            return null;
+        }
+        Files.createDirectories(options.directory);
+        logger.info("Recording capture to " + options.directory + " as " + options.format.getExtension());
+        return new RollingPcapWriter(options.directory, options.prefix, options.format, linkType, SNAPSHOT_LENGTH,
+                                     interfaceName, options.maxFileBytes, options.maxFileNanos, options.maxFiles);
+    }
+    
+    private void closeRecorder() {
+        RollingPcapWriter writer = recorder;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+            logger.info("Recorded " + writer.packetsWritten() + " packets to " + writer.getFiles().size() + " capture files");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error closing capture file", e);
+        }
+    }
+    
+    private static int originalLength(PcapHandle handle, int capturedLength) {
+        Integer original = handle.getOriginalLength();
+        return original != null ? original : capturedLength;
+    }
+    
+    private static long timestampNanos(Timestamp timestamp) {
+        if (timestamp == null) {
+            return System.currentTimeMillis() * 1_000_000L;
+        }
+        return Math.floorDiv(timestamp.getTime(), 1000L) * 1_000_000_000L + timestamp.getNanos();
     }
     
     /**
      * Process captured packet and extract information
      */
-    private void processPacket(Packet packet) {
+    private CapturedPacket processPacket(FrameHeaders headers, byte[] data, long packetId, long timestampNanos,
+                                         int length, long arenaHandle) {
         try {
-            long packetId = packetIdCounter.incrementAndGet();
-            LocalDateTime timestamp = LocalDateTime.now();
+            String protocol = classify(headers);
             
             // Extract basic packet information
-            String sourceAddress = "";
-            String destinationAddress = "";
+            long sourceAddress = CapturedPacket.NO_ADDRESS;
+            long destinationAddress = CapturedPacket.NO_ADDRESS;
+            if (headers.hasIpV4Addresses()) {
+                sourceAddress = headers.sourceIpV4() & 0xFFFFFFFFL;
+                destinationAddress = headers.destinationIpV4() & 0xFFFFFFFFL;
+            }
             int sourcePort = 0;
             int destinationPort = 0;
-            String protocol = "UNKNOWN";
-            String info = "";
-            
-            // Process Ethernet frame
-            if (packet.contains(EthernetPacket.class)) {
-                EthernetPacket ethernetPacket = packet.get(EthernetPacket.class);
-                
-                // Process IP packet
-                if (ethernetPacket.getHeader().getType() == EtherType.IPV4) {
-                    IpV4Packet ipv4Packet = ethernetPacket.get(IpV4Packet.class);
-                    if (ipv4Packet != null) {
-                        sourceAddress = ipv4Packet.getHeader().getSrcAddr().getHostAddress();
-                        destinationAddress = ipv4Packet.getHeader().getDstAddr().getHostAddress();
-                        
-                        // Process transport layer
-                        if (ipv4Packet.getHeader().getProtocol() == IpNumber.TCP) {
-                            TcpPacket tcpPacket = ipv4Packet.get(TcpPacket.class);
-                            if (tcpPacket != null) {
-                                sourcePort = tcpPacket.getHeader().getSrcPort().valueAsInt();
-                                destinationPort = tcpPacket.getHeader().getDstPort().valueAsInt();
-                                protocol = "TCP";
-                                info = String.format("TCP %d -> %d", sourcePort, destinationPort);
-                                
-                                // Check for HTTP/HTTPS
-                                if (sourcePort == 80 || destinationPort == 80) {
-                                    protocol = "HTTP";
-                                    protocolCounters.get("HTTP").incrementAndGet();
-                                } else if (sourcePort == 443 || destinationPort == 443) {
-                                    protocol = "HTTPS";
-                                    protocolCounters.get("HTTPS").incrementAndGet();
-                                } else {
-                                    protocolCounters.get("TCP").incrementAndGet();
-                                }
-                            }
-                        } else if (ipv4Packet.getHeader().getProtocol() == IpNumber.UDP) {
-                            UdpPacket udpPacket = ipv4Packet.get(UdpPacket.class);
-                            if (udpPacket != null) {
-                                sourcePort = udpPacket.getHeader().getSrcPort().valueAsInt();
-                                destinationPort = udpPacket.getHeader().getDstPort().valueAsInt();
-                                protocol = "UDP";
-                                info = String.format("UDP %d -> %d", sourcePort, destinationPort);
-                                
-                                // Check for DNS
-                                if (sourcePort == 53 || destinationPort == 53) {
-                                    protocol = "DNS";
-                                    protocolCounters.get("DNS").incrementAndGet();
-                                } else if ((sourcePort == 67 || destinationPort == 67) || 
-                                          (sourcePort == 68 || destinationPort == 68)) {
-                                    protocol = "DHCP";
-                                    protocolCounters.get("DHCP").incrementAndGet();
-                                } else {
-                                    protocolCounters.get("UDP").incrementAndGet();
-                                }
-                            }
-                        } else if (ipv4Packet.getHeader().getProtocol() == IpNumber.ICMPV4) {
-                            protocol = "ICMP";
-                            info = "ICMP";
-                            protocolCounters.get("ICMP").incrementAndGet();
-                        }
-                    }
-                } else if (ethernetPacket.getHeader().getType() == EtherType.ARP) {
-                    ArpPacket arpPacket = ethernetPacket.get(ArpPacket.class);
-                    if (arpPacket != null) {
-                        sourceAddress = arpPacket.getHeader().getSrcProtocolAddr().getHostAddress();
-                        destinationAddress = arpPacket.getHeader().getDstProtocolAddr().getHostAddress();
-                        protocol = "ARP";
-                        info = String.format("ARP %s -> %s", sourceAddress, destinationAddress);
-                        protocolCounters.get("ARP").incrementAndGet();
-                    }
-                }
+            if (headers.hasTransport() && headers.sourcePort() != FrameHeaders.NONE) {
+                sourcePort = headers.sourcePort();
+                destinationPort = headers.destinationPort();
             }
             
-            // If we couldn't determine the protocol, count as OTHER
-            if ("UNKNOWN".equals(protocol)) {
-                protocolCounters.get("OTHER").incrementAndGet();
-            }
-            
-            // Create captured packet
+            // Index record; the frame itself stays in the arena, IPv6 addresses included
+            int ipV6Offset = headers.ipVersion() == 6 ? headers.networkOffset() : -1;
             CapturedPacket capturedPacket = new CapturedPacket(
-                packetId, timestamp, sourceAddress, destinationAddress,
-                sourcePort, destinationPort, protocol, packet.length(),
-                packet.getRawData(), info
+                packetId, timestampNanos, sourceAddress, destinationAddress,
+                sourcePort, destinationPort, protocol, length,
+                frameArena, arenaHandle, ipV6Offset
             );
             
             // Add additional protocol-specific analysis
-            analyzeProtocolSpecifics(capturedPacket, packet);
-            
-            // Perform deep protocol analysis
-            protocolDissector.performDeepAnalysis(capturedPacket, packet);
-            
-            // Store packet
-            capturedPackets.add(capturedPacket);
-            
-            // Notify listener
-            if (packetListener != null) {
-                packetListener.accept(capturedPacket);
-            }
+            analyzeProtocolSpecifics(capturedPacket, headers, data);
+            return capturedPacket;
             
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Error processing packet", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Names the protocol of a decoded frame and counts it; allocates nothing
+     */
+    private String classify(FrameHeaders headers) {
+        String protocol;
+        if (headers.isArp()) {
+            protocol = "ARP";
+        } else if (headers.ipProtocol() == FrameHeaders.PROTOCOL_TCP && headers.hasTransport()) {
+            int sourcePort = headers.sourcePort();
+            int destinationPort = headers.destinationPort();
+            if (sourcePort == 80 || destinationPort == 80) {
+                protocol = "HTTP";
+            } else if (sourcePort == 443 || destinationPort == 443) {
+                protocol = "HTTPS";
+            } else {
+                protocol = "TCP";
+            }
+        } else if (headers.ipProtocol() == FrameHeaders.PROTOCOL_UDP && headers.hasTransport()) {
+            int sourcePort = headers.sourcePort();
+            int destinationPort = headers.destinationPort();
+            if (sourcePort == 53 || destinationPort == 53) {
+                protocol = "DNS";
+            } else if (sourcePort == 67 || destinationPort == 67 || sourcePort == 68 || destinationPort == 68) {
+                protocol = "DHCP";
+            } else {
+                protocol = "UDP";
+            }
+        } else if (headers.ipProtocol() == FrameHeaders.PROTOCOL_ICMP
+                   || headers.ipProtocol() == FrameHeaders.PROTOCOL_ICMPV6) {
+            protocol = "ICMP";
+        } else {
+            // If we couldn't determine the protocol, count as OTHER
+            protocolCounters.get("OTHER").incrementAndGet();
+            return "UNKNOWN";
         }
+        protocolCounters.get(protocol).incrementAndGet();
+        return protocol;
     }
     
     /**
      * Analyze protocol-specific details
      */
-    private void analyzeProtocolSpecifics(CapturedPacket capturedPacket, Packet packet) {
+    private void analyzeProtocolSpecifics(CapturedPacket capturedPacket, FrameHeaders headers, byte[] data) {
         try {
             // HTTP analysis
             if (capturedPacket.isHTTP()) {
-                analyzeHTTP(capturedPacket, packet);
+                analyzeHTTP(capturedPacket, headers, data);
             }
             
             // DNS analysis
             if (capturedPacket.isDNS()) {
-                analyzeDNS(capturedPacket, packet);
+                analyzeDNS(capturedPacket);
             }
             
             // ARP analysis
             if (capturedPacket.isARP()) {
-                analyzeARP(capturedPacket, packet);
+                analyzeARP(capturedPacket, headers);
             }
             
         } catch (Exception e) {
@@ -340,10 +579,13 @@ public class PacketCaptureService {
         }
     }
     
-    private void analyzeHTTP(CapturedPacket capturedPacket, Packet packet) {
+    private void analyzeHTTP(CapturedPacket capturedPacket, FrameHeaders headers, byte[] data) {
         try {
+            if (headers.payloadLength() == 0) {
+                return;
+            }
             // Extract HTTP information from payload
-            String payload = new String(packet.getRawData());
+            String payload = new String(data, headers.payloadOffset(), headers.payloadLength(), StandardCharsets.ISO_8859_1);
             
             // Simple HTTP method detection
             if (payload.contains("GET ")) {
@@ -370,7 +612,7 @@ public class PacketCaptureService {
         }
     }
     
-    private void analyzeDNS(CapturedPacket capturedPacket, Packet packet) {
+    private void analyzeDNS(CapturedPacket capturedPacket) {
         try {
             // Basic DNS analysis - would need more sophisticated parsing for full DNS analysis
             capturedPacket.addProtocolDetail("dns_analyzed", true);
@@ -379,26 +621,44 @@ public class PacketCaptureService {
         }
     }
     
-    private void analyzeARP(CapturedPacket capturedPacket, Packet packet) {
+    private void analyzeARP(CapturedPacket capturedPacket, FrameHeaders headers) {
         try {
-            if (packet.contains(ArpPacket.class)) {
-                ArpPacket arpPacket = packet.get(ArpPacket.class);
-                if (arpPacket != null) {
-                    capturedPacket.setArpOperation(arpPacket.getHeader().getOperation().toString());
-                }
-            }
+            capturedPacket.setArpOperation(ArpOperation.getInstance((short) headers.arpOperation()).toString());
         } catch (Exception e) {
             logger.log(Level.FINE, "Error analyzing ARP packet", e);
         }
     }
     
+    /**
+     * Runs the full protocol dissector over a stored packet. Capture itself only reads
+     * the headers it needs to classify a frame, so the per-layer protocol details are
+     * filled in here, when something wants to show them.
+     */
+    public void dissectPacket(CapturedPacket capturedPacket) {
+        byte[] frame = capturedPacket.getRawData();
+        DataLinkType linkLayer = dataLinkType;
+        if (frame.length == 0 || linkLayer == null) {
+            return;
+        }
+        try {
+            Packet packet = PacketFactories.getFactory(Packet.class, DataLinkType.class)
+                .newInstance(frame, 0, frame.length, linkLayer);
+            protocolDissector.performDeepAnalysis(capturedPacket, packet);
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Error dissecting packet " + capturedPacket.getId(), e);
+        }
+    }
+    
     // Getters and utility methods
     public boolean isCapturing() {
         return capturing.get();
     }
     
+    /**
+     * Snapshot of the stored packets, oldest first; later packets do not appear in it
+     */
     public List<CapturedPacket> getCapturedPackets() {
-        return new ArrayList<>(capturedPackets);
+        return capturedPackets.snapshot();
     }
     
     public Map<String, Long> getProtocolStatistics() {
@@ -407,10 +667,36 @@ public class PacketCaptureService {
         return stats;
     }
     
+    /**
+     * Packets captured since the last clear, including any evicted from the store
+     */
     public long getTotalPacketCount() {
+        return capturedPackets.size() + capturedPackets.evicted();
+    }
+    
+    public long getStoredPacketCount() {
         return capturedPackets.size();
     }
     
+    public long getStoredPacketBytes() {
+        return capturedPackets.bytes();
+    }
+    
+    /**
+     * Oldest packets dropped from the store to keep it within its limits
+     */
+    public long getEvictedPacketCount() {
+        return capturedPackets.evicted();
+    }
+    
+    /**
+     * Bounds how many packets and how many packet bytes are kept; once either is
+     * exceeded the oldest packets are evicted in blocks of 4096
+     */
+    public void setStorageLimits(long maxPackets, long maxBytes) {
+        capturedPackets.setLimits(maxPackets, maxBytes);
+    }
+    
     public LocalDateTime getCaptureStartTime() {
         return captureStartTime;
     }
@@ -419,6 +705,11 @@ public class PacketCaptureService {
         return captureFilter;
     }
     
+    /**
+     * Sets the listener told of each stored packet. It is called on a decoder thread,
+     * in capture order and never concurrently, while later packets wait, so it should
+     * hand the packet off rather than do slow work itself.
+     */
     public void setPacketListener(Consumer<CapturedPacket> listener) {
         this.packetListener = listener;
     }
@@ -426,7 +717,67 @@ public class PacketCaptureService {
     public void clearPackets() {
         capturedPackets.clear();
         protocolCounters.values().forEach(counter -> counter.set(0));
-        packetIdCounter.set(0);
+    }
+    
+    /**
+     * Sets the number of frame slots between the capture thread and the decoders, and
+     * between the capture thread and the recorder
+     */
+    private void setRingCapacity(int ringCapacity) {
+        this.ringCapacity = ringCapacity;
+    }
+    
+    /**
+     * Sets how many threads decode captured frames
+     */
+    private void setDecoderThreads(int decoderThreads) {
+        this.decoderThreads = decoderThreads;
+    }
+    
+    public int getRingCapacity() {
+        CaptureRing captureRing = ring;
+        return captureRing != null ? captureRing.capacity() : ringCapacity;
+    }
+    
+    /**
+     * Frames captured but not yet picked up by a decoder
+     */
+    public int getRingOccupancy() {
+        CaptureRing captureRing = ring;
+        return captureRing != null ? captureRing.occupancy() : 0;
+    }
+    
+    /**
+     * Frames dropped because every ring slot was still waiting for a decoder
+     */
+    public long getRingDroppedPackets() {
+        CaptureRing captureRing = ring;
+        return captureRing != null ? captureRing.dropped() : 0;
+    }
+    
+    /**
+     * Frames left out of the recording because the writer fell a full ring behind
+     */
+    public long getRecordingDroppedPackets() {
+        CaptureRing recordRing = recordingRing;
+        return recordRing != null ? recordRing.dropped() : 0;
+    }
+    
+    /**
+     * Frames dropped by the kernel or interface before reaching the capture thread,
+     * or -1 when no capture is open or the platform does not report it
+     */
+    public long getKernelDroppedPackets() {
+        PcapHandle handle = pcapHandle;
+        if (handle == null || !handle.isOpen()) {
+            return -1;
+        }
+        try {
+            PcapStat stats = handle.getStats();
+            return stats.getNumPacketsDropped() + stats.getNumPacketsDroppedByIf();
+        } catch (Exception e) {
+            return -1;
+        }
     }
     
     /**
@@ -438,11 +789,47 @@ public class PacketCaptureService {
     }
     
     /**
-     * Export packets to PCAP format
+     * Export the stored packets to a capture file; the file is written as pcapng if its
+     * name ends in .pcapng and as classic pcap otherwise
+     */
+    public void exportToPcap(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        PcapWriter.Format format = PcapWriter.Format.forFile(path);
+        int written = PcapWriter.export(path, format, linkType, capturedPackets.snapshot());
+        logger.info("Exported " + written + " packets to " + format.getExtension() + " file: " + filename);
+    }
+    
+    /**
+     * Records every captured frame of the capture being started to disk, as a ring of
+     * files in the given directory. A new file is started once the current one reaches
+     * maxFileBytes or covers maxFileAge of capture, and the oldest file is deleted once
+     * more than maxFiles exist. Zero, or a null age, means no limit.
+     */
+    private void setRecording(Path directory, String prefix, PcapWriter.Format format,
+                              long maxFileBytes, Duration maxFileAge, int maxFiles) {
+        long maxFileNanos = maxFileAge != null ? maxFileAge.toNanos() : 0;
+        recordingOptions = new RecordingOptions(directory, prefix, format, maxFileBytes, maxFileNanos, maxFiles);
+    }
+    
+    /**
+     * Leaves the capture being started off disk
+     */
+    private void disableRecording() {
+        recordingOptions = null;
+    }
+    
+    /**
+     * Whether the running capture is being written to disk
+     */
+    public boolean isRecording() {
+        return capturing.get() && recorder != null;
+    }
+    
+    /**
+     * Capture files of the current or last recording still on disk, oldest first
      */
-    public void exportToPcap(String filename) throws Exception {
-        // Implementation would write packets to PCAP file format
-        // This is a placeholder for the actual implementation
-        logger.info("Exporting " + capturedPackets.size() + " packets to PCAP file: " + filename);
+    public List<Path> getRecordingFiles() {
+        RollingPcapWriter writer = recorder;
+        return writer != null ? writer.getFiles() : Collections.emptyList();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,162 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.CapturedPacket;
+import edu.au.cpsc.module7.models.PacketArena;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded store for captured packets. Packets are appended into fixed-size segments;
+ * once the packet or byte limit is exceeded the oldest whole segment is evicted, so
+ * appends never copy earlier packets and memory stays bounded on long captures.
+ *
+ * Slots of a segment are written once and never changed, so a snapshot only records
+ * the current segments and the fill of the last one; iterating it takes no lock and
+ * is unaffected by later appends or evictions.
+ *
+ * When packets keep their frames in a {@link PacketArena}, eviction also releases the
+ * arena chunks that only evicted packets were using.
+ */
+final class PacketStore {
+    static final int SEGMENT_SIZE = 4096;
+
+    private static final class Segment {
+        final CapturedPacket[] packets = new CapturedPacket[SEGMENT_SIZE];
+        int count;
+        long bytes;
+    }
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final PacketArena arena;
+    private volatile long maxPackets;
+    private volatile long maxBytes;
+    private long packetCount;
+    private long byteCount;
+    private long evictedCount;
+
+    PacketStore(long maxPackets, long maxBytes) {
+        this(maxPackets, maxBytes, null);
+    }
+
+    /**
+     * @param arena arena holding the frames of stored packets, or null if they are on the heap
+     */
+    PacketStore(long maxPackets, long maxBytes, PacketArena arena) {
+        this.maxPackets = maxPackets;
+        this.maxBytes = maxBytes;
+        this.arena = arena;
+    }
+
+    synchronized void add(CapturedPacket packet) {
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.count == SEGMENT_SIZE) {
+            tail = new Segment();
+            segments.addLast(tail);
+        }
+        tail.packets[tail.count++] = packet;
+        tail.bytes += packet.getLength();
+        packetCount++;
+        byteCount += packet.getLength();
+        evictOverLimit();
+    }
+
+    /**
+     * Drops oldest segments until within limits, always keeping the segment being filled
+     */
+    private void evictOverLimit() {
+        boolean evicted = false;
+        while (segments.size() > 1 && (packetCount > maxPackets || byteCount > maxBytes)) {
+            Segment oldest = segments.removeFirst();
+            packetCount -= oldest.count;
+            byteCount -= oldest.bytes;
+            evictedCount += oldest.count;
+            evicted = true;
+        }
+        if (evicted && arena != null) {
+            // Decoders fill the arena slightly out of capture order, so keep everything from the lowest handle still stored
+            Segment oldest = segments.peekFirst();
+            long lowest = Long.MAX_VALUE;
+            for (int i = 0; i < oldest.count; i++) {
+                lowest = Math.min(lowest, oldest.packets[i].getArenaHandle());
+            }
+            arena.releaseBefore(lowest);
+        }
+    }
+
+    synchronized void setLimits(long maxPackets, long maxBytes) {
+        this.maxPackets = maxPackets;
+        this.maxBytes = maxBytes;
+        evictOverLimit();
+    }
+
+    long getMaxPackets() {
+        return maxPackets;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    synchronized long size() {
+        return packetCount;
+    }
+
+    synchronized long bytes() {
+        return byteCount;
+    }
+
+    /**
+     * Packets dropped from the front of the store to stay within its limits
+     */
+    synchronized long evicted() {
+        return evictedCount;
+    }
+
+    synchronized void clear() {
+        segments.clear();
+        if (arena != null) {
+            arena.clear();
+        }
+        packetCount = 0;
+        byteCount = 0;
+        evictedCount = 0;
+    }
+
+    /**
+     * Read-only view of the packets stored right now, oldest first
+     */
+    synchronized List<CapturedPacket> snapshot() {
+        List<CapturedPacket[]> arrays = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            arrays.add(segment.packets);
+        }
+        int lastCount = segments.isEmpty() ? 0 : segments.peekLast().count;
+        return new Snapshot(arrays.toArray(new CapturedPacket[0][]), lastCount);
+    }
+
+    private static final class Snapshot extends AbstractList<CapturedPacket> {
+        private final CapturedPacket[][] segments;
+        private final int size;
+
+        Snapshot(CapturedPacket[][] segments, int lastCount) {
+            this.segments = segments;
+            this.size = segments.length == 0 ? 0 : (segments.length - 1) * SEGMENT_SIZE + lastCount;
+        }
+
+        @Override
+        public CapturedPacket get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return segments[index / SEGMENT_SIZE][index % SEGMENT_SIZE];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
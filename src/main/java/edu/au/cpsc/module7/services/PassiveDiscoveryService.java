@@ -0,0 +1,187 @@
+package edu.au.cpsc.module7.services;
+
+import com.google.inject.Inject;
+import edu.au.cpsc.module7.models.InventoryEvent;
+import edu.au.cpsc.module7.models.NetworkHost;
+import org.pcap4j.core.BpfProgram;
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.PcapNetworkInterface;
+import org.pcap4j.core.Pcaps;
+
+import java.util.Collection;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Always-on host discovery that only listens. Broadcast and link-local traffic the
+ * network already carries (ARP, DHCP, mDNS, LLMNR and NDP) keeps a live inventory
+ * current without sending a single probe, and every change is published as an
+ * {@link InventoryEvent}. Hosts silent for longer than the idle limit are expired.
+ *
+ * The inventory outlives stop and start, so a restarted listener carries on from
+ * what it already knew.
+ */
+public class PassiveDiscoveryService {
+    private static final Logger logger = Logger.getLogger(PassiveDiscoveryService.class.getName());
+
+    static final String FILTER = "arp or udp port 67 or udp port 68 or udp src port 5353 or udp src port 5355 or icmp6";
+    private static final int SNAPSHOT_LENGTH = 2048;
+    private static final int READ_TIMEOUT = 10; // 10ms
+    private static final long EXPIRY_CHECK_MILLIS = 10_000;
+    private static final long DEFAULT_MAX_IDLE_MILLIS = 30 * 60 * 1000;
+
+    private final HostInventory inventory;
+    private volatile SubmissionPublisher<InventoryEvent> eventPublisher;
+    private volatile long maxIdleMillis = DEFAULT_MAX_IDLE_MILLIS;
+    private volatile boolean running;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private PcapHandle handle;
+    private Thread captureThread;
+
+    @Inject
+    public PassiveDiscoveryService(OuiDatabase ouiDatabase) {
+        this.inventory = new HostInventory(ouiDatabase, this::emit);
+    }
+
+    /**
+     * Starts listening on the named interface, which may be given in the
+     * "name (description)" form listed by {@link PacketCaptureService#getAvailableInterfaces()}.
+     * The subscriber, if any, receives inventory changes until {@link #stop()}.
+     */
+    public synchronized void start(String interfaceName, Flow.Subscriber<? super InventoryEvent> events)
+            throws PcapNativeException, NotOpenException {
+        if (running) {
+            throw new IllegalStateException("Passive discovery is already running");
+        }
+        String actualInterfaceName = interfaceName.split(" \\(")[0];
+        PcapNetworkInterface nif = Pcaps.getDevByName(actualInterfaceName);
+        if (nif == null) {
+            throw new PcapNativeException("Network interface not found: " + actualInterfaceName);
+        }
+
+        // Promiscuous so DHCP ACKs unicast to other clients are seen too
+        PcapHandle opened = nif.openLive(SNAPSHOT_LENGTH, PcapNetworkInterface.PromiscuousMode.PROMISCUOUS, READ_TIMEOUT);
+        try {
+            opened.setFilter(FILTER, BpfProgram.BpfCompileMode.OPTIMIZE);
+        } catch (PcapNativeException | NotOpenException e) {
+            opened.close();
+            throw e;
+        }
+
+        SubmissionPublisher<InventoryEvent> publisher = new SubmissionPublisher<>();
+        if (events != null) {
+            publisher.subscribe(events);
+        }
+        eventPublisher = publisher;
+        handle = opened;
+        running = true;
+
+        captureThread = new Thread(() -> listen(opened), "PassiveDiscovery-" + actualInterfaceName);
+        captureThread.setDaemon(true);
+        captureThread.start();
+        logger.info("Passive discovery started on " + actualInterfaceName);
+    }
+
+    /**
+     * Adds a subscriber to the running listener's inventory changes
+     */
+    public void subscribe(Flow.Subscriber<? super InventoryEvent> events) {
+        SubmissionPublisher<InventoryEvent> publisher = eventPublisher;
+        if (publisher == null) {
+            throw new IllegalStateException("Passive discovery is not running");
+        }
+        publisher.subscribe(events);
+    }
+
+    /**
+     * Stops listening and completes the subscribers; the inventory is kept
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            captureThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        handle.close();
+        handle = null;
+        captureThread = null;
+
+        SubmissionPublisher<InventoryEvent> publisher = eventPublisher;
+        eventPublisher = null;
+        publisher.close();
+        logger.info("Passive discovery stopped with " + inventory.snapshot().size() + " hosts in inventory");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Hosts currently in the inventory; the returned hosts keep updating in place
+     */
+    public Collection<NetworkHost> getInventory() {
+        return inventory.snapshot();
+    }
+
+    /**
+     * Inventory events not delivered because a subscriber was too far behind
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    public long getMaxIdleMillis() {
+        return maxIdleMillis;
+    }
+
+    /**
+     * Sets how long a host may stay silent before it is expired from the inventory
+     */
+    public void setMaxIdleMillis(long maxIdleMillis) {
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    private void listen(PcapHandle handle) {
+        long nextExpiry = System.currentTimeMillis() + EXPIRY_CHECK_MILLIS;
+        while (running) {
+            try {
+                byte[] frame = handle.getNextRawPacket();
+                long now = System.currentTimeMillis();
+                if (frame != null) {
+                    inventory.handleFrame(frame, now);
+                }
+                if (now >= nextExpiry) {
+                    inventory.expire(now, maxIdleMillis);
+                    nextExpiry = now + EXPIRY_CHECK_MILLIS;
+                }
+            } catch (NotOpenException e) {
+                return;
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Error handling frame for passive discovery", e);
+            }
+        }
+    }
+
+    /**
+     * Publishes without blocking the capture thread; a subscriber whose buffer is full
+     * misses the event rather than stalling discovery for everyone
+     */
+    private void emit(InventoryEvent event) {
+        SubmissionPublisher<InventoryEvent> publisher = eventPublisher;
+        if (publisher != null && publisher.hasSubscribers()) {
+            publisher.offer(event, (subscriber, dropped) -> {
+                droppedEvents.incrementAndGet();
+                return false;
+            });
+        }
+    }
+}
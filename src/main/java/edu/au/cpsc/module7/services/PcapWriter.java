@@ -0,0 +1,269 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.CapturedPacket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams frames to a capture file in classic pcap or pcapng format. Records are
+ * assembled in a direct buffer and written to the file channel in large blocks, so a
+ * frame costs one copy rather than a system call. Timestamps keep nanosecond
+ * precision in both formats: pcap files use the nanosecond magic number, and pcapng
+ * files declare a nanosecond resolution in their interface description block.
+ *
+ * Files are written in native byte order, which both formats record in their header.
+ * Not thread-safe; callers writing from several threads must synchronize.
+ */
+public final class PcapWriter implements Closeable {
+    public static final int LINKTYPE_ETHERNET = 1;
+
+    private static final int BUFFER_BYTES = 1024 * 1024; // 1MB
+    private static final int DEFAULT_SNAPSHOT_LENGTH = 262144;
+
+    private static final int PCAP_NANOSECOND_MAGIC = 0xA1B23C4D;
+    private static final int PCAPNG_SECTION_HEADER = 0x0A0D0D0A;
+    private static final int PCAPNG_BYTE_ORDER_MAGIC = 0x1A2B3C4D;
+    private static final int PCAPNG_INTERFACE_DESCRIPTION = 0x00000001;
+    private static final int PCAPNG_ENHANCED_PACKET = 0x00000006;
+    private static final int OPTION_END = 0;
+    private static final int OPTION_SHB_USER_APPLICATION = 4;
+    private static final int OPTION_IF_NAME = 2;
+    private static final int OPTION_IF_TSRESOL = 9;
+    private static final String USER_APPLICATION = "NetArmyKn1f3";
+
+    public enum Format {
+        PCAP("pcap"),
+        PCAPNG("pcapng");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * pcapng for files ending in .pcapng or .ntar, classic pcap otherwise
+         */
+        public static Format forFile(Path path) {
+            String name = path.getFileName().toString().toLowerCase();
+            return name.endsWith(".pcapng") || name.endsWith(".ntar") ? PCAPNG : PCAP;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.nativeOrder());
+    private final Format format;
+    private final int snapshotLength;
+    private long bytesWritten;
+    private long packetsWritten;
+
+    private PcapWriter(FileChannel channel, Format format, int snapshotLength) {
+        this.channel = channel;
+        this.format = format;
+        this.snapshotLength = snapshotLength;
+    }
+
+    /**
+     * Creates or truncates a capture file and writes its header
+     *
+     * @param linkType pcap link-layer header type of the frames, e.g. 1 for Ethernet
+     * @param interfaceName name recorded in the pcapng interface description, or null
+     */
+    public static PcapWriter open(Path path, Format format, int linkType, int snapshotLength,
+                                  String interfaceName) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        PcapWriter writer = new PcapWriter(channel, format, snapshotLength > 0 ? snapshotLength : DEFAULT_SNAPSHOT_LENGTH);
+        try {
+            if (format == Format.PCAPNG) {
+                writer.writeSectionHeader();
+                writer.writeInterfaceDescription(linkType, interfaceName);
+            } else {
+                writer.writeFileHeader(linkType);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    /**
+     * Writes the stored frames of the given packets to a new capture file, skipping
+     * packets whose frame is no longer available, and returns how many were written
+     */
+    public static int export(Path path, Format format, int linkType, Iterable<CapturedPacket> packets)
+            throws IOException {
+        int written = 0;
+        try (PcapWriter writer = open(path, format, linkType, DEFAULT_SNAPSHOT_LENGTH, null)) {
+            for (CapturedPacket packet : packets) {
+                byte[] frame = packet.getRawData();
+                if (frame.length == 0) {
+                    continue;
+                }
+                writer.write(packet.getTimestampNanos(), frame, 0, frame.length, Math.max(frame.length, packet.getLength()));
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Appends one frame, truncated to the snapshot length
+     *
+     * @param timestampNanos capture time in nanoseconds since the epoch
+     * @param originalLength length of the frame on the wire
+     */
+    public void write(long timestampNanos, byte[] data, int offset, int length, int originalLength) throws IOException {
+        int captured = Math.min(length, snapshotLength);
+        if (format == Format.PCAPNG) {
+            int padded = (captured + 3) & ~3;
+            int blockLength = 32 + padded;
+            ensureCapacity(28);
+            buffer.putInt(PCAPNG_ENHANCED_PACKET);
+            buffer.putInt(blockLength);
+            buffer.putInt(0); // Interface id
+            buffer.putInt((int) (timestampNanos >>> 32));
+            buffer.putInt((int) timestampNanos);
+            buffer.putInt(captured);
+            buffer.putInt(originalLength);
+            put(data, offset, captured);
+            ensureCapacity(padded - captured + 4);
+            for (int i = captured; i < padded; i++) {
+                buffer.put((byte) 0);
+            }
+            buffer.putInt(blockLength);
+        } else {
+            ensureCapacity(16);
+            buffer.putInt((int) Math.floorDiv(timestampNanos, 1_000_000_000L));
+            buffer.putInt((int) Math.floorMod(timestampNanos, 1_000_000_000L));
+            buffer.putInt(captured);
+            buffer.putInt(originalLength);
+            put(data, offset, captured);
+        }
+        packetsWritten++;
+    }
+
+    /**
+     * Bytes in the file once buffered records are flushed
+     */
+    public long bytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    public long packetsWritten() {
+        return packetsWritten;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Writes buffered records to the file
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeFileHeader(int linkType) throws IOException {
+        buffer.putInt(PCAP_NANOSECOND_MAGIC);
+        buffer.putShort((short) 2);
+        buffer.putShort((short) 4);
+        buffer.putInt(0); // GMT offset
+        buffer.putInt(0); // Timestamp accuracy
+        buffer.putInt(snapshotLength);
+        buffer.putInt(linkType);
+    }
+
+    private void writeSectionHeader() {
+        byte[] application = USER_APPLICATION.getBytes(StandardCharsets.UTF_8);
+        int blockLength = 28 + optionLength(application.length) + 4;
+        buffer.putInt(PCAPNG_SECTION_HEADER);
+        buffer.putInt(blockLength);
+        buffer.putInt(PCAPNG_BYTE_ORDER_MAGIC);
+        buffer.putShort((short) 1);
+        buffer.putShort((short) 0);
+        buffer.putLong(-1); // Section length not known up front
+        putOption(OPTION_SHB_USER_APPLICATION, application);
+        buffer.putShort((short) OPTION_END);
+        buffer.putShort((short) 0);
+        buffer.putInt(blockLength);
+    }
+
+    private void writeInterfaceDescription(int linkType, String interfaceName) {
+        byte[] name = interfaceName != null ? interfaceName.getBytes(StandardCharsets.UTF_8) : null;
+        int optionsLength = optionLength(1) + 4 + (name != null ? optionLength(name.length) : 0);
+        int blockLength = 20 + optionsLength;
+        buffer.putInt(PCAPNG_INTERFACE_DESCRIPTION);
+        buffer.putInt(blockLength);
+        buffer.putShort((short) linkType);
+        buffer.putShort((short) 0);
+        buffer.putInt(snapshotLength);
+        if (name != null) {
+            putOption(OPTION_IF_NAME, name);
+        }
+        putOption(OPTION_IF_TSRESOL, new byte[] { 9 }); // 10^-9 seconds
+        buffer.putShort((short) OPTION_END);
+        buffer.putShort((short) 0);
+        buffer.putInt(blockLength);
+    }
+
+    private static int optionLength(int valueLength) {
+        return 4 + ((valueLength + 3) & ~3);
+    }
+
+    private void putOption(int code, byte[] value) {
+        buffer.putShort((short) code);
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+        for (int i = value.length; i < ((value.length + 3) & ~3); i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Copies frame bytes into the buffer, flushing as often as it fills
+     */
+    private void put(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(data, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+}
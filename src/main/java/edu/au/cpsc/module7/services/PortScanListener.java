@@ -0,0 +1,15 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import edu.au.cpsc.module7.models.NetworkHost.PortState;
+
+/**
+ * Receives the outcome of every (host, port) probe from a port scanning engine
+ */
+@FunctionalInterface
+public interface PortScanListener {
+    /**
+     * @param rttMillis measured round trip, or -1 when the engine could not measure it
+     */
+    void onResult(NetworkHost host, int port, PortState state, long rttMillis);
+}
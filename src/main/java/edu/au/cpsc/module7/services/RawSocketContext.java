@@ -0,0 +1,286 @@
+package edu.au.cpsc.module7.services;
+
+import org.pcap4j.core.BpfProgram;
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapAddress;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapIpV4Address;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.PcapNetworkInterface;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.packet.ArpPacket;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.namednumber.ArpHardwareType;
+import org.pcap4j.packet.namednumber.ArpOperation;
+import org.pcap4j.packet.namednumber.EtherType;
+import org.pcap4j.util.LinkLayerAddress;
+import org.pcap4j.util.MacAddress;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared plumbing for raw-packet scanners: picks the capture interface that
+ * routes to a target, learns its source addresses and resolves next-hop MACs
+ */
+public class RawSocketContext {
+    private static final Logger logger = Logger.getLogger(RawSocketContext.class.getName());
+
+    private static final int SNAPSHOT_LENGTH = 256;
+    private static final int READ_TIMEOUT = 10; // 10ms
+    private static final int ARP_TARGET_IP_OFFSET = 38;
+
+    private final PcapNetworkInterface nif;
+    private final Inet4Address sourceAddress;
+    private final int networkAddress;
+    private final int netmask;
+    private final byte[] sourceMac;
+    private final Inet4Address gateway;
+
+    private RawSocketContext(PcapNetworkInterface nif, PcapIpV4Address address, byte[] sourceMac, Inet4Address gateway) {
+        this.nif = nif;
+        this.sourceAddress = address.getAddress();
+        this.netmask = PacketBytes.toInt(address.getNetmask());
+        this.networkAddress = PacketBytes.toInt(sourceAddress) & netmask;
+        this.sourceMac = sourceMac;
+        this.gateway = gateway;
+    }
+
+    /**
+     * Finds the capture interface that would carry traffic to the given target,
+     * preferring an interface whose subnet contains the target directly
+     */
+    public static RawSocketContext forTarget(Inet4Address target) throws PcapNativeException, IOException {
+        Inet4Address gateway = findDefaultGateway();
+        PcapNetworkInterface viaGateway = null;
+        PcapIpV4Address viaGatewayAddress = null;
+
+        for (PcapNetworkInterface nif : Pcaps.findAllDevs()) {
+            if (nif.isLoopBack()) {
+                continue;
+            }
+            for (PcapAddress pcapAddress : nif.getAddresses()) {
+                if (!(pcapAddress instanceof PcapIpV4Address) || pcapAddress.getNetmask() == null) {
+                    continue;
+                }
+                PcapIpV4Address address = (PcapIpV4Address) pcapAddress;
+                int mask = PacketBytes.toInt(address.getNetmask());
+                int network = PacketBytes.toInt(address.getAddress()) & mask;
+
+                if ((PacketBytes.toInt(target) & mask) == network) {
+                    return new RawSocketContext(nif, address, findMacAddress(nif), gateway);
+                }
+                if (viaGateway == null && gateway != null && (PacketBytes.toInt(gateway) & mask) == network) {
+                    viaGateway = nif;
+                    viaGatewayAddress = address;
+                }
+            }
+        }
+
+        if (viaGateway == null) {
+            throw new IOException("No capture interface routes to " + target.getHostAddress());
+        }
+        return new RawSocketContext(viaGateway, viaGatewayAddress, findMacAddress(viaGateway), gateway);
+    }
+
+    public PcapNetworkInterface getInterface() { return nif; }
+    public Inet4Address getSourceAddress() { return sourceAddress; }
+    public byte[] getSourceMac() { return sourceMac.clone(); }
+    public Inet4Address getGateway() { return gateway; }
+
+    public boolean isOnLink(int address) {
+        return (address & netmask) == networkAddress;
+    }
+
+    /**
+     * Opens a non-promiscuous handle with a short read timeout and optional BPF filter
+     */
+    public PcapHandle openHandle(String filter) throws PcapNativeException, NotOpenException {
+        PcapHandle handle = nif.openLive(SNAPSHOT_LENGTH, PcapNetworkInterface.PromiscuousMode.NONPROMISCUOUS, READ_TIMEOUT);
+        if (filter != null && !filter.isEmpty()) {
+            try {
+                handle.setFilter(filter, BpfProgram.BpfCompileMode.OPTIMIZE);
+            } catch (PcapNativeException | NotOpenException e) {
+                handle.close();
+                throw e;
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Resolves the Ethernet next hop for each target: the target itself when it is
+     * on-link, otherwise the default gateway. Targets whose next hop does not answer
+     * ARP within the timeout are absent from the returned map.
+     */
+    public Map<Integer, byte[]> resolveNextHops(int[] targets, int timeoutMillis)
+            throws PcapNativeException, NotOpenException {
+        int gatewayAddress = gateway != null ? PacketBytes.toInt(gateway) : 0;
+        Set<Integer> pending = new HashSet<>();
+        for (int target : targets) {
+            if (isOnLink(target)) {
+                pending.add(target);
+            } else if (gateway != null) {
+                pending.add(gatewayAddress);
+            }
+        }
+
+        Map<Integer, byte[]> macs = arpResolve(pending, timeoutMillis);
+
+        Map<Integer, byte[]> nextHops = new HashMap<>();
+        for (int target : targets) {
+            byte[] mac = macs.get(isOnLink(target) ? target : gatewayAddress);
+            if (mac != null) {
+                nextHops.put(target, mac);
+            }
+        }
+        return nextHops;
+    }
+
+    /**
+     * Broadcasts ARP requests for the given addresses and collects the replies,
+     * re-sending once to anything still unanswered halfway through the timeout
+     */
+    private Map<Integer, byte[]> arpResolve(Set<Integer> addresses, int timeoutMillis)
+            throws PcapNativeException, NotOpenException {
+        Map<Integer, byte[]> resolved = new HashMap<>();
+        if (addresses.isEmpty()) {
+            return resolved;
+        }
+
+        byte[] request = buildArpRequest();
+        PcapHandle handle = openHandle("arp and arp[6:2] = 2");
+        try {
+            sendArpRequests(handle, request, addresses);
+            long resendAt = System.currentTimeMillis() + timeoutMillis / 2;
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            boolean resent = false;
+
+            while (resolved.size() < addresses.size() && System.currentTimeMillis() < deadline) {
+                if (!resent && System.currentTimeMillis() >= resendAt) {
+                    Set<Integer> unanswered = new HashSet<>(addresses);
+                    unanswered.removeAll(resolved.keySet());
+                    sendArpRequests(handle, request, unanswered);
+                    resent = true;
+                }
+
+                byte[] frame = handle.getNextRawPacket();
+                if (frame == null || frame.length < 42) {
+                    continue;
+                }
+                int sender = PacketBytes.readInt(frame, 28);
+                if (addresses.contains(sender)) {
+                    byte[] mac = new byte[6];
+                    System.arraycopy(frame, 22, mac, 0, 6);
+                    resolved.put(sender, mac);
+                }
+            }
+        } finally {
+            handle.close();
+        }
+
+        logger.log(Level.FINE, "ARP resolved " + resolved.size() + " of " + addresses.size() + " next hops");
+        return resolved;
+    }
+
+    private void sendArpRequests(PcapHandle handle, byte[] request, Set<Integer> addresses)
+            throws PcapNativeException, NotOpenException {
+        for (int address : addresses) {
+            PacketBytes.writeInt(request, ARP_TARGET_IP_OFFSET, address);
+            handle.sendPacket(request, request.length);
+        }
+    }
+
+    /**
+     * Builds a broadcast who-has template; the target address is patched per request
+     */
+    byte[] buildArpRequest() {
+        MacAddress srcMac = MacAddress.getByAddress(sourceMac);
+        ArpPacket.Builder arp = new ArpPacket.Builder()
+            .hardwareType(ArpHardwareType.ETHERNET)
+            .protocolType(EtherType.IPV4)
+            .hardwareAddrLength((byte) MacAddress.SIZE_IN_BYTES)
+            .protocolAddrLength((byte) 4)
+            .operation(ArpOperation.REQUEST)
+            .srcHardwareAddr(srcMac)
+            .srcProtocolAddr(sourceAddress)
+            .dstHardwareAddr(MacAddress.getByName("00:00:00:00:00:00"))
+            .dstProtocolAddr(sourceAddress);
+        EthernetPacket.Builder ethernet = new EthernetPacket.Builder()
+            .dstAddr(MacAddress.ETHER_BROADCAST_ADDRESS)
+            .srcAddr(srcMac)
+            .type(EtherType.ARP)
+            .payloadBuilder(arp)
+            .paddingAtBuild(true);
+        return ethernet.build().getRawData();
+    }
+
+    private static byte[] findMacAddress(PcapNetworkInterface nif) throws IOException {
+        for (LinkLayerAddress address : nif.getLinkLayerAddresses()) {
+            if (address instanceof MacAddress) {
+                return address.getAddress();
+            }
+        }
+        // Some platforms do not report link-layer addresses through libpcap
+        NetworkInterface javaInterface = NetworkInterface.getByName(nif.getName());
+        byte[] mac = javaInterface != null ? javaInterface.getHardwareAddress() : null;
+        if (mac == null || mac.length != 6) {
+            throw new IOException("Interface " + nif.getName() + " has no Ethernet address");
+        }
+        return mac;
+    }
+
+    /**
+     * Reads the default IPv4 gateway from /proc/net/route on Linux or from
+     * netstat output elsewhere
+     */
+    static Inet4Address findDefaultGateway() {
+        try {
+            Path procRoute = Paths.get("/proc/net/route");
+            if (Files.isReadable(procRoute)) {
+                for (String line : Files.readAllLines(procRoute)) {
+                    String[] fields = line.trim().split("\\s+");
+                    if (fields.length > 2 && "00000000".equals(fields[1]) && !"00000000".equals(fields[2])) {
+                        // Kernel prints the gateway in host (little-endian) byte order
+                        return PacketBytes.toAddress(Integer.reverseBytes((int) Long.parseLong(fields[2], 16)));
+                    }
+                }
+                return null;
+            }
+
+            Process process = new ProcessBuilder("netstat", "-rn").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.trim().split("\\s+");
+                    String candidate = null;
+                    if (fields.length > 1 && "default".equals(fields[0])) {
+                        candidate = fields[1];
+                    } else if (fields.length > 2 && "0.0.0.0".equals(fields[0])) {
+                        // Windows lists destination and mask before the gateway
+                        candidate = "0.0.0.0".equals(fields[1]) ? fields[2] : fields[1];
+                    }
+                    if (candidate != null && candidate.matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
+                        return (Inet4Address) InetAddress.getByName(candidate);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Could not determine default gateway", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package edu.au.cpsc.module7.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Puts items finished out of order by several threads back into sequence order.
+ * Each sequence number must be completed exactly once, with null for one that produced
+ * nothing; the thread that completes the next expected sequence hands it and every
+ * consecutive item already waiting to the sink. The sink is called under the buffer's
+ * lock, so it sees items one at a time and in order.
+ *
+ * The capacity bounds how far ahead of the oldest unfinished sequence a thread may
+ * complete; for decoders fed by a {@link CaptureRing} the ring's capacity is enough,
+ * since the ring cannot run further ahead than that of a slot still being decoded.
+ */
+final class ReorderBuffer<T> {
+    private final Object[] items;
+    private final boolean[] done;
+    private final int mask;
+    private final Consumer<? super T> sink;
+    private long nextSequence;
+
+    /**
+     * @param capacity sequences that may be waiting at once, rounded up to a power of two
+     */
+    ReorderBuffer(int capacity, long firstSequence, Consumer<? super T> sink) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.items = new Object[size];
+        this.done = new boolean[size];
+        this.mask = size - 1;
+        this.sink = sink;
+        this.nextSequence = firstSequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized void complete(long sequence, T item) {
+        if (sequence < nextSequence || sequence - nextSequence >= items.length) {
+            throw new IllegalArgumentException("Sequence " + sequence + " outside window starting at " + nextSequence);
+        }
+        int index = (int) sequence & mask;
+        items[index] = item;
+        done[index] = true;
+        while (done[(int) nextSequence & mask]) {
+            int next = (int) nextSequence & mask;
+            T ready = (T) items[next];
+            items[next] = null;
+            done[next] = false;
+            nextSequence++;
+            if (ready != null) {
+                sink.accept(ready);
+            }
+        }
+    }
+
+    /**
+     * Items completed but still waiting for an earlier sequence
+     */
+    synchronized int waiting() {
+        int count = 0;
+        for (boolean d : done) {
+            if (d) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,454 @@
+package edu.au.cpsc.module7.services;
+
+import com.google.inject.Inject;
+import edu.au.cpsc.module7.models.NetworkHost;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reverse DNS for scan results. PTR queries for many addresses are pipelined over one
+ * UDP socket to the system's first nameserver, matched back to their address by DNS
+ * transaction ID, and answered from a cache that honours the record TTL for names and
+ * the SOA minimum for NXDOMAIN. Concurrent lookups of the same address share one query.
+ *
+ * When no nameserver can be read from /etc/resolv.conf (Windows), lookups fall back to
+ * the platform resolver on a few background threads. Once the resolver is closed, or its
+ * socket fails for good, lookups complete with null instead of waiting forever.
+ */
+public class ReverseDnsResolver implements Closeable {
+    private static final Logger logger = Logger.getLogger(ReverseDnsResolver.class.getName());
+
+    private static final int DNS_PORT = 53;
+    private static final int TYPE_PTR = 12;
+    private static final int TYPE_SOA = 6;
+    private static final int CLASS_IN = 1;
+    private static final int RCODE_NXDOMAIN = 3;
+    private static final int MAX_IN_FLIGHT = 512;
+    private static final int MAX_MESSAGE_SIZE = 512;
+    private static final long QUERY_TIMEOUT_NANOS = 2_000_000_000L;
+    private static final int MAX_ATTEMPTS = 2;
+    private static final long MIN_TTL_SECONDS = 30;
+    private static final long MAX_TTL_SECONDS = 86_400;
+    private static final long DEFAULT_NEGATIVE_TTL_SECONDS = 300;
+    private static final long TIMEOUT_NEGATIVE_TTL_SECONDS = 60;
+    private static final int FALLBACK_THREADS = 4;
+
+    private final Map<Integer, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Map<Integer, CompletableFuture<String>> inProgress = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Query> submissions = new ConcurrentLinkedQueue<>();
+    private final SecureRandom random = new SecureRandom();
+    private DatagramChannel channel;
+    private Selector selector;
+    private ExecutorService fallbackExecutor;
+    private volatile boolean running = true; // Cleared under the submissions lock
+
+    // Resolver thread state
+    private final Query[] inFlight = new Query[65536];
+    private int inFlightCount;
+    private final ArrayDeque<Query> waiting = new ArrayDeque<>();
+    private final ArrayDeque<Query> deadlines = new ArrayDeque<>();
+
+    @Inject
+    public ReverseDnsResolver() {
+        this(readSystemNameserver());
+    }
+
+    ReverseDnsResolver(SocketAddress nameserver) {
+        if (nameserver != null) {
+            try {
+                this.channel = DatagramChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(nameserver);
+                this.selector = Selector.open();
+                channel.register(selector, SelectionKey.OP_READ);
+                Thread thread = new Thread(this::run, "reverse-dns");
+                thread.setDaemon(true);
+                thread.start();
+                return;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Cannot open DNS socket, using the platform resolver", e);
+                this.channel = null;
+            }
+        }
+        this.fallbackExecutor = Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+            Thread t = new Thread(r, "reverse-dns-fallback");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Looks up the name of a packed IPv4 address; completes with null when it has none
+     */
+    public CompletableFuture<String> lookup(int address) {
+        CacheEntry entry = cache.get(address);
+        if (entry != null) {
+            if (entry.expiresAtNanos - System.nanoTime() > 0) {
+                return CompletableFuture.completedFuture(entry.hostname);
+            }
+            cache.remove(address, entry);
+        }
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inProgress.putIfAbsent(address, future);
+        if (existing != null) {
+            return existing;
+        }
+        future.whenComplete((name, error) -> inProgress.remove(address, future));
+
+        if (channel == null) {
+            try {
+                fallbackExecutor.execute(() -> {
+                    String hostname = PacketBytes.toAddress(address).getCanonicalHostName();
+                    String result = hostname.equals(TargetSpec.format(address)) ? null : hostname;
+                    cache(address, result, result != null ? MAX_TTL_SECONDS : DEFAULT_NEGATIVE_TTL_SECONDS);
+                    future.complete(result);
+                });
+            } catch (RejectedExecutionException e) {
+                future.complete(null); // Closed
+            }
+            return future;
+        }
+        // The lock keeps a submission from slipping in after the resolver thread's last drain
+        synchronized (submissions) {
+            if (running) {
+                submissions.add(new Query(address, future));
+                selector.wakeup();
+                return future;
+            }
+        }
+        future.complete(null);
+        return future;
+    }
+
+    /**
+     * Sets the host's hostname once its PTR answer arrives, unless it already has one
+     */
+    public CompletableFuture<Void> resolveInto(NetworkHost host) {
+        int address;
+        try {
+            address = TargetSpec.pack(host.getIpAddress());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(null); // Not IPv4
+        }
+        return lookup(address).thenAccept(hostname -> {
+            if (hostname != null && host.getHostname() == null) {
+                host.setHostname(hostname);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        synchronized (submissions) {
+            if (running && selector != null) {
+                selector.wakeup();
+            }
+            running = false;
+        }
+        if (fallbackExecutor != null) {
+            // Lookups already queued still run, so their futures complete
+            fallbackExecutor.shutdown();
+        }
+    }
+
+    private void run() {
+        ByteBuffer receive = ByteBuffer.allocate(MAX_MESSAGE_SIZE);
+        ByteBuffer send = ByteBuffer.allocate(MAX_MESSAGE_SIZE);
+        try {
+            while (running) {
+                Query query;
+                while ((query = submissions.poll()) != null) {
+                    waiting.add(query);
+                }
+                while (inFlightCount < MAX_IN_FLIGHT && (query = waiting.poll()) != null) {
+                    send(query, send);
+                }
+
+                try {
+                    selector.select(50);
+                    selector.selectedKeys().clear();
+                    receiveAll(receive);
+                } catch (IOException e) {
+                    if (!channel.isOpen() || !selector.isOpen()) {
+                        throw e;
+                    }
+                    // A transient socket error loses at most the replies it interrupted; timeouts retry those
+                    logger.log(Level.FINE, "DNS receive failed", e);
+                }
+                expire(System.nanoTime(), send);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Reverse DNS resolver stopped", e);
+        } finally {
+            synchronized (submissions) {
+                running = false;
+            }
+            Query query;
+            while ((query = submissions.poll()) != null) {
+                query.future.complete(null);
+            }
+            for (Query pending : inFlight) {
+                if (pending != null) {
+                    pending.future.complete(null);
+                }
+            }
+            for (Query pending : waiting) {
+                pending.future.complete(null);
+            }
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException e) {
+                // Ignore close failures
+            }
+        }
+    }
+
+    private void receiveAll(ByteBuffer receive) throws IOException {
+        while (true) {
+            receive.clear();
+            try {
+                if (channel.receive(receive) == null) {
+                    return;
+                }
+            } catch (PortUnreachableException e) {
+                continue; // ICMP from the nameserver; the query timeouts handle it
+            }
+            receive.flip();
+            handleResponse(receive);
+        }
+    }
+
+    private void send(Query query, ByteBuffer buffer) {
+        int id;
+        do {
+            id = random.nextInt(65536);
+        } while (inFlight[id] != null);
+        query.id = id;
+        query.attempts++;
+        query.deadlineNanos = System.nanoTime() + QUERY_TIMEOUT_NANOS;
+        inFlight[id] = query;
+        inFlightCount++;
+        deadlines.add(query);
+
+        buffer.clear();
+        buffer.putShort((short) id).putShort((short) 0x0100).putShort((short) 1).putShort((short) 0)
+            .putShort((short) 0).putShort((short) 0);
+        int a = query.address;
+        for (int octet : new int[] { a & 0xFF, (a >>> 8) & 0xFF, (a >>> 16) & 0xFF, a >>> 24 }) {
+            writeLabel(buffer, Integer.toString(octet));
+        }
+        writeLabel(buffer, "in-addr");
+        writeLabel(buffer, "arpa");
+        buffer.put((byte) 0).putShort((short) TYPE_PTR).putShort((short) CLASS_IN);
+        buffer.flip();
+        try {
+            channel.write(buffer);
+        } catch (IOException e) {
+            // ICMP port unreachable from an earlier query surfaces here; the timeout retries it
+            logger.log(Level.FINE, "DNS query send failed", e);
+        }
+    }
+
+    private static void writeLabel(ByteBuffer buffer, String label) {
+        buffer.put((byte) label.length()).put(label.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void expire(long now, ByteBuffer send) {
+        Query query;
+        while ((query = deadlines.peek()) != null && (query.done || query.deadlineNanos - now <= 0)) {
+            deadlines.poll();
+            if (query.done) {
+                continue;
+            }
+            inFlight[query.id] = null;
+            inFlightCount--;
+            query.done = true;
+            if (query.attempts < MAX_ATTEMPTS) {
+                // A fresh query keeps the deadline queue in order and ignores late answers to the old ID
+                Query retry = new Query(query.address, query.future);
+                retry.attempts = query.attempts;
+                send(retry, send);
+            } else {
+                cache(query.address, null, TIMEOUT_NEGATIVE_TTL_SECONDS);
+                query.future.complete(null);
+            }
+        }
+    }
+
+    private void handleResponse(ByteBuffer message) {
+        if (message.remaining() < 12) {
+            return;
+        }
+        int id = message.getShort(0) & 0xFFFF;
+        int flags = message.getShort(2) & 0xFFFF;
+        Query query = inFlight[id];
+        if (query == null || (flags & 0x8000) == 0) {
+            return;
+        }
+        int questions = message.getShort(4) & 0xFFFF;
+        int answers = message.getShort(6) & 0xFFFF;
+        int authorities = message.getShort(8) & 0xFFFF;
+
+        String hostname = null;
+        long ttl = DEFAULT_NEGATIVE_TTL_SECONDS;
+        try {
+            int offset = 12;
+            for (int i = 0; i < questions; i++) {
+                offset = skipName(message, offset) + 4;
+            }
+            for (int i = 0; i < answers + authorities && hostname == null; i++) {
+                int dataOffset = skipName(message, offset) + 10;
+                int type = message.getShort(dataOffset - 10) & 0xFFFF;
+                long recordTtl = message.getInt(dataOffset - 6) & 0xFFFFFFFFL;
+                int length = message.getShort(dataOffset - 2) & 0xFFFF;
+                if (i < answers && type == TYPE_PTR) {
+                    hostname = readName(message, dataOffset);
+                    ttl = recordTtl;
+                } else if (i >= answers && type == TYPE_SOA) {
+                    // Negative answers are cached for min(SOA TTL, SOA minimum), RFC 2308
+                    int minimumOffset = skipName(message, skipName(message, dataOffset)) + 16;
+                    ttl = Math.min(recordTtl, message.getInt(minimumOffset) & 0xFFFFFFFFL);
+                }
+                offset = dataOffset + length;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return; // Truncated or malformed; the timeout retries the query
+        }
+
+        int rcode = flags & 0x0F;
+        if (hostname == null && rcode != 0 && rcode != RCODE_NXDOMAIN) {
+            return; // SERVFAIL and friends: let the timeout retry
+        }
+        inFlight[id] = null;
+        inFlightCount--;
+        query.done = true;
+        if (hostname != null && hostname.endsWith(".")) {
+            hostname = hostname.substring(0, hostname.length() - 1);
+        }
+        cache(query.address, hostname, ttl);
+        query.future.complete(hostname);
+    }
+
+    private void cache(int address, String hostname, long ttlSeconds) {
+        long ttl = Math.max(MIN_TTL_SECONDS, Math.min(MAX_TTL_SECONDS, ttlSeconds));
+        cache.put(address, new CacheEntry(hostname, System.nanoTime() + ttl * 1_000_000_000L));
+    }
+
+    /**
+     * Returns the offset just past a possibly compressed name
+     */
+    private static int skipName(ByteBuffer message, int offset) {
+        while (true) {
+            int length = message.get(offset) & 0xFF;
+            if (length == 0) {
+                return offset + 1;
+            }
+            if ((length & 0xC0) == 0xC0) {
+                return offset + 2;
+            }
+            offset += length + 1;
+        }
+    }
+
+    private static String readName(ByteBuffer message, int offset) {
+        StringBuilder name = new StringBuilder();
+        int jumps = 0;
+        while (true) {
+            int length = message.get(offset) & 0xFF;
+            if (length == 0) {
+                return name.toString();
+            }
+            if ((length & 0xC0) == 0xC0) {
+                if (++jumps > 16) {
+                    throw new IndexOutOfBoundsException("DNS name pointer loop");
+                }
+                offset = ((length & 0x3F) << 8) | (message.get(offset + 1) & 0xFF);
+                continue;
+            }
+            for (int i = 1; i <= length; i++) {
+                name.append((char) (message.get(offset + i) & 0xFF));
+            }
+            name.append('.');
+            offset += length + 1;
+        }
+    }
+
+    /**
+     * First nameserver in /etc/resolv.conf, or null where there is none to read
+     */
+    private static SocketAddress readSystemNameserver() {
+        Path resolvConf = Paths.get("/etc/resolv.conf");
+        if (!Files.isReadable(resolvConf)) {
+            return null;
+        }
+        try {
+            List<String> nameservers = new ArrayList<>();
+            for (String line : Files.readAllLines(resolvConf)) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length >= 2 && fields[0].equals("nameserver")) {
+                    nameservers.add(fields[1]);
+                }
+            }
+            for (String nameserver : nameservers) {
+                // Literal addresses only; no lookup happens here
+                if (nameserver.matches("[0-9.]+") || nameserver.contains(":")) {
+                    return new InetSocketAddress(InetAddress.getByName(nameserver.replaceFirst("%.*$", "")), DNS_PORT);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Cannot read /etc/resolv.conf", e);
+        }
+        return null;
+    }
+
+    private static final class Query {
+        final int address;
+        final CompletableFuture<String> future;
+        int id;
+        int attempts;
+        long deadlineNanos;
+        boolean done;
+
+        Query(int address, CompletableFuture<String> future) {
+            this.address = address;
+            this.future = future;
+        }
+    }
+
+    private static final class CacheEntry {
+        final String hostname; // null for addresses with no name
+        final long expiresAtNanos;
+
+        CacheEntry(String hostname, long expiresAtNanos) {
+            this.hostname = hostname;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package edu.au.cpsc.module7.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a continuous capture as a ring of files, starting a new file once the current
+ * one reaches a size limit or has covered a span of capture time, and deleting the
+ * oldest file once more than the maximum number exist. File age is measured on packet
+ * timestamps, so rotation follows the capture rather than the wall clock.
+ *
+ * Files are named prefix_NNNNN_yyyyMMddHHmmss.ext after their sequence number and the
+ * time of their first packet. Buffered records are flushed once they are a second old
+ * by the wall clock, including on a quiet link as long as the writing thread calls
+ * {@link #flushIfDue(long)} while idle, so an interrupted capture loses little. Frames must be written in
+ * capture order from one thread; methods are synchronized so other threads can flush,
+ * close or read the file list while it writes.
+ */
+final class RollingPcapWriter implements Closeable {
+    private static final long FLUSH_INTERVAL_NANOS = 1_000_000_000L;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
+        .withZone(ZoneId.systemDefault());
+
+    private final Path directory;
+    private final String prefix;
+    private final PcapWriter.Format format;
+    private final int linkType;
+    private final int snapshotLength;
+    private final String interfaceName;
+    private final long maxFileBytes;
+    private final long maxFileNanos;
+    private final int maxFiles;
+    private final ArrayDeque<Path> files = new ArrayDeque<>();
+
+    private PcapWriter current;
+    private long currentStartNanos;
+    private long lastFlushNanos; // System.nanoTime() of the last flush
+    private int sequence;
+    private long packetsWritten;
+    private long bytesCompleted; // Bytes in files already rotated out
+
+    /**
+     * @param maxFileBytes size after which a new file is started, or 0 for no limit
+     * @param maxFileNanos capture time a file covers before a new one is started, or 0 for no limit
+     * @param maxFiles files kept before the oldest is deleted, or 0 to keep all
+     */
+    RollingPcapWriter(Path directory, String prefix, PcapWriter.Format format, int linkType, int snapshotLength,
+                      String interfaceName, long maxFileBytes, long maxFileNanos, int maxFiles) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.format = format;
+        this.linkType = linkType;
+        this.snapshotLength = snapshotLength;
+        this.interfaceName = interfaceName;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFileNanos = maxFileNanos;
+        this.maxFiles = maxFiles;
+    }
+
+    synchronized void write(long timestampNanos, byte[] data, int offset, int length, int originalLength)
+            throws IOException {
+        if (current == null || needsRotation(timestampNanos, length)) {
+            rotate(timestampNanos);
+        }
+        current.write(timestampNanos, data, offset, length, originalLength);
+        packetsWritten++;
+        flushIfDue(System.nanoTime());
+    }
+
+    /**
+     * Flushes buffered records if the last flush was at least a second before nowNanos,
+     * a System.nanoTime() reading
+     */
+    synchronized void flushIfDue(long nowNanos) throws IOException {
+        if (current != null && nowNanos - lastFlushNanos >= FLUSH_INTERVAL_NANOS) {
+            current.flush();
+            lastFlushNanos = nowNanos;
+        }
+    }
+
+    private boolean needsRotation(long timestampNanos, int length) {
+        if (current.packetsWritten() == 0) {
+            return false;
+        }
+        if (maxFileBytes > 0 && current.bytesWritten() + length > maxFileBytes) {
+            return true;
+        }
+        return maxFileNanos > 0 && timestampNanos - currentStartNanos >= maxFileNanos;
+    }
+
+    private void rotate(long timestampNanos) throws IOException {
+        if (current != null) {
+            bytesCompleted += current.bytesWritten();
+            current.close();
+            current = null;
+        }
+        Instant start = Instant.ofEpochSecond(Math.floorDiv(timestampNanos, 1_000_000_000L));
+        String name = String.format("%s_%05d_%s.%s", prefix, ++sequence, FILE_TIME.format(start), format.getExtension());
+        Path path = directory.resolve(name);
+        current = PcapWriter.open(path, format, linkType, snapshotLength, interfaceName);
+        currentStartNanos = timestampNanos;
+        lastFlushNanos = System.nanoTime();
+        files.addLast(path);
+        while (maxFiles > 0 && files.size() > maxFiles) {
+            Files.deleteIfExists(files.removeFirst());
+        }
+    }
+
+    synchronized void flush() throws IOException {
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    /**
+     * Files written so far that have not been deleted, oldest first
+     */
+    synchronized List<Path> getFiles() {
+        return new ArrayList<>(files);
+    }
+
+    synchronized long packetsWritten() {
+        return packetsWritten;
+    }
+
+    /**
+     * Bytes written across all files, including deleted ones
+     */
+    synchronized long bytesWritten() {
+        return bytesCompleted + (current != null ? current.bytesWritten() : 0);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            bytesCompleted += current.bytesWritten();
+            current.close();
+            current = null;
+        }
+    }
+}
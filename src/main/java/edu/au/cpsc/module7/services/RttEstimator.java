@@ -0,0 +1,78 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+
+/**
+ * Per-host retransmission timeout estimator following RFC 6298: a smoothed RTT and
+ * RTT variance give RTO = SRTT + 4 * RTTVAR, clamped between a LAN-friendly floor and
+ * the configured scan timeout. Unlike TCP the timeout is not backed off on expiry,
+ * because filtered ports time out by design and say nothing about the path.
+ */
+public class RttEstimator {
+    private static final long MIN_TIMEOUT_MICROS = 100_000; // 100ms
+    private static final long CLOCK_GRANULARITY_MICROS = 1_000;
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+
+    private final long maxTimeoutMicros;
+    private double srtt = -1;
+    private double rttvar;
+    private long timeoutMicros;
+
+    public RttEstimator(int maxTimeoutMillis) {
+        this.maxTimeoutMicros = Math.max(MIN_TIMEOUT_MICROS, maxTimeoutMillis * 1000L);
+        this.timeoutMicros = maxTimeoutMicros;
+    }
+
+    /**
+     * Creates an estimator seeded with the response time measured during host discovery,
+     * if any. The microsecond measurement is preferred, so a LAN host that answered in
+     * under a millisecond still seeds the estimate.
+     */
+    public static RttEstimator forHost(NetworkHost host, int maxTimeoutMillis) {
+        RttEstimator estimator = new RttEstimator(maxTimeoutMillis);
+        if (host.getResponseTimeMicros() >= 0) {
+            estimator.addSample(host.getResponseTimeMicros());
+        } else if (host.getResponseTime() > 0) {
+            estimator.addSample(host.getResponseTime() * 1000);
+        }
+        return estimator;
+    }
+
+    /**
+     * Folds in one measured round trip
+     */
+    public synchronized void addSample(long rttMicros) {
+        if (rttMicros < 0) {
+            return;
+        }
+        if (srtt < 0) {
+            srtt = rttMicros;
+            rttvar = rttMicros / 2.0;
+        } else {
+            rttvar = (1 - BETA) * rttvar + BETA * Math.abs(srtt - rttMicros);
+            srtt = (1 - ALPHA) * srtt + ALPHA * rttMicros;
+        }
+        long rto = (long) (srtt + Math.max(CLOCK_GRANULARITY_MICROS, 4 * rttvar));
+        timeoutMicros = Math.max(MIN_TIMEOUT_MICROS, Math.min(maxTimeoutMicros, rto));
+    }
+
+    /**
+     * True once at least one round trip has been measured
+     */
+    public synchronized boolean hasSamples() {
+        return srtt >= 0;
+    }
+
+    public synchronized long getSmoothedRttMicros() {
+        return (long) srtt;
+    }
+
+    public synchronized int getTimeoutMillis() {
+        return (int) Math.max(1, timeoutMicros / 1000);
+    }
+
+    public synchronized long getTimeoutNanos() {
+        return timeoutMicros * 1000;
+    }
+}
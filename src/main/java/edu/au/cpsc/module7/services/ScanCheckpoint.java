@@ -0,0 +1,351 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import edu.au.cpsc.module7.models.NetworkHost.PortState;
+import edu.au.cpsc.module7.models.NetworkHost.Protocol;
+import edu.au.cpsc.module7.models.PortStateBitmap;
+import edu.au.cpsc.module7.models.ScanConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Progress of one network scan that can be written to disk and picked up again after
+ * the scan is stopped or the application dies. It records how far the target sweep
+ * got, which swept addresses were still in flight, and every discovered host with
+ * its port states so far. Hosts whose detection phases completed are not scanned again;
+ * the others only have their unprobed ports scanned on resume.
+ *
+ * Saves happen on the thread driving the scan, which is also the only thread that
+ * advances the target iterator, so the saved position never runs ahead of the pending set.
+ */
+public class ScanCheckpoint {
+    private static final Logger logger = Logger.getLogger(ScanCheckpoint.class.getName());
+
+    private static final int MAGIC = 0x4E41434B; // "NACK"
+    private static final int VERSION = 2;
+    private static final long SAVE_INTERVAL_NANOS = 10_000_000_000L; // 10s
+    private static final Protocol[] PROTOCOLS = Protocol.values();
+    private static final PortState[] STATES = PortState.values();
+
+    /**
+     * Stage the scan had reached, in order
+     */
+    public enum Phase {
+        ARP_SWEEP,    // Not resumable mid-way; re-run from the start
+        TARGET_SWEEP, // Resumes at the saved iterator position
+        HOST_SCANS    // Discovery done, only unfinished hosts remain
+    }
+
+    private final Path file;
+    private final ScanConfiguration config;
+    private final long seed;
+    private volatile Phase phase;
+    private TargetSpec.TargetIterator iterator;
+    private long resumePosition;
+    private long resumeCursor;
+    private final Set<Integer> pendingAddresses = ConcurrentHashMap.newKeySet();
+    private final Map<String, NetworkHost> hosts = new ConcurrentHashMap<>();
+    private final Set<String> finishedHosts = ConcurrentHashMap.newKeySet();
+    private long lastSaveNanos = System.nanoTime();
+
+    private ScanCheckpoint(Path file, ScanConfiguration config, long seed, Phase phase) {
+        this.file = file;
+        this.config = config;
+        this.seed = seed;
+        this.phase = phase;
+    }
+
+    /**
+     * Starts tracking a new scan that will be checkpointed to the given file
+     */
+    public static ScanCheckpoint start(Path file, ScanConfiguration config) {
+        Phase phase = config.getScanType() == ScanConfiguration.ScanType.PORT_SCAN ? Phase.TARGET_SWEEP : Phase.ARP_SWEEP;
+        return new ScanCheckpoint(file, config, System.nanoTime(), phase);
+    }
+
+    public ScanConfiguration getConfiguration() { return config; }
+    public Phase getPhase() { return phase; }
+    public void setPhase(Phase phase) { this.phase = phase; }
+
+    /**
+     * Iterator over the targets that continues from the saved position; the checkpoint
+     * reads its position on every save, so only the scan thread may advance it
+     */
+    public TargetSpec.TargetIterator iterator(TargetSpec targets) {
+        if (config.isRandomizeTargetOrder()) {
+            iterator = resumePosition > 0
+                ? targets.shuffledIterator(seed, resumePosition, resumeCursor)
+                : targets.shuffledIterator(seed);
+        } else {
+            iterator = targets.iterator(resumePosition);
+        }
+        return iterator;
+    }
+
+    /**
+     * Addresses that were swept but had not answered or timed out at the last save; they stay
+     * pending until probed again
+     */
+    public List<Integer> getPendingAddresses() {
+        return new ArrayList<>(pendingAddresses);
+    }
+
+    public void addressDispatched(int address) { pendingAddresses.add(address); }
+    public void addressCompleted(int address) { pendingAddresses.remove(address); }
+
+    public void hostDiscovered(NetworkHost host) { hosts.putIfAbsent(host.getIpAddress(), host); }
+    public void hostFinished(NetworkHost host) { finishedHosts.add(host.getIpAddress()); }
+    public boolean isFinished(NetworkHost host) { return finishedHosts.contains(host.getIpAddress()); }
+
+    public Collection<NetworkHost> getHosts() { return hosts.values(); }
+
+    public boolean isKnownAddress(String ipAddress) { return hosts.containsKey(ipAddress); }
+
+    /**
+     * Saves if the last save was long enough ago; call from the scan thread
+     */
+    public void saveIfDue() {
+        if (System.nanoTime() - lastSaveNanos >= SAVE_INTERVAL_NANOS) {
+            save();
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file and moves it over the previous one, so a
+     * crash mid-write leaves the last good checkpoint in place
+     */
+    public synchronized void save() {
+        lastSaveNanos = System.nanoTime();
+        // A cancelled scan thread is interrupted, which would close the file channel under us
+        boolean interrupted = Thread.interrupted();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                write(out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to save scan checkpoint", e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Removes the checkpoint once the scan has completed
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to delete scan checkpoint", e);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        out.writeUTF(config.getTargetRange());
+        out.writeUTF(config.getScanType().name());
+        out.writeUTF(config.getPortScanType().name());
+        out.writeUTF(config.getExecutionMode().name());
+        List<Integer> ports = config.getPorts();
+        out.writeInt(ports.size());
+        for (int port : ports) {
+            out.writeShort(port);
+        }
+        out.writeInt(config.getTimeout());
+        out.writeInt(config.getThreads());
+        out.writeInt(config.getMaxConcurrentProbes());
+        out.writeInt(config.getSynPacketsPerSecond());
+        out.writeInt(config.getMaxPacketsPerSecond());
+        out.writeBoolean(config.isAdaptiveRate());
+        out.writeBoolean(config.isRandomizeTargetOrder());
+        out.writeBoolean(config.isResolveHostnames());
+        out.writeBoolean(config.isDetectServices());
+        out.writeBoolean(config.isDetectOS());
+        out.writeBoolean(config.isPerformTraceroute());
+
+        out.writeLong(seed);
+        out.writeUTF(phase.name());
+        out.writeLong(iterator != null ? iterator.position() : resumePosition);
+        out.writeLong(iterator != null ? iterator.cursor() : resumeCursor);
+        // Read after the iterator so every address it has passed is either pending or already recorded
+        List<Integer> pending = new ArrayList<>(pendingAddresses);
+        out.writeInt(pending.size());
+        for (int address : pending) {
+            out.writeInt(address);
+        }
+
+        List<NetworkHost> snapshot = new ArrayList<>(hosts.values());
+        out.writeInt(snapshot.size());
+        for (NetworkHost host : snapshot) {
+            writeHost(host, out);
+        }
+    }
+
+    private void writeHost(NetworkHost host, DataOutputStream out) throws IOException {
+        out.writeUTF(host.getIpAddress());
+        writeNullableString(host.getHostname(), out);
+        writeNullableString(host.getMacAddress(), out);
+        writeNullableString(host.getVendor(), out);
+        writeNullableString(host.getOsGuess(), out);
+        out.writeLong(host.getResponseTime());
+        out.writeLong(host.getResponseTimeMicros());
+        out.writeBoolean(finishedHosts.contains(host.getIpAddress()));
+
+        List<String> services = new ArrayList<>(host.getServices());
+        out.writeInt(services.size());
+        for (String service : services) {
+            out.writeUTF(service);
+        }
+
+        // Only non-zero words of each port bitmap, as (index, word) pairs
+        for (Protocol protocol : PROTOCOLS) {
+            for (PortState state : STATES) {
+                if (!host.hasPorts(protocol, state)) {
+                    out.writeShort(0);
+                    continue;
+                }
+                long[] words = host.getPortBitmap(protocol, state).toLongArray();
+                int nonZero = 0;
+                for (long word : words) {
+                    if (word != 0) {
+                        nonZero++;
+                    }
+                }
+                out.writeShort(nonZero);
+                for (int i = 0; i < words.length; i++) {
+                    if (words[i] != 0) {
+                        out.writeShort(i);
+                        out.writeLong(words[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a saved checkpoint, or returns null if there is none
+     */
+    public static ScanCheckpoint load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a scan checkpoint: " + file);
+            }
+
+            ScanConfiguration config = new ScanConfiguration();
+            config.setTargetRange(in.readUTF());
+            config.setScanType(ScanConfiguration.ScanType.valueOf(in.readUTF()));
+            config.setPortScanType(ScanConfiguration.PortScanType.valueOf(in.readUTF()));
+            config.setExecutionMode(ScanConfiguration.ExecutionMode.valueOf(in.readUTF()));
+            int portCount = in.readInt();
+            List<Integer> ports = new ArrayList<>(portCount);
+            for (int i = 0; i < portCount; i++) {
+                ports.add(in.readUnsignedShort());
+            }
+            config.setPorts(ports);
+            config.setTimeout(in.readInt());
+            config.setThreads(in.readInt());
+            config.setMaxConcurrentProbes(in.readInt());
+            config.setSynPacketsPerSecond(in.readInt());
+            config.setMaxPacketsPerSecond(in.readInt());
+            config.setAdaptiveRate(in.readBoolean());
+            config.setRandomizeTargetOrder(in.readBoolean());
+            config.setResolveHostnames(in.readBoolean());
+            config.setDetectServices(in.readBoolean());
+            config.setDetectOS(in.readBoolean());
+            config.setPerformTraceroute(in.readBoolean());
+
+            ScanCheckpoint checkpoint = new ScanCheckpoint(file, config, in.readLong(), Phase.valueOf(in.readUTF()));
+            checkpoint.resumePosition = in.readLong();
+            checkpoint.resumeCursor = in.readLong();
+            int pendingCount = in.readInt();
+            for (int i = 0; i < pendingCount; i++) {
+                checkpoint.pendingAddresses.add(in.readInt());
+            }
+
+            int hostCount = in.readInt();
+            for (int i = 0; i < hostCount; i++) {
+                checkpoint.readHost(in);
+            }
+            return checkpoint;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt scan checkpoint: " + file, e);
+        }
+    }
+
+    private void readHost(DataInputStream in) throws IOException {
+        NetworkHost host = new NetworkHost(in.readUTF());
+        host.setAlive(true);
+        host.setHostname(readNullableString(in));
+        host.setMacAddress(readNullableString(in));
+        host.setVendor(readNullableString(in));
+        host.setOsGuess(readNullableString(in));
+        host.setResponseTime(in.readLong());
+        long responseTimeMicros = in.readLong();
+        if (responseTimeMicros >= 0) {
+            host.setResponseTimeMicros(responseTimeMicros);
+        }
+        if (in.readBoolean()) {
+            finishedHosts.add(host.getIpAddress());
+        }
+
+        int serviceCount = in.readInt();
+        for (int i = 0; i < serviceCount; i++) {
+            host.addService(in.readUTF());
+        }
+
+        for (Protocol protocol : PROTOCOLS) {
+            for (PortState state : STATES) {
+                int nonZero = in.readUnsignedShort();
+                if (nonZero == 0) {
+                    continue;
+                }
+                long[] words = new long[PortStateBitmap.WORD_COUNT];
+                for (int w = 0; w < nonZero; w++) {
+                    words[in.readUnsignedShort()] = in.readLong();
+                }
+                PortStateBitmap.fromLongArray(words).forEach(port -> host.setPortState(protocol, port, state));
+            }
+        }
+        hosts.put(host.getIpAddress(), host);
+    }
+
+    private static void writeNullableString(String value, DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,252 @@
+package edu.au.cpsc.module7.services;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Paces probes across all scan engines with a token bucket whose rate adapts AIMD-style:
+ * it grows while replies keep coming back promptly and halves when the timeout ratio
+ * climbs or RTTs inflate, never exceeding the configured packets-per-second ceiling.
+ *
+ * Windows in which nothing answered at all hold the current rate, since a silent
+ * firewalled range says nothing about congestion. For the same reason, timeouts from a
+ * host that has already answered other probes are filtered ports rather than loss, and
+ * loss is judged against the lowest ratio of the last few windows so a steady share of
+ * unanswered probes becomes the baseline.
+ */
+public class ScanRateController {
+    private static final Logger logger = Logger.getLogger(ScanRateController.class.getName());
+
+    private static final double INITIAL_RATE = 100;
+    private static final double MIN_RATE = 10;
+    private static final int WINDOW_SAMPLES = 64;
+    private static final long MIN_WINDOW_NANOS = 100_000_000L; // 100ms
+    private static final double LOSS_THRESHOLD = 0.10;
+    private static final int LOSS_HISTORY = 8; // Windows the loss baseline is taken over
+    private static final double RTT_INFLATION_LIMIT = 3.0;
+    private static final long RTT_INFLATION_SLACK_MICROS = 5_000; // Ignore jitter on sub-millisecond paths
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double BURST_SECONDS = 0.01;
+    private static final int RTT_SAMPLES = 256; // Must be a power of two
+
+    private final double maxRate;
+    private final boolean adaptive;
+    private final LongSupplier clock;
+
+    // Token bucket
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    // Congestion state
+    private double slowStartThreshold = Double.MAX_VALUE;
+    private final double[] recentLoss = new double[LOSS_HISTORY];
+    private int recentLossCount;
+    private long baselineRttMicros = Long.MAX_VALUE;
+    private int windowResponses;
+    private int windowTimeouts;
+    private long windowStartNanos;
+    private final long[] rttSamples = new long[RTT_SAMPLES];
+    private int rttCount;
+
+    // Totals for metrics
+    private long sent;
+    private long responses;
+    private long timeouts;
+    private long decreases;
+
+    /**
+     * Creates a controller capped at maxPacketsPerSecond; non-adaptive controllers
+     * simply pace at the ceiling
+     */
+    public ScanRateController(int maxPacketsPerSecond, boolean adaptive) {
+        this(maxPacketsPerSecond, adaptive, System::nanoTime);
+    }
+
+    /**
+     * @param clock nanosecond time source, replaced in tests to step through windows
+     */
+    ScanRateController(int maxPacketsPerSecond, boolean adaptive, LongSupplier clock) {
+        this.maxRate = Math.max(MIN_RATE, maxPacketsPerSecond);
+        this.adaptive = adaptive;
+        this.clock = clock;
+        this.rate = adaptive ? Math.min(INITIAL_RATE, maxRate) : maxRate;
+        this.tokens = 1;
+        this.lastRefillNanos = clock.getAsLong();
+        this.windowStartNanos = lastRefillNanos;
+    }
+
+    /**
+     * Blocks until the next probe may be sent
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = reserve()) > 0) {
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Takes a send slot if one is available right now, for callers that cannot block
+     */
+    public boolean tryAcquire() {
+        return reserve() == 0;
+    }
+
+    /**
+     * Takes a token and returns 0, or returns how long until one is available
+     */
+    private synchronized long reserve() {
+        long now = clock.getAsLong();
+        double burst = Math.max(1, rate * BURST_SECONDS);
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * rate / 1_000_000_000L);
+        lastRefillNanos = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            sent++;
+            return 0;
+        }
+        return Math.max(1, (long) ((1 - tokens) * 1_000_000_000L / rate));
+    }
+
+    /**
+     * Records a probe that drew a reply (open, closed or echo) after the given round trip
+     */
+    public synchronized void onResponse(long rttMicros) {
+        responses++;
+        windowResponses++;
+        if (rttMicros >= 0) {
+            rttSamples[rttCount++ & (RTT_SAMPLES - 1)] = rttMicros;
+        }
+        evaluateWindow();
+    }
+
+    /**
+     * Records a probe that timed out without any reply
+     */
+    public void onTimeout() {
+        onTimeout(false);
+    }
+
+    /**
+     * Records a probe that timed out; when the host has answered other probes the silence
+     * is a filtered port, counted in the totals but not as loss
+     */
+    public synchronized void onTimeout(boolean hostAnswered) {
+        timeouts++;
+        if (hostAnswered) {
+            return;
+        }
+        windowTimeouts++;
+        evaluateWindow();
+    }
+
+    private void evaluateWindow() {
+        int samples = windowResponses + windowTimeouts;
+        long now = clock.getAsLong();
+        if (samples < WINDOW_SAMPLES || now - windowStartNanos < MIN_WINDOW_NANOS) {
+            return;
+        }
+
+        if (adaptive && windowResponses > 0) {
+            double loss = (double) windowTimeouts / samples;
+            long p50 = percentile(0.50);
+            long p95 = percentile(0.95);
+            if (p50 > 0) {
+                baselineRttMicros = Math.min(baselineRttMicros, p50);
+            }
+
+            boolean lossy = loss > lossFloor() + LOSS_THRESHOLD;
+            boolean inflated = p95 > 0 && baselineRttMicros != Long.MAX_VALUE
+                && p95 > baselineRttMicros * RTT_INFLATION_LIMIT + RTT_INFLATION_SLACK_MICROS;
+            recentLoss[recentLossCount++ % LOSS_HISTORY] = loss;
+
+            if (lossy || inflated) {
+                slowStartThreshold = Math.max(MIN_RATE, rate * DECREASE_FACTOR);
+                rate = slowStartThreshold;
+                decreases++;
+                logger.fine(String.format("Scan rate decreased to %.0f pps (loss %.2f, p95 %d us)", rate, loss, p95));
+            } else if (rate < slowStartThreshold) {
+                rate = Math.min(maxRate, rate * 2);
+            } else {
+                rate = Math.min(maxRate, rate + Math.max(1, maxRate / 50));
+            }
+        }
+
+        windowResponses = 0;
+        windowTimeouts = 0;
+        windowStartNanos = now;
+    }
+
+    /**
+     * Lowest loss ratio among the recent windows, or 1 before the first one
+     */
+    private double lossFloor() {
+        double floor = 1.0;
+        for (int i = 0; i < Math.min(recentLossCount, LOSS_HISTORY); i++) {
+            floor = Math.min(floor, recentLoss[i]);
+        }
+        return floor;
+    }
+
+    private long percentile(double fraction) {
+        int count = Math.min(rttCount, RTT_SAMPLES);
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(rttSamples, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) (fraction * count))];
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(rate, maxRate, sent, responses, timeouts, decreases, percentile(0.50), percentile(0.95));
+    }
+
+    /**
+     * Point-in-time view of the controller for progress reporting
+     */
+    public static final class Metrics {
+        private final double currentRate;
+        private final double maxRate;
+        private final long sent;
+        private final long responses;
+        private final long timeouts;
+        private final long decreases;
+        private final long rttP50Micros;
+        private final long rttP95Micros;
+
+        Metrics(double currentRate, double maxRate, long sent, long responses, long timeouts, long decreases,
+                long rttP50Micros, long rttP95Micros) {
+            this.currentRate = currentRate;
+            this.maxRate = maxRate;
+            this.sent = sent;
+            this.responses = responses;
+            this.timeouts = timeouts;
+            this.decreases = decreases;
+            this.rttP50Micros = rttP50Micros;
+            this.rttP95Micros = rttP95Micros;
+        }
+
+        public double getCurrentRate() { return currentRate; }
+        public double getMaxRate() { return maxRate; }
+        public long getSent() { return sent; }
+        public long getResponses() { return responses; }
+        public long getTimeouts() { return timeouts; }
+        public long getDecreases() { return decreases; }
+        public long getRttP50Micros() { return rttP50Micros; }
+        public long getRttP95Micros() { return rttP95Micros; }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f/%.0f pps, %d sent, %d replies, %d timeouts, RTT p50 %.1f ms p95 %.1f ms",
+                currentRate, maxRate, sent, responses, timeouts, rttP50Micros / 1000.0, rttP95Micros / 1000.0);
+        }
+    }
+}
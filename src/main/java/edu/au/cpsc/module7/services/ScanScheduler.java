@@ -0,0 +1,247 @@
+package edu.au.cpsc.module7.services;
+
+import com.google.inject.Inject;
+import edu.au.cpsc.module7.models.ScanConfiguration.ExecutionMode;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared executor that scans run their per-host work on. Blocking probes go through
+ * {@link Session#probe}, which caps how many run at once per scan.
+ *
+ * In platform-thread mode work runs on a work-stealing pool that adds compensating
+ * threads while a probe waits on the network. In virtual-thread mode every task gets its
+ * own virtual thread, so only the probe limit bounds concurrency; on runtimes without
+ * virtual threads that mode falls back to the pool.
+ */
+public class ScanScheduler {
+    private static final Logger logger = Logger.getLogger(ScanScheduler.class.getName());
+
+    private static final int MAX_POOL_SIZE = 2048;
+
+    private final ForkJoinPool pool;
+    private ExecutorService virtualExecutor;
+    private boolean virtualExecutorChecked;
+
+    @Inject
+    public ScanScheduler() {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        // Saturating instead of rejecting means a full pool just stops compensating
+        this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true,
+            0, MAX_POOL_SIZE, 1, p -> true, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts tracking the tasks of one scan on the shared pool
+     */
+    public Session openSession(int maxConcurrentProbes) {
+        return openSession(maxConcurrentProbes, ExecutionMode.PLATFORM_THREADS);
+    }
+
+    /**
+     * Starts tracking the tasks of one scan, allowing at most maxConcurrentProbes blocking probes at a time
+     */
+    public Session openSession(int maxConcurrentProbes, ExecutionMode mode) {
+        if (mode == ExecutionMode.VIRTUAL_THREADS) {
+            ExecutorService executor = getVirtualExecutor();
+            if (executor != null) {
+                return new Session(Math.max(1, maxConcurrentProbes), executor, false);
+            }
+        }
+        return new Session(Math.max(1, maxConcurrentProbes), pool, true);
+    }
+
+    /**
+     * True when the running JVM can create virtual threads
+     */
+    public boolean isVirtualThreadSupported() {
+        return getVirtualExecutor() != null;
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor reflectively so the code
+     * still compiles and runs on releases before 21
+     */
+    private synchronized ExecutorService getVirtualExecutor() {
+        if (!virtualExecutorChecked) {
+            virtualExecutorChecked = true;
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                virtualExecutor = (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.info("Virtual threads are not available on Java " + Runtime.version().feature() +
+                    ", using the platform thread pool");
+            }
+        }
+        return virtualExecutor;
+    }
+
+    public synchronized void shutdown() {
+        pool.shutdownNow();
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Task group for a single scan
+     */
+    public class Session {
+        private final Semaphore probePermits;
+        private final Executor executor;
+        private final boolean managedBlocking;
+        private final AtomicInteger pendingTasks = new AtomicInteger();
+        private final Object idle = new Object();
+
+        private Session(int maxConcurrentProbes, Executor executor, boolean managedBlocking) {
+            this.probePermits = new Semaphore(maxConcurrentProbes);
+            this.executor = executor;
+            this.managedBlocking = managedBlocking;
+        }
+
+        /**
+         * True when tasks of this session run on virtual threads
+         */
+        public boolean isVirtual() {
+            return !managedBlocking;
+        }
+
+        /**
+         * Runs the task on the session's executor; {@link #awaitIdle()} waits for it
+         */
+        public void fork(Runnable task) {
+            pendingTasks.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Scan task failed", e);
+                } finally {
+                    if (pendingTasks.decrementAndGet() == 0) {
+                        synchronized (idle) {
+                            idle.notifyAll();
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * Runs a blocking network call under the session's concurrency limit
+         */
+        public <T> T probe(Callable<T> call) throws Exception {
+            // Waiting for a permit deliberately does not compensate, which keeps the
+            // pool's thread count near parallelism plus the probe limit
+            probePermits.acquire();
+            try {
+                if (!managedBlocking) {
+                    // A blocked virtual thread just unmounts from its carrier
+                    return call.call();
+                }
+                ProbeBlocker<T> blocker = new ProbeBlocker<>(call);
+                ForkJoinPool.managedBlock(blocker);
+                return blocker.result();
+            } finally {
+                probePermits.release();
+            }
+        }
+
+        /**
+         * Takes a probe permit without blocking, for event-driven engines that keep
+         * connections open across selector passes; pair with {@link #releaseProbe()}
+         */
+        public boolean tryAcquireProbe() {
+            return probePermits.tryAcquire();
+        }
+
+        public void releaseProbe() {
+            probePermits.release();
+        }
+
+        /**
+         * Waits for work running elsewhere without taking a probe permit, letting the pool
+         * compensate for the blocked thread
+         */
+        public <T> T await(Future<T> future) throws Exception {
+            if (!managedBlocking) {
+                return future.get();
+            }
+            ProbeBlocker<T> blocker = new ProbeBlocker<>(future::get);
+            ForkJoinPool.managedBlock(blocker);
+            return blocker.result();
+        }
+
+        /**
+         * Blocks until every forked task, including tasks forked by other tasks, has finished
+         */
+        public void awaitIdle() throws InterruptedException {
+            synchronized (idle) {
+                while (pendingTasks.get() > 0) {
+                    idle.wait(100);
+                }
+            }
+        }
+
+        /**
+         * Waits up to timeoutMillis for the session to go idle, returning true if it did
+         */
+        public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            synchronized (idle) {
+                long remaining;
+                while (pendingTasks.get() > 0) {
+                    if ((remaining = deadline - System.currentTimeMillis()) <= 0) {
+                        return false;
+                    }
+                    idle.wait(Math.min(100, remaining));
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class ProbeBlocker<T> implements ForkJoinPool.ManagedBlocker {
+        private final Callable<T> call;
+        private boolean done;
+        private T result;
+        private Exception failure;
+
+        ProbeBlocker(Callable<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                result = call.call();
+            } catch (Exception e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+
+        T result() throws Exception {
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package edu.au.cpsc.module7.services;
+
+import com.google.inject.Inject;
+import edu.au.cpsc.module7.models.NetworkHost;
+import edu.au.cpsc.module7.models.NetworkHost.PortState;
+import edu.au.cpsc.module7.models.NetworkHost.Protocol;
+import edu.au.cpsc.module7.models.PortStateBitmap;
+import edu.au.cpsc.module7.models.ScanDiff;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Append-only, memory-mapped history of scan results. Each scan is one record laid out
+ * in columns: the sorted host addresses, an offset table, then every host's port states
+ * as sparse bitmaps. Records are only ever appended, so earlier scans can be read from
+ * the mapping while new ones are written, and a record torn by a crash is dropped on open.
+ *
+ * Diffing two scans merges the address columns, so it is linear in the number of hosts;
+ * hosts whose encoded ports are byte-identical are skipped without decoding.
+ */
+public class ScanStore implements Closeable {
+    private static final Logger logger = Logger.getLogger(ScanStore.class.getName());
+
+    private static final String STORE_FILE = "scan-history.dat";
+    private static final int FILE_MAGIC = 0x4E415353; // "NASS"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int RECORD_MAGIC = 0x5343414E; // "SCAN", written last so torn records are detectable
+    private static final int RECORD_HEADER_BYTES = 28;
+    private static final int SUMMARY_WORDS = PortStateBitmap.WORD_COUNT / 64;
+    private static final Protocol[] PROTOCOLS = Protocol.values();
+    private static final PortState[] STATES = PortState.values();
+    private static final PortStateBitmap EMPTY = new PortStateBitmap();
+
+    private final Path file;
+    private FileChannel channel;
+    private long appendPosition;
+    private final List<Long> recordOffsets = new ArrayList<>();
+    private final List<String> recordTargets = new ArrayList<>();
+
+    @Inject
+    public ScanStore(SettingsService settingsService) {
+        this(settingsService.getSettingsDirectory().resolve(STORE_FILE));
+    }
+
+    ScanStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Appends a scan of the given target range and returns its id
+     */
+    public synchronized int append(String target, Collection<NetworkHost> hosts) throws IOException {
+        ensureOpen();
+
+        // Address column sorted as unsigned ints, duplicates dropped; keys stay non-negative so a plain sort works
+        long[] keys = new long[hosts.size()];
+        NetworkHost[] byIndex = hosts.toArray(new NetworkHost[0]);
+        int count = 0;
+        for (int i = 0; i < byIndex.length; i++) {
+            try {
+                keys[count++] = (TargetSpec.pack(byIndex[i].getIpAddress()) & 0xFFFFFFFFL) << 31 | i;
+            } catch (IllegalArgumentException e) {
+                count--;
+                logger.fine("Not storing non-IPv4 host " + byIndex[i].getIpAddress());
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        int[] addresses = new int[count];
+        NetworkHost[] sorted = new NetworkHost[count];
+        int hostCount = 0;
+        for (int i = 0; i < count; i++) {
+            int address = (int) (keys[i] >>> 31);
+            if (hostCount > 0 && addresses[hostCount - 1] == address) {
+                continue;
+            }
+            addresses[hostCount] = address;
+            sorted[hostCount++] = byIndex[(int) (keys[i] & Integer.MAX_VALUE)];
+        }
+
+        ByteArrayOutputStream portBytes = new ByteArrayOutputStream();
+        DataOutputStream portColumn = new DataOutputStream(portBytes);
+        int[] portOffsets = new int[hostCount + 1];
+        for (int i = 0; i < hostCount; i++) {
+            portOffsets[i] = portColumn.size();
+            writePorts(sorted[i], portColumn);
+        }
+        portOffsets[hostCount] = portColumn.size();
+        portColumn.flush();
+
+        byte[] targetBytes = (target != null ? target : "").getBytes(StandardCharsets.UTF_8);
+        int portSectionOffset = RECORD_HEADER_BYTES + targetBytes.length + hostCount * 4 + (hostCount + 1) * 4;
+        long length = (long) portSectionOffset + portColumn.size();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Scan too large to store: " + length + " bytes");
+        }
+
+        MappedByteBuffer record = channel.map(FileChannel.MapMode.READ_WRITE, appendPosition, length);
+        record.putInt(0); // Magic goes in once the rest is durable
+        record.putInt((int) length);
+        record.putLong(System.currentTimeMillis());
+        record.putInt(hostCount);
+        record.putInt(targetBytes.length);
+        record.putInt(portSectionOffset);
+        record.put(targetBytes);
+        for (int i = 0; i < hostCount; i++) {
+            record.putInt(addresses[i]);
+        }
+        for (int offset : portOffsets) {
+            record.putInt(offset);
+        }
+        record.put(portBytes.toByteArray());
+        record.force();
+        record.putInt(0, RECORD_MAGIC);
+        record.force();
+
+        recordOffsets.add(appendPosition);
+        recordTargets.add(target != null ? target : "");
+        appendPosition += length;
+        return recordOffsets.size() - 1;
+    }
+
+    public synchronized int getScanCount() throws IOException {
+        ensureOpen();
+        return recordOffsets.size();
+    }
+
+    /**
+     * Id of the latest scan of the same target range before the given scan, or -1
+     */
+    public synchronized int findPreviousScan(String target, int beforeScanId) throws IOException {
+        ensureOpen();
+        String key = target != null ? target : "";
+        for (int id = Math.min(beforeScanId, recordOffsets.size()) - 1; id >= 0; id--) {
+            if (recordTargets.get(id).equals(key)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public synchronized ScanRecord getScan(int scanId) throws IOException {
+        ensureOpen();
+        if (scanId < 0 || scanId >= recordOffsets.size()) {
+            throw new IllegalArgumentException("No scan with id " + scanId);
+        }
+        long offset = recordOffsets.get(scanId);
+        long end = scanId + 1 < recordOffsets.size() ? recordOffsets.get(scanId + 1) : appendPosition;
+        // Records never change once written, so the mapping stays valid while later scans are appended
+        return new ScanRecord(scanId, channel.map(FileChannel.MapMode.READ_ONLY, offset, end - offset));
+    }
+
+    /**
+     * Compares two scans, reporting what changed going from the first to the second
+     */
+    public ScanDiff diff(int fromScanId, int toScanId) throws IOException {
+        ScanRecord from = getScan(fromScanId);
+        ScanRecord to = getScan(toScanId);
+        ScanDiff diff = new ScanDiff(fromScanId, toScanId);
+
+        int i = 0;
+        int j = 0;
+        while (i < from.getHostCount() || j < to.getHostCount()) {
+            int order;
+            if (i == from.getHostCount()) {
+                order = 1;
+            } else if (j == to.getHostCount()) {
+                order = -1;
+            } else {
+                order = Integer.compareUnsigned(from.getPackedAddress(i), to.getPackedAddress(j));
+            }
+
+            if (order < 0) {
+                diff.addGoneHost(from.getAddress(i++));
+            } else if (order > 0) {
+                diff.addNewHost(to.getAddress(j++));
+            } else {
+                if (!from.portSection(i).equals(to.portSection(j))) {
+                    diffPorts(from.getAddress(i), from.decodePorts(i), to.decodePorts(j), diff);
+                }
+                i++;
+                j++;
+            }
+        }
+        return diff;
+    }
+
+    private static void diffPorts(String ipAddress, PortStateBitmap[] before, PortStateBitmap[] after, ScanDiff diff) {
+        for (Protocol protocol : PROTOCOLS) {
+            PortStateBitmap scannedAfter = EMPTY;
+            for (PortState state : STATES) {
+                int slot = slot(protocol, state);
+                PortStateBitmap changed = after[slot].andNot(before[slot]);
+                changed.forEach(port -> diff.addPortChange(
+                    new ScanDiff.PortChange(ipAddress, protocol, port, stateOf(before, protocol, port), state)));
+                scannedAfter = scannedAfter.or(after[slot]);
+            }
+            // Ports that had a state before but were not probed this time
+            for (PortState state : STATES) {
+                before[slot(protocol, state)].andNot(scannedAfter).forEach(port -> diff.addPortChange(
+                    new ScanDiff.PortChange(ipAddress, protocol, port, state, null)));
+            }
+        }
+    }
+
+    private static PortState stateOf(PortStateBitmap[] bitmaps, Protocol protocol, int port) {
+        for (PortState state : STATES) {
+            if (bitmaps[slot(protocol, state)].get(port)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes a slot mask, then for each present slot a summary of non-zero words followed by those words
+     */
+    private static void writePorts(NetworkHost host, DataOutputStream out) throws IOException {
+        int mask = 0;
+        for (Protocol protocol : PROTOCOLS) {
+            for (PortState state : STATES) {
+                if (host.hasPorts(protocol, state)) {
+                    mask |= 1 << slot(protocol, state);
+                }
+            }
+        }
+        out.writeByte(mask);
+
+        long[] summary = new long[SUMMARY_WORDS];
+        for (int slot = 0; slot < PROTOCOLS.length * STATES.length; slot++) {
+            if ((mask & (1 << slot)) == 0) {
+                continue;
+            }
+            PortStateBitmap bitmap = host.getPortBitmap(PROTOCOLS[slot / STATES.length], STATES[slot % STATES.length]);
+            long[] words = bitmap.toLongArray();
+            Arrays.fill(summary, 0);
+            for (int w = 0; w < words.length; w++) {
+                if (words[w] != 0) {
+                    summary[w >>> 6] |= 1L << w;
+                }
+            }
+            for (long s : summary) {
+                out.writeLong(s);
+            }
+            for (long word : words) {
+                if (word != 0) {
+                    out.writeLong(word);
+                }
+            }
+        }
+    }
+
+    private static int slot(Protocol protocol, PortState state) {
+        return protocol.ordinal() * STATES.length + state.ordinal();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < FILE_HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(FILE_MAGIC).putInt(FILE_VERSION);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            appendPosition = FILE_HEADER_BYTES;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        channel.read(header, 0);
+        if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FILE_VERSION) {
+            channel.close();
+            channel = null;
+            throw new IOException("Not a scan history file: " + file);
+        }
+
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        long position = FILE_HEADER_BYTES;
+        while (size - position >= RECORD_HEADER_BYTES) {
+            recordHeader.clear();
+            channel.read(recordHeader, position);
+            int length = recordHeader.getInt(4);
+            if (recordHeader.getInt(0) != RECORD_MAGIC || length < RECORD_HEADER_BYTES || position + length > size) {
+                break;
+            }
+            byte[] target = new byte[recordHeader.getInt(20)];
+            channel.read(ByteBuffer.wrap(target), position + RECORD_HEADER_BYTES);
+            recordOffsets.add(position);
+            recordTargets.add(new String(target, StandardCharsets.UTF_8));
+            position += length;
+        }
+        if (position != size) {
+            logger.warning("Discarding " + (size - position) + " bytes of incomplete scan history in " + file);
+            channel.truncate(position);
+        }
+        appendPosition = position;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            recordOffsets.clear();
+            recordTargets.clear();
+        }
+    }
+
+    /**
+     * Read-only view of one stored scan, backed by the file mapping
+     */
+    public static final class ScanRecord {
+        private final int scanId;
+        private final ByteBuffer record;
+        private final int hostCount;
+        private final int addressOffset;
+        private final int portOffsetTable;
+        private final int portSectionOffset;
+
+        private ScanRecord(int scanId, ByteBuffer record) {
+            this.scanId = scanId;
+            this.record = record;
+            this.hostCount = record.getInt(16);
+            this.addressOffset = RECORD_HEADER_BYTES + record.getInt(20);
+            this.portOffsetTable = addressOffset + hostCount * 4;
+            this.portSectionOffset = record.getInt(24);
+        }
+
+        public int getScanId() { return scanId; }
+        public long getTimestamp() { return record.getLong(8); }
+        public int getHostCount() { return hostCount; }
+
+        public String getTarget() {
+            byte[] target = new byte[record.getInt(20)];
+            record.duplicate().position(RECORD_HEADER_BYTES).get(target);
+            return new String(target, StandardCharsets.UTF_8);
+        }
+
+        public int getPackedAddress(int index) {
+            return record.getInt(addressOffset + index * 4);
+        }
+
+        public String getAddress(int index) {
+            return TargetSpec.format(getPackedAddress(index));
+        }
+
+        /**
+         * Rebuilds the stored host with its port states
+         */
+        public NetworkHost toHost(int index) {
+            NetworkHost host = new NetworkHost(getAddress(index));
+            host.setAlive(true);
+            PortStateBitmap[] bitmaps = decodePorts(index);
+            for (Protocol protocol : PROTOCOLS) {
+                for (PortState state : STATES) {
+                    bitmaps[slot(protocol, state)].forEach(port -> host.setPortState(protocol, port, state));
+                }
+            }
+            return host;
+        }
+
+        private ByteBuffer portSection(int index) {
+            int start = portSectionOffset + record.getInt(portOffsetTable + index * 4);
+            int end = portSectionOffset + record.getInt(portOffsetTable + (index + 1) * 4);
+            ByteBuffer section = record.duplicate();
+            section.position(start).limit(end);
+            return section;
+        }
+
+        /**
+         * Port bitmaps for every protocol and state, with EMPTY for states that had no ports
+         */
+        private PortStateBitmap[] decodePorts(int index) {
+            PortStateBitmap[] bitmaps = new PortStateBitmap[PROTOCOLS.length * STATES.length];
+            Arrays.fill(bitmaps, EMPTY);
+            ByteBuffer section = portSection(index);
+            int mask = section.get() & 0xFF;
+            for (int slot = 0; slot < bitmaps.length; slot++) {
+                if ((mask & (1 << slot)) == 0) {
+                    continue;
+                }
+                long[] summary = new long[SUMMARY_WORDS];
+                for (int s = 0; s < SUMMARY_WORDS; s++) {
+                    summary[s] = section.getLong();
+                }
+                long[] words = new long[PortStateBitmap.WORD_COUNT];
+                for (int s = 0; s < SUMMARY_WORDS; s++) {
+                    for (long bits = summary[s]; bits != 0; bits &= bits - 1) {
+                        words[(s << 6) + Long.numberOfTrailingZeros(bits)] = section.getLong();
+                    }
+                }
+                bitmaps[slot] = PortStateBitmap.fromLongArray(words);
+            }
+            return bitmaps;
+        }
+    }
+}
@@ -0,0 +1,559 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies the services behind open ports from what they say. One selector thread
+ * per scan connects to each port, sends a protocol probe where the service waits for
+ * the client (HTTP, a TLS ClientHello, Redis PING) or listens for a greeting, reads at
+ * most {@link #READ_BUDGET} bytes into a pooled buffer and matches them against a
+ * signature set compiled once. Ports that stay silent are nudged with an HTTP request.
+ *
+ * Every open connection holds one of the scan session's probe permits and new ones are
+ * paced by the scan's rate controller, so fingerprinting never exceeds the limits the
+ * port scan runs under.
+ */
+public class ServiceFingerprinter implements Closeable {
+    private static final Logger logger = Logger.getLogger(ServiceFingerprinter.class.getName());
+
+    private static final int READ_BUDGET = 4096;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final long TICK_MILLIS = 10;
+
+    /**
+     * What to send once connected
+     */
+    private enum Probe {
+        BANNER(null), // Server speaks first; nudged with HTTP if it stays silent
+        HTTP("GET / HTTP/1.0\r\nUser-Agent: Mozilla/5.0\r\nAccept: */*\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1)),
+        TLS(buildClientHello()),
+        REDIS("PING\r\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        final byte[] payload;
+
+        Probe(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+
+    private static final Map<Integer, Probe> PROBES_BY_PORT = new HashMap<>();
+    static {
+        for (int port : new int[] { 80, 81, 591, 3000, 5000, 8000, 8008, 8080, 8081, 8888, 9000 }) {
+            PROBES_BY_PORT.put(port, Probe.HTTP);
+        }
+        for (int port : new int[] { 443, 465, 636, 853, 993, 995, 3269, 5986, 8443, 9443 }) {
+            PROBES_BY_PORT.put(port, Probe.TLS);
+        }
+        PROBES_BY_PORT.put(6379, Probe.REDIS);
+    }
+
+    /**
+     * Banner pattern; a first byte of -1 means the signature can match any banner. A
+     * signature with an end pattern only counts once that is found, or once the server
+     * closes or the read budget is spent, so a product named further in is not missed.
+     */
+    private static final class Signature {
+        final String service;
+        final int firstByte;
+        final Pattern pattern;
+        final int productGroup;
+        final Pattern end;
+
+        Signature(String service, int firstByte, String regex, int productGroup) {
+            this(service, firstByte, regex, productGroup, null);
+        }
+
+        Signature(String service, int firstByte, String regex, int productGroup, String endRegex) {
+            this.service = service;
+            this.firstByte = firstByte;
+            this.pattern = Pattern.compile(regex, Pattern.DOTALL);
+            this.productGroup = productGroup;
+            this.end = endRegex != null ? Pattern.compile(endRegex) : null;
+        }
+    }
+
+    private static final Signature[] SIGNATURES = {
+        new Signature("SSH", 'S', "SSH-[\\d.]+-(\\S+)", 1),
+        // Server header anywhere in the header block, which ends at the first empty line
+        new Signature("HTTP", 'H', "HTTP/1\\.[01] \\d{3}(?:[^\\r\\n]*\\r?\\n(?:[^\\r\\n]+\\r?\\n)*?(?i:server):[ \\t]*([^\\r\\n]+))?",
+                      1, "\\r?\\n\\r?\\n"),
+        new Signature("TLS", 0x16, "\\x16\\x03[\\x00-\\x04]", 0),
+        new Signature("TLS", 0x15, "\\x15\\x03[\\x00-\\x04]", 0),
+        new Signature("FTP", '2', "220[ -]([^\\r\\n]*(?i:ftp)[^\\r\\n]*)", 1),
+        new Signature("SMTP", '2', "220[ -]([^\\r\\n]*(?i:smtp|mail|postfix|exim|sendmail)[^\\r\\n]*)", 1),
+        new Signature("POP3", '+', "\\+OK([^\\r\\n]*)", 1),
+        new Signature("IMAP", '*', "\\* OK([^\\r\\n]*)", 1),
+        new Signature("Redis", '+', "\\+PONG", 0),
+        new Signature("Redis", '-', "-(?:NOAUTH|DENIED)", 0),
+        new Signature("VNC", 'R', "RFB (\\d{3}\\.\\d{3})", 1),
+        new Signature("Telnet", 0xFF, "\\xff[\\xfb-\\xfe]", 0),
+        new Signature("MySQL", -1, ".{3}\\x00\\x0a([0-9][^\\x00]*)\\x00", 1),
+        new Signature("FTP/SMTP", '2', "220[ -]([^\\r\\n]*)", 1)
+    };
+
+    // Signature indices to try for each first byte, in declaration order
+    private static final int[][] SIGNATURES_BY_FIRST_BYTE = new int[256][];
+    static {
+        for (int b = 0; b < 256; b++) {
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = 0; i < SIGNATURES.length; i++) {
+                if (SIGNATURES[i].firstByte == -1 || SIGNATURES[i].firstByte == b) {
+                    candidates.add(i);
+                }
+            }
+            SIGNATURES_BY_FIRST_BYTE[b] = candidates.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private final ScanScheduler.Session session;
+    private final ScanRateController rateController;
+    private final long timeoutNanos;
+    private final long bannerWaitNanos;
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<HostJob> submissions = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private boolean closed;
+
+    // Selector thread state
+    private final ArrayDeque<Connection> pending = new ArrayDeque<>();
+    private final ArrayDeque<Connection> deadlines = new ArrayDeque<>();
+    private final ArrayDeque<Connection> nudges = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> bufferPool = new ArrayDeque<>();
+    private final SignatureMatcher signatures = new SignatureMatcher();
+
+    /**
+     * Starts the selector thread; connections share the session's probe permits and the rate controller
+     */
+    public ServiceFingerprinter(ScanScheduler.Session session, ScanRateController rateController,
+                                int timeoutMillis) throws IOException {
+        this.session = session;
+        this.rateController = rateController;
+        this.timeoutNanos = Math.max(1, timeoutMillis) * 1_000_000L;
+        this.bannerWaitNanos = timeoutNanos / 3;
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, "service-fingerprinter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Fingerprints the given ports of a host, blocking until all of them are done.
+     * Returns a service description per port that matched a signature.
+     */
+    public Map<Integer, String> fingerprint(NetworkHost host, List<Integer> ports) throws Exception {
+        if (ports.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        HostJob job = new HostJob(InetAddress.getByName(host.getIpAddress()), ports);
+        synchronized (this) {
+            if (closed) {
+                return Collections.emptyMap();
+            }
+            submissions.add(job);
+        }
+        selector.wakeup();
+        return session.await(job.future);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                HostJob job;
+                while ((job = submissions.poll()) != null) {
+                    for (int port : job.ports) {
+                        pending.add(new Connection(job, port, PROBES_BY_PORT.getOrDefault(port, Probe.BANNER)));
+                    }
+                }
+                startPending();
+
+                selector.select(TICK_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle((Connection) key.attachment(), key);
+                }
+                expire(System.nanoTime());
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Service fingerprinting stopped", e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void startPending() {
+        while (!pending.isEmpty() && session.tryAcquireProbe()) {
+            if (!rateController.tryAcquire()) {
+                session.releaseProbe();
+                return;
+            }
+            Connection connection = pending.poll();
+            connection.permitHeld = true;
+            connection.buffer = acquireBuffer();
+            connection.startNanos = System.nanoTime();
+            connection.deadlineNanos = connection.startNanos + timeoutNanos;
+            deadlines.add(connection);
+            try {
+                SocketChannel channel = SocketChannel.open();
+                connection.channel = channel;
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+                if (channel.connect(new InetSocketAddress(connection.job.address, connection.port))) {
+                    connection.key = channel.register(selector, 0, connection);
+                    onConnected(connection);
+                } else {
+                    connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                }
+            } catch (IOException e) {
+                finish(connection, null);
+            }
+        }
+    }
+
+    private void handle(Connection connection, SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                if (connection.channel.finishConnect()) {
+                    onConnected(connection);
+                }
+                return;
+            }
+            if (key.isWritable()) {
+                write(connection);
+            }
+            if (key.isReadable()) {
+                read(connection);
+            }
+        } catch (IOException e) {
+            // Reset or refused after the port scan saw it open; keep whatever was read
+            finish(connection, match(connection.buffer));
+        }
+    }
+
+    private void onConnected(Connection connection) throws IOException {
+        connection.connected = true;
+        rateController.onResponse((System.nanoTime() - connection.startNanos) / 1000L);
+        if (connection.probe.payload != null) {
+            connection.output = ByteBuffer.wrap(connection.probe.payload);
+            write(connection);
+        } else {
+            connection.key.interestOps(SelectionKey.OP_READ);
+            connection.nudgeNanos = System.nanoTime() + bannerWaitNanos;
+            nudges.add(connection);
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        connection.channel.write(connection.output);
+        connection.key.interestOps(connection.output.hasRemaining()
+            ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+            : SelectionKey.OP_READ);
+    }
+
+    private void read(Connection connection) throws IOException {
+        int read = connection.channel.read(connection.buffer);
+        // Nothing more is coming once the server closes or the budget is spent
+        boolean last = read < 0 || !connection.buffer.hasRemaining();
+        String service = signatures.match(connection.buffer, !last);
+        if (last || service != null) {
+            finish(connection, service);
+        }
+    }
+
+    private void expire(long now) {
+        Connection connection;
+        // Every connection gets the same budgets, so both queues are already in deadline order
+        while ((connection = deadlines.peek()) != null && (connection.done || connection.deadlineNanos <= now)) {
+            deadlines.poll();
+            if (!connection.done) {
+                if (!connection.connected) {
+                    rateController.onTimeout();
+                }
+                finish(connection, match(connection.buffer));
+            }
+        }
+        while ((connection = nudges.peek()) != null && (connection.done || connection.nudgeNanos <= now)) {
+            nudges.poll();
+            if (!connection.done && connection.buffer.position() == 0) {
+                connection.output = ByteBuffer.wrap(Probe.HTTP.payload);
+                try {
+                    write(connection);
+                } catch (IOException e) {
+                    finish(connection, null);
+                }
+            }
+        }
+    }
+
+    private String match(ByteBuffer buffer) {
+        return signatures.match(buffer, false);
+    }
+
+    private void finish(Connection connection, String service) {
+        if (connection.done) {
+            return;
+        }
+        connection.done = true;
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        if (connection.channel != null) {
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                // Ignore close failures
+            }
+        }
+        if (connection.buffer != null) {
+            releaseBuffer(connection.buffer);
+            connection.buffer = null;
+        }
+        if (connection.permitHeld) {
+            session.releaseProbe();
+        }
+
+        HostJob job = connection.job;
+        if (service != null) {
+            job.results.put(connection.port, service);
+        }
+        if (--job.remaining == 0) {
+            job.future.complete(job.results);
+        }
+    }
+
+    /**
+     * Completes every outstanding job with what it has so far
+     */
+    private void shutdown() {
+        synchronized (this) {
+            closed = true;
+        }
+        HostJob job;
+        while ((job = submissions.poll()) != null) {
+            job.future.complete(job.results);
+        }
+        for (Connection connection : deadlines) {
+            finish(connection, match(connection.buffer));
+        }
+        for (Connection connection : pending) {
+            finish(connection, null);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // Ignore close failures
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(READ_BUDGET);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+            buffer.clear();
+            bufferPool.push(buffer);
+        }
+    }
+
+    /**
+     * Minimal TLS 1.2 ClientHello with common suites; any ServerHello or alert identifies TLS
+     */
+    private static byte[] buildClientHello() {
+        int[] suites = { 0xC02F, 0xC030, 0xC02B, 0xC02C, 0xCCA8, 0xCCA9, 0x009C, 0x009D, 0x002F, 0x0035, 0x000A };
+        int[] groups = { 0x001D, 0x0017, 0x0018 };
+        int[] signatures = { 0x0403, 0x0503, 0x0603, 0x0804, 0x0805, 0x0806, 0x0401, 0x0501, 0x0601 };
+
+        ByteBuffer extensions = ByteBuffer.allocate(64);
+        extensions.putShort((short) 0x000A).putShort((short) (2 + groups.length * 2)).putShort((short) (groups.length * 2));
+        for (int group : groups) {
+            extensions.putShort((short) group);
+        }
+        extensions.putShort((short) 0x000B).putShort((short) 2).put((byte) 1).put((byte) 0);
+        extensions.putShort((short) 0x000D).putShort((short) (2 + signatures.length * 2)).putShort((short) (signatures.length * 2));
+        for (int signature : signatures) {
+            extensions.putShort((short) signature);
+        }
+        extensions.flip();
+
+        byte[] random = new byte[32];
+        new Random().nextBytes(random);
+        ByteBuffer hello = ByteBuffer.allocate(256);
+        hello.putShort((short) 0x0303).put(random).put((byte) 0);
+        hello.putShort((short) (suites.length * 2));
+        for (int suite : suites) {
+            hello.putShort((short) suite);
+        }
+        hello.put((byte) 1).put((byte) 0);
+        hello.putShort((short) extensions.remaining()).put(extensions);
+        hello.flip();
+
+        int length = hello.remaining();
+        ByteBuffer record = ByteBuffer.allocate(9 + length);
+        record.put((byte) 0x16).putShort((short) 0x0301).putShort((short) (4 + length));
+        record.put((byte) 0x01).put((byte) (length >>> 16)).putShort((short) length).put(hello);
+        return record.array();
+    }
+
+    private static final class HostJob {
+        final InetAddress address;
+        final List<Integer> ports;
+        final Map<Integer, String> results = new HashMap<>();
+        final CompletableFuture<Map<Integer, String>> future = new CompletableFuture<>();
+        int remaining;
+
+        HostJob(InetAddress address, List<Integer> ports) {
+            this.address = address;
+            this.ports = ports;
+            this.remaining = ports.size();
+        }
+    }
+
+    private static final class Connection {
+        final HostJob job;
+        final int port;
+        final Probe probe;
+        SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer buffer;
+        ByteBuffer output;
+        long startNanos;
+        long deadlineNanos;
+        long nudgeNanos;
+        boolean permitHeld;
+        boolean connected;
+        boolean done;
+
+        Connection(HostJob job, int port, Probe probe) {
+            this.job = job;
+            this.port = port;
+            this.probe = probe;
+        }
+    }
+
+    /**
+     * Matches banners against the signature table, reusing one matcher per signature;
+     * not thread-safe
+     */
+    static final class SignatureMatcher {
+        private final Matcher[] matchers = new Matcher[SIGNATURES.length];
+        private final Matcher[] endMatchers = new Matcher[SIGNATURES.length];
+        private final BannerSequence banner = new BannerSequence();
+
+        SignatureMatcher() {
+            for (int i = 0; i < SIGNATURES.length; i++) {
+                matchers[i] = SIGNATURES[i].pattern.matcher("");
+                if (SIGNATURES[i].end != null) {
+                    endMatchers[i] = SIGNATURES[i].end.matcher("");
+                }
+            }
+        }
+
+        /**
+         * Tries the signatures that can start with the banner's first byte against the
+         * bytes before the buffer's position
+         *
+         * @param more whether more bytes may still arrive; if so a signature whose end has
+         *             not been read yet matches nothing, so the caller waits for the rest
+         */
+        String match(ByteBuffer buffer, boolean more) {
+            if (buffer == null || buffer.position() == 0) {
+                return null;
+            }
+            banner.reset(buffer, buffer.position());
+            for (int index : SIGNATURES_BY_FIRST_BYTE[buffer.get(0) & 0xFF]) {
+                Matcher matcher = matchers[index].reset(banner);
+                if (matcher.lookingAt()) {
+                    Signature signature = SIGNATURES[index];
+                    if (more && signature.end != null && !endMatchers[index].reset(banner).find()) {
+                        return null;
+                    }
+                    String product = signature.productGroup > 0 ? matcher.group(signature.productGroup) : null;
+                    return product != null && !product.isBlank()
+                        ? signature.service + " (" + product.trim() + ")"
+                        : signature.service;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Latin-1 view of the bytes read so far, so signatures match without copying the banner
+     */
+    private static final class BannerSequence implements CharSequence {
+        private ByteBuffer buffer;
+        private int length;
+
+        void reset(ByteBuffer buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            for (int i = start; i < end; i++) {
+                bytes[i - start] = buffer.get(i);
+            }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+}
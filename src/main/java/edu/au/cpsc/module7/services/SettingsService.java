@@ -82,6 +82,14 @@ public class SettingsService {
         
         settings.putIfAbsent("hping3.path", "hping3");
         settings.putIfAbsent("nmap.path", "nmap");
+
+        settings.putIfAbsent("capture.ring.capacity", "8192");
+        settings.putIfAbsent("capture.decoder.threads", "2");
+        settings.putIfAbsent("capture.recording.enabled", "false");
+        settings.putIfAbsent("capture.recording.directory", getSettingsDirectory().resolve("recordings").toString());
+        settings.putIfAbsent("capture.recording.format", "pcapng");
+        settings.putIfAbsent("capture.recording.max.file.mb", "100");
+        settings.putIfAbsent("capture.recording.max.files", "10");
     }
 
     public void saveSettings() throws IOException {
@@ -236,6 +244,50 @@ public class SettingsService {
         }
     }
 
+    public int getCaptureRingCapacity() {
+        try {
+            return Integer.parseInt(getSetting("capture.ring.capacity"));
+        } catch (NumberFormatException e) {
+            return 8192; // default
+        }
+    }
+
+    public int getCaptureDecoderThreads() {
+        try {
+            return Integer.parseInt(getSetting("capture.decoder.threads"));
+        } catch (NumberFormatException e) {
+            return 2; // default
+        }
+    }
+
+    public boolean isCaptureRecordingEnabled() {
+        return Boolean.parseBoolean(getSetting("capture.recording.enabled"));
+    }
+
+    public Path getCaptureRecordingDirectory() {
+        return Paths.get(getSetting("capture.recording.directory"));
+    }
+
+    public PcapWriter.Format getCaptureRecordingFormat() {
+        return "pcap".equalsIgnoreCase(getSetting("capture.recording.format")) ? PcapWriter.Format.PCAP : PcapWriter.Format.PCAPNG;
+    }
+
+    public int getCaptureRecordingMaxFileMegabytes() {
+        try {
+            return Integer.parseInt(getSetting("capture.recording.max.file.mb"));
+        } catch (NumberFormatException e) {
+            return 100; // default
+        }
+    }
+
+    public int getCaptureRecordingMaxFiles() {
+        try {
+            return Integer.parseInt(getSetting("capture.recording.max.files"));
+        } catch (NumberFormatException e) {
+            return 10; // default
+        }
+    }
+
     public void saveLastQueries(List<String> queries) {
         try {
             String serializedQueries = String.join(",", queries);
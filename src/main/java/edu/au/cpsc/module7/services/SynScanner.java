@@ -0,0 +1,595 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import edu.au.cpsc.module7.models.NetworkHost.PortState;
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.IpV4Rfc791Tos;
+import org.pcap4j.packet.TcpMaximumSegmentSizeOption;
+import org.pcap4j.packet.TcpNoOperationOption;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.packet.TcpSackPermittedOption;
+import org.pcap4j.packet.TcpTimestampsOption;
+import org.pcap4j.packet.TcpWindowScaleOption;
+import org.pcap4j.packet.namednumber.EtherType;
+import org.pcap4j.packet.namednumber.IpNumber;
+import org.pcap4j.packet.namednumber.IpVersion;
+import org.pcap4j.packet.namednumber.TcpPort;
+import org.pcap4j.util.MacAddress;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless TCP SYN scanner. A sender thread writes pre-built SYN frames paced by the
+ * scan rate controller while a receiver thread reads SYN/ACK and RST replies from a
+ * BPF-filtered handle. Replies are matched by a keyed cookie carried in the SYN sequence
+ * number, so no per-probe state is kept beyond one answered bit per (host, port).
+ */
+public class SynScanner {
+    private static final Logger logger = Logger.getLogger(SynScanner.class.getName());
+
+    private static final int ARP_TIMEOUT_MILLIS = 1000;
+    private static final int TCP_FLAG_SYN = 0x02;
+    private static final int TCP_FLAG_RST = 0x04;
+    private static final int TCP_FLAG_ACK = 0x10;
+    private static final int TCP_OPTION_TIMESTAMPS = 8;
+    private static final int OUTSTANDING_CAPACITY = 1 << 16; // Must be a power of two
+    // Hosts are scanned in batches so (host, port) slots fit an int and the answered bitmap stays small
+    private static final int MAX_SLOTS_PER_BATCH = 1 << 28; // 32MB of answered bits
+    private static final int MAX_HOSTS_PER_BATCH = 1 << 24; // Host index bits in the ProbeTable sort key
+
+    private final ScanRateController rateController;
+    private final int timeoutMillis;
+    private final long secret = new SecureRandom().nextLong();
+    private volatile SynAckObserver synAckObserver;
+
+    /**
+     * Sees the raw frame of every validated SYN/ACK on the receiver thread, for analysis
+     * that needs more than the port state; it must not keep or modify the frame
+     */
+    @FunctionalInterface
+    public interface SynAckObserver {
+        void onSynAck(NetworkHost host, byte[] frame, int ipOffset, int tcpOffset);
+    }
+
+    public SynScanner(ScanRateController rateController, int timeoutMillis) {
+        this.rateController = rateController;
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+
+    public void setSynAckObserver(SynAckObserver observer) {
+        this.synAckObserver = observer;
+    }
+
+    /**
+     * Sweeps every port on every host. Results are delivered on the receiver thread
+     * as replies arrive; ports that never answer are reported FILTERED once the scan
+     * finishes. Hosts that cannot be raw-scanned (not IPv4, loopback) are returned so
+     * the caller can fall back to a connect scan. Large scans run as consecutive batches
+     * of hosts, each with its own ARP resolution and answered bitmap.
+     */
+    public List<NetworkHost> scan(List<NetworkHost> hosts, List<Integer> ports, PortScanListener listener,
+                                  BooleanSupplier cancelled)
+            throws PcapNativeException, NotOpenException, IOException, InterruptedException {
+        List<NetworkHost> unsupported = new ArrayList<>();
+        List<NetworkHost> candidates = new ArrayList<>();
+        List<Inet4Address> candidateAddresses = new ArrayList<>();
+
+        for (NetworkHost host : hosts) {
+            try {
+                InetAddress address = InetAddress.getByName(host.getIpAddress());
+                if (address instanceof Inet4Address && !address.isLoopbackAddress()) {
+                    candidates.add(host);
+                    candidateAddresses.add((Inet4Address) address);
+                } else {
+                    unsupported.add(host);
+                }
+            } catch (IOException e) {
+                unsupported.add(host);
+            }
+        }
+        if (candidates.isEmpty() || ports.isEmpty()) {
+            return unsupported;
+        }
+
+        int batchSize = Math.min(MAX_HOSTS_PER_BATCH, Math.max(1, MAX_SLOTS_PER_BATCH / ports.size()));
+        for (int start = 0; start < candidates.size() && !cancelled.getAsBoolean(); start += batchSize) {
+            int end = Math.min(candidates.size(), start + batchSize);
+            scanBatch(candidates.subList(start, end), candidateAddresses.subList(start, end), ports, listener, cancelled);
+        }
+        return unsupported;
+    }
+
+    private void scanBatch(List<NetworkHost> candidates, List<Inet4Address> candidateAddresses, List<Integer> ports,
+                           PortScanListener listener, BooleanSupplier cancelled)
+            throws PcapNativeException, NotOpenException, IOException, InterruptedException {
+        RawSocketContext context = RawSocketContext.forTarget(candidateAddresses.get(0));
+        int[] addresses = candidateAddresses.stream().mapToInt(PacketBytes::toInt).toArray();
+        Map<Integer, byte[]> nextHops = context.resolveNextHops(addresses, ARP_TIMEOUT_MILLIS);
+
+        ProbeTable table = new ProbeTable(candidates, addresses, nextHops, ports);
+        if (table.size() < candidates.size()) {
+            logger.info((candidates.size() - table.size()) + " hosts did not answer ARP and were skipped");
+        }
+        if (table.size() == 0) {
+            return;
+        }
+
+        int sourcePort = 32768 + new SecureRandom().nextInt(28000);
+        String filter = "tcp and dst host " + context.getSourceAddress().getHostAddress() +
+            " and dst port " + sourcePort + " and (tcp[tcpflags] & (tcp-syn|tcp-rst)) != 0";
+
+        PcapHandle receiveHandle = context.openHandle(filter);
+        PcapHandle sendHandle = null;
+        Receiver receiver = new Receiver(receiveHandle, table, sourcePort, listener);
+        Thread receiverThread = new Thread(receiver, "SynScan-Receiver");
+        receiverThread.setDaemon(true);
+
+        try {
+            sendHandle = context.openHandle(null);
+            receiverThread.start();
+
+            Sender sender = new Sender(sendHandle, buildTemplate(context, sourcePort), table, cancelled);
+            Thread senderThread = new Thread(sender, "SynScan-Sender");
+            senderThread.setDaemon(true);
+            senderThread.start();
+            senderThread.join();
+
+            // Give late replies one timeout of the slowest host to arrive
+            long deadline = System.currentTimeMillis() + table.maxTimeoutMillis();
+            while (System.currentTimeMillis() < deadline && !cancelled.getAsBoolean()) {
+                Thread.sleep(10);
+            }
+        } finally {
+            receiver.running = false;
+            receiverThread.join(1000);
+            receiveHandle.close();
+            if (sendHandle != null) {
+                sendHandle.close();
+            }
+        }
+
+        if (!cancelled.getAsBoolean()) {
+            table.reportUnanswered(listener);
+        }
+    }
+
+    /**
+     * Builds one SYN frame with pcap4j; per-probe fields are patched into copies of it
+     */
+    private Template buildTemplate(RawSocketContext context, int sourcePort) {
+        Inet4Address source = context.getSourceAddress();
+        List<TcpPacket.TcpOption> options = Arrays.asList(
+            new TcpMaximumSegmentSizeOption.Builder().maxSegSize((short) 1460).correctLengthAtBuild(true).build(),
+            TcpSackPermittedOption.getInstance(),
+            new TcpTimestampsOption.Builder().tsValue(1).tsEchoReply(0).correctLengthAtBuild(true).build(),
+            TcpNoOperationOption.getInstance(),
+            new TcpWindowScaleOption.Builder().shiftCount((byte) 7).correctLengthAtBuild(true).build()
+        );
+
+        TcpPacket.Builder tcp = new TcpPacket.Builder()
+            .srcPort(TcpPort.getInstance((short) sourcePort))
+            .dstPort(TcpPort.getInstance((short) 0))
+            .sequenceNumber(0)
+            .acknowledgmentNumber(0)
+            .syn(true)
+            .window((short) 64240)
+            .options(options)
+            .srcAddr(source)
+            .dstAddr(source)
+            .paddingAtBuild(true)
+            .correctLengthAtBuild(true)
+            .correctChecksumAtBuild(true);
+
+        IpV4Packet.Builder ip = new IpV4Packet.Builder()
+            .version(IpVersion.IPV4)
+            .tos(IpV4Rfc791Tos.newInstance((byte) 0))
+            .ttl((byte) 64)
+            .protocol(IpNumber.TCP)
+            .dontFragmentFlag(true)
+            .srcAddr(source)
+            .dstAddr(source)
+            .payloadBuilder(tcp)
+            .correctLengthAtBuild(true)
+            .correctChecksumAtBuild(true);
+
+        MacAddress sourceMac = MacAddress.getByAddress(context.getSourceMac());
+        EthernetPacket.Builder ethernet = new EthernetPacket.Builder()
+            .srcAddr(sourceMac)
+            .dstAddr(sourceMac)
+            .type(EtherType.IPV4)
+            .payloadBuilder(ip)
+            .paddingAtBuild(true);
+
+        return new Template(ethernet.build().getRawData());
+    }
+
+    /**
+     * Keyed cookie for the SYN sequence number; replies echo it plus one in the ACK field
+     */
+    private int cookie(int address, int port, int sourcePort) {
+        long z = secret ^ (((long) address << 32) | ((long) port << 16) | sourcePort);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+
+    /**
+     * Byte offsets within the template frame, located once after pcap4j builds it
+     */
+    private static final class Template {
+        final byte[] frame;
+        final int ipOffset = 14;
+        final int tcpOffset;
+        final int tcpLength;
+        final int tsValueOffset;
+
+        Template(byte[] frame) {
+            this.frame = frame;
+            this.tcpOffset = ipOffset + (frame[ipOffset] & 0x0F) * 4;
+            this.tcpLength = ((frame[tcpOffset + 12] & 0xF0) >>> 4) * 4;
+            int option = findTimestampOption(frame, tcpOffset, tcpLength);
+            this.tsValueOffset = option < 0 ? -1 : option + 2;
+        }
+    }
+
+    /**
+     * Returns the offset of the TCP timestamps option, or -1 when absent
+     */
+    private static int findTimestampOption(byte[] frame, int tcpOffset, int tcpLength) {
+        int i = tcpOffset + 20;
+        int end = tcpOffset + tcpLength;
+        while (i < end) {
+            int kind = frame[i] & 0xFF;
+            if (kind == 0) {
+                break;
+            }
+            if (kind == 1) {
+                i++;
+                continue;
+            }
+            if (i + 1 >= end) {
+                break;
+            }
+            int length = frame[i + 1] & 0xFF;
+            if (kind == TCP_OPTION_TIMESTAMPS && length == 10 && i + 10 <= end) {
+                return i;
+            }
+            if (length < 2) {
+                break;
+            }
+            i += length;
+        }
+        return -1;
+    }
+
+    /**
+     * Targets of one batch sorted by packed address, with one answered bit per (host, port)
+     */
+    private final class ProbeTable {
+        final NetworkHost[] hosts;
+        final int[] addresses;
+        final byte[][] macs;
+        final RttEstimator[] rtts;
+        final List<Integer> ports;
+        final int[] portIndex = new int[65536];
+        final AtomicLongArray answered; // Written by the receiver, read by the sender
+
+        ProbeTable(List<NetworkHost> candidates, int[] candidateAddresses, Map<Integer, byte[]> nextHops,
+                   List<Integer> ports) {
+            long[] packed = new long[candidates.size()];
+            int count = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                if (nextHops.containsKey(candidateAddresses[i])) {
+                    // Sort key in the high bits, original index in the low bits
+                    packed[count++] = ((candidateAddresses[i] & 0xFFFFFFFFL) << 24) | i;
+                }
+            }
+            Arrays.sort(packed, 0, count);
+
+            this.hosts = new NetworkHost[count];
+            this.addresses = new int[count];
+            this.macs = new byte[count][];
+            this.rtts = new RttEstimator[count];
+            for (int i = 0; i < count; i++) {
+                int original = (int) (packed[i] & 0xFFFFFF);
+                hosts[i] = candidates.get(original);
+                addresses[i] = candidateAddresses[original];
+                macs[i] = nextHops.get(addresses[i]);
+                rtts[i] = RttEstimator.forHost(hosts[i], timeoutMillis);
+            }
+
+            this.ports = ports;
+            Arrays.fill(portIndex, -1);
+            for (int i = 0; i < ports.size(); i++) {
+                portIndex[ports.get(i) & 0xFFFF] = i;
+            }
+            // The caller's batching keeps count * ports.size() within MAX_SLOTS_PER_BATCH
+            this.answered = new AtomicLongArray((count * ports.size() + 63) / 64);
+        }
+
+        int size() {
+            return hosts.length;
+        }
+
+        int maxTimeoutMillis() {
+            int max = 0;
+            for (RttEstimator rtt : rtts) {
+                max = Math.max(max, rtt.getTimeoutMillis());
+            }
+            return max;
+        }
+
+        int indexOf(int address) {
+            // Addresses are sorted as unsigned values
+            int low = 0;
+            int high = addresses.length - 1;
+            long key = address & 0xFFFFFFFFL;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long value = addresses[mid] & 0xFFFFFFFFL;
+                if (value < key) {
+                    low = mid + 1;
+                } else if (value > key) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        boolean isAnswered(int slot) {
+            return (answered.get(slot >>> 6) & (1L << slot)) != 0;
+        }
+
+        /**
+         * True if any port of the host has replied in this batch
+         */
+        boolean isHostAnswered(int host) {
+            int first = host * ports.size();
+            int end = first + ports.size();
+            for (int slot = first; slot < end; slot = (slot | 63) + 1) {
+                long word = answered.get(slot >>> 6);
+                // Keep only the host's bits of this word
+                word &= -1L << slot;
+                if (end - (slot & ~63) < 64) {
+                    word &= (1L << end) - 1;
+                }
+                if (word != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Sets the answered bit, returning false if it was already set
+         */
+        boolean markAnswered(int slot) {
+            long bit = 1L << slot;
+            return (answered.getAndAccumulate(slot >>> 6, bit, (word, mask) -> word | mask) & bit) == 0;
+        }
+
+        void reportUnanswered(PortScanListener listener) {
+            int total = hosts.length * ports.size();
+            for (int slot = 0; slot < total; slot++) {
+                if (!isAnswered(slot)) {
+                    listener.onResult(hosts[slot / ports.size()], ports.get(slot % ports.size()), PortState.FILTERED, -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one patched SYN per (port, host) pair, walking hosts in the inner loop.
+     * Sent probes are queued in send order so those left unanswered past their host's
+     * timeout can be reported to the rate controller while the scan is still running.
+     */
+    private final class Sender implements Runnable {
+        private final PcapHandle handle;
+        private final Template template;
+        private final ProbeTable table;
+        private final BooleanSupplier cancelled;
+        private final int[] outstandingSlots = new int[OUTSTANDING_CAPACITY];
+        private final long[] outstandingDeadline = new long[OUTSTANDING_CAPACITY];
+        private int outstandingHead;
+        private int outstandingTail;
+
+        Sender(PcapHandle handle, Template template, ProbeTable table, BooleanSupplier cancelled) {
+            this.handle = handle;
+            this.template = template;
+            this.table = table;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void run() {
+            byte[] frame = template.frame.clone();
+            int ip = template.ipOffset;
+            int tcp = template.tcpOffset;
+            int sourcePort = PacketBytes.readShort(frame, tcp);
+            long sent = 0;
+            int identification = new SecureRandom().nextInt();
+
+            try {
+                for (int p = 0; p < table.ports.size(); p++) {
+                    int port = table.ports.get(p);
+                    for (int i = 0; i < table.size(); i++) {
+                        if (cancelled.getAsBoolean()) {
+                            return;
+                        }
+                        expireOutstanding(System.currentTimeMillis());
+                        rateController.acquire();
+
+                        int address = table.addresses[i];
+                        System.arraycopy(table.macs[i], 0, frame, 0, 6);
+
+                        PacketBytes.writeShort(frame, ip + 4, identification++);
+                        PacketBytes.writeInt(frame, ip + 16, address);
+                        PacketBytes.writeShort(frame, ip + 10, 0);
+                        PacketBytes.writeShort(frame, ip + 10, PacketBytes.checksumFinish(PacketBytes.checksumAdd(0, frame, ip, tcp - ip)));
+
+                        PacketBytes.writeShort(frame, tcp + 2, port);
+                        PacketBytes.writeInt(frame, tcp + 4, cookie(address, port, sourcePort));
+                        if (template.tsValueOffset > 0) {
+                            PacketBytes.writeInt(frame, template.tsValueOffset, (int) System.currentTimeMillis());
+                        }
+                        PacketBytes.writeShort(frame, tcp + 16, 0);
+                        int sum = PacketBytes.checksumAdd(0, frame, ip + 12, 8) + IpNumber.TCP.value() + template.tcpLength;
+                        PacketBytes.writeShort(frame, tcp + 16, PacketBytes.checksumFinish(PacketBytes.checksumAdd(sum, frame, tcp, template.tcpLength)));
+
+                        handle.sendPacket(frame, frame.length);
+                        sent++;
+                        track(i * table.ports.size() + p, table.rtts[i]);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (PcapNativeException | NotOpenException e) {
+                logger.log(Level.SEVERE, "SYN sender stopped after " + sent + " packets", e);
+            }
+        }
+
+        private void track(int slot, RttEstimator rtt) {
+            if (outstandingTail - outstandingHead == OUTSTANDING_CAPACITY) {
+                // Queue full: judge the oldest probe early rather than lose the sample
+                expireOldest();
+            }
+            int index = outstandingTail++ & (OUTSTANDING_CAPACITY - 1);
+            outstandingSlots[index] = slot;
+            outstandingDeadline[index] = System.currentTimeMillis() + rtt.getTimeoutMillis();
+        }
+
+        private void expireOutstanding(long nowMillis) {
+            while (outstandingHead != outstandingTail
+                    && nowMillis >= outstandingDeadline[outstandingHead & (OUTSTANDING_CAPACITY - 1)]) {
+                expireOldest();
+            }
+        }
+
+        private void expireOldest() {
+            int slot = outstandingSlots[outstandingHead++ & (OUTSTANDING_CAPACITY - 1)];
+            if (!table.isAnswered(slot)) {
+                int host = slot / table.ports.size();
+                rateController.onTimeout(table.rtts[host].hasSamples() || table.isHostAnswered(host));
+            }
+        }
+    }
+
+    /**
+     * Reads replies and validates each against the cookie before reporting it
+     */
+    private final class Receiver implements Runnable {
+        private final PcapHandle handle;
+        private final ProbeTable table;
+        private final int sourcePort;
+        private final PortScanListener listener;
+        volatile boolean running = true;
+
+        Receiver(PcapHandle handle, ProbeTable table, int sourcePort, PortScanListener listener) {
+            this.handle = handle;
+            this.table = table;
+            this.sourcePort = sourcePort;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    byte[] frame = handle.getNextRawPacket();
+                    if (frame != null) {
+                        handleFrame(frame);
+                    }
+                } catch (NotOpenException e) {
+                    return;
+                } catch (Exception e) {
+                    logger.log(Level.FINE, "Error handling SYN scan reply", e);
+                }
+            }
+        }
+
+        private void handleFrame(byte[] frame) {
+            int ip = 14;
+            int etherType = PacketBytes.readShort(frame, 12);
+            if (etherType == 0x8100 && frame.length > 18) {
+                etherType = PacketBytes.readShort(frame, 16);
+                ip = 18;
+            }
+            if (etherType != 0x0800 || frame.length < ip + 20 || frame[ip + 9] != 6) {
+                return;
+            }
+
+            int tcp = ip + (frame[ip] & 0x0F) * 4;
+            if (frame.length < tcp + 20 || PacketBytes.readShort(frame, tcp + 2) != sourcePort) {
+                return;
+            }
+
+            int address = PacketBytes.readInt(frame, ip + 12);
+            int port = PacketBytes.readShort(frame, tcp);
+            int hostIndex = table.indexOf(address);
+            int portIndex = table.portIndex[port];
+            if (hostIndex < 0 || portIndex < 0) {
+                return;
+            }
+            if (PacketBytes.readInt(frame, tcp + 8) - 1 != cookie(address, port, sourcePort)) {
+                return; // Not a reply to one of our probes
+            }
+
+            int slot = hostIndex * table.ports.size() + portIndex;
+            if (!table.markAnswered(slot)) {
+                return; // Retransmitted reply
+            }
+
+            int flags = frame[tcp + 13] & 0xFF;
+            PortState state;
+            long rttMillis = -1;
+            if ((flags & (TCP_FLAG_SYN | TCP_FLAG_ACK)) == (TCP_FLAG_SYN | TCP_FLAG_ACK)) {
+                state = PortState.OPEN;
+                int tcpLength = ((frame[tcp + 12] & 0xF0) >>> 4) * 4;
+                int option = findTimestampOption(frame, tcp, Math.min(tcpLength, frame.length - tcp));
+                if (option > 0) {
+                    // The echoed timestamp is the send time we wrote into the SYN
+                    rttMillis = Math.max(0, (int) System.currentTimeMillis() - PacketBytes.readInt(frame, option + 6));
+                }
+                SynAckObserver observer = synAckObserver;
+                if (observer != null) {
+                    try {
+                        observer.onSynAck(table.hosts[hostIndex], frame, ip, tcp);
+                    } catch (Exception e) {
+                        logger.log(Level.WARNING, "SYN/ACK observer failed", e);
+                    }
+                }
+            } else if ((flags & TCP_FLAG_RST) != 0) {
+                state = PortState.CLOSED;
+            } else {
+                return;
+            }
+            rateController.onResponse(rttMillis >= 0 ? rttMillis * 1000 : -1);
+            if (rttMillis >= 0) {
+                table.rtts[hostIndex].addSample(rttMillis * 1000);
+            }
+
+            try {
+                listener.onResult(table.hosts[hostIndex], port, state, rttMillis);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Scan result listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package edu.au.cpsc.module7.services;
+
+import java.math.BigInteger;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Parsed scan target specification held as sorted, disjoint ranges of packed IPv4
+ * addresses. Targets are streamed as primitive ints, so even a /8 costs a few
+ * longs of heap instead of one String per address.
+ *
+ * Entries are comma-separated and may be a single address or hostname, a CIDR block
+ * (10.0.0.0/8), a dash range across octets (10.0.0.250-10.0.1.5) or last-octet
+ * shorthand (192.168.1.10-20). Prefixing an entry with '!' excludes it.
+ */
+public final class TargetSpec {
+    private static final long UNSIGNED_MASK = 0xFFFFFFFFL;
+
+    private final long[] starts;  // Inclusive range starts, unsigned
+    private final long[] offsets; // Number of addresses before each range
+    private final long size;
+    private final Map<Integer, String> hostnames;
+
+    private TargetSpec(long[] starts, long[] ends, Map<Integer, String> hostnames) {
+        this.starts = starts;
+        this.offsets = new long[starts.length];
+        long total = 0;
+        for (int i = 0; i < starts.length; i++) {
+            offsets[i] = total;
+            total += ends[i] - starts[i] + 1;
+        }
+        this.size = total;
+        this.hostnames = hostnames;
+    }
+
+    /**
+     * Parses a target specification, resolving any hostnames to their IPv4 address
+     */
+    public static TargetSpec parse(String spec) {
+        List<long[]> includes = new ArrayList<>();
+        List<long[]> excludes = new ArrayList<>();
+        Map<Integer, String> hostnames = new HashMap<>();
+
+        if (spec != null) {
+            for (String rawEntry : spec.split(",")) {
+                String entry = rawEntry.trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                boolean exclude = entry.startsWith("!");
+                if (exclude) {
+                    entry = entry.substring(1).trim();
+                }
+                long[] range = parseEntry(entry, exclude ? null : hostnames);
+                (exclude ? excludes : includes).add(range);
+            }
+        }
+
+        List<long[]> merged = subtract(merge(includes), merge(excludes));
+        long[] starts = new long[merged.size()];
+        long[] ends = new long[merged.size()];
+        for (int i = 0; i < merged.size(); i++) {
+            starts[i] = merged.get(i)[0];
+            ends[i] = merged.get(i)[1];
+        }
+        return new TargetSpec(starts, ends, hostnames);
+    }
+
+    private static long[] parseEntry(String entry, Map<Integer, String> hostnames) {
+        if (entry.contains(":")) {
+            throw new IllegalArgumentException("IPv6 targets are not supported yet: " + entry);
+        }
+
+        int slash = entry.indexOf('/');
+        if (slash >= 0) {
+            long base = parseAddress(entry.substring(0, slash).trim());
+            int prefix = Integer.parseInt(entry.substring(slash + 1).trim());
+            if (prefix < 0 || prefix > 32) {
+                throw new IllegalArgumentException("Invalid CIDR prefix: " + entry);
+            }
+            long hostCount = 1L << (32 - prefix);
+            long network = base & ~(hostCount - 1) & UNSIGNED_MASK;
+            long broadcast = network + hostCount - 1;
+            // Skip network and broadcast addresses for anything larger than a /31
+            return prefix <= 30 ? new long[] { network + 1, broadcast - 1 } : new long[] { network, broadcast };
+        }
+
+        // Hostnames may contain dashes too, so only numeric sides make a range
+        int dash = entry.indexOf('-');
+        String first = dash >= 0 ? entry.substring(0, dash).trim() : null;
+        String last = dash >= 0 ? entry.substring(dash + 1).trim() : null;
+        if (dash >= 0 && isDottedQuad(first) && isDottedQuad(last)) {
+            long start = parseAddress(first);
+            long end;
+            if (last.indexOf('.') < 0) {
+                // Shorthand: only the last octet is given
+                int octet = Integer.parseInt(last);
+                if (octet < 0 || octet > 255) {
+                    throw new IllegalArgumentException("Invalid IP range: " + entry);
+                }
+                end = (start & 0xFFFFFF00L) | octet;
+            } else {
+                end = parseAddress(last);
+            }
+            if (end < start) {
+                throw new IllegalArgumentException("IP range end precedes start: " + entry);
+            }
+            return new long[] { start, end };
+        }
+
+        long address;
+        if (isDottedQuad(entry)) {
+            address = parseAddress(entry);
+        } else {
+            address = resolveHostname(entry);
+            if (hostnames != null) {
+                hostnames.put((int) address, entry);
+            }
+        }
+        return new long[] { address, address };
+    }
+
+    private static boolean isDottedQuad(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseAddress(String text) {
+        String[] octets = text.split("\\.");
+        if (octets.length != 4) {
+            throw new IllegalArgumentException("Invalid IP address format: " + text);
+        }
+        long address = 0;
+        for (String octet : octets) {
+            int value = Integer.parseInt(octet.trim());
+            if (value < 0 || value > 255) {
+                throw new IllegalArgumentException("Invalid IP address octet: " + text);
+            }
+            address = (address << 8) | value;
+        }
+        return address;
+    }
+
+    private static long resolveHostname(String hostname) {
+        try {
+            for (InetAddress address : InetAddress.getAllByName(hostname)) {
+                if (address instanceof Inet4Address) {
+                    return PacketBytes.toInt((Inet4Address) address) & UNSIGNED_MASK;
+                }
+            }
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Cannot resolve target: " + hostname, e);
+        }
+        throw new IllegalArgumentException("Target has no IPv4 address: " + hostname);
+    }
+
+    private static List<long[]> merge(List<long[]> ranges) {
+        List<long[]> sorted = new ArrayList<>(ranges);
+        sorted.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : sorted) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new long[] { range[0], range[1] });
+            }
+        }
+        return merged;
+    }
+
+    private static List<long[]> subtract(List<long[]> includes, List<long[]> excludes) {
+        List<long[]> result = new ArrayList<>();
+        int e = 0;
+        for (long[] include : includes) {
+            long start = include[0];
+            long end = include[1];
+            while (e < excludes.size() && excludes.get(e)[1] < start) {
+                e++;
+            }
+            int k = e;
+            while (start <= end && k < excludes.size() && excludes.get(k)[0] <= end) {
+                long[] exclude = excludes.get(k);
+                if (exclude[0] > start) {
+                    result.add(new long[] { start, exclude[0] - 1 });
+                }
+                start = Math.max(start, exclude[1] + 1);
+                k++;
+            }
+            if (start <= end) {
+                result.add(new long[] { start, end });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Total number of addresses in the specification
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the packed address at the given position in ascending order
+     */
+    public int addressAt(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Target index " + index + " outside " + size);
+        }
+        int range = Arrays.binarySearch(offsets, index);
+        if (range < 0) {
+            range = -range - 2;
+        }
+        return (int) (starts[range] + (index - offsets[range]));
+    }
+
+    /**
+     * Hostname the user typed for an address, or null if it was given numerically
+     */
+    public String hostnameFor(int address) {
+        return hostnames.get(address);
+    }
+
+    /**
+     * Iterates addresses in ascending order
+     */
+    public TargetIterator iterator() {
+        return new SequentialIterator(0);
+    }
+
+    /**
+     * Resumes an ascending iteration after the first position addresses
+     */
+    public TargetIterator iterator(long position) {
+        return new SequentialIterator(position);
+    }
+
+    /**
+     * Iterates every address exactly once in a pseudo-random order that is
+     * reproducible for the same seed
+     */
+    public TargetIterator shuffledIterator(long seed) {
+        return size <= 1 ? new SequentialIterator(0) : new CyclicGroupIterator(seed);
+    }
+
+    /**
+     * Resumes a shuffled iteration from the position and cursor of an iterator with the same seed
+     */
+    public TargetIterator shuffledIterator(long seed, long position, long cursor) {
+        if (size <= 1) {
+            return new SequentialIterator(position);
+        }
+        CyclicGroupIterator iterator = new CyclicGroupIterator(seed);
+        iterator.current = cursor;
+        iterator.position = position;
+        return iterator;
+    }
+
+    /**
+     * Packs a dotted quad into the int form used by {@link #addressAt(long)}
+     */
+    public static int pack(String address) {
+        return (int) parseAddress(address);
+    }
+
+    /**
+     * Formats a packed address as a dotted quad without going through String.format
+     */
+    public static String format(int address) {
+        return new StringBuilder(15)
+            .append((address >>> 24) & 0xFF).append('.')
+            .append((address >>> 16) & 0xFF).append('.')
+            .append((address >>> 8) & 0xFF).append('.')
+            .append(address & 0xFF)
+            .toString();
+    }
+
+    /**
+     * Allocation-free iterator over packed IPv4 addresses
+     */
+    public interface TargetIterator {
+        boolean hasNext();
+
+        int nextAddress();
+
+        /**
+         * Number of addresses returned so far
+         */
+        long position();
+
+        /**
+         * Internal state that, together with position(), lets an equivalent iterator resume from here
+         */
+        long cursor();
+    }
+
+    private final class SequentialIterator implements TargetIterator {
+        private int range;
+        private long next;
+        private long position;
+
+        SequentialIterator(long position) {
+            this.position = Math.max(0, Math.min(size, position));
+            if (this.position < size) {
+                range = Arrays.binarySearch(offsets, this.position);
+                if (range < 0) {
+                    range = -range - 2;
+                }
+                next = starts[range] + (this.position - offsets[range]);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        @Override
+        public int nextAddress() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long rangeEnd = range + 1 < starts.length ? offsets[range + 1] : size;
+            if (position == rangeEnd) {
+                range++;
+                next = starts[range];
+            }
+            position++;
+            return (int) next++;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public long cursor() {
+            return position;
+        }
+    }
+
+    /**
+     * Walks the multiplicative group modulo a prime p > size: repeatedly multiplying
+     * by a primitive root visits every value in [1, p-1] once, and values above the
+     * target count are skipped. State is two longs regardless of range size.
+     */
+    private final class CyclicGroupIterator implements TargetIterator {
+        private final long prime;
+        private final long generator;
+        private final long first;
+        private long current;
+        private long position;
+
+        CyclicGroupIterator(long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            this.prime = nextPrime(size + 1);
+            this.generator = findPrimitiveRoot(prime, random);
+            this.first = 1 + random.nextLong(prime - 1);
+            this.current = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        @Override
+        public int nextAddress() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long index;
+            do {
+                index = current - 1;
+                current = (current * generator) % prime;
+            } while (index >= size);
+            position++;
+            return addressAt(index);
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public long cursor() {
+            return current;
+        }
+    }
+
+    private static long nextPrime(long n) {
+        long candidate = Math.max(3, n | 1);
+        while (!isPrime(candidate)) {
+            candidate += 2;
+        }
+        return candidate;
+    }
+
+    private static boolean isPrime(long n) {
+        if (n < 2) {
+            return false;
+        }
+        if (n % 2 == 0) {
+            return n == 2;
+        }
+        for (long d = 3; d * d <= n; d += 2) {
+            if (n % d == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a primitive root below 2^21 so that group multiplication never overflows
+     * a long for primes up to 2^33
+     */
+    private static long findPrimitiveRoot(long prime, SplittableRandom random) {
+        long order = prime - 1;
+        List<Long> factors = new ArrayList<>();
+        long remaining = order;
+        for (long d = 2; d * d <= remaining; d++) {
+            if (remaining % d == 0) {
+                factors.add(d);
+                while (remaining % d == 0) {
+                    remaining /= d;
+                }
+            }
+        }
+        if (remaining > 1) {
+            factors.add(remaining);
+        }
+
+        long limit = Math.min(prime - 1, 1L << 21);
+        long candidate = 2 + random.nextLong(Math.max(1, limit - 2));
+        for (long tried = 0; tried < limit; tried++) {
+            if (isPrimitiveRoot(candidate, prime, order, factors)) {
+                return candidate;
+            }
+            candidate = candidate + 1 >= limit ? 2 : candidate + 1;
+        }
+        throw new IllegalStateException("No primitive root found for " + prime);
+    }
+
+    private static boolean isPrimitiveRoot(long g, long prime, long order, List<Long> factors) {
+        BigInteger base = BigInteger.valueOf(g);
+        BigInteger modulus = BigInteger.valueOf(prime);
+        for (long factor : factors) {
+            if (base.modPow(BigInteger.valueOf(order / factor), modulus).equals(BigInteger.ONE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
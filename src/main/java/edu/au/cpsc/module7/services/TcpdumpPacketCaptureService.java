@@ -555,22 +555,26 @@ public class TcpdumpPacketCaptureService {
     }
     
     /**
-     * Export captured packets to file
+     * Whether tcpdump has written a capture file that {@link #exportPackets(File)} can copy
      */
-    public void exportPackets(File outputFile) {
-        if (captureFile != null && captureFile.exists()) {
-            try {
-                // Copy the raw capture file
-                java.nio.file.Files.copy(
-                    captureFile.toPath(),
-                    outputFile.toPath(),
-                    java.nio.file.StandardCopyOption.REPLACE_EXISTING
-                );
-                logger.info("Exported capture to: " + outputFile.getAbsolutePath());
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error exporting capture", e);
-            }
+    public boolean hasCaptureFile() {
+        return captureFile != null && captureFile.exists();
+    }
+    
+    /**
+     * Export captured packets to file by copying the pcap file tcpdump wrote
+     */
+    public void exportPackets(File outputFile) throws IOException {
+        if (!hasCaptureFile()) {
+            throw new IOException("No capture file to export");
         }
+        // Copy the raw capture file
+        java.nio.file.Files.copy(
+            captureFile.toPath(),
+            outputFile.toPath(),
+            java.nio.file.StandardCopyOption.REPLACE_EXISTING
+        );
+        logger.info("Exported capture to: " + outputFile.getAbsolutePath());
     }
     
     /**
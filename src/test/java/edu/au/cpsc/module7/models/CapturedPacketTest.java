@@ -0,0 +1,50 @@
+package edu.au.cpsc.module7.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapturedPacketTest {
+
+    @Test
+    void testIpV4AddressesAreFormattedFromPackedValues() {
+        PacketArena arena = new PacketArena(1024);
+        long handle = arena.append(new byte[60], 0, 60);
+        CapturedPacket packet = new CapturedPacket(1, 0L, 0xC0A80101L, 0x08080808L, 1234, 53, "DNS", 60, arena, handle);
+
+        assertEquals("192.168.1.1", packet.getSourceAddress());
+        assertEquals("8.8.8.8", packet.getDestinationAddress());
+    }
+
+    @Test
+    void testIpV6AddressesAreReadFromTheStoredFrame() {
+        byte[] frame = new byte[14 + 40 + 8];
+        int ip = 14;
+        frame[ip] = 0x60;
+        frame[ip + 8] = (byte) 0xFE;
+        frame[ip + 9] = (byte) 0x80;
+        frame[ip + 23] = 1;
+        frame[ip + 24] = (byte) 0xFF;
+        frame[ip + 25] = 0x02;
+        frame[ip + 39] = (byte) 0xFB;
+
+        PacketArena arena = new PacketArena(1024);
+        long handle = arena.append(frame, 0, frame.length);
+        CapturedPacket packet = new CapturedPacket(1, 0L, CapturedPacket.NO_ADDRESS, CapturedPacket.NO_ADDRESS,
+                                                   5353, 5353, "mDNS", frame.length, arena, handle, ip);
+
+        assertEquals("fe80:0:0:0:0:0:0:1", packet.getSourceAddress());
+        assertEquals("ff02:0:0:0:0:0:0:fb", packet.getDestinationAddress());
+    }
+
+    @Test
+    void testEvictedIpV6FramesHaveNoAddress() {
+        PacketArena arena = new PacketArena(1024);
+        long handle = arena.append(new byte[62], 0, 62);
+        CapturedPacket packet = new CapturedPacket(1, 0L, CapturedPacket.NO_ADDRESS, CapturedPacket.NO_ADDRESS,
+                                                   0, 0, "ICMPv6", 62, arena, handle, 14);
+        arena.clear();
+
+        assertEquals("", packet.getSourceAddress());
+    }
+}
@@ -0,0 +1,53 @@
+package edu.au.cpsc.module7.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NetworkHostTest {
+
+    @Test
+    void testSetPortStateMovesPortBetweenStates() {
+        NetworkHost host = new NetworkHost("10.0.0.1");
+        assertNull(host.getPortState(NetworkHost.Protocol.TCP, 22));
+
+        assertTrue(host.setPortState(NetworkHost.Protocol.TCP, 22, NetworkHost.PortState.FILTERED));
+        assertTrue(host.setPortState(NetworkHost.Protocol.TCP, 22, NetworkHost.PortState.OPEN));
+        assertFalse(host.setPortState(NetworkHost.Protocol.TCP, 22, NetworkHost.PortState.OPEN));
+        assertEquals(NetworkHost.PortState.OPEN, host.getPortState(NetworkHost.Protocol.TCP, 22));
+        assertFalse(host.hasPorts(NetworkHost.Protocol.TCP, NetworkHost.PortState.FILTERED));
+
+        // Protocols are tracked separately
+        assertNull(host.getPortState(NetworkHost.Protocol.UDP, 22));
+        host.setPortState(NetworkHost.Protocol.UDP, 22, NetworkHost.PortState.CLOSED);
+        assertEquals(NetworkHost.PortState.OPEN, host.getPortState(NetworkHost.Protocol.TCP, 22));
+    }
+
+    @Test
+    void testOpenPortsViewIsSortedAndLive() {
+        NetworkHost host = new NetworkHost("10.0.0.1");
+        List<Integer> open = host.getOpenPorts();
+        assertTrue(open.isEmpty());
+        assertEquals(0, open.size());
+        assertFalse(open.contains(80));
+        assertFalse(host.hasPorts(NetworkHost.Protocol.TCP, NetworkHost.PortState.OPEN));
+        assertThrows(IndexOutOfBoundsException.class, () -> open.get(0));
+
+        host.addOpenPort(8080);
+        host.addOpenPort(22);
+        host.addOpenPort(443);
+        assertEquals(List.of(22, 443, 8080), open);
+        assertEquals(443, (int) open.get(1));
+        assertTrue(open.contains(8080));
+        assertFalse(open.contains("8080"));
+        assertThrows(IndexOutOfBoundsException.class, () -> open.get(3));
+
+        host.setPortState(NetworkHost.Protocol.TCP, 443, NetworkHost.PortState.CLOSED);
+        assertEquals(List.of(22, 8080), open);
+
+        host.setOpenPorts(List.of(25));
+        assertEquals(List.of(25), open);
+    }
+}
@@ -0,0 +1,75 @@
+package edu.au.cpsc.module7.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PacketArenaTest {
+
+    private static byte[] frame(int length, int fill) {
+        byte[] data = new byte[length];
+        java.util.Arrays.fill(data, (byte) fill);
+        return data;
+    }
+
+    @Test
+    void testReadsBackAppendedFrames() {
+        PacketArena arena = new PacketArena(1024);
+        long first = arena.append(frame(100, 1), 0, 100);
+        long second = arena.append(frame(200, 2), 0, 200);
+
+        byte[] out = new byte[200];
+        assertTrue(arena.read(first, out, 0, 100));
+        assertEquals(1, out[99]);
+        assertTrue(arena.read(second, out, 0, 200));
+        assertEquals(2, out[0]);
+        assertEquals(2, out[199]);
+    }
+
+    @Test
+    void testStartsNewChunkWhenFrameDoesNotFit() {
+        PacketArena arena = new PacketArena(256);
+        long first = arena.append(frame(200, 1), 0, 200);
+        long second = arena.append(frame(100, 2), 0, 100);
+
+        assertEquals(512, arena.allocatedBytes());
+        assertNotEquals(first >>> 32, second >>> 32);
+        assertThrows(IllegalArgumentException.class, () -> arena.append(new byte[300], 0, 300));
+    }
+
+    @Test
+    void testReleasedChunksAreNoLongerReadable() {
+        PacketArena arena = new PacketArena(128);
+        long first = arena.append(frame(100, 1), 0, 100);
+        long second = arena.append(frame(100, 2), 0, 100);
+        long third = arena.append(frame(100, 3), 0, 100);
+
+        arena.releaseBefore(third);
+        byte[] out = new byte[100];
+        assertFalse(arena.read(first, out, 0, 100));
+        assertFalse(arena.read(second, out, 0, 100));
+        assertTrue(arena.read(third, out, 0, 100));
+        assertEquals(128, arena.allocatedBytes());
+
+        arena.clear();
+        assertFalse(arena.read(third, out, 0, 100));
+        assertEquals(0, arena.allocatedBytes());
+    }
+
+    @Test
+    void testArenaBackedPacketDecodesFieldsOnDemand() {
+        PacketArena arena = new PacketArena(1024);
+        long handle = arena.append(frame(64, 7), 0, 64);
+        CapturedPacket packet = new CapturedPacket(1, 1_700_000_000_123_456_789L, 0xC0A80001L, 0x08080808L,
+                                                   51000, 53, "DNS", 64, arena, handle);
+
+        assertEquals("192.168.0.1", packet.getSourceAddress());
+        assertEquals("8.8.8.8", packet.getDestinationAddress());
+        assertEquals("UDP 51000 -> 53", packet.getInfo());
+        assertEquals(64, packet.getRawData().length);
+        assertEquals(7, packet.getRawData()[63]);
+
+        arena.clear();
+        assertEquals(0, packet.getRawData().length);
+    }
+}
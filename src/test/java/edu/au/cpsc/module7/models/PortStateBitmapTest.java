@@ -0,0 +1,75 @@
+package edu.au.cpsc.module7.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortStateBitmapTest {
+
+    @Test
+    void testSetAndClearReportChanges() {
+        PortStateBitmap bitmap = new PortStateBitmap();
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.set(0));
+        assertTrue(bitmap.set(65535));
+        assertFalse(bitmap.set(65535));
+        assertTrue(bitmap.get(0));
+        assertTrue(bitmap.get(65535));
+        assertFalse(bitmap.get(-1));
+        assertFalse(bitmap.get(65536));
+        assertEquals(2, bitmap.cardinality());
+
+        assertTrue(bitmap.clear(0));
+        assertFalse(bitmap.clear(0));
+        assertEquals(1, bitmap.cardinality());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.set(65536));
+    }
+
+    @Test
+    void testNextSetBitAndSelectWalkPortsInOrder() {
+        PortStateBitmap bitmap = new PortStateBitmap();
+        int[] ports = { 22, 63, 64, 80, 443, 8080, 65535 };
+        for (int port : ports) {
+            bitmap.set(port);
+        }
+
+        List<Integer> walked = new ArrayList<>();
+        for (int port = bitmap.nextSetBit(0); port >= 0; port = bitmap.nextSetBit(port + 1)) {
+            walked.add(port);
+        }
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        assertEquals(walked, visited);
+        assertEquals(ports.length, walked.size());
+
+        for (int i = 0; i < ports.length; i++) {
+            assertEquals(ports[i], bitmap.select(i));
+        }
+        assertEquals(-1, bitmap.select(ports.length));
+        assertEquals(-1, bitmap.select(-1));
+        assertEquals(80, bitmap.nextSetBit(65));
+    }
+
+    @Test
+    void testSetOperationsAndRoundTrip() {
+        PortStateBitmap before = new PortStateBitmap();
+        PortStateBitmap after = new PortStateBitmap();
+        before.set(22);
+        before.set(80);
+        after.set(80);
+        after.set(443);
+
+        PortStateBitmap closed = before.andNot(after);
+        assertTrue(closed.get(22));
+        assertEquals(1, closed.cardinality());
+        assertEquals(3, before.or(after).cardinality());
+
+        PortStateBitmap copy = PortStateBitmap.fromLongArray(after.toLongArray());
+        assertEquals(after, copy);
+        assertEquals(after.hashCode(), copy.hashCode());
+        assertThrows(IllegalArgumentException.class, () -> PortStateBitmap.fromLongArray(new long[1]));
+    }
+}
@@ -0,0 +1,93 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureRingTest {
+
+    private static byte[] frame(int marker, int length) {
+        byte[] frame = new byte[length];
+        PacketBytes.writeInt(frame, 0, marker);
+        return frame;
+    }
+
+    @Test
+    void testCapacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new CaptureRing(8).capacity());
+        assertEquals(16, new CaptureRing(9).capacity());
+        assertEquals(2, new CaptureRing(1).capacity());
+    }
+
+    @Test
+    void testFramesComeOutInOrderWithTheirMetadata() {
+        CaptureRing ring = new CaptureRing(4);
+        assertTrue(ring.offer(frame(1, 60), 60, 60, 1_000L));
+        assertTrue(ring.offer(frame(2, 4000), 4000, 9000, 2_000L));
+        assertEquals(2, ring.occupancy());
+
+        List<String> seen = new ArrayList<>();
+        CaptureRing.FrameHandler handler = (sequence, data, length, originalLength, timestampNanos) ->
+            seen.add(sequence + ":" + PacketBytes.readInt(data, 0) + ":" + length + ":" + originalLength + ":" + timestampNanos);
+        assertTrue(ring.poll(handler));
+        assertTrue(ring.poll(handler));
+        assertFalse(ring.poll(handler));
+
+        assertEquals(List.of("0:1:60:60:1000", "1:2:4000:9000:2000"), seen);
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void testFullRingDropsInsteadOfBlocking() {
+        CaptureRing ring = new CaptureRing(2);
+        assertTrue(ring.offer(frame(1, 60), 60, 60, 0));
+        assertTrue(ring.offer(frame(2, 60), 60, 60, 0));
+        assertFalse(ring.offer(frame(3, 60), 60, 60, 0));
+        assertEquals(1, ring.dropped());
+
+        assertTrue(ring.poll((sequence, data, length, originalLength, timestampNanos) -> { }));
+        assertTrue(ring.offer(frame(4, 60), 60, 60, 0));
+        assertEquals(3, ring.published());
+    }
+
+    @Test
+    void testConcurrentConsumersSeeEveryFrameOnce() throws InterruptedException {
+        CaptureRing ring = new CaptureRing(64);
+        int frames = 100_000;
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        List<Thread> consumers = new ArrayList<>();
+        AtomicBoolean done = new AtomicBoolean();
+        for (int i = 0; i < 4; i++) {
+            Thread consumer = new Thread(() -> {
+                while (!done.get() || !ring.isEmpty()) {
+                    ring.poll((sequence, data, length, originalLength, timestampNanos) ->
+                        assertTrue(seen.add(PacketBytes.readInt(data, 0))));
+                }
+            });
+            consumer.start();
+            consumers.add(consumer);
+        }
+
+        int accepted = 0;
+        byte[] buffer = new byte[64];
+        for (int i = 0; i < frames; i++) {
+            PacketBytes.writeInt(buffer, 0, i);
+            if (ring.offer(buffer, buffer.length, buffer.length, i)) {
+                accepted++;
+            }
+        }
+        done.set(true);
+        for (Thread consumer : consumers) {
+            consumer.join(10_000);
+        }
+
+        assertEquals(accepted, seen.size());
+        assertEquals(frames, accepted + ring.dropped());
+    }
+}
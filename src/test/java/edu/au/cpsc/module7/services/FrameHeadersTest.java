@@ -0,0 +1,160 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameHeadersTest {
+
+    private static final byte[] MAC = { 0x08, 0x00, 0x27, 0x11, 0x22, 0x33 };
+
+    private final FrameHeaders headers = new FrameHeaders();
+
+    private static byte[] ethernet(int etherType, int payloadLength) {
+        byte[] frame = new byte[14 + payloadLength];
+        System.arraycopy(MAC, 0, frame, 6, 6);
+        PacketBytes.writeShort(frame, 12, etherType);
+        return frame;
+    }
+
+    private static void ipV4(byte[] frame, int offset, int protocol, int source, int destination) {
+        frame[offset] = 0x45;
+        frame[offset + 8] = 64;
+        frame[offset + 9] = (byte) protocol;
+        PacketBytes.writeInt(frame, offset + 12, source);
+        PacketBytes.writeInt(frame, offset + 16, destination);
+    }
+
+    private static void ports(byte[] frame, int offset, int source, int destination) {
+        PacketBytes.writeShort(frame, offset, source);
+        PacketBytes.writeShort(frame, offset + 2, destination);
+    }
+
+    @Test
+    void testDecodesIpV4Tcp() {
+        byte[] frame = ethernet(0x0800, 20 + 20 + 5);
+        ipV4(frame, 14, 6, 0xC0A80102, 0x5DB8D822);
+        ports(frame, 34, 51234, 80);
+        frame[34 + 12] = 0x50;
+        frame[34 + 13] = 0x18;
+        System.arraycopy("GET /".getBytes(), 0, frame, 54, 5);
+
+        headers.wrap(frame, frame.length, FrameHeaders.LINKTYPE_ETHERNET);
+
+        assertEquals(4, headers.ipVersion());
+        assertEquals(FrameHeaders.PROTOCOL_TCP, headers.ipProtocol());
+        assertEquals(64, headers.ttl());
+        assertTrue(headers.hasIpV4Addresses());
+        assertEquals(0xC0A80102, headers.sourceIpV4());
+        assertEquals("93.184.216.34", headers.destinationAddress());
+        assertEquals(51234, headers.sourcePort());
+        assertEquals(80, headers.destinationPort());
+        assertEquals(0x18, headers.tcpFlags());
+        assertEquals(54, headers.payloadOffset());
+        assertEquals(5, headers.payloadLength());
+        assertEquals("08:00:27:11:22:33", headers.sourceMac());
+        assertEquals(FrameHeaders.NONE, headers.vlanId());
+    }
+
+    @Test
+    void testSkipsVlanTagsAndIpV6ExtensionHeaders() {
+        byte[] frame = ethernet(0x8100, 4 + 40 + 8 + 8);
+        PacketBytes.writeShort(frame, 14, 0x2064); // Priority 1, VLAN 100
+        PacketBytes.writeShort(frame, 16, 0x86DD);
+        int ip = 18;
+        frame[ip] = 0x60;
+        frame[ip + 6] = 0;  // Hop-by-hop options follow
+        frame[ip + 7] = (byte) 255;
+        frame[ip + 8] = (byte) 0xFE;
+        frame[ip + 9] = (byte) 0x80;
+        frame[ip + 23] = 1;
+        frame[ip + 24] = (byte) 0xFF;
+        frame[ip + 25] = 0x02;
+        frame[ip + 39] = (byte) 0xFB;
+        frame[ip + 40] = 17; // Then UDP
+        ports(frame, ip + 48, 5353, 5353);
+
+        headers.wrap(frame, frame.length, FrameHeaders.LINKTYPE_ETHERNET);
+
+        assertEquals(100, headers.vlanId());
+        assertEquals(FrameHeaders.ETHERTYPE_IPV6, headers.etherType());
+        assertEquals(6, headers.ipVersion());
+        assertEquals(FrameHeaders.PROTOCOL_UDP, headers.ipProtocol());
+        assertFalse(headers.hasIpV4Addresses());
+        assertEquals(5353, headers.sourcePort());
+        assertEquals("fe80:0:0:0:0:0:0:1", headers.sourceAddress());
+        assertEquals("ff02:0:0:0:0:0:0:fb", headers.destinationAddress());
+    }
+
+    @Test
+    void testDecodesArpAddresses() {
+        byte[] frame = ethernet(0x0806, 28);
+        PacketBytes.writeShort(frame, 14, 1);
+        PacketBytes.writeShort(frame, 16, 0x0800);
+        frame[18] = 6;
+        frame[19] = 4;
+        PacketBytes.writeShort(frame, 20, 1);
+        PacketBytes.writeInt(frame, 28, 0x0A000001);
+        PacketBytes.writeInt(frame, 38, 0x0A0000FE);
+
+        headers.wrap(frame, frame.length, FrameHeaders.LINKTYPE_ETHERNET);
+
+        assertTrue(headers.isArp());
+        assertEquals(1, headers.arpOperation());
+        assertEquals("10.0.0.1", headers.sourceAddress());
+        assertEquals(0x0A0000FE, headers.destinationIpV4());
+        assertFalse(headers.hasTransport());
+    }
+
+    @Test
+    void testLaterIpV4FragmentsHaveNoTransportHeader() {
+        byte[] frame = ethernet(0x0800, 20 + 8);
+        ipV4(frame, 14, 17, 0x0A000001, 0x0A000002);
+        PacketBytes.writeShort(frame, 20, 185); // Fragment offset 1480 bytes
+        ports(frame, 34, 53, 53);
+
+        headers.wrap(frame, frame.length, FrameHeaders.LINKTYPE_ETHERNET);
+
+        assertEquals(FrameHeaders.PROTOCOL_UDP, headers.ipProtocol());
+        assertFalse(headers.hasTransport());
+        assertEquals(FrameHeaders.NONE, headers.sourcePort());
+    }
+
+    @Test
+    void testTruncatedFramesStopAtTheLastCompleteLayer() {
+        byte[] frame = ethernet(0x0800, 20 + 20);
+        ipV4(frame, 14, 6, 0x0A000001, 0x0A000002);
+        ports(frame, 34, 1234, 443);
+
+        headers.wrap(frame, 40, FrameHeaders.LINKTYPE_ETHERNET);
+        assertEquals(4, headers.ipVersion());
+        assertFalse(headers.hasTransport());
+
+        headers.wrap(frame, 20, FrameHeaders.LINKTYPE_ETHERNET);
+        assertEquals(FrameHeaders.ETHERTYPE_IPV4, headers.etherType());
+        assertEquals(FrameHeaders.NONE, headers.ipVersion());
+        assertFalse(headers.hasIpV4Addresses());
+        assertNull(headers.sourceAddress());
+    }
+
+    @Test
+    void testDecodesRawAndCookedLinkTypes() {
+        byte[] raw = new byte[20 + 8];
+        ipV4(raw, 0, 1, 0x7F000001, 0x7F000001);
+        raw[20] = 8; // Echo request
+
+        headers.wrap(raw, raw.length, FrameHeaders.LINKTYPE_RAW);
+        assertEquals(FrameHeaders.PROTOCOL_ICMP, headers.ipProtocol());
+        assertEquals(8, headers.icmpType());
+        assertNull(headers.sourceMac());
+
+        byte[] cooked = new byte[16 + 20 + 8];
+        PacketBytes.writeShort(cooked, 14, 0x0800);
+        ipV4(cooked, 16, 17, 0x0A000001, 0x0A000002);
+        ports(cooked, 36, 40000, 67);
+
+        headers.wrap(cooked, cooked.length, FrameHeaders.LINKTYPE_LINUX_SLL);
+        assertEquals(67, headers.destinationPort());
+        assertEquals("10.0.0.1", headers.sourceAddress());
+    }
+}
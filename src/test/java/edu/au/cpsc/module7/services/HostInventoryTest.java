@@ -0,0 +1,211 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.InventoryEvent;
+import edu.au.cpsc.module7.models.NetworkHost;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostInventoryTest {
+
+    private static final byte[] MAC_A = { 0x08, 0x00, 0x27, 0x11, 0x22, 0x33 };
+    private static final byte[] MAC_B = { 0x00, 0x50, 0x56, 0x44, 0x55, 0x66 };
+
+    private final List<InventoryEvent> events = new ArrayList<>();
+    private final HostInventory inventory =
+        new HostInventory(new OuiDatabase((Path) null), events::add);
+
+    private static byte[] ethernet(byte[] source, int etherType, int payloadLength) {
+        byte[] frame = new byte[14 + payloadLength];
+        System.arraycopy(source, 0, frame, 6, 6);
+        PacketBytes.writeShort(frame, 12, etherType);
+        return frame;
+    }
+
+    private static byte[] arp(byte[] senderMac, int senderIp) {
+        byte[] frame = ethernet(senderMac, 0x0806, 28);
+        PacketBytes.writeShort(frame, 14, 1);
+        PacketBytes.writeShort(frame, 16, 0x0800);
+        frame[18] = 6;
+        frame[19] = 4;
+        PacketBytes.writeShort(frame, 20, 2);
+        System.arraycopy(senderMac, 0, frame, 22, 6);
+        PacketBytes.writeInt(frame, 28, senderIp);
+        return frame;
+    }
+
+    private static byte[] udp(byte[] sourceMac, int sourceIp, int sourcePort, int destinationPort, byte[] payload) {
+        byte[] frame = ethernet(sourceMac, 0x0800, 28 + payload.length);
+        frame[14] = 0x45;
+        frame[14 + 9] = 17;
+        PacketBytes.writeInt(frame, 14 + 12, sourceIp);
+        PacketBytes.writeShort(frame, 34, sourcePort);
+        PacketBytes.writeShort(frame, 36, destinationPort);
+        PacketBytes.writeShort(frame, 38, 8 + payload.length);
+        System.arraycopy(payload, 0, frame, 42, payload.length);
+        return frame;
+    }
+
+    private static byte[] dhcp(int op, int messageType, int yourAddress, byte[] clientMac, String hostname) {
+        byte[] bootp = new byte[300];
+        bootp[0] = (byte) op;
+        bootp[1] = 1;
+        bootp[2] = 6;
+        PacketBytes.writeInt(bootp, 16, yourAddress);
+        System.arraycopy(clientMac, 0, bootp, 28, 6);
+        PacketBytes.writeInt(bootp, 236, 0x63825363);
+        int pos = 240;
+        bootp[pos++] = 53;
+        bootp[pos++] = 1;
+        bootp[pos++] = (byte) messageType;
+        if (hostname != null) {
+            byte[] name = hostname.getBytes(StandardCharsets.US_ASCII);
+            bootp[pos++] = 12;
+            bootp[pos++] = (byte) name.length;
+            System.arraycopy(name, 0, bootp, pos, name.length);
+            pos += name.length;
+        }
+        bootp[pos] = (byte) 255;
+        return bootp;
+    }
+
+    /**
+     * mDNS response with one A record for name.local pointing at address
+     */
+    private static byte[] mdnsResponse(String name, int address) {
+        byte[] label = name.getBytes(StandardCharsets.US_ASCII);
+        byte[] message = new byte[12 + 1 + label.length + 7 + 10 + 4];
+        PacketBytes.writeShort(message, 2, 0x8400);
+        PacketBytes.writeShort(message, 6, 1);
+        int pos = 12;
+        message[pos++] = (byte) label.length;
+        System.arraycopy(label, 0, message, pos, label.length);
+        pos += label.length;
+        message[pos++] = 5;
+        System.arraycopy("local".getBytes(StandardCharsets.US_ASCII), 0, message, pos, 5);
+        pos += 5;
+        message[pos++] = 0;
+        PacketBytes.writeShort(message, pos, 1);
+        PacketBytes.writeShort(message, pos + 2, 0x8001);
+        PacketBytes.writeInt(message, pos + 4, 120);
+        PacketBytes.writeShort(message, pos + 8, 4);
+        PacketBytes.writeInt(message, pos + 10, address);
+        return message;
+    }
+
+    private static byte[] neighborAdvertisement(byte[] sourceMac, byte[] target) {
+        byte[] frame = ethernet(sourceMac, 0x86DD, 40 + 24);
+        frame[14] = 0x60;
+        frame[14 + 6] = 58;
+        frame[54] = (byte) 136;
+        System.arraycopy(target, 0, frame, 54 + 8, 16);
+        return frame;
+    }
+
+    @Test
+    void testArpSenderIsAddedOnceAndMacChangesAreReported() {
+        int ip = TargetSpec.pack("192.168.1.20");
+        inventory.handleFrame(arp(MAC_A, ip), 1000);
+        inventory.handleFrame(arp(MAC_A, ip), 2000);
+        inventory.handleFrame(arp(MAC_B, ip), 3000);
+
+        assertEquals(2, events.size());
+        assertEquals(InventoryEvent.Type.HOST_ADDED, events.get(0).getType());
+        assertEquals(HostInventory.ARP, events.get(0).getSource());
+        assertEquals(InventoryEvent.Type.MAC_CHANGED, events.get(1).getType());
+        assertEquals("08:00:27:11:22:33", events.get(1).getPrevious());
+
+        NetworkHost host = inventory.snapshot().iterator().next();
+        assertEquals("192.168.1.20", host.getIpAddress());
+        assertEquals("00:50:56:44:55:66", host.getMacAddress());
+        assertEquals("VMware", host.getVendor());
+    }
+
+    @Test
+    void testArpProbesAreIgnored() {
+        inventory.handleFrame(arp(MAC_A, 0), 1000);
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void testDhcpAckBindsAddressAndRequestedHostname() {
+        int server = TargetSpec.pack("192.168.1.1");
+        int leased = TargetSpec.pack("192.168.1.57");
+        inventory.handleFrame(udp(MAC_A, 0, 68, 67, dhcp(1, 3, 0, MAC_A, "laptop")), 1000);
+        assertTrue(events.isEmpty());
+
+        inventory.handleFrame(udp(MAC_B, server, 67, 68, dhcp(2, 5, leased, MAC_A, null)), 1100);
+
+        assertEquals(2, events.size());
+        NetworkHost host = events.get(0).getHost();
+        assertEquals("192.168.1.57", host.getIpAddress());
+        assertEquals("08:00:27:11:22:33", host.getMacAddress());
+        assertEquals("laptop", host.getHostname());
+        assertEquals(InventoryEvent.Type.HOSTNAME_LEARNED, events.get(1).getType());
+        assertEquals(HostInventory.DHCP, events.get(1).getSource());
+    }
+
+    @Test
+    void testMdnsResponderLearnsItsOwnName() {
+        int ip = TargetSpec.pack("192.168.1.30");
+        inventory.handleFrame(udp(MAC_A, ip, 5353, 5353, mdnsResponse("printer", ip)), 1000);
+
+        assertEquals(2, events.size());
+        assertEquals("printer.local", events.get(1).getHost().getHostname());
+        assertEquals(HostInventory.MDNS, events.get(1).getSource());
+    }
+
+    @Test
+    void testMdnsRecordsForOtherAddressesAreNotTrusted() {
+        int ip = TargetSpec.pack("192.168.1.30");
+        inventory.handleFrame(udp(MAC_A, ip, 5353, 5353, mdnsResponse("printer", TargetSpec.pack("192.168.1.99"))), 1000);
+
+        assertEquals(1, events.size());
+        assertNull(events.get(0).getHost().getHostname());
+    }
+
+    @Test
+    void testNeighborAdvertisementAddsTargetAddress() {
+        byte[] target = new byte[16];
+        target[0] = (byte) 0xFE;
+        target[1] = (byte) 0x80;
+        target[15] = 1;
+        inventory.handleFrame(neighborAdvertisement(MAC_A, target), 1000);
+
+        assertEquals(1, events.size());
+        assertEquals("fe80:0:0:0:0:0:0:1", events.get(0).getHost().getIpAddress());
+        assertEquals(HostInventory.NDP, events.get(0).getSource());
+    }
+
+    @Test
+    void testSilentHostsExpire() {
+        inventory.handleFrame(arp(MAC_A, TargetSpec.pack("192.168.1.20")), 1000);
+        inventory.handleFrame(arp(MAC_B, TargetSpec.pack("192.168.1.21")), 5000);
+
+        assertEquals(1, inventory.expire(6000, 2000));
+        assertEquals(InventoryEvent.Type.HOST_EXPIRED, events.get(2).getType());
+        assertEquals("192.168.1.20", events.get(2).getHost().getIpAddress());
+        assertEquals(1, inventory.snapshot().size());
+    }
+
+    @Test
+    void testTruncatedFramesAreIgnored() {
+        byte[] frame = arp(MAC_A, TargetSpec.pack("192.168.1.20"));
+        for (int length = 0; length < frame.length; length++) {
+            inventory.handleFrame(Arrays.copyOf(frame, length), 1000);
+        }
+        byte[] dhcpFrame = udp(MAC_A, 0, 68, 67, dhcp(1, 3, 0, MAC_A, "laptop"));
+        for (int length = 0; length < dhcpFrame.length; length++) {
+            inventory.handleFrame(Arrays.copyOf(dhcpFrame, length), 1000);
+        }
+
+        assertTrue(events.isEmpty());
+    }
+}
@@ -0,0 +1,58 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NeighborTableTest {
+
+    private static final String HEADER =
+        "IP address       HW type     Flags       HW address            Mask     Device\n";
+
+    private static Map<Integer, byte[]> parse(String content) {
+        return NeighborTable.parse(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testParsesResolvedEntries() {
+        Map<Integer, byte[]> entries = parse(HEADER
+            + "192.168.1.1      0x1         0x2         aa:bb:cc:dd:ee:0f     *        eth0\n"
+            + "10.0.0.254       0x1         0x6         00:50:56:C0:00:08     *        ens33\n");
+
+        assertEquals(2, entries.size());
+        assertArrayEquals(new byte[] { (byte) 0xAA, (byte) 0xBB, (byte) 0xCC, (byte) 0xDD, (byte) 0xEE, 0x0F },
+            entries.get(TargetSpec.pack("192.168.1.1")));
+        assertArrayEquals(new byte[] { 0x00, 0x50, 0x56, (byte) 0xC0, 0x00, 0x08 },
+            entries.get(TargetSpec.pack("10.0.0.254")));
+    }
+
+    @Test
+    void testSkipsIncompleteAndZeroEntries() {
+        Map<Integer, byte[]> entries = parse(HEADER
+            + "192.168.1.5      0x1         0x0         00:00:00:00:00:00     *        eth0\n"
+            + "192.168.1.6      0x1         0x2         00:00:00:00:00:00     *        eth0\n");
+
+        assertTrue(entries.isEmpty());
+    }
+
+    @Test
+    void testSkipsMalformedLinesAndToleratesMissingTrailingNewline() {
+        Map<Integer, byte[]> entries = parse(HEADER
+            + "300.1.1.1        0x1         0x2         aa:bb:cc:dd:ee:ff     *        eth0\n"
+            + "192.168.1.7      0x1         0x2         aa:bb:cc:dd:ee        *        eth0\n"
+            + "\n"
+            + "192.168.1.8      0x1         0x2         01:02:03:04:05:06     *        eth0");
+
+        assertEquals(1, entries.size());
+        assertTrue(entries.containsKey(TargetSpec.pack("192.168.1.8")));
+    }
+
+    @Test
+    void testEmptyTableHasNoEntries() {
+        assertTrue(parse(HEADER).isEmpty());
+        assertTrue(parse("").isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OsFingerprinterTest {
+
+    private static final byte[] LINUX_OPTIONS = {
+        2, 4, 0x05, (byte) 0xB4,     // mss 1460
+        4, 2,                        // sackOK
+        8, 10, 0, 0, 0, 1, 0, 0, 0, 1, // timestamps
+        1,                           // nop
+        3, 3, 7                      // wscale 7
+    };
+
+    private static final byte[] WINDOWS_OPTIONS = {
+        2, 4, 0x05, (byte) 0xB4, 1, 3, 3, 8, 1, 1, 4, 2
+    };
+
+    /**
+     * Ethernet + IPv4 + TCP SYN/ACK with the given fingerprint fields
+     */
+    private static byte[] synAck(int ttl, boolean df, int window, byte[] options) {
+        int tcpLength = 20 + options.length;
+        byte[] frame = new byte[14 + 20 + tcpLength];
+        PacketBytes.writeShort(frame, 12, 0x0800);
+        frame[14] = 0x45;
+        frame[14 + 6] = (byte) (df ? 0x40 : 0);
+        frame[14 + 8] = (byte) ttl;
+        frame[14 + 9] = 6;
+        int tcp = 34;
+        frame[tcp + 12] = (byte) ((tcpLength / 4) << 4);
+        frame[tcp + 13] = 0x12;
+        PacketBytes.writeShort(frame, tcp + 14, window);
+        System.arraycopy(options, 0, frame, tcp + 20, options.length);
+        return frame;
+    }
+
+    @Test
+    void testMatchesKnownStacks() {
+        OsFingerprinter fingerprinter = new OsFingerprinter();
+        NetworkHost linux = new NetworkHost("10.0.0.1");
+        NetworkHost windows = new NetworkHost("10.0.0.2");
+        fingerprinter.observe(linux, synAck(61, true, 65160, LINUX_OPTIONS), 14, 34);
+        fingerprinter.observe(windows, synAck(118, true, 8192, WINDOWS_OPTIONS), 14, 34);
+
+        assertEquals("Linux 4.x-6.x", fingerprinter.guess(linux));
+        assertEquals("Windows 7/Server 2008", fingerprinter.guess(windows));
+        assertNull(fingerprinter.guess(new NetworkHost("10.0.0.3")));
+    }
+
+    @Test
+    void testFirstReplyWinsAndFallbacksDegrade() {
+        OsFingerprinter fingerprinter = new OsFingerprinter();
+        NetworkHost host = new NetworkHost("10.0.0.1");
+        // DF cleared by a middlebox: option order and TTL still identify the stack
+        fingerprinter.observe(host, synAck(64, false, 65160, LINUX_OPTIONS), 14, 34);
+        fingerprinter.observe(host, synAck(128, true, 8192, WINDOWS_OPTIONS), 14, 34);
+        assertEquals("Linux 4.x-6.x (approximate)", fingerprinter.guess(host));
+
+        NetworkHost router = new NetworkHost("10.0.0.254");
+        fingerprinter.observe(router, synAck(250, false, 1024, new byte[] { 1, 1, 4, 2 }), 14, 34);
+        assertEquals("Network device (TTL 255)", fingerprinter.guess(router));
+    }
+
+    @Test
+    void testLongOptionListsKeepTheirLeadingOptionsInTheKey() {
+        byte[] mssFirst = new byte[40];
+        byte[] wscaleFirst = new byte[40];
+        Arrays.fill(mssFirst, (byte) 1);
+        Arrays.fill(wscaleFirst, (byte) 1);
+        System.arraycopy(new byte[] { 2, 4, 0x05, (byte) 0xB4 }, 0, mssFirst, 0, 4);
+        System.arraycopy(new byte[] { 3, 3, 7 }, 0, wscaleFirst, 0, 3);
+        // Past the layout cap, so only read for its value
+        System.arraycopy(new byte[] { 3, 3, 9 }, 0, mssFirst, 36, 3);
+
+        OsFingerprinter.Observation a = OsFingerprinter.Observation.parse(synAck(64, true, 1024, mssFirst), 14, 34);
+        OsFingerprinter.Observation b = OsFingerprinter.Observation.parse(synAck(64, true, 1024, wscaleFirst), 14, 34);
+
+        assertNotEquals(OsFingerprinter.exactKey(a.layout, 64, true), OsFingerprinter.exactKey(b.layout, 64, true));
+        assertNotEquals(OsFingerprinter.layoutKey(a.layout, 64), OsFingerprinter.layoutKey(b.layout, 64));
+        assertEquals(1460, a.mss);
+        assertEquals(9, a.windowScale);
+        assertEquals(7, b.windowScale);
+    }
+}
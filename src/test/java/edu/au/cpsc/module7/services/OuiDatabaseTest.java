@@ -0,0 +1,83 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OuiDatabaseTest {
+
+    private static final String REGISTRY =
+        "Registry,Assignment,Organization Name,Organization Address\n"
+        + "MA-L,001BC5,IEEE Registration Authority,445 Hoes Lane Piscataway NJ US 08854\n"
+        + "MA-M,001BC51,\"Example Sensors, Inc.\",1 Main St\n"
+        + "MA-S,001BC5002,Tiny Devices,2 Main St\n"
+        + "MA-L,F0D5BF,Intel Corporate,Lot 8 Jalan Hi-Tech\n"
+        + "MA-L,F0D5BF,Duplicate Entry,\n"
+        + "MA-L,ZZZZZZ,Bad Assignment,\n"
+        + "MA-L,00005E,\"ICANN, IANA Department\",Los Angeles\n";
+
+    private static OuiDatabase.Index parse(String content) throws IOException {
+        return OuiDatabase.parse(new StringReader(content));
+    }
+
+    @Test
+    void testMostSpecificAssignmentWins() throws IOException {
+        OuiDatabase.Index index = parse(REGISTRY);
+
+        assertEquals("Tiny Devices", index.lookup(0x001BC5002ABCL));
+        assertEquals("Example Sensors, Inc.", index.lookup(0x001BC51ABCDEL));
+        assertEquals("IEEE Registration Authority", index.lookup(0x001BC5FFFFFFL));
+        assertNull(index.lookup(0x123456000000L));
+    }
+
+    @Test
+    void testFirstDuplicateWinsAndMalformedLinesAreSkipped() throws IOException {
+        OuiDatabase.Index index = parse(REGISTRY);
+
+        assertEquals("Intel Corporate", index.lookup(0xF0D5BF000001L));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void testParsesIeeeTextFormat() throws IOException {
+        OuiDatabase.Index index = parse(
+            "OUI/MA-L                                                    Organization\n"
+            + "company_id                                                  Organization\n"
+            + "\n"
+            + "08-00-27   (hex)\t\tPCS Systemtechnik GmbH\n"
+            + "080027     (base 16)\t\tPCS Systemtechnik GmbH\n"
+            + "\t\t\t\tMuenchen  Bavaria  81373\n");
+
+        assertEquals("PCS Systemtechnik GmbH", index.lookup(0x080027AABBCCL));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testLookupAcceptsCommonNotations(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("oui.csv");
+        Files.writeString(file, REGISTRY);
+        OuiDatabase database = new OuiDatabase(file);
+
+        assertEquals("ICANN, IANA Department", database.lookup("00:00:5e:00:01:01"));
+        assertEquals("ICANN, IANA Department", database.lookup("00-00-5E-00-01-01"));
+        assertEquals("ICANN, IANA Department", database.lookup("0000.5e00.0101"));
+        assertEquals("ICANN, IANA Department", database.lookup(new byte[] { 0, 0, 0x5E, 0, 1, 1 }));
+        assertNull(database.lookup("00:00"));
+        assertNull(database.lookup("not a mac"));
+        assertNull(database.lookup((String) null));
+    }
+
+    @Test
+    void testFallsBackToBundledRegistry(@TempDir Path dir) {
+        OuiDatabase database = new OuiDatabase(dir.resolve("missing.csv"));
+
+        assertEquals("VMware", database.lookup("00:50:56:01:02:03"));
+        assertEquals("VirtualBox", database.lookup("08:00:27:01:02:03"));
+    }
+}
@@ -0,0 +1,105 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.CapturedPacket;
+import edu.au.cpsc.module7.models.PacketArena;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PacketStoreTest {
+
+    private static CapturedPacket packet(long id, int length) {
+        return new CapturedPacket(id, LocalDateTime.now(), "10.0.0.1", "10.0.0.2", 1234, 80,
+                                  "TCP", length, new byte[0], "");
+    }
+
+    private static void fill(PacketStore store, int count, int length) {
+        for (int i = 0; i < count; i++) {
+            store.add(packet(store.size() + store.evicted() + 1, length));
+        }
+    }
+
+    @Test
+    void testSnapshotListsPacketsAcrossSegmentsInOrder() {
+        PacketStore store = new PacketStore(Long.MAX_VALUE, Long.MAX_VALUE);
+        fill(store, PacketStore.SEGMENT_SIZE * 2 + 10, 100);
+
+        List<CapturedPacket> snapshot = store.snapshot();
+        assertEquals(PacketStore.SEGMENT_SIZE * 2 + 10, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(i + 1, snapshot.get(i).getId());
+        }
+        assertEquals(100L * snapshot.size(), store.bytes());
+    }
+
+    @Test
+    void testSnapshotIsUnaffectedByLaterAppends() {
+        PacketStore store = new PacketStore(Long.MAX_VALUE, Long.MAX_VALUE);
+        fill(store, 3, 60);
+        List<CapturedPacket> snapshot = store.snapshot();
+        fill(store, 5, 60);
+
+        assertEquals(3, snapshot.size());
+        assertEquals(8, store.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(3));
+    }
+
+    @Test
+    void testPacketLimitEvictsOldestSegment() {
+        PacketStore store = new PacketStore(PacketStore.SEGMENT_SIZE + 100, Long.MAX_VALUE);
+        fill(store, PacketStore.SEGMENT_SIZE + 101, 60);
+
+        assertEquals(101, store.size());
+        assertEquals(PacketStore.SEGMENT_SIZE, store.evicted());
+        assertEquals(PacketStore.SEGMENT_SIZE + 1, store.snapshot().get(0).getId());
+    }
+
+    @Test
+    void testByteLimitEvictsButKeepsTheSegmentBeingFilled() {
+        PacketStore store = new PacketStore(Long.MAX_VALUE, 1000);
+        fill(store, 50, 1500);
+
+        assertEquals(50, store.size());
+        assertEquals(0, store.evicted());
+
+        fill(store, PacketStore.SEGMENT_SIZE, 1500);
+        assertEquals(50, store.size());
+        assertEquals(PacketStore.SEGMENT_SIZE, store.evicted());
+    }
+
+    @Test
+    void testTighteningLimitsEvictsImmediately() {
+        PacketStore store = new PacketStore(Long.MAX_VALUE, Long.MAX_VALUE);
+        fill(store, PacketStore.SEGMENT_SIZE * 3, 60);
+
+        store.setLimits(PacketStore.SEGMENT_SIZE, Long.MAX_VALUE);
+        assertEquals(PacketStore.SEGMENT_SIZE, store.size());
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, store.evicted());
+        assertTrue(store.snapshot().isEmpty());
+    }
+
+    @Test
+    void testEvictionReleasesArenaChunksOfEvictedPackets() {
+        PacketArena arena = new PacketArena(100 * PacketStore.SEGMENT_SIZE);
+        PacketStore store = new PacketStore(PacketStore.SEGMENT_SIZE, Long.MAX_VALUE, arena);
+        byte[] frame = new byte[100];
+        for (int i = 0; i < PacketStore.SEGMENT_SIZE * 3; i++) {
+            long handle = arena.append(frame, 0, frame.length);
+            store.add(new CapturedPacket(i + 1, 0, 0x0A000001L, 0x0A000002L, 1234, 80,
+                                         "TCP", frame.length, arena, handle));
+        }
+
+        CapturedPacket oldest = store.snapshot().get(0);
+        assertEquals(100, oldest.getRawData().length);
+        assertEquals(100L * PacketStore.SEGMENT_SIZE, arena.allocatedBytes());
+
+        store.clear();
+        assertEquals(0, arena.allocatedBytes());
+    }
+}
@@ -0,0 +1,182 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.CapturedPacket;
+import edu.au.cpsc.module7.models.PacketArena;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PcapWriterTest {
+
+    private static final long TIMESTAMP = 1_700_000_000_123_456_789L;
+
+    @TempDir
+    Path tempDir;
+
+    private static ByteBuffer read(Path path) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.nativeOrder());
+    }
+
+    private static byte[] frame(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    @Test
+    void testWritesPcapWithNanosecondTimestamps() throws IOException {
+        Path path = tempDir.resolve("capture.pcap");
+        try (PcapWriter writer = PcapWriter.open(path, PcapWriter.Format.PCAP, 1, 65536, null)) {
+            writer.write(TIMESTAMP, frame(60), 0, 60, 60);
+            writer.write(TIMESTAMP + 1, frame(100), 0, 100, 1514);
+        }
+
+        ByteBuffer file = read(path);
+        assertEquals(24 + 16 + 60 + 16 + 100, file.limit());
+        assertEquals(0xA1B23C4D, file.getInt(0));
+        assertEquals(2, file.getShort(4));
+        assertEquals(4, file.getShort(6));
+        assertEquals(65536, file.getInt(16));
+        assertEquals(1, file.getInt(20));
+
+        assertEquals(1_700_000_000, file.getInt(24));
+        assertEquals(123_456_789, file.getInt(28));
+        assertEquals(60, file.getInt(32));
+        assertEquals(60, file.getInt(36));
+        assertEquals(59, file.get(40 + 59));
+
+        int second = 24 + 16 + 60;
+        assertEquals(123_456_790, file.getInt(second + 4));
+        assertEquals(100, file.getInt(second + 8));
+        assertEquals(1514, file.getInt(second + 12));
+    }
+
+    @Test
+    void testTruncatesFramesToSnapshotLength() throws IOException {
+        Path path = tempDir.resolve("short.pcap");
+        try (PcapWriter writer = PcapWriter.open(path, PcapWriter.Format.PCAP, 1, 64, null)) {
+            writer.write(TIMESTAMP, frame(200), 0, 200, 200);
+        }
+
+        ByteBuffer file = read(path);
+        assertEquals(24 + 16 + 64, file.limit());
+        assertEquals(64, file.getInt(32));
+        assertEquals(200, file.getInt(36));
+    }
+
+    @Test
+    void testWritesPcapngBlocks() throws IOException {
+        Path path = tempDir.resolve("capture.pcapng");
+        try (PcapWriter writer = PcapWriter.open(path, PcapWriter.Format.PCAPNG, 1, 65536, "eth0")) {
+            writer.write(TIMESTAMP, frame(61), 0, 61, 61);
+        }
+
+        ByteBuffer file = read(path);
+        assertEquals(0x0A0D0D0A, file.getInt(0));
+        int sectionLength = file.getInt(4);
+        assertEquals(0x1A2B3C4D, file.getInt(8));
+        assertEquals(sectionLength, file.getInt(sectionLength - 4));
+
+        int idb = sectionLength;
+        assertEquals(1, file.getInt(idb));
+        int idbLength = file.getInt(idb + 4);
+        assertEquals(1, file.getShort(idb + 8));
+        assertEquals(65536, file.getInt(idb + 12));
+        assertEquals(2, file.getShort(idb + 16)); // if_name
+        assertEquals(4, file.getShort(idb + 18));
+        assertEquals('e', file.get(idb + 20));
+        assertEquals(9, file.getShort(idb + 24)); // if_tsresol
+        assertEquals(9, file.get(idb + 28));
+        assertEquals(idbLength, file.getInt(idb + idbLength - 4));
+
+        int epb = idb + idbLength;
+        assertEquals(6, file.getInt(epb));
+        assertEquals(32 + 64, file.getInt(epb + 4));
+        assertEquals(TIMESTAMP, ((long) file.getInt(epb + 12) << 32) | (file.getInt(epb + 16) & 0xFFFFFFFFL));
+        assertEquals(61, file.getInt(epb + 20));
+        assertEquals(60, file.get(epb + 28 + 60));
+        assertEquals(0, file.get(epb + 28 + 61));
+        assertEquals(32 + 64, file.getInt(epb + 28 + 64));
+        assertEquals(epb + 32 + 64, file.limit());
+    }
+
+    @Test
+    void testExportSkipsPacketsWithoutFrames() throws IOException {
+        PacketArena arena = new PacketArena(1024);
+        long handle = arena.append(frame(60), 0, 60);
+        List<CapturedPacket> packets = List.of(
+            new CapturedPacket(1, TIMESTAMP, 0x0A000001L, 0x0A000002L, 1234, 80, "HTTP", 60, arena, handle),
+            new CapturedPacket(2, LocalDateTime.now(), "src", "dst", 1, 1, "TCP", 64, new byte[0], "")
+        );
+
+        Path path = tempDir.resolve("export.pcap");
+        assertEquals(1, PcapWriter.export(path, PcapWriter.Format.forFile(path), 1, packets));
+        assertEquals(24 + 16 + 60, Files.size(path));
+        assertEquals(PcapWriter.Format.PCAPNG, PcapWriter.Format.forFile(tempDir.resolve("x.PCAPNG")));
+    }
+
+    @Test
+    void testRollingWriterRotatesBySize() throws IOException {
+        RollingPcapWriter writer = new RollingPcapWriter(tempDir, "ring", PcapWriter.Format.PCAP, 1, 65536,
+                                                         null, 24 + 2 * (16 + 100), 0, 0);
+        for (int i = 0; i < 5; i++) {
+            writer.write(TIMESTAMP + i, frame(100), 0, 100, 100);
+        }
+        writer.close();
+
+        List<Path> files = writer.getFiles();
+        assertEquals(3, files.size());
+        assertEquals(24 + 2 * 116, Files.size(files.get(0)));
+        assertEquals(24 + 116, Files.size(files.get(2)));
+        assertTrue(files.get(0).getFileName().toString().startsWith("ring_00001_"));
+        assertEquals(5, writer.packetsWritten());
+        assertEquals(3 * 24 + 5 * 116, writer.bytesWritten());
+    }
+
+    @Test
+    void testRollingWriterRotatesByTimeAndKeepsLastFiles() throws IOException {
+        long second = Duration.ofSeconds(1).toNanos();
+        RollingPcapWriter writer = new RollingPcapWriter(tempDir, "ring", PcapWriter.Format.PCAPNG, 1, 65536,
+                                                         "eth0", 0, 10 * second, 2);
+        for (int i = 0; i < 40; i++) {
+            writer.write(TIMESTAMP + i * second, frame(60), 0, 60, 60);
+        }
+        writer.close();
+
+        List<Path> files = writer.getFiles();
+        assertEquals(2, files.size());
+        assertTrue(files.get(0).getFileName().toString().startsWith("ring_00003_"));
+        assertTrue(files.get(1).getFileName().toString().endsWith(".pcapng"));
+        try (var listing = Files.list(tempDir)) {
+            assertEquals(2, listing.count());
+        }
+    }
+
+    @Test
+    void testRollingWriterFlushesOnWallClockWhileIdle() throws IOException {
+        RollingPcapWriter writer = new RollingPcapWriter(tempDir, "idle", PcapWriter.Format.PCAP, 1, 65536,
+                                                         null, 0, 0, 0);
+        writer.write(TIMESTAMP, frame(60), 0, 60, 60);
+        Path file = writer.getFiles().get(0);
+        assertEquals(0, Files.size(file));
+
+        writer.flushIfDue(System.nanoTime());
+        assertEquals(0, Files.size(file));
+
+        writer.flushIfDue(System.nanoTime() + Duration.ofSeconds(2).toNanos());
+        assertEquals(24 + 16 + 60, Files.size(file));
+        writer.close();
+    }
+}
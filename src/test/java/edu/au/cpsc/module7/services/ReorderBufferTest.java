@@ -0,0 +1,78 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReorderBufferTest {
+
+    @Test
+    void testItemsAreReleasedInSequenceOrder() {
+        List<String> seen = new ArrayList<>();
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(8, 0, seen::add);
+
+        buffer.complete(2, "c");
+        buffer.complete(1, "b");
+        assertTrue(seen.isEmpty());
+        assertEquals(2, buffer.waiting());
+
+        buffer.complete(0, "a");
+        assertEquals(List.of("a", "b", "c"), seen);
+        assertEquals(0, buffer.waiting());
+    }
+
+    @Test
+    void testNullCompletionsAreSkipped() {
+        List<String> seen = new ArrayList<>();
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(4, 10, seen::add);
+
+        buffer.complete(11, "b");
+        buffer.complete(10, null);
+        assertEquals(List.of("b"), seen);
+    }
+
+    @Test
+    void testSequencesOutsideTheWindowAreRejected() {
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(4, 0, item -> { });
+        buffer.complete(0, "a");
+
+        assertThrows(IllegalArgumentException.class, () -> buffer.complete(0, "again"));
+        assertThrows(IllegalArgumentException.class, () -> buffer.complete(5, "far"));
+        buffer.complete(4, "edge");
+        assertEquals(1, buffer.waiting());
+    }
+
+    @Test
+    void testConcurrentCompletionsReachTheSinkInOrder() throws InterruptedException {
+        int count = 100_000; // Within the window, so a descheduled thread cannot push others past it
+        int threads = 4;
+        List<Long> seen = Collections.synchronizedList(new ArrayList<>());
+        ReorderBuffer<Long> buffer = new ReorderBuffer<>(1 << 17, 0, seen::add);
+        AtomicLong next = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                long sequence;
+                while ((sequence = next.getAndIncrement()) < count) {
+                    buffer.complete(sequence, sequence);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(count, seen.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (long) seen.get(i));
+        }
+    }
+}
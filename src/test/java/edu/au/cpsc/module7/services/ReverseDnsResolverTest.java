@@ -0,0 +1,145 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReverseDnsResolverTest {
+
+    private DatagramSocket server;
+    private final AtomicInteger queries = new AtomicInteger();
+
+    /**
+     * Answers 1.0.0.10.in-addr.arpa with a PTR and everything else with NXDOMAIN plus an SOA
+     */
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[512];
+            while (!server.isClosed()) {
+                try {
+                    DatagramPacket request = new DatagramPacket(buffer, buffer.length);
+                    server.receive(request);
+                    queries.incrementAndGet();
+                    byte[] reply = answer(ByteBuffer.wrap(buffer, 0, request.getLength()));
+                    server.send(new DatagramPacket(reply, reply.length, request.getSocketAddress()));
+                } catch (SocketException e) {
+                    return;
+                } catch (Exception e) {
+                    fail(e);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    private static byte[] answer(ByteBuffer request) {
+        int questionEnd = 12;
+        while (request.get(questionEnd) != 0) {
+            questionEnd += (request.get(questionEnd) & 0xFF) + 1;
+        }
+        questionEnd += 5;
+        boolean known = request.get(13) == '1' && request.get(17) == '0' && request.get(19) == '1' && request.get(20) == '0';
+
+        ByteBuffer reply = ByteBuffer.allocate(512);
+        reply.putShort(request.getShort(0)).putShort((short) (known ? 0x8180 : 0x8183))
+            .putShort((short) 1).putShort((short) (known ? 1 : 0)).putShort((short) (known ? 0 : 1)).putShort((short) 0);
+        reply.put(request.array(), 12, questionEnd - 12);
+        if (known) {
+            byte[] name = encode("gateway.lan");
+            reply.putShort((short) 0xC00C).putShort((short) 12).putShort((short) 1).putInt(3600)
+                .putShort((short) name.length).put(name);
+        } else {
+            byte[] mname = encode("ns.lan");
+            byte[] rname = encode("admin.lan");
+            reply.putShort((short) 0xC00C).putShort((short) 6).putShort((short) 1).putInt(900)
+                .putShort((short) (mname.length + rname.length + 20)).put(mname).put(rname)
+                .putInt(1).putInt(3600).putInt(600).putInt(86400).putInt(120);
+        }
+        byte[] bytes = new byte[reply.position()];
+        reply.flip().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] encode(String name) {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        for (String label : name.split("\\.")) {
+            buffer.put((byte) label.length()).put(label.getBytes(StandardCharsets.US_ASCII));
+        }
+        buffer.put((byte) 0);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    @Test
+    void testResolvesAndCachesAnswers() throws Exception {
+        ReverseDnsResolver resolver = new ReverseDnsResolver(server.getLocalSocketAddress());
+        try {
+            NetworkHost gateway = new NetworkHost("10.0.0.1");
+            NetworkHost unnamed = new NetworkHost("10.0.0.2");
+            resolver.resolveInto(gateway).get(5, TimeUnit.SECONDS);
+            resolver.resolveInto(unnamed).get(5, TimeUnit.SECONDS);
+            assertEquals("gateway.lan", gateway.getHostname());
+            assertNull(unnamed.getHostname());
+            assertEquals(2, queries.get());
+
+            // Both the name and the NXDOMAIN are served from the cache
+            assertEquals("gateway.lan", resolver.lookup(TargetSpec.pack("10.0.0.1")).get(5, TimeUnit.SECONDS));
+            assertNull(resolver.lookup(TargetSpec.pack("10.0.0.2")).get(5, TimeUnit.SECONDS));
+            assertEquals(2, queries.get());
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    void testPipelinesManyQueries() throws Exception {
+        ReverseDnsResolver resolver = new ReverseDnsResolver(server.getLocalSocketAddress());
+        try {
+            List<CompletableFuture<String>> lookups = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                lookups.add(resolver.lookup(TargetSpec.pack("10.1.0.0") + i));
+            }
+            for (CompletableFuture<String> lookup : lookups) {
+                assertNull(lookup.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(300, queries.get());
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    void testLookupsAfterCloseCompleteWithNull() throws Exception {
+        ReverseDnsResolver resolver = new ReverseDnsResolver(server.getLocalSocketAddress());
+        assertEquals("gateway.lan", resolver.lookup(TargetSpec.pack("10.0.0.1")).get(5, TimeUnit.SECONDS));
+        resolver.close();
+
+        assertNull(resolver.lookup(TargetSpec.pack("10.0.0.3")).get(5, TimeUnit.SECONDS));
+        assertEquals("gateway.lan", resolver.lookup(TargetSpec.pack("10.0.0.1")).get(5, TimeUnit.SECONDS));
+        assertEquals(1, queries.get());
+    }
+}
@@ -0,0 +1,79 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RttEstimatorTest {
+
+    @Test
+    void testStartsAtTheMaximumTimeout() {
+        RttEstimator estimator = new RttEstimator(3000);
+        assertFalse(estimator.hasSamples());
+        assertEquals(3000, estimator.getTimeoutMillis());
+
+        estimator.addSample(-1);
+        assertFalse(estimator.hasSamples());
+        assertEquals(3_000_000_000L, estimator.getTimeoutNanos());
+    }
+
+    @Test
+    void testFirstSampleSeedsSrttAndRttvar() {
+        RttEstimator estimator = new RttEstimator(3000);
+        estimator.addSample(200_000);
+
+        // SRTT = R, RTTVAR = R / 2, RTO = SRTT + 4 * RTTVAR
+        assertEquals(200_000, estimator.getSmoothedRttMicros());
+        assertEquals(600, estimator.getTimeoutMillis());
+    }
+
+    @Test
+    void testLaterSamplesAreSmoothed() {
+        RttEstimator estimator = new RttEstimator(3000);
+        estimator.addSample(200_000);
+        estimator.addSample(100_000);
+
+        // RTTVAR = 3/4 * 100000 + 1/4 * |200000 - 100000| = 100000
+        // SRTT = 7/8 * 200000 + 1/8 * 100000 = 187500
+        assertEquals(187_500, estimator.getSmoothedRttMicros());
+        assertEquals(587, estimator.getTimeoutMillis());
+    }
+
+    @Test
+    void testTimeoutIsClampedToTheFloorAndCeiling() {
+        RttEstimator lan = new RttEstimator(3000);
+        lan.addSample(0);
+        assertTrue(lan.hasSamples());
+        assertEquals(100, lan.getTimeoutMillis());
+
+        RttEstimator slow = new RttEstimator(3000);
+        slow.addSample(2_000_000);
+        assertEquals(3000, slow.getTimeoutMillis());
+
+        // A ceiling below the floor is raised to it
+        assertEquals(100, new RttEstimator(10).getTimeoutMillis());
+    }
+
+    @Test
+    void testForHostSeedsFromSubMillisecondDiscovery() {
+        NetworkHost host = new NetworkHost("10.0.0.1");
+        host.setResponseTimeMicros(300);
+        assertEquals(0, host.getResponseTime());
+
+        RttEstimator estimator = RttEstimator.forHost(host, 3000);
+        assertTrue(estimator.hasSamples());
+        assertEquals(300, estimator.getSmoothedRttMicros());
+        assertEquals(100, estimator.getTimeoutMillis());
+    }
+
+    @Test
+    void testForHostFallsBackToMilliseconds() {
+        NetworkHost restored = new NetworkHost("10.0.0.2");
+        restored.setResponseTime(5);
+        assertEquals(5_000, RttEstimator.forHost(restored, 3000).getSmoothedRttMicros());
+
+        NetworkHost unmeasured = new NetworkHost("10.0.0.3");
+        assertFalse(RttEstimator.forHost(unmeasured, 3000).hasSamples());
+    }
+}
@@ -0,0 +1,118 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import edu.au.cpsc.module7.models.NetworkHost.PortState;
+import edu.au.cpsc.module7.models.NetworkHost.Protocol;
+import edu.au.cpsc.module7.models.ScanConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanCheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ScanConfiguration configuration() {
+        ScanConfiguration config = new ScanConfiguration();
+        config.setTargetRange("10.0.0.0/28, 10.0.1.1-10.0.1.20");
+        config.setScanType(ScanConfiguration.ScanType.FULL_SCAN);
+        config.setPortScanType(ScanConfiguration.PortScanType.TCP_SYN_SCAN);
+        config.setExecutionMode(ScanConfiguration.ExecutionMode.VIRTUAL_THREADS);
+        config.setPorts(List.of(22, 80, 443, 65535));
+        config.setTimeout(1500);
+        config.setThreads(32);
+        config.setRandomizeTargetOrder(true);
+        config.setDetectOS(true);
+        return config;
+    }
+
+    @Test
+    void testRoundTripKeepsProgressAndHosts() throws IOException {
+        Path file = tempDir.resolve("scan.checkpoint");
+        TargetSpec targets = TargetSpec.parse(configuration().getTargetRange());
+        ScanCheckpoint checkpoint = ScanCheckpoint.start(file, configuration());
+        checkpoint.setPhase(ScanCheckpoint.Phase.TARGET_SWEEP);
+
+        TargetSpec.TargetIterator iterator = checkpoint.iterator(targets);
+        for (int i = 0; i < 9; i++) {
+            iterator.nextAddress();
+        }
+        checkpoint.addressDispatched(0x0A000105);
+
+        NetworkHost partial = new NetworkHost("10.0.0.3");
+        partial.setHostname("db-01.example.com");
+        partial.setResponseTimeMicros(420);
+        partial.setPortState(Protocol.TCP, 22, PortState.OPEN);
+        partial.setPortState(Protocol.TCP, 80, PortState.CLOSED);
+        checkpoint.hostDiscovered(partial);
+
+        NetworkHost finished = new NetworkHost("10.0.0.7");
+        finished.setPortState(Protocol.TCP, 65535, PortState.FILTERED);
+        finished.addService("SSH (OpenSSH_9.6)");
+        checkpoint.hostDiscovered(finished);
+        checkpoint.hostFinished(finished);
+        checkpoint.save();
+
+        ScanCheckpoint loaded = ScanCheckpoint.load(file);
+        ScanConfiguration config = loaded.getConfiguration();
+        assertEquals("10.0.0.0/28, 10.0.1.1-10.0.1.20", config.getTargetRange());
+        assertEquals(ScanConfiguration.PortScanType.TCP_SYN_SCAN, config.getPortScanType());
+        assertEquals(ScanConfiguration.ExecutionMode.VIRTUAL_THREADS, config.getExecutionMode());
+        assertEquals(List.of(22, 80, 443, 65535), config.getPorts());
+        assertEquals(1500, config.getTimeout());
+        assertTrue(config.isRandomizeTargetOrder());
+        assertEquals(ScanCheckpoint.Phase.TARGET_SWEEP, loaded.getPhase());
+        assertEquals(List.of(0x0A000105), loaded.getPendingAddresses());
+
+        Map<String, NetworkHost> hosts = new HashMap<>();
+        for (NetworkHost host : loaded.getHosts()) {
+            hosts.put(host.getIpAddress(), host);
+        }
+        assertEquals(2, hosts.size());
+        NetworkHost restored = hosts.get("10.0.0.3");
+        assertFalse(loaded.isFinished(restored));
+        assertEquals("db-01.example.com", restored.getHostname());
+        assertEquals(420, restored.getResponseTimeMicros());
+        assertEquals(PortState.OPEN, restored.getPortState(Protocol.TCP, 22));
+        assertEquals(PortState.CLOSED, restored.getPortState(Protocol.TCP, 80));
+        assertNull(restored.getPortState(Protocol.TCP, 443));
+        assertTrue(loaded.isFinished(hosts.get("10.0.0.7")));
+        assertEquals(PortState.FILTERED, hosts.get("10.0.0.7").getPortState(Protocol.TCP, 65535));
+        assertEquals(List.of("SSH (OpenSSH_9.6)"), hosts.get("10.0.0.7").getServices());
+
+        // The shuffled sweep carries on where the saved one stopped
+        TargetSpec.TargetIterator resumed = loaded.iterator(targets);
+        while (iterator.hasNext()) {
+            assertEquals(iterator.nextAddress(), resumed.nextAddress());
+        }
+        assertFalse(resumed.hasNext());
+    }
+
+    @Test
+    void testOtherVersionsAreRejected() throws IOException {
+        Path file = tempDir.resolve("scan.checkpoint");
+        ScanCheckpoint.start(file, configuration()).save();
+        assertNotNull(ScanCheckpoint.load(file));
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x4E41434B);
+            out.writeInt(1);
+        }
+        assertThrows(IOException.class, () -> ScanCheckpoint.load(file));
+
+        Files.write(file, new byte[] { 'P', 'K', 3, 4, 0, 0, 0, 2 });
+        assertThrows(IOException.class, () -> ScanCheckpoint.load(file));
+
+        assertNull(ScanCheckpoint.load(tempDir.resolve("missing.checkpoint")));
+    }
+}
@@ -0,0 +1,184 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanRateControllerTest {
+
+    private static final long WINDOW_NANOS = 100_000_000L;
+
+    private long now;
+
+    private ScanRateController controller(int maxPacketsPerSecond, boolean adaptive) {
+        return new ScanRateController(maxPacketsPerSecond, adaptive, () -> now);
+    }
+
+    /**
+     * Lets a window's minimum duration pass, then records a full window of samples
+     */
+    private void window(ScanRateController controller, int responses, int timeouts, long rttMicros) {
+        now += WINDOW_NANOS;
+        for (int i = 0; i < responses; i++) {
+            controller.onResponse(rttMicros);
+        }
+        for (int i = 0; i < timeouts; i++) {
+            controller.onTimeout();
+        }
+    }
+
+    private static double rate(ScanRateController controller) {
+        return controller.getMetrics().getCurrentRate();
+    }
+
+    @Test
+    void testCleanWindowsDoubleTheRateUpToTheCeiling() {
+        ScanRateController controller = controller(1000, true);
+        assertEquals(100.0, rate(controller));
+
+        window(controller, 64, 0, 1_000);
+        assertEquals(200.0, rate(controller));
+        window(controller, 64, 0, 1_000);
+        assertEquals(400.0, rate(controller));
+        window(controller, 64, 0, 1_000);
+        assertEquals(800.0, rate(controller));
+        window(controller, 64, 0, 1_000);
+        assertEquals(1000.0, rate(controller));
+        window(controller, 64, 0, 1_000);
+        assertEquals(1000.0, rate(controller));
+        assertEquals(0, controller.getMetrics().getDecreases());
+    }
+
+    @Test
+    void testTimeoutsHalveTheRateThenGrowthIsAdditive() {
+        ScanRateController controller = controller(1000, true);
+        window(controller, 64, 0, 1_000);
+        window(controller, 64, 0, 1_000);
+        assertEquals(400.0, rate(controller));
+
+        window(controller, 40, 24, 1_000);
+        assertEquals(200.0, rate(controller));
+        assertEquals(1, controller.getMetrics().getDecreases());
+
+        // At the new threshold, each clean window adds a fiftieth of the ceiling
+        window(controller, 64, 0, 1_000);
+        assertEquals(220.0, rate(controller));
+        window(controller, 64, 0, 1_000);
+        assertEquals(240.0, rate(controller));
+    }
+
+    @Test
+    void testInflatedRoundTripsHalveTheRate() {
+        ScanRateController controller = controller(1000, true);
+        window(controller, 64, 0, 1_000);
+        assertEquals(200.0, rate(controller));
+
+        window(controller, 64, 0, 20_000);
+        assertEquals(100.0, rate(controller));
+        assertEquals(1, controller.getMetrics().getDecreases());
+    }
+
+    @Test
+    void testRateNeverFallsBelowTheFloor() {
+        ScanRateController controller = controller(1000, true);
+        window(controller, 64, 0, 1_000);
+        for (int i = 0; i < 6; i++) {
+            window(controller, 32, 32, 1_000);
+        }
+        assertEquals(10.0, rate(controller));
+    }
+
+    @Test
+    void testLossBaselineFollowsRecentWindows() {
+        ScanRateController controller = controller(1000, true);
+        window(controller, 64, 0, 1_000);
+        for (int i = 0; i < 8; i++) {
+            window(controller, 32, 32, 1_000);
+        }
+        assertEquals(10.0, rate(controller));
+        assertEquals(8, controller.getMetrics().getDecreases());
+
+        // Once the clean window ages out, the steady loss is the baseline and growth resumes
+        window(controller, 32, 32, 1_000);
+        assertEquals(30.0, rate(controller));
+        assertEquals(8, controller.getMetrics().getDecreases());
+    }
+
+    @Test
+    void testFilteredPortsOnAnsweringHostsAreNotLoss() {
+        ScanRateController controller = controller(1000, true);
+        window(controller, 64, 0, 1_000);
+        assertEquals(200.0, rate(controller));
+
+        // A mostly filtered host between clean windows: its silent ports never count as loss
+        for (int i = 0; i < 3; i++) {
+            now += WINDOW_NANOS;
+            for (int j = 0; j < 64; j++) {
+                controller.onResponse(1_000);
+                controller.onTimeout(true);
+                controller.onTimeout(true);
+            }
+        }
+        window(controller, 64, 0, 1_000);
+        assertEquals(1000.0, rate(controller));
+        assertEquals(0, controller.getMetrics().getDecreases());
+        assertEquals(384, controller.getMetrics().getTimeouts());
+
+        // Silence from hosts that never answered still does
+        window(controller, 40, 24, 1_000);
+        assertEquals(500.0, rate(controller));
+        assertEquals(1, controller.getMetrics().getDecreases());
+    }
+
+    @Test
+    void testSteadyLossIsTreatedAsTheBaseline() {
+        ScanRateController controller = controller(1000, true);
+        window(controller, 32, 32, 1_000);
+        window(controller, 32, 32, 1_000);
+        assertEquals(400.0, rate(controller));
+        assertEquals(0, controller.getMetrics().getDecreases());
+    }
+
+    @Test
+    void testSilentWindowsHoldTheRate() {
+        ScanRateController controller = controller(1000, true);
+        window(controller, 64, 0, 1_000);
+        window(controller, 0, 64, 1_000);
+        assertEquals(200.0, rate(controller));
+        assertEquals(0, controller.getMetrics().getDecreases());
+    }
+
+    @Test
+    void testWindowsWaitForTheirMinimumDuration() {
+        ScanRateController controller = controller(1000, true);
+        for (int i = 0; i < 640; i++) {
+            controller.onResponse(1_000);
+        }
+        assertEquals(100.0, rate(controller));
+    }
+
+    @Test
+    void testCeilingIsClampedAndNonAdaptiveRateIsFixed() {
+        assertEquals(10.0, controller(1, true).getMetrics().getMaxRate());
+        assertEquals(50.0, rate(controller(50, true)));
+
+        ScanRateController fixed = controller(500, false);
+        assertEquals(500.0, rate(fixed));
+        window(fixed, 0, 64, 1_000);
+        window(fixed, 64, 0, 1_000);
+        assertEquals(500.0, rate(fixed));
+    }
+
+    @Test
+    void testTokensRefillAtTheCurrentRate() {
+        ScanRateController controller = controller(1000, true);
+        assertTrue(controller.tryAcquire());
+        assertFalse(controller.tryAcquire());
+
+        now += 5_000_000L; // Half a token at 100 pps
+        assertFalse(controller.tryAcquire());
+        now += 5_000_000L;
+        assertTrue(controller.tryAcquire());
+        assertEquals(2, controller.getMetrics().getSent());
+    }
+}
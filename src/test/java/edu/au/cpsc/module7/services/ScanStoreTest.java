@@ -0,0 +1,102 @@
+package edu.au.cpsc.module7.services;
+
+import edu.au.cpsc.module7.models.NetworkHost;
+import edu.au.cpsc.module7.models.NetworkHost.PortState;
+import edu.au.cpsc.module7.models.NetworkHost.Protocol;
+import edu.au.cpsc.module7.models.ScanDiff;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static NetworkHost host(String ip, int... openPorts) {
+        NetworkHost host = new NetworkHost(ip);
+        host.setAlive(true);
+        for (int port : openPorts) {
+            host.addOpenPort(port);
+        }
+        return host;
+    }
+
+    @Test
+    void testAppendAndReadBack() throws IOException {
+        try (ScanStore store = new ScanStore(tempDir.resolve("scans.dat"))) {
+            NetworkHost high = host("200.1.1.1", 22, 65535);
+            high.setPortState(Protocol.TCP, 80, PortState.CLOSED);
+            int id = store.append("10.0.0.0/24", List.of(high, host("10.0.0.5", 443)));
+
+            ScanStore.ScanRecord record = store.getScan(id);
+            assertEquals("10.0.0.0/24", record.getTarget());
+            assertEquals(2, record.getHostCount());
+            assertEquals("10.0.0.5", record.getAddress(0));
+            assertEquals("200.1.1.1", record.getAddress(1));
+
+            NetworkHost restored = record.toHost(1);
+            assertEquals(List.of(22, 65535), restored.getOpenPorts());
+            assertEquals(PortState.CLOSED, restored.getPortState(Protocol.TCP, 80));
+        }
+    }
+
+    @Test
+    void testDiffReportsHostAndPortChanges() throws IOException {
+        try (ScanStore store = new ScanStore(tempDir.resolve("scans.dat"))) {
+            NetworkHost before = host("10.0.0.1", 22, 80);
+            int first = store.append("10.0.0.0/24", List.of(before, host("10.0.0.2", 22), host("10.0.0.3")));
+
+            NetworkHost after = host("10.0.0.1", 22, 443);
+            after.setPortState(Protocol.TCP, 80, PortState.CLOSED);
+            int second = store.append("10.0.0.0/24", List.of(after, host("10.0.0.2", 22), host("10.0.0.4")));
+
+            ScanDiff diff = store.diff(first, second);
+            assertEquals(List.of("10.0.0.4"), diff.getNewHosts());
+            assertEquals(List.of("10.0.0.3"), diff.getGoneHosts());
+            assertEquals(2, diff.getPortChanges().size());
+
+            ScanDiff.PortChange opened = diff.getPortChanges().get(0);
+            assertEquals(443, opened.getPort());
+            assertNull(opened.getBefore());
+            assertEquals(PortState.OPEN, opened.getAfter());
+
+            ScanDiff.PortChange closed = diff.getPortChanges().get(1);
+            assertEquals(80, closed.getPort());
+            assertEquals(PortState.OPEN, closed.getBefore());
+            assertEquals(PortState.CLOSED, closed.getAfter());
+
+            assertTrue(store.diff(second, second).isEmpty());
+        }
+    }
+
+    @Test
+    void testReopenFindsScansAndDropsTornRecord() throws IOException {
+        Path file = tempDir.resolve("scans.dat");
+        try (ScanStore store = new ScanStore(file)) {
+            store.append("192.168.1.0/24", List.of(host("192.168.1.1", 80)));
+            store.append("10.0.0.0/8", List.of(host("10.1.2.3")));
+        }
+        // Simulate a crash part-way through writing a third record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(java.nio.ByteBuffer.allocate(40));
+        }
+
+        try (ScanStore store = new ScanStore(file)) {
+            assertEquals(2, store.getScanCount());
+            assertEquals(0, store.findPreviousScan("192.168.1.0/24", 2));
+            assertEquals(-1, store.findPreviousScan("192.168.1.0/24", 0));
+
+            int id = store.append("192.168.1.0/24", List.of(host("192.168.1.1", 80, 8080)));
+            assertEquals(2, id);
+            assertEquals(List.of(80, 8080), store.getScan(id).toHost(0).getOpenPorts());
+        }
+    }
+}
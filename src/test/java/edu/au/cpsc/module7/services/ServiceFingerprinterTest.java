@@ -0,0 +1,78 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceFingerprinterTest {
+
+    private final ServiceFingerprinter.SignatureMatcher matcher = new ServiceFingerprinter.SignatureMatcher();
+
+    private static ByteBuffer banner(String text) {
+        return banner(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static ByteBuffer banner(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    @Test
+    void testHttpServerHeaderAfterOtherHeaders() {
+        ByteBuffer response = banner("HTTP/1.1 200 OK\r\nDate: Mon, 01 Jan 2024 00:00:00 GMT\r\n"
+                                     + "Content-Type: text/html\r\nServer: nginx/1.24.0\r\n\r\n<html>");
+        assertEquals("HTTP (nginx/1.24.0)", matcher.match(response, true));
+    }
+
+    @Test
+    void testHttpWaitsForTheEndOfTheHeaders() {
+        ByteBuffer partial = banner("HTTP/1.0 404 Not Found\r\nContent-Length: 0\r\n");
+        assertNull(matcher.match(partial, true));
+        assertEquals("HTTP", matcher.match(partial, false));
+
+        partial.put("Server: Apache\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals("HTTP (Apache)", matcher.match(partial, true));
+    }
+
+    @Test
+    void testHttpIgnoresServerLinesInTheBody() {
+        ByteBuffer response = banner("HTTP/1.1 200 OK\nContent-Type: text/plain\n\nServer: not a header\n");
+        assertEquals("HTTP", matcher.match(response, true));
+    }
+
+    @Test
+    void testGreetingSignatures() {
+        assertEquals("SSH (OpenSSH_9.6)", matcher.match(banner("SSH-2.0-OpenSSH_9.6\r\n"), true));
+        assertEquals("FTP (ProFTPD Server ready.)", matcher.match(banner("220 ProFTPD Server ready.\r\n"), true));
+        assertEquals("SMTP (mail.example.com ESMTP Postfix)",
+                     matcher.match(banner("220 mail.example.com ESMTP Postfix\r\n"), true));
+        assertEquals("FTP/SMTP (Welcome)", matcher.match(banner("220 Welcome\r\n"), true));
+        assertEquals("POP3 (Dovecot ready.)", matcher.match(banner("+OK Dovecot ready.\r\n"), true));
+        assertEquals("IMAP (Dovecot ready.)", matcher.match(banner("* OK Dovecot ready.\r\n"), true));
+        assertEquals("Redis", matcher.match(banner("+PONG\r\n"), true));
+        assertEquals("Redis", matcher.match(banner("-NOAUTH Authentication required.\r\n"), true));
+        assertEquals("VNC (003.008)", matcher.match(banner("RFB 003.008\n"), true));
+    }
+
+    @Test
+    void testBinarySignatures() {
+        assertEquals("TLS", matcher.match(banner(new byte[] { 0x16, 0x03, 0x03, 0x00, 0x31 }), true));
+        assertEquals("TLS", matcher.match(banner(new byte[] { 0x15, 0x03, 0x01, 0x00, 0x02 }), true));
+        assertEquals("Telnet", matcher.match(banner(new byte[] { (byte) 0xFF, (byte) 0xFD, 0x18 }), true));
+
+        byte[] mysql = "....\n8.0.36\0....".getBytes(StandardCharsets.ISO_8859_1);
+        mysql[3] = 0;
+        assertEquals("MySQL (8.0.36)", matcher.match(banner(mysql), true));
+    }
+
+    @Test
+    void testUnknownAndEmptyBannersMatchNothing() {
+        assertNull(matcher.match(banner("hello there\r\n"), false));
+        assertNull(matcher.match(ByteBuffer.allocate(16), false));
+        assertNull(matcher.match(null, false));
+    }
+}
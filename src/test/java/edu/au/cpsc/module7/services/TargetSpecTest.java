@@ -0,0 +1,126 @@
+package edu.au.cpsc.module7.services;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TargetSpecTest {
+
+    @Test
+    void testCidrSkipsNetworkAndBroadcast() {
+        TargetSpec spec = TargetSpec.parse("192.168.1.0/24");
+        assertEquals(254, spec.size());
+        assertEquals("192.168.1.1", TargetSpec.format(spec.addressAt(0)));
+        assertEquals("192.168.1.254", TargetSpec.format(spec.addressAt(253)));
+    }
+
+    @Test
+    void testLargeBlocksAreNotCapped() {
+        assertEquals((1L << 24) - 2, TargetSpec.parse("10.0.0.0/8").size());
+    }
+
+    @Test
+    void testRangeAcrossOctets() {
+        TargetSpec spec = TargetSpec.parse("10.0.0.250-10.0.1.5");
+        assertEquals(12, spec.size());
+
+        TargetSpec.TargetIterator iterator = spec.iterator();
+        assertEquals("10.0.0.250", TargetSpec.format(iterator.nextAddress()));
+        for (int i = 0; i < 5; i++) {
+            iterator.nextAddress();
+        }
+        assertEquals("10.0.1.0", TargetSpec.format(iterator.nextAddress()));
+    }
+
+    @Test
+    void testShorthandRange() {
+        TargetSpec spec = TargetSpec.parse("192.168.1.10-20");
+        assertEquals(11, spec.size());
+        assertEquals("192.168.1.20", TargetSpec.format(spec.addressAt(10)));
+    }
+
+    @Test
+    void testMultipleEntriesWithExclusions() {
+        TargetSpec spec = TargetSpec.parse("10.0.0.0/24, 10.0.1.1-10.0.1.10, !10.0.0.100-10.0.0.199, !10.0.1.5");
+        assertEquals(254 - 100 + 9, spec.size());
+
+        Set<Integer> seen = new HashSet<>();
+        TargetSpec.TargetIterator iterator = spec.iterator();
+        while (iterator.hasNext()) {
+            seen.add(iterator.nextAddress());
+        }
+        assertEquals(spec.size(), seen.size());
+        assertFalse(seen.contains(spec.addressAt(0) + 149));
+        assertFalse(seen.contains(TargetSpec.parse("10.0.1.5").addressAt(0)));
+    }
+
+    @Test
+    void testShuffledIteratorVisitsEveryAddressOnce() {
+        TargetSpec spec = TargetSpec.parse("172.16.0.0/22,!172.16.1.0/24");
+        Set<Integer> sequential = new HashSet<>();
+        TargetSpec.TargetIterator iterator = spec.iterator();
+        while (iterator.hasNext()) {
+            sequential.add(iterator.nextAddress());
+        }
+
+        Set<Integer> shuffled = new HashSet<>();
+        TargetSpec.TargetIterator random = spec.shuffledIterator(42);
+        while (random.hasNext()) {
+            assertTrue(shuffled.add(random.nextAddress()));
+        }
+        assertEquals(sequential, shuffled);
+        assertEquals(spec.size(), random.position());
+    }
+
+    @Test
+    void testIteratorsResumeFromCheckpoint() {
+        TargetSpec spec = TargetSpec.parse("10.0.0.250-10.0.1.5, 10.0.2.0/28");
+
+        TargetSpec.TargetIterator sequential = spec.iterator();
+        for (int i = 0; i < 9; i++) {
+            sequential.nextAddress();
+        }
+        TargetSpec.TargetIterator resumed = spec.iterator(sequential.position());
+        while (sequential.hasNext()) {
+            assertEquals(sequential.nextAddress(), resumed.nextAddress());
+        }
+        assertFalse(resumed.hasNext());
+
+        TargetSpec.TargetIterator shuffled = spec.shuffledIterator(7);
+        for (int i = 0; i < 11; i++) {
+            shuffled.nextAddress();
+        }
+        TargetSpec.TargetIterator resumedShuffle = spec.shuffledIterator(7, shuffled.position(), shuffled.cursor());
+        while (shuffled.hasNext()) {
+            assertEquals(shuffled.nextAddress(), resumedShuffle.nextAddress());
+        }
+        assertFalse(resumedShuffle.hasNext());
+    }
+
+    @Test
+    void testHostnamesAreResolved() {
+        TargetSpec spec = TargetSpec.parse("localhost");
+        assertEquals(1, spec.size());
+        assertEquals("127.0.0.1", TargetSpec.format(spec.addressAt(0)));
+    }
+
+    @Test
+    void testDashedHostnamesAreNotRanges() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> TargetSpec.parse("db-01.example.invalid"));
+        assertFalse(e instanceof NumberFormatException);
+        assertTrue(e.getMessage().contains("db-01.example.invalid"));
+    }
+
+    @Test
+    void testInvalidTargetsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.300"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.9-10.0.0.1"));
+        assertThrows(IllegalArgumentException.class, () -> TargetSpec.parse("10.0.0.1-300"));
+        assertFalse(assertThrows(IllegalArgumentException.class,
+                                 () -> TargetSpec.parse("web-2.invalid")) instanceof NumberFormatException);
+        assertTrue(TargetSpec.parse("").isEmpty());
+    }
+}